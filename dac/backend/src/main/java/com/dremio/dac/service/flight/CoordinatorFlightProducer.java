@@ -92,6 +92,10 @@ public class CoordinatorFlightProducer implements FlightProducer, AutoCloseable
   public FlightInfo getFlightInfo(CallContext callContext, FlightDescriptor desc) {
     LOGGER.debug("Got getFlightInfo request for descriptor: {}", desc);
     try {
+      if (desc.isCommand()) {
+        // command descriptors hold a jobs ticket, sys-flight uses path descriptors
+        return jobsFlightProducer.getFlightInfo(callContext, desc);
+      }
       return sysFlightProducer.getFlightInfo(callContext, desc);
     } catch (UserException e) {
       LOGGER.error("Exception while getFlightInfo: ", e);
@@ -238,7 +238,7 @@ public class TestMetadataProvider extends BaseTestQuery {
 
     assertEquals(RequestStatus.OK, resp.getStatus());
     List<TableMetadata> tables = resp.getTablesList();
-    assertEquals(30, tables.size());
+    assertEquals(33, tables.size());
 
     Iterator<TableMetadata> iterator = tables.iterator();
     verifyTable("INFORMATION_SCHEMA", "CATALOGS", iterator.next());
@@ -254,6 +254,8 @@ public class TestMetadataProvider extends BaseTestQuery {
     verifyTable("sys", "memory", iterator.next());
     verifyTable("sys", "nodes", iterator.next());
     verifyTable("sys", "options", iterator.next());
+    verifyTable("sys", "parquet_footer_cache", iterator.next());
+    verifyTable("sys", "plan_cache", iterator.next());
     verifyTable("sys", "privileges", iterator.next());
     verifyTable("sys", "reflection_dependencies", iterator.next());
     verifyTable("sys", "reflections", iterator.next());
@@ -261,6 +263,7 @@ public class TestMetadataProvider extends BaseTestQuery {
     verifyTable("sys", "roles", iterator.next());
     verifyTable("sys", "services", iterator.next());
     verifyTable("sys", "slicing_threads", iterator.next());
+    verifyTable("sys", "spill_directories", iterator.next());
     verifyTable("sys", "table_statistics", iterator.next());
     verifyTable("sys", "threads", iterator.next());
     verifyTable("sys", "timezone_abbrevs", iterator.next());
@@ -294,7 +297,7 @@ public class TestMetadataProvider extends BaseTestQuery {
 
     assertEquals(RequestStatus.OK, resp.getStatus());
     List<TableMetadata> tables = resp.getTablesList();
-    assertEquals(29, tables.size());
+    assertEquals(32, tables.size());
 
     Iterator<TableMetadata> iterator = tables.iterator();
     verifyTable("INFORMATION_SCHEMA", "CATALOGS", iterator.next());
@@ -310,6 +313,8 @@ public class TestMetadataProvider extends BaseTestQuery {
     verifyTable("sys", "memory", iterator.next());
     verifyTable("sys", "nodes", iterator.next());
     verifyTable("sys", "options", iterator.next());
+    verifyTable("sys", "parquet_footer_cache", iterator.next());
+    verifyTable("sys", "plan_cache", iterator.next());
     verifyTable("sys", "privileges", iterator.next());
     verifyTable("sys", "reflection_dependencies", iterator.next());
     verifyTable("sys", "reflections", iterator.next());
@@ -317,6 +322,7 @@ public class TestMetadataProvider extends BaseTestQuery {
     verifyTable("sys", "roles", iterator.next());
     verifyTable("sys", "services", iterator.next());
     verifyTable("sys", "slicing_threads", iterator.next());
+    verifyTable("sys", "spill_directories", iterator.next());
     verifyTable("sys", "table_statistics", iterator.next());
     verifyTable("sys", "threads", iterator.next());
     verifyTable("sys", "timezone_abbrevs", iterator.next());
@@ -337,7 +343,7 @@ public class TestMetadataProvider extends BaseTestQuery {
 
     assertEquals(RequestStatus.OK, resp.getStatus());
     List<TableMetadata> tables = resp.getTablesList();
-    assertEquals(18, tables.size());
+    assertEquals(20, tables.size());
 
     Iterator<TableMetadata> iterator = tables.iterator();
     verifyTable("INFORMATION_SCHEMA", "CATALOGS", iterator.next());
@@ -349,9 +355,11 @@ public class TestMetadataProvider extends BaseTestQuery {
     verifyTable("sys", "memory", iterator.next());
     verifyTable("sys", "nodes", iterator.next());
     verifyTable("sys", "options", iterator.next());
+    verifyTable("sys", "parquet_footer_cache", iterator.next());
     verifyTable("sys", "reflection_dependencies", iterator.next());
     verifyTable("sys", "reflections", iterator.next());
     verifyTable("sys", "roles", iterator.next());
+    verifyTable("sys", "spill_directories", iterator.next());
     verifyTable("sys", "timezone_abbrevs", iterator.next());
     verifyTable("sys", "timezone_names", iterator.next());
     verifyTable("sys", "version", iterator.next());
@@ -386,7 +394,7 @@ public class TestMetadataProvider extends BaseTestQuery {
     assertEquals(RequestStatus.OK, resp1.getStatus());
 
     final List<ColumnMetadata> columns1 = resp1.getColumnsList();
-    assertEquals(277, columns1.size());
+    assertEquals(307, columns1.size());
     assertTrue("incremental update column shouldn't be returned",
       columns1.stream().noneMatch(input -> input.getColumnName().equals(IncrementalUpdateUtils.UPDATE_COLUMN)));
   }
@@ -400,7 +408,7 @@ public class TestMetadataProvider extends BaseTestQuery {
 
     assertEquals(RequestStatus.OK, resp.getStatus());
     List<ColumnMetadata> columns = resp.getColumnsList();
-    assertEquals(23, columns.size());
+    assertEquals(26, columns.size());
 
     Iterator<ColumnMetadata> iterator = columns.iterator();
     verifyColumn("INFORMATION_SCHEMA", "COLUMNS", "ORDINAL_POSITION", iterator.next());
@@ -419,10 +427,13 @@ public class TestMetadataProvider extends BaseTestQuery {
     verifyColumn("sys", "memory", "fabric_port", iterator.next());
     verifyColumn("sys", "nodes", "user_port", iterator.next());
     verifyColumn("sys", "nodes", "fabric_port", iterator.next());
+    verifyColumn("sys", "parquet_footer_cache", "fabric_port", iterator.next());
+    verifyColumn("sys", "plan_cache", "fabric_port", iterator.next());
     verifyColumn("sys", "reflection_dependencies", "dependency_path", iterator.next());
     verifyColumn("sys", "services", "user_port", iterator.next());
     verifyColumn("sys", "services", "fabric_port", iterator.next());
     verifyColumn("sys", "slicing_threads", "fabric_port", iterator.next());
+    verifyColumn("sys", "spill_directories", "fabric_port", iterator.next());
     verifyColumn("sys", "threads", "fabric_port", iterator.next());
     verifyColumn("sys.cache", "datasets", "storage_plugin_name", iterator.next());
     verifyColumn("sys.cache", "mount_points", "mount_point_path", iterator.next());
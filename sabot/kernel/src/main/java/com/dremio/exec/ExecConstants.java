@@ -35,6 +35,7 @@ import com.dremio.options.TypeValidators.RangeDoubleValidator;
 import com.dremio.options.TypeValidators.RangeLongValidator;
 import com.dremio.options.TypeValidators.StringValidator;
 import com.dremio.sabot.op.common.hashtable.HashTable;
+import com.dremio.sabot.op.sort.external.SpillCompression;
 import com.dremio.service.spill.DefaultSpillServiceOptions;
 
 @Options
@@ -57,8 +58,16 @@ public interface ExecConstants {
   String INCOMING_BUFFER_SIZE = "dremio.exec.buffer.size";
   String SPOOLING_BUFFER_DELETE = "dremio.exec.buffer.spooling.delete";
   String SPOOLING_BUFFER_SIZE = "dremio.exec.buffer.spooling.size";
+  /* max number of batches queued by a spooling buffer before it spools regardless of the consumption rate */
+  String SPOOLING_BUFFER_MAX_SIZE = "dremio.exec.buffer.spooling.max_size";
+  /* max time the consumer of a spooling buffer may need to drain the queued batches before they get spooled */
+  String SPOOLING_BUFFER_MAX_DRAIN_MILLIS = "dremio.exec.buffer.spooling.max_drain_millis";
+  /* number of spooled batches read back ahead of the consumer */
+  String SPOOLING_BUFFER_PREFETCH = "dremio.exec.buffer.spooling.prefetch";
   String BATCH_PURGE_THRESHOLD = "dremio.exec.sort.purge.threshold";
   String SPILL_DIRS = "dremio.exec.sort.external.spill.directories";
+  /* max estimated heap size of the parquet footers and page indexes cached by an executor, 0 to disable the cache */
+  String PARQUET_FOOTER_CACHE_MAX_SIZE = "dremio.exec.parquet.footer_cache.max_size";
   String HTTP_ENABLE = "dremio.exec.http.enabled";
 
   /* Spill disk space configurations */
@@ -68,6 +77,7 @@ public interface ExecConstants {
   DoubleValidator SPILL_DISK_SPACE_LIMIT_PERCENTAGE = new RangeDoubleValidator("dremio.exec.spill.limit.percentage", 0.0, 100.0, DefaultSpillServiceOptions.MIN_DISK_SPACE_PCT);
   PositiveLongValidator SPILL_SWEEP_INTERVAL = new PositiveLongValidator("dremio.exec.spill.sweep.interval", Long.MAX_VALUE, DefaultSpillServiceOptions.SPILL_SWEEP_INTERVAL);
   PositiveLongValidator SPILL_SWEEP_THRESHOLD = new PositiveLongValidator("dremio.exec.spill.sweep.threshold", Long.MAX_VALUE, DefaultSpillServiceOptions.SPILL_SWEEP_THRESHOLD);
+  DoubleValidator SPILL_SLOW_DIRECTORY_FACTOR = new RangeDoubleValidator("dremio.exec.spill.slow_directory_factor", 1.0, Double.MAX_VALUE, DefaultSpillServiceOptions.SLOW_DIRECTORY_FACTOR);
 
   // Set this value to set the execution preference
   // Default value to use in the operators (for now, only projector and filter use this default)
@@ -162,6 +172,10 @@ public interface ExecConstants {
   BooleanValidator ENABLE_VECTORIZED_COPIER = new BooleanValidator("exec.operator.copier.vectorize", true);
   BooleanValidator ENABLE_VECTORIZED_COMPLEX_COPIER = new BooleanValidator("exec.operator.copier.complex.vectorize", true);
   BooleanValidator ENABLE_NATIVE_HASHTABLE_FOR_JOIN = new BooleanValidator("exec.join.hashtable.native", false);
+  // number of keys probed together in large join hash tables, to overlap their cache misses. 0 to probe one at a time.
+  RangeLongValidator HASHTABLE_PROBE_GROUP_SIZE = new RangeLongValidator("exec.join.hashtable.probe_group_size", 0, 256, 16);
+  // inner and left broadcast hash joins build one table per node, probed by all the fragments of the join on the node.
+  BooleanValidator ENABLE_SHARED_BROADCAST_JOIN_BUILD = new BooleanValidator("exec.join.broadcast.shared_build", false);
   BooleanValidator ENABLE_VECTORIZED_PARTITIONER = new BooleanValidator("exec.operator.partitioner.vectorize", true);
   BooleanValidator DEBUG_HASHJOIN_INSERTION = new BooleanValidator("exec.operator.join.debug-insertion", false);
 
@@ -233,6 +247,9 @@ public interface ExecConstants {
   BooleanValidator JSON_READER_ALL_TEXT_MODE_VALIDATOR = new BooleanValidator(JSON_ALL_TEXT_MODE, false);
   BooleanValidator JSON_EXTENDED_TYPES = new BooleanValidator("store.json.extended_types", false);
   BooleanValidator JSON_WRITER_UGLIFY = new BooleanValidator("store.json.writer.uglify", false);
+  // split uncompressed json files at block boundaries, each split reading the records starting in it. Only correct when
+  // each record of the files is on a single line.
+  BooleanValidator JSON_BLOCK_SPLITTABLE = new BooleanValidator("store.json.block_splittable", false);
 
   DoubleValidator TEXT_ESTIMATED_ROW_SIZE = new RangeDoubleValidator(
       "store.text.estimated_row_size_bytes", 1, Long.MAX_VALUE, 10.0);
@@ -369,6 +386,12 @@ public interface ExecConstants {
   String BOOTSTRAP_STORAGE_PLUGINS_FILE = "bootstrap-storage-plugins.json";
   String MAX_LOADING_CACHE_SIZE_CONFIG = "dremio.exec.compile.cache_max_size";
   String MAX_SPLIT_CACHE_SIZE_CONFIG = "dremio.exec.compile.split_cache_max_size";
+  // local, on disk cache of the bytecode of the generated classes, kept across restarts
+  String CODE_CACHE_ENABLED_CONFIG = "dremio.exec.compile.persistent_cache.enabled";
+  String CODE_CACHE_PATH_CONFIG = "dremio.exec.compile.persistent_cache.path";
+  String CODE_CACHE_MAX_ENTRIES_CONFIG = "dremio.exec.compile.persistent_cache.max_entries";
+  // max size of the entries of the cache read in memory at startup
+  String CODE_CACHE_MAX_WARM_SIZE_CONFIG = "dremio.exec.compile.persistent_cache.max_warm_size";
 
 
   String ENABLE_WINDOW_FUNCTIONS = "window.enable";
@@ -411,6 +434,19 @@ public interface ExecConstants {
   LongValidator PARQUET_FULL_FILE_READ_THRESHOLD = new RangeLongValidator("store.parquet.full_file_read.threshold", 0, Integer.MAX_VALUE, 0);
   DoubleValidator PARQUET_FULL_FILE_READ_COLUMN_RATIO = new RangeDoubleValidator("store.parquet.full_file_read.column_ratio", 0.0, 1.0, 0.25);
   BooleanValidator PARQUET_CACHED_ENTITY_SET_FILE_SIZE = new BooleanValidator("store.parquet.set_file_length",true);
+  // read the footers and page indexes through the executor wide cache, see PARQUET_FOOTER_CACHE_MAX_SIZE
+  BooleanValidator PARQUET_FOOTER_CACHE_ENABLED = new BooleanValidator("store.parquet.footer_cache.enabled", true);
+  // fetch the projected column chunks of a row group ahead, with few merged requests issued in parallel, when the file
+  // system supports async reads
+  BooleanValidator PARQUET_COALESCED_READS_ENABLED = new BooleanValidator("store.parquet.coalesced_reads.enabled", false);
+  // column chunks at most this many bytes apart are read with a single request
+  LongValidator PARQUET_COALESCED_READS_MAX_GAP = new RangeLongValidator("store.parquet.coalesced_reads.max_gap", 0, 64 * 1024 * 1024, 1024 * 1024);
+  // merged reads larger than this are split into requests issued in parallel
+  LongValidator PARQUET_COALESCED_READS_MAX_REQUEST_SIZE = new RangeLongValidator("store.parquet.coalesced_reads.max_request_size", 64 * 1024, 1024 * 1024 * 1024, 8 * 1024 * 1024);
+  // bytes of the column chunks of a row group a reader fetches ahead, the chunks past it are read as usual
+  LongValidator PARQUET_COALESCED_READS_MAX_BUFFERED = new RangeLongValidator("store.parquet.coalesced_reads.max_buffered", 0, Integer.MAX_VALUE, 64 * 1024 * 1024);
+  // bytes of the requests in flight of a query on an executor
+  LongValidator PARQUET_COALESCED_READS_MAX_IN_FLIGHT = new RangeLongValidator("store.parquet.coalesced_reads.max_in_flight", 1024 * 1024, Integer.MAX_VALUE, 256 * 1024 * 1024);
   BooleanValidator PARQUET_COLUMN_ORDERING = new BooleanValidator("store.parquet.column_ordering", false);
 
   BooleanValidator HIVE_COMPLEXTYPES_ENABLED = new BooleanValidator("store.hive.parquet.support_complex_types", true);
@@ -436,14 +472,27 @@ public interface ExecConstants {
   PositiveLongValidator PLANNER_IN_SUBQUERY_THRESHOLD = new PositiveLongValidator("planner.in.subquery.threshold", Character.MAX_VALUE, 20);
 
   BooleanValidator EXTERNAL_SORT_COMPRESS_SPILL_FILES = new BooleanValidator("exec.operator.sort.external.compress_spill_files", true);
+  EnumValidator<SpillCompression> EXTERNAL_SORT_SPILL_COMPRESSION = new EnumValidator<>("exec.operator.sort.external.spill_compression", SpillCompression.class, SpillCompression.LZ4);
   BooleanValidator EXTERNAL_SORT_ENABLE_SPLAY_SORT = new BooleanValidator("exec.operator.sort.external.enable_splay_sort", false);
+  // radix sort the records on their leading fixed width sort keys, rather than comparing them. Takes several times the
+  // memory of the quick sorter per record.
+  BooleanValidator EXTERNAL_SORT_ENABLE_RADIX_SORT = new BooleanValidator("exec.operator.sort.external.enable_radix_sort", false);
   BooleanValidator EXTERNAL_SORT_ENABLE_MICRO_SPILL = new BooleanValidator("exec.operator.sort.external.enable_micro_spill", true);
   PositiveLongValidator SORT_MAX_WRITE_BATCH = new PositiveLongValidator("exec.operator.sort.external.spill_batch_records", Character.MAX_VALUE, Character.MAX_VALUE);
   BooleanValidator EXTERNAL_SORT_ARROW_ENCODING = new BooleanValidator("exec.operator.sort.external.arrow_encoding", true);
   BooleanValidator EXTERNAL_SORT_DIRECT_WRITE = new BooleanValidator("exec.operator.sort.external.direct_write", true);
+  BooleanValidator EXTERNAL_SORT_ASYNC_SPILL_IO = new BooleanValidator("exec.operator.sort.external.async_spill_io", false);
+  PositiveLongValidator EXTERNAL_SORT_ASYNC_SPILL_IO_BUFFER_SIZE = new PositiveLongValidator("exec.operator.sort.external.async_spill_io.buffer_size", 64 * 1024 * 1024, 256 * 1024);
+  RangeLongValidator EXTERNAL_SORT_ASYNC_SPILL_IO_BUFFERS = new RangeLongValidator("exec.operator.sort.external.async_spill_io.buffers", 2, 64, 2);
   BooleanValidator EXTERNAL_SORT_VECTOR_COPIER = new BooleanValidator("exec.operator.sort.external.vector_copier", true);
   DoubleValidator EXTERNAL_SORT_SPILL_ALLOCATION_DENSITY = new RangeDoubleValidator("exec.operator.sort.external.spill.allocation_density", 0.0, Double.MAX_VALUE, 0.01);
 
+  // compression of spill files, shared by all the spilling operators (the codec is chosen per operator)
+  RangeLongValidator SPILL_COMPRESSION_LEVEL = new RangeLongValidator("exec.spill.compression.level", SpillCompression.MIN_LEVEL, SpillCompression.MAX_LEVEL, 9);
+  DoubleValidator SPILL_COMPRESSION_MAX_RATIO = new RangeDoubleValidator("exec.spill.compression.max_ratio", 0.0, 1.0, 0.9);
+  // threads of the background spill writes and read-ahead, shared by all the spilling operators of the node
+  RangeLongValidator SPILL_ASYNC_IO_THREADS = new RangeLongValidator("exec.spill.async_io.threads", 1, 256, 8);
+
   PositiveLongValidator EXTERNAL_SORT_BATCHSIZE_MULTIPLIER = new PositiveLongValidator("exec.operator.sort.external.batchsize_multiplier", Character.MAX_VALUE, 2);
 
   LongValidator VOTING_SCHEDULE = new PositiveLongValidator("vote.schedule.millis", Long.MAX_VALUE, 0);
@@ -506,6 +555,8 @@ public interface ExecConstants {
   BooleanValidator SLICING_THREAD_MONITOR = new BooleanValidator("dremio.sliced.enable_monitor", true);
   PositiveLongValidator SLICING_THREAD_MIGRATION_MULTIPLE = new com.dremio.options.TypeValidators.PositiveLongValidator("dremio.sliced.migration_multiple", Long.MAX_VALUE, 50);
   PositiveLongValidator SLICING_THREAD_SPINDOWN_MULTIPLE = new com.dremio.options.TypeValidators.PositiveLongValidator("dremio.sliced.spindown_multiple", Long.MAX_VALUE, 100);
+  // number of threads of the slicing task pool, 0 for one per core
+  RangeLongValidator SLICING_NUM_THREADS = new RangeLongValidator("dremio.sliced.num_threads", 0, 1024, 0);
 
   // warning threshold for spilling
   PositiveLongValidator SPILL_IO_WARN_MAX_RUNTIME_MS = new PositiveLongValidator("dremio.spill.warn_max_runtime", Long.MAX_VALUE, 3000);
@@ -538,6 +589,8 @@ public interface ExecConstants {
   BooleanValidator ENABLE_RUNTIME_FILTER_ON_NON_PARTITIONED_PARQUET =  new BooleanValidator("exec.non_partitioned_parquet.enable_runtime_filter", false); // in beta right now
   RangeLongValidator RUNTIME_FILTER_VALUE_FILTER_MAX_SIZE = new RangeLongValidator("exec.non_partitioned_parquet.runtime_filter.max_size", 10, 1_000_000, 100);
   RangeLongValidator RUNTIME_FILTER_KEY_MAX_SIZE = new RangeLongValidator("exec.runtime_filter.max_key_size", 32, 1_024, 128);
+  // skip the row groups of non partitioned parquet whose statistics, column index or dictionary don't match the runtime filters
+  BooleanValidator RUNTIME_FILTER_PRUNE_PARQUET_ROW_GROUPS = new BooleanValidator("exec.non_partitioned_parquet.runtime_filter.prune_row_groups", true);
 
   String ENABLE_PARQUET_VECTORIZED_COMPLEX_READERS_KEY = "exec.parquet.enable_vectorized_complex";
   BooleanValidator ENABLE_PARQUET_VECTORIZED_COMPLEX_READERS = new BooleanValidator(ENABLE_PARQUET_VECTORIZED_COMPLEX_READERS_KEY, true);
@@ -16,6 +16,7 @@
 package com.dremio.exec.compile;
 
 import java.io.IOException;
+import java.util.function.Consumer;
 
 import org.codehaus.commons.compiler.CompileException;
 
@@ -169,35 +170,63 @@ public class ClassTransformer {
       final TemplateClassDefinition<?> templateDefinition,
       final String entireClass,
       final String materializedClassName) throws ClassTransformationException {
-    return getExtendedImplementationClass(classLoader, templateDefinition, entireClass, materializedClassName);
+    return getImplementationClass(classLoader, templateDefinition, entireClass, materializedClassName, null);
+  }
+
+  /**
+   * Compile and load a generated class.
+   *
+   * @param compiled if not null, receives the bytecode of the class once compiled, with the time it took to compile it
+   */
+  public Class<?> getImplementationClass(
+      final QueryClassLoader classLoader,
+      final TemplateClassDefinition<?> templateDefinition,
+      final String entireClass,
+      final String materializedClassName,
+      final Consumer<PersistentCodeCache.Entry> compiled) throws ClassTransformationException {
+    return getExtendedImplementationClass(classLoader, templateDefinition, entireClass, materializedClassName, compiled);
+  }
+
+  /**
+   * Load a generated class from its bytecode, compiled earlier.
+   */
+  public Class<?> getImplementationClass(
+      final QueryClassLoader classLoader,
+      final TemplateClassDefinition<?> templateDefinition,
+      final PersistentCodeCache.Entry entry) throws ClassTransformationException {
+    try {
+      return loadImplementationClass(classLoader, templateDefinition, entry.getClassName(), entry.getClasses());
+    } catch (IOException | ClassNotFoundException | LinkageError e) {
+      throw new ClassTransformationException("Failure loading cached transformation classes.", e);
+    }
   }
 
   private Class<?> getExtendedImplementationClass(
       final QueryClassLoader classLoader,
       final TemplateClassDefinition<?> templateDefinition,
       final String entireClass,
-      final String materializedClassName) throws ClassTransformationException {
+      final String materializedClassName,
+      final Consumer<PersistentCodeCache.Entry> compiled) throws ClassTransformationException {
 
     try {
       final long t1 = System.nanoTime();
       final ClassSet set = new ClassSet(null, templateDefinition.getTemplateClassName(), materializedClassName);
       final ClassBytes[] implementationClasses = classLoader.getClassByteCode(set.generated, entireClass);
+      final long compileNanos = System.nanoTime() - t1;
 
       long totalBytecodeSize = 0;
       for (ClassBytes clazz : implementationClasses) {
         totalBytecodeSize += clazz.getBytes().length;
-        classLoader.injectByteCode(clazz.getName(), clazz.getBytes());
       }
 
-      Class<?> c = classLoader.findClass(set.generated.dot);
-      if (templateDefinition.getExternalInterface().isAssignableFrom(c)) {
-        if (logger.isDebugEnabled()) {
-          logger.debug("Done compiling (bytecode size={}, time:{} millis).", DremioStringUtils.readable(totalBytecodeSize), (System.nanoTime() - t1) / 1000000);
-        }
-        return c;
+      Class<?> c = loadImplementationClass(classLoader, templateDefinition, set.generated.dot, implementationClasses);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Done compiling (bytecode size={}, time:{} millis).", DremioStringUtils.readable(totalBytecodeSize), (System.nanoTime() - t1) / 1000000);
       }
-
-      throw new ClassTransformationException("The requested class did not implement the expected interface.");
+      if (compiled != null) {
+        compiled.accept(new PersistentCodeCache.Entry(set.generated.dot, implementationClasses, compileNanos));
+      }
+      return c;
     } catch (CompileException | IOException | ClassNotFoundException e) {
       if (optionManager.getOption(ExecConstants.JAVA_CODE_DUMP)) {
         logger.info(String.format("Failure generating transformation classes for value: \n %s", entireClass));
@@ -206,4 +235,21 @@ public class ClassTransformer {
     }
   }
 
+  private Class<?> loadImplementationClass(
+      final QueryClassLoader classLoader,
+      final TemplateClassDefinition<?> templateDefinition,
+      final String className,
+      final ClassBytes[] implementationClasses) throws IOException, ClassNotFoundException, ClassTransformationException {
+    for (ClassBytes clazz : implementationClasses) {
+      classLoader.injectByteCode(clazz.getName(), clazz.getBytes());
+    }
+
+    Class<?> c = classLoader.findClass(className);
+    if (templateDefinition.getExternalInterface().isAssignableFrom(c)) {
+      return c;
+    }
+
+    throw new ClassTransformationException("The requested class did not implement the expected interface.");
+  }
+
 }
@@ -29,6 +29,7 @@ import com.dremio.exec.expr.ClassGenerator;
 import com.dremio.exec.expr.CodeGenerator;
 import com.dremio.exec.expr.ExpressionEvalInfo;
 import com.dremio.options.OptionManager;
+import com.dremio.telemetry.api.metrics.Metrics;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -43,8 +44,19 @@ public class CodeCompiler {
   private final ClassCompilerSelector selector;
   private final LoadingCache<CodeGenerator<?>, GeneratedClassEntry> generatedCodeToCompiledClazzCache;
   private final LoadingCache<ExpressionsHolder, GeneratedClassEntryWithFunctionErrorContextSizeInfo> expressionsToCompiledClazzCache;
+  private final PersistentCodeCache persistentCache;
 
   public CodeCompiler(final SabotConfig config, final OptionManager optionManager) {
+    this(config, optionManager, PersistentCodeCache.fromConfig(config));
+  }
+
+  /**
+   * @param persistentCache on disk cache of the compiled classes, shared with the other queries and kept across
+   *                        restarts, or null to compile the classes generated first by this compiler
+   */
+  public CodeCompiler(final SabotConfig config, final OptionManager optionManager,
+                      final PersistentCodeCache persistentCache) {
+    this.persistentCache = persistentCache;
     transformer = new ClassTransformer(optionManager);
     selector = new ClassCompilerSelector(config, optionManager);
     final int cacheMaxSize = config.getInt(ExecConstants.MAX_LOADING_CACHE_SIZE_CONFIG);
@@ -56,6 +68,12 @@ public class CodeCompiler {
       .softValues()
       .maximumSize(cacheMaxSize)
       .build(new ExpressionsToCompiledClazzCacheLoader());
+    if (persistentCache != null) {
+      Metrics.newGauge(Metrics.join("code_cache", "entries"), persistentCache::getEntries);
+      Metrics.newGauge(Metrics.join("code_cache", "hits"), persistentCache::getHits);
+      Metrics.newGauge(Metrics.join("code_cache", "misses"), persistentCache::getMisses);
+      Metrics.newGauge(Metrics.join("code_cache", "compile_time_saved_ms"), persistentCache::getCompileMillisSaved);
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -114,17 +132,39 @@ public class CodeCompiler {
     this.expressionsToCompiledClazzCache.invalidateAll();
   }
 
+  /**
+   * Compile a generated class, or load its bytecode from the persistent cache if another query compiled it before.
+   */
+  private Class<?> compile(final CodeGenerator<?> cg) throws ClassTransformationException {
+    if (persistentCache == null) {
+      return transformer.getImplementationClass(new QueryClassLoader(selector), cg.getDefinition(),
+        cg.getGeneratedCode(), cg.getMaterializedClassName());
+    }
+
+    final String key = persistentCache.key(cg.getDefinition().getTemplateClassName(), cg.getGenerifiedCode());
+    final PersistentCodeCache.Entry entry = persistentCache.get(key);
+    if (entry != null) {
+      try {
+        return transformer.getImplementationClass(new QueryClassLoader(selector), cg.getDefinition(), entry);
+      } catch (ClassTransformationException e) {
+        logger.warn("Unable to load the cached class {}, compiling it again", entry.getClassName(), e);
+        persistentCache.invalidate(key);
+      }
+    }
+    return transformer.getImplementationClass(new QueryClassLoader(selector), cg.getDefinition(),
+      cg.getGeneratedCode(), cg.getMaterializedClassName(), compiled -> persistentCache.put(key, compiled));
+  }
+
   private class ExpressionsToCompiledClazzCacheLoader extends CacheLoader<ExpressionsHolder,
     GeneratedClassEntryWithFunctionErrorContextSizeInfo> {
     @Override
     public GeneratedClassEntryWithFunctionErrorContextSizeInfo load(final ExpressionsHolder expressionsHolder) throws Exception {
-      final QueryClassLoader loader = new QueryClassLoader(selector);
       ClassGenerator<?> rootGenerator = expressionsHolder.cg.getRoot();
       final int currentCount = rootGenerator.getFunctionErrorContextsCount();
       CodeGenerator<?> cg = expressionsHolder.cg;
       cg.getRoot().evaluateAllLazyExps();
       cg.generate();
-      final Class<?> c = transformer.getImplementationClass(loader, cg.getDefinition(), cg.getGeneratedCode(), cg.getMaterializedClassName());
+      final Class<?> c = compile(cg);
       final GeneratedClassEntryWithFunctionErrorContextSizeInfo ce =
         new GeneratedClassEntryWithFunctionErrorContextSizeInfo(c,
           rootGenerator.getFunctionErrorContextsCount() - currentCount);
@@ -137,9 +177,7 @@ public class CodeCompiler {
     @Override
     public GeneratedClassEntry load(final CodeGenerator<?> cg) throws Exception {
       logger.debug("In Cache load; Compile code");
-      final QueryClassLoader loader = new QueryClassLoader(selector);
-      final Class<?> c = transformer.getImplementationClass(loader, cg.getDefinition(),
-        cg.getGeneratedCode(), cg.getMaterializedClassName());
+      final Class<?> c = compile(cg);
       logger.debug("Exit Cache load");
       return new GeneratedClassEntry(c);
     }
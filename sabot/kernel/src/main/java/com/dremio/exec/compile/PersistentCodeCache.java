@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dremio.common.config.SabotConfig;
+import com.dremio.common.util.DremioVersionInfo;
+import com.dremio.exec.ExecConstants;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+/**
+ * Local, on disk cache of the bytecode of the generated classes, shared by the queries and the restarts of the
+ * executor.
+ *
+ * Entries are content addressed: they are keyed by a hash of the template and of the generified source of the
+ * generated class, which doesn't depend on the number of the class. The entries of a Dremio version live in their
+ * own directory, named after the version with a dedicated prefix. The directories of other versions are deleted when
+ * the cache is opened, any other directory under the root of the cache is left alone.
+ *
+ * The most recently used entries are read back in memory when the cache is opened, up to a total size, so that the
+ * first queries after a restart don't compile their classes again. The others are read from disk on demand.
+ *
+ * Once the cache is full, the least recently used entries are deleted to make room for the new ones.
+ */
+public class PersistentCodeCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PersistentCodeCache.class);
+
+  private static final int MAGIC = 0xD7E3C0DE;
+  private static final String SUFFIX = ".class";
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final String VERSION_DIR_PREFIX = "codecache-";
+  private static final int MAX_CLASS_BYTES = 64 * 1024 * 1024;
+  // a full cache evicts down to this fraction of its entries, so that it isn't listed again by every put
+  private static final double EVICTION_FRACTION = 0.9;
+  @VisibleForTesting
+  static final long DEFAULT_MAX_WARM_BYTES = 64 * 1024 * 1024;
+
+  private final Path directory;
+  private final String version;
+  private final int maxEntries;
+  private final long maxWarmBytes;
+  private final ConcurrentMap<String, Entry> warmed = new ConcurrentHashMap<>();
+  private final AtomicInteger entries = new AtomicInteger();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong compileNanosSaved = new AtomicLong();
+
+  /**
+   * Compiled bytecode of a generated class and its inner classes.
+   */
+  public static final class Entry {
+    private final String className;
+    private final ClassBytes[] classes;
+    private final long compileNanos;
+
+    public Entry(String className, ClassBytes[] classes, long compileNanos) {
+      this.className = className;
+      this.classes = classes;
+      this.compileNanos = compileNanos;
+    }
+
+    /**
+     * @return the name the generated class was compiled with
+     */
+    public String getClassName() {
+      return className;
+    }
+
+    public ClassBytes[] getClasses() {
+      return classes;
+    }
+
+    /**
+     * @return the time it took to compile the class, saved by every hit
+     */
+    public long getCompileNanos() {
+      return compileNanos;
+    }
+  }
+
+  public PersistentCodeCache(Path root, String version, int maxEntries) throws IOException {
+    this(root, version, maxEntries, DEFAULT_MAX_WARM_BYTES);
+  }
+
+  /**
+   * @param root         root directory of the cache
+   * @param version      version of Dremio, the entries of other versions are deleted
+   * @param maxEntries   maximum number of entries on disk
+   * @param maxWarmBytes maximum size of the entries read in memory when the cache is opened
+   */
+  public PersistentCodeCache(Path root, String version, int maxEntries, long maxWarmBytes) throws IOException {
+    Preconditions.checkArgument(maxEntries > 0, "maximum number of entries must be positive");
+    this.version = version;
+    this.maxEntries = maxEntries;
+    this.maxWarmBytes = maxWarmBytes;
+    this.directory = root.resolve(VERSION_DIR_PREFIX + version.replaceAll("[^A-Za-z0-9._-]", "_"));
+    Files.createDirectories(directory);
+    deleteOtherVersions(root);
+    warm();
+  }
+
+  /**
+   * Open the cache configured under {@link ExecConstants#CODE_CACHE_ENABLED_CONFIG}.
+   *
+   * @return the cache, or null if it is disabled or can't be opened
+   */
+  public static PersistentCodeCache fromConfig(SabotConfig config) {
+    if (!config.hasPath(ExecConstants.CODE_CACHE_ENABLED_CONFIG)
+      || !config.getBoolean(ExecConstants.CODE_CACHE_ENABLED_CONFIG)) {
+      return null;
+    }
+    final Path root = Paths.get(config.getString(ExecConstants.CODE_CACHE_PATH_CONFIG));
+    final long maxWarmBytes = config.hasPath(ExecConstants.CODE_CACHE_MAX_WARM_SIZE_CONFIG)
+      ? config.getBytes(ExecConstants.CODE_CACHE_MAX_WARM_SIZE_CONFIG) : DEFAULT_MAX_WARM_BYTES;
+    try {
+      return new PersistentCodeCache(root, DremioVersionInfo.getVersion(),
+        config.getInt(ExecConstants.CODE_CACHE_MAX_ENTRIES_CONFIG), maxWarmBytes);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Unable to open the generated code cache in {}, generated classes will be compiled by every executor",
+        root, e);
+      return null;
+    }
+  }
+
+  /**
+   * Key of a generated class, a hash of the Dremio version, of its template and of its generified source.
+   */
+  public String key(String templateClassName, String generifiedCode) {
+    final Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(version, StandardCharsets.UTF_8).putByte((byte) 0);
+    hasher.putString(templateClassName, StandardCharsets.UTF_8).putByte((byte) 0);
+    hasher.putString(generifiedCode, StandardCharsets.UTF_8);
+    return hasher.hash().toString();
+  }
+
+  /**
+   * @return the entry of the key, or null if the class was never compiled, or its entry can't be read
+   */
+  public Entry get(String key) {
+    final Path file = directory.resolve(key + SUFFIX);
+    Entry entry = warmed.get(key);
+    if (entry == null) {
+      entry = read(file);
+    }
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    touch(file);
+    hits.incrementAndGet();
+    compileNanosSaved.addAndGet(entry.getCompileNanos());
+    return entry;
+  }
+
+  /**
+   * Store the compiled bytecode of a class. Entries are written to a temporary file first, and then moved to their
+   * key, so that a concurrent reader never sees a partial entry. Failures are only logged.
+   */
+  public void put(String key, Entry entry) {
+    final Path file = directory.resolve(key + SUFFIX);
+    if (Files.exists(file)) {
+      return;
+    }
+    if (entries.get() >= maxEntries) {
+      evict();
+    }
+    Path tmp = null;
+    try {
+      tmp = Files.createTempFile(directory, key, TMP_SUFFIX);
+      try (OutputStream out = Files.newOutputStream(tmp);
+           DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+        write(entry, data);
+      }
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+      tmp = null;
+      entries.incrementAndGet();
+    } catch (IOException e) {
+      logger.warn("Unable to write the generated class {} in the code cache", entry.getClassName(), e);
+    } finally {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+          logger.debug("Unable to delete {}", tmp, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Drop an entry which couldn't be loaded.
+   */
+  public void invalidate(String key) {
+    warmed.remove(key);
+    try {
+      if (Files.deleteIfExists(directory.resolve(key + SUFFIX))) {
+        entries.decrementAndGet();
+      }
+    } catch (IOException e) {
+      logger.debug("Unable to delete the code cache entry {}", key, e);
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getCompileMillisSaved() {
+    return TimeUnit.NANOSECONDS.toMillis(compileNanosSaved.get());
+  }
+
+  public int getEntries() {
+    return entries.get();
+  }
+
+  @VisibleForTesting
+  int getWarmedEntries() {
+    return warmed.size();
+  }
+
+  @VisibleForTesting
+  Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Delete the least recently used entries, by modification time as {@link #warm()} orders them, till the cache is
+   * below its maximum number of entries.
+   */
+  private synchronized void evict() {
+    if (entries.get() < maxEntries) {
+      // evicted by a concurrent put
+      return;
+    }
+    final List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    } catch (IOException e) {
+      logger.warn("Unable to list the code cache entries in {}", directory, e);
+      return;
+    }
+    entries.set(files.size());
+    files.sort(Comparator.comparing(PersistentCodeCache::lastModified));
+
+    final int keep = Math.min(maxEntries - 1, (int) (maxEntries * EVICTION_FRACTION));
+    for (Path file : files.subList(0, Math.max(0, files.size() - keep))) {
+      warmed.remove(keyOf(file));
+      try {
+        if (Files.deleteIfExists(file)) {
+          entries.decrementAndGet();
+        }
+      } catch (IOException e) {
+        logger.debug("Unable to delete the code cache entry {}", file, e);
+      }
+    }
+  }
+
+  private static String keyOf(Path file) {
+    final String name = file.getFileName().toString();
+    return name.substring(0, name.length() - SUFFIX.length());
+  }
+
+  private void deleteOtherVersions(Path root) throws IOException {
+    // the root may be shared with other files, only the directories of the cache are deleted
+    try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root,
+      dir -> Files.isDirectory(dir) && dir.getFileName().toString().startsWith(VERSION_DIR_PREFIX))) {
+      for (Path dir : dirs) {
+        if (!dir.equals(directory)) {
+          logger.info("Deleting the generated code cache of another version in {}", dir);
+          MoreFiles.deleteRecursively(dir, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+      }
+    }
+  }
+
+  /**
+   * Read the most recently used entries in memory, till their size reaches the limit.
+   */
+  private void warm() throws IOException {
+    final List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file : stream) {
+        final String name = file.getFileName().toString();
+        if (name.endsWith(SUFFIX)) {
+          files.add(file);
+        } else if (name.endsWith(TMP_SUFFIX)) {
+          // left over by a failed write
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+    entries.set(files.size());
+    files.sort(Comparator.comparing(PersistentCodeCache::lastModified).reversed());
+
+    final long start = System.nanoTime();
+    long warmBytes = 0;
+    for (Path file : files.subList(0, Math.min(files.size(), maxEntries))) {
+      warmBytes += size(file);
+      if (warmBytes > maxWarmBytes) {
+        break;
+      }
+      final Entry entry = read(file);
+      if (entry != null) {
+        warmed.put(keyOf(file), entry);
+      }
+    }
+    logger.info("Read {} of {} generated classes from the code cache in {} ms", warmed.size(), files.size(),
+      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  private static long size(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static FileTime lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  /**
+   * Keeps the recently used entries warmed by the next restarts.
+   */
+  private static void touch(Path file) {
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      logger.debug("Unable to update the modification time of {}", file, e);
+    }
+  }
+
+  private Entry read(Path file) {
+    try (InputStream in = Files.newInputStream(file);
+         DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+      return read(data);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      logger.warn("Ignoring the unreadable code cache entry {}", file, e);
+      try {
+        if (Files.deleteIfExists(file)) {
+          entries.decrementAndGet();
+        }
+      } catch (IOException ex) {
+        logger.debug("Unable to delete {}", file, ex);
+      }
+      return null;
+    }
+  }
+
+  private static void write(Entry entry, DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeUTF(entry.getClassName());
+    out.writeLong(entry.getCompileNanos());
+    out.writeInt(entry.getClasses().length);
+    for (ClassBytes clazz : entry.getClasses()) {
+      out.writeUTF(clazz.getName());
+      out.writeInt(clazz.getBytes().length);
+      out.write(clazz.getBytes());
+    }
+  }
+
+  private static Entry read(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a code cache entry");
+    }
+    final String className = in.readUTF();
+    final long compileNanos = in.readLong();
+    final int count = in.readInt();
+    if (count <= 0 || count > 1024) {
+      throw new IOException("Invalid number of classes " + count);
+    }
+    final ClassBytes[] classes = new ClassBytes[count];
+    for (int i = 0; i < classes.length; i++) {
+      final String name = in.readUTF();
+      final int length = in.readInt();
+      if (length <= 0 || length > MAX_CLASS_BYTES) {
+        throw new IOException("Invalid size " + length + " of class " + name);
+      }
+      final byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      classes[i] = new ClassBytes(name, bytes);
+    }
+    return new Entry(className, classes, compileNanos);
+  }
+}
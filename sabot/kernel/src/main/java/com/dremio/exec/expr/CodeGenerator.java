@@ -107,6 +107,14 @@ public class CodeGenerator<T> {
       .replaceAll(REPLACE_PATTERN);
   }
 
+  /**
+   * @return the generated code, with a placeholder for the name of the class, so that it doesn't depend on the
+   * number of the class
+   */
+  public String getGenerifiedCode() {
+    return generifiedCode;
+  }
+
   public String getGeneratedCode() {
     return generifiedCode.replaceAll("GenericGenerated", this.className);
   }
@@ -47,8 +47,23 @@ public class HashJoinPOP extends AbstractBase {
   private final LogicalExpression extraCondition;
   private final JoinRelType joinType;
   private final boolean vectorize;
+  // true if the build side is broadcast to all the fragments of the join
+  private final boolean broadcastBuild;
   private RuntimeFilterInfo runtimeFilterInfo;
 
+  public HashJoinPOP(
+      OpProps props,
+      PhysicalOperator left,
+      PhysicalOperator right,
+      List<JoinCondition> conditions,
+      LogicalExpression extraCondition,
+      JoinRelType joinType,
+      boolean vectorize,
+      RuntimeFilterInfo runtimeFilterInfo
+      ) {
+    this(props, left, right, conditions, extraCondition, joinType, vectorize, false, runtimeFilterInfo);
+  }
+
   @JsonCreator
   public HashJoinPOP(
       @JsonProperty("props") OpProps props,
@@ -58,6 +73,7 @@ public class HashJoinPOP extends AbstractBase {
       @JsonProperty("extraCondition") LogicalExpression extraCondition,
       @JsonProperty("joinType") JoinRelType joinType,
       @JsonProperty("vectorize") boolean vectorize,
+      @JsonProperty("broadcastBuild") boolean broadcastBuild,
       @JsonProperty("runtimeFilterInfo") RuntimeFilterInfo runtimeFilterInfo
       ) {
     super(props);
@@ -67,6 +83,7 @@ public class HashJoinPOP extends AbstractBase {
     this.extraCondition = extraCondition;
     this.joinType = joinType;
     this.vectorize = vectorize;
+    this.broadcastBuild = broadcastBuild;
     this.runtimeFilterInfo = runtimeFilterInfo;
   }
 
@@ -78,7 +95,7 @@ public class HashJoinPOP extends AbstractBase {
   @Override
   public PhysicalOperator getNewWithChildren(List<PhysicalOperator> children) {
       Preconditions.checkArgument(children.size() == 2);
-      return new HashJoinPOP(props, children.get(0), children.get(1), conditions, extraCondition, joinType, vectorize, runtimeFilterInfo);
+      return new HashJoinPOP(props, children.get(0), children.get(1), conditions, extraCondition, joinType, vectorize, broadcastBuild, runtimeFilterInfo);
   }
 
   @Override
@@ -110,6 +127,10 @@ public class HashJoinPOP extends AbstractBase {
     return vectorize;
   }
 
+  public boolean isBroadcastBuild() {
+    return broadcastBuild;
+  }
+
   @Override
   public int getOperatorType() {
     return CoreOperatorType.HASH_JOIN_VALUE;
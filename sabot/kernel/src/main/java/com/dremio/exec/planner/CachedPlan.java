@@ -15,8 +15,10 @@
  */
 package com.dremio.exec.planner;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.dremio.exec.planner.ParameterizedQuery.BoundValue;
 import com.dremio.exec.planner.physical.Prel;
 
 public class CachedPlan {
@@ -26,23 +28,55 @@ public class CachedPlan {
   private AtomicInteger useCount;
   private final long creationTime;
   private CachedAccelDetails accelDetails;
+  // literal values the plan was built for, null if the plan is not parameterized
+  private final List<BoundValue> boundValues;
+  private final ParameterLiterals parameterLiterals;
 
-  private CachedPlan(String query, Prel prel, String textPlan, int useCount, int estimatedSize) {
+  private CachedPlan(String query, Prel prel, String textPlan, int useCount, int estimatedSize, List<BoundValue> boundValues,
+                     ParameterLiterals parameterLiterals) {
     this.queryText = query;
     this.prel = prel;
     this.useCount = new AtomicInteger(useCount);
     this.estimatedSize = estimatedSize;
     this.creationTime = System.currentTimeMillis();
+    this.boundValues = boundValues;
+    this.parameterLiterals = parameterLiterals;
   }
 
   public static CachedPlan createCachedPlan(String query, Prel prel, String textPlan, int estimatedSize) {
-    return new CachedPlan(query, prel, textPlan, 0, estimatedSize);
+    return new CachedPlan(query, prel, textPlan, 0, estimatedSize, null, null);
+  }
+
+  /**
+   * Creates a plan cached under a parameterized key, which can be re-bound to other literal values.
+   */
+  public static CachedPlan createParameterizedCachedPlan(String query, Prel prel, String textPlan, int estimatedSize,
+                                                         List<BoundValue> boundValues,
+                                                         ParameterLiterals parameterLiterals) {
+    return new CachedPlan(query, prel, textPlan, 0, estimatedSize, boundValues, parameterLiterals);
   }
 
   public Prel getPrel() {
     return prel;
   }
 
+  public boolean isParameterized() {
+    return boundValues != null;
+  }
+
+  /**
+   * Gets the plan for the given literal values.
+   *
+   * @param values literal values of the current query
+   * @return the cached plan with its literals replaced by the given values
+   */
+  public Prel getPrel(List<BoundValue> values) {
+    if (boundValues == null) {
+      return prel;
+    }
+    return LiteralRebinder.rebind(prel, parameterLiterals, boundValues, values);
+  }
+
   public void setAccelDetails(CachedAccelDetails accelDetails) {
     this.accelDetails = accelDetails;
   }
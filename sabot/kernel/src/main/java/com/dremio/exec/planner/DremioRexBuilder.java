@@ -33,6 +33,10 @@ import org.apache.calcite.util.NlsString;
 public class DremioRexBuilder extends RexBuilder {
 
   private final static SqlCollation Utf8SqlCollation = new SqlCollation("UTF-8$en_US$primary", SqlCollation.Coercibility.IMPLICIT);
+
+  // literals of the query which are parameters of the plan cache key, null if the query isn't parameterized
+  private volatile ParameterLiterals parameterLiterals;
+
   /**
    * Creates a RexBuilder.
    *
@@ -42,6 +46,14 @@ public class DremioRexBuilder extends RexBuilder {
     super(typeFactory);
   }
 
+  public ParameterLiterals getParameterLiterals() {
+    return parameterLiterals;
+  }
+
+  public void setParameterLiterals(ParameterLiterals parameterLiterals) {
+    this.parameterLiterals = parameterLiterals;
+  }
+
   @Override
   public RexNode makeAbstractCast(
     RelDataType type,
@@ -73,6 +85,10 @@ public class DremioRexBuilder extends RexBuilder {
       return ((RexCall) castRexNode).getOperands().get(0);
     }
 
+    final ParameterLiterals parameterLiterals = this.parameterLiterals;
+    if (parameterLiterals != null && exp instanceof RexLiteral) {
+      parameterLiterals.cast(exp, castRexNode);
+    }
     return castRexNode;
   }
 
@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.rex.RexVisitorImpl;
+import org.apache.calcite.sql.SqlExplainLevel;
+import org.apache.calcite.util.Pair;
+
+import com.dremio.exec.planner.ParameterizedQuery.BoundValue;
+import com.dremio.exec.planner.common.ScanRelBase;
+import com.dremio.exec.planner.physical.Prel;
+import com.dremio.exec.planner.physical.TableFunctionPrel;
+import com.dremio.exec.store.ScanFilter;
+import com.dremio.exec.store.TableMetadata;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Re-binds the literal values of a cached physical plan.
+ *
+ * Only the literals converted from the parameterized literals of the query are re-bound, as
+ * tracked by {@link ParameterLiterals}: other literals with the same value (select list, view
+ * definitions, literals created by the planner) are left untouched. A plan is only re-bindable if
+ * every parameterized literal is found, with its value, in the row expressions of the plan. Plans
+ * where a literal value has been consumed during planning (partition pruning, filters pushed into
+ * a scan, constant folding) are never re-bound, as the new value could select a different set of
+ * splits or a different plan shape.
+ */
+public final class LiteralRebinder {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(LiteralRebinder.class);
+
+  // terms of the scans which don't hold any literal of the query
+  private static final Set<String> SCAN_TERMS = ImmutableSet.of("table", "columns", "splits", "rowAdjust",
+    "tableDigest", "runtimeFilters", "arrowCachingEnabled", "arrowCachingEnable", "mode");
+
+  private LiteralRebinder() {
+  }
+
+  /**
+   * Checks whether the literal values a plan was built for can later be re-bound.
+   *
+   * @param prel the physical plan
+   * @param values literal values the plan was built for
+   * @param parameterLiterals the parameterized literals of the plan
+   * @return true if {@link #rebind(Prel, ParameterLiterals, List, List)} can be applied to this plan
+   */
+  public static boolean isRebindable(Prel prel, List<BoundValue> values, ParameterLiterals parameterLiterals) {
+    final MatchingShuttle shuttle = new MatchingShuttle(parameterLiterals, values, null,
+      prel.getCluster().getRexBuilder());
+    if (!visit(prel, shuttle, values) || shuttle.mismatch) {
+      return false;
+    }
+    for (boolean found : shuttle.found) {
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates a copy of the plan where the literals are replaced by new values.
+   *
+   * @param prel the cached physical plan
+   * @param parameterLiterals the parameterized literals of the plan
+   * @param oldValues literal values the plan was built for
+   * @param newValues literal values of the current query, in the same order
+   * @return the re-bound plan
+   */
+  public static Prel rebind(Prel prel, ParameterLiterals parameterLiterals, List<BoundValue> oldValues,
+                            List<BoundValue> newValues) {
+    if (oldValues.equals(newValues)) {
+      return prel;
+    }
+    return (Prel) rebind(prel, new MatchingShuttle(parameterLiterals, oldValues, newValues,
+      prel.getCluster().getRexBuilder()));
+  }
+
+  private static boolean visit(RelNode node, MatchingShuttle shuttle, List<BoundValue> values) {
+    if (!isSafeToRebind(node, values, shuttle.parameterLiterals)) {
+      return false;
+    }
+    node.accept(shuttle);
+    for (RelNode input : node.getInputs()) {
+      if (!visit(input, shuttle, values)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static RelNode rebind(RelNode node, MatchingShuttle shuttle) {
+    final List<RelNode> inputs = new ArrayList<>(node.getInputs().size());
+    boolean changed = false;
+    for (RelNode input : node.getInputs()) {
+      final RelNode newInput = rebind(input, shuttle);
+      changed |= newInput != input;
+      inputs.add(newInput);
+    }
+    final RelNode copy = changed ? node.copy(node.getTraitSet(), inputs) : node;
+    return copy.accept(shuttle);
+  }
+
+  /**
+   * Rejects nodes holding literal values outside of their row expressions.
+   *
+   * The filters pushed into a scan are searched for the parameter literals, or literals with their
+   * values. Any other state pushed into a scan (e.g. an information schema query) can't be searched,
+   * and the scan is not re-bindable.
+   */
+  private static boolean isSafeToRebind(RelNode node, List<BoundValue> values, ParameterLiterals parameterLiterals) {
+    final TableMetadata tableMetadata;
+    if (node instanceof ScanRelBase) {
+      tableMetadata = ((ScanRelBase) node).getTableMetadata();
+    } else if (node instanceof TableFunctionPrel) {
+      tableMetadata = ((TableFunctionPrel) node).getTableMetadata();
+    } else {
+      return true;
+    }
+
+    if (tableMetadata != null) {
+      try {
+        if (tableMetadata.getSplitRatio() < 1.0d) {
+          return false;
+        }
+      } catch (Exception e) {
+        logger.debug("Unable to get split ratio of {}, plan is not re-bindable.", tableMetadata.getName(), e);
+        return false;
+      }
+    }
+
+    final List<RexNode> pushedFilters = new ArrayList<>();
+    if (node instanceof TableFunctionPrel) {
+      // explained as text
+      addFilters(pushedFilters, ((TableFunctionPrel) node).getTableFunctionConfig().getFunctionContext().getScanFilter());
+    }
+    final TermsWriter terms = new TermsWriter();
+    node.explain(terms);
+    for (Pair<String, Object> term : terms.values) {
+      final Object value = term.right;
+      if (value == null || SCAN_TERMS.contains(term.left)
+        || (node instanceof TableFunctionPrel && "filters".equals(term.left))) {
+        continue;
+      }
+      if (value instanceof RexNode) {
+        pushedFilters.add((RexNode) value);
+      } else if (value instanceof ScanFilter) {
+        addFilters(pushedFilters, (ScanFilter) value);
+      } else {
+        logger.debug("{} of {} pushed into the scan, plan is not re-bindable.", term.left, value);
+        return false;
+      }
+    }
+
+    final LiteralFinder finder = new LiteralFinder(parameterLiterals, values);
+    for (RexNode filter : pushedFilters) {
+      filter.accept(finder);
+    }
+    return !finder.found;
+  }
+
+  private static void addFilters(List<RexNode> filters, ScanFilter scanFilter) {
+    if (scanFilter == null) {
+      return;
+    }
+    if (scanFilter.getRexFilter() != null) {
+      filters.add(scanFilter.getRexFilter());
+    }
+    if (scanFilter.getExactRexFilter() != null) {
+      filters.add(scanFilter.getExactRexFilter());
+    }
+  }
+
+  /**
+   * Collects the terms a node is explained with.
+   */
+  private static final class TermsWriter implements RelWriter {
+    private final List<Pair<String, Object>> values = new ArrayList<>();
+
+    @Override
+    public void explain(RelNode rel, List<Pair<String, Object>> valueList) {
+    }
+
+    @Override
+    public SqlExplainLevel getDetailLevel() {
+      return SqlExplainLevel.EXPPLAN_ATTRIBUTES;
+    }
+
+    @Override
+    public RelWriter input(String term, RelNode input) {
+      return this;
+    }
+
+    @Override
+    public RelWriter item(String term, Object value) {
+      values.add(Pair.of(term, value));
+      return this;
+    }
+
+    @Override
+    public RelWriter itemIf(String term, Object value, boolean condition) {
+      if (condition) {
+        item(term, value);
+      }
+      return this;
+    }
+
+    @Override
+    public RelWriter done(RelNode node) {
+      return this;
+    }
+
+    @Override
+    public boolean nest() {
+      return false;
+    }
+  }
+
+  /**
+   * Looks for a parameterized literal, or a literal with the value of a parameter.
+   */
+  private static final class LiteralFinder extends RexVisitorImpl<Void> {
+    private final ParameterLiterals parameterLiterals;
+    private final List<BoundValue> values;
+    private boolean found;
+
+    private LiteralFinder(ParameterLiterals parameterLiterals, List<BoundValue> values) {
+      super(true);
+      this.parameterLiterals = parameterLiterals;
+      this.values = values;
+    }
+
+    @Override
+    public Void visitLiteral(RexLiteral literal) {
+      if (parameterLiterals.indexOf(literal) >= 0) {
+        found = true;
+        return null;
+      }
+      for (BoundValue value : values) {
+        if (value.matches(literal)) {
+          found = true;
+          return null;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Finds the parameterized literals, and replaces them by the new values if provided.
+   */
+  private static final class MatchingShuttle extends RexShuttle {
+    private final ParameterLiterals parameterLiterals;
+    private final List<BoundValue> oldValues;
+    private final List<BoundValue> newValues;
+    private final RexBuilder rexBuilder;
+    private final boolean[] found;
+    // whether a parameterized literal doesn't hold its value anymore, e.g. after a rounding cast
+    private boolean mismatch;
+
+    private MatchingShuttle(ParameterLiterals parameterLiterals, List<BoundValue> oldValues,
+                            List<BoundValue> newValues, RexBuilder rexBuilder) {
+      this.parameterLiterals = parameterLiterals;
+      this.oldValues = oldValues;
+      this.newValues = newValues;
+      this.rexBuilder = rexBuilder;
+      this.found = new boolean[oldValues.size()];
+    }
+
+    @Override
+    public RexNode visitLiteral(RexLiteral literal) {
+      final int index = parameterLiterals.indexOf(literal);
+      if (index < 0) {
+        return literal;
+      }
+      if (!oldValues.get(index).matches(literal)) {
+        mismatch = true;
+        return literal;
+      }
+      found[index] = true;
+      if (newValues == null) {
+        return literal;
+      }
+      return newValues.get(index).toRexLiteral(rexBuilder, literal.getType());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+
+/**
+ * The literals of a query which are parameters of its plan cache key, followed by identity from
+ * the parsed query to the physical plan.
+ *
+ * The literals are tracked when converted to rex literals, and when cast to other literals of the
+ * same query. Any other literal of the plan, even with the same value (select list, view
+ * definitions, literals created by the planner), is never re-bound.
+ */
+public final class ParameterLiterals {
+  private final Map<SqlNode, Integer> sqlLiterals = new IdentityHashMap<>();
+  private final Map<RexNode, Integer> rexLiterals = Collections.synchronizedMap(new IdentityHashMap<>());
+
+  /**
+   * @param literals literals of the parsed query, in the order of the parameters
+   */
+  public ParameterLiterals(List<SqlLiteral> literals) {
+    for (int i = 0; i < literals.size(); i++) {
+      sqlLiterals.put(literals.get(i), i);
+    }
+  }
+
+  /**
+   * @return the index of the parameter, or -1 if the node isn't a parameter literal
+   */
+  public int indexOf(SqlNode node) {
+    final Integer index = sqlLiterals.get(node);
+    return index != null ? index : -1;
+  }
+
+  /**
+   * @return the index of the parameter, or -1 if the literal wasn't converted from a parameter literal
+   */
+  public int indexOf(RexLiteral literal) {
+    final Integer index = rexLiterals.get(literal);
+    return index != null ? index : -1;
+  }
+
+  /**
+   * Records the rex literal a parameter literal was converted to.
+   */
+  public void converted(SqlNode node, RexNode rex) {
+    final Integer index = sqlLiterals.get(node);
+    if (index != null && rex instanceof RexLiteral) {
+      rexLiterals.put(rex, index);
+    }
+  }
+
+  /**
+   * Records the literal a parameter literal was cast to. The value of the cast literal is checked
+   * against the parameter before the plan is cached.
+   */
+  public void cast(RexNode literal, RexNode cast) {
+    final Integer index = rexLiterals.get(literal);
+    if (index != null && cast instanceof RexLiteral) {
+      rexLiterals.put(cast, index);
+    }
+  }
+}
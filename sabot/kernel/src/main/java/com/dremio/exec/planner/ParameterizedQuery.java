@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlCharStringLiteral;
+import org.apache.calcite.sql.SqlDateLiteral;
+import org.apache.calcite.sql.SqlDynamicParam;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNumericLiteral;
+import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.SqlTimestampLiteral;
+import org.apache.calcite.sql.dialect.CalciteSqlDialect;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.sql.util.SqlShuttle;
+import org.apache.calcite.util.DateString;
+import org.apache.calcite.util.TimestampString;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+/**
+ * A query whose WHERE/HAVING literals have been replaced by positional placeholders.
+ *
+ * The normalized text only depends on the query shape and on the SQL type of each literal, so two
+ * queries that differ only in the value of their filter literals share the same plan cache key.
+ * Only literal kinds that can be re-bound in a physical plan without changing its row types are
+ * parameterized: exact numerics, character strings, dates and timestamps.
+ */
+public final class ParameterizedQuery {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ParameterizedQuery.class);
+
+  private final String normalizedSql;
+  private final List<BoundValue> values;
+  // literals of the parsed query, in the order of the values
+  private final List<SqlLiteral> literals;
+
+  private ParameterizedQuery(String normalizedSql, List<BoundValue> values, List<SqlLiteral> literals) {
+    this.normalizedSql = normalizedSql;
+    this.values = ImmutableList.copyOf(values);
+    this.literals = ImmutableList.copyOf(literals);
+  }
+
+  /**
+   * Normalizes the given (unvalidated) query.
+   *
+   * @param sqlNode parsed query
+   * @return the parameterized query, or null if the query has no literal to parameterize or
+   *         already uses dynamic parameters
+   */
+  public static ParameterizedQuery of(SqlNode sqlNode) {
+    final LiteralExtractor extractor = new LiteralExtractor();
+    final String normalizedSql;
+    try {
+      final SqlNode normalized = sqlNode.accept(extractor);
+      if (extractor.hasDynamicParams || extractor.values.isEmpty()) {
+        return null;
+      }
+      normalizedSql = normalized.toSqlString(CalciteSqlDialect.DEFAULT).getSql();
+    } catch (RuntimeException e) {
+      // some calls (e.g. WITH) can't be copied by a shuttle, the query is then only cached by its text
+      logger.debug("Unable to parameterize query literals.", e);
+      return null;
+    }
+
+    final StringBuilder sb = new StringBuilder(normalizedSql);
+    for (BoundValue value : extractor.values) {
+      sb.append('|').append(value.signature);
+    }
+    return new ParameterizedQuery(sb.toString(), extractor.values, extractor.literals);
+  }
+
+  /**
+   * @return query text with placeholders, followed by the type signature of each placeholder
+   */
+  public String getNormalizedSql() {
+    return normalizedSql;
+  }
+
+  public List<BoundValue> getValues() {
+    return values;
+  }
+
+  /**
+   * @return the literals of the parsed query, to follow them through planning
+   */
+  public ParameterLiterals newParameterLiterals() {
+    return new ParameterLiterals(literals);
+  }
+
+  /**
+   * Kind of a parameterized literal, as it appears once converted to a {@link RexLiteral}.
+   */
+  enum LiteralKind {
+    EXACT_NUMERIC,
+    CHARACTER,
+    DATE,
+    TIMESTAMP
+  }
+
+  /**
+   * Value of a parameterized literal.
+   */
+  public static final class BoundValue {
+    private final LiteralKind kind;
+    private final Comparable<?> value;
+    private final String signature;
+
+    BoundValue(LiteralKind kind, Comparable<?> value, String signature) {
+      this.kind = kind;
+      this.value = value;
+      this.signature = signature;
+    }
+
+    /**
+     * Checks whether the rex literal carries the same value as this literal.
+     */
+    boolean matches(RexLiteral literal) {
+      if (literal.isNull()) {
+        return false;
+      }
+      final SqlTypeName typeName = literal.getType().getSqlTypeName();
+      switch (kind) {
+        case EXACT_NUMERIC:
+          return SqlTypeName.EXACT_TYPES.contains(typeName)
+            && ((BigDecimal) value).compareTo(literal.getValueAs(BigDecimal.class)) == 0;
+        case CHARACTER:
+          return SqlTypeName.CHAR_TYPES.contains(typeName)
+            && value.equals(literal.getValueAs(String.class));
+        case DATE:
+          return typeName == SqlTypeName.DATE && value.equals(literal.getValueAs(DateString.class));
+        case TIMESTAMP:
+          return typeName == SqlTypeName.TIMESTAMP && value.equals(literal.getValueAs(TimestampString.class));
+        default:
+          return false;
+      }
+    }
+
+    /**
+     * Creates a literal carrying this value, with the type of the literal it replaces.
+     */
+    RexLiteral toRexLiteral(RexBuilder rexBuilder, RelDataType type) {
+      return (RexLiteral) rexBuilder.makeLiteral(value, type, false);
+    }
+
+    /**
+     * @return the text of the value, as it would appear in a plan digest
+     */
+    String getDigestText() {
+      return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final BoundValue that = (BoundValue) o;
+      return kind == that.kind
+        && (kind == LiteralKind.EXACT_NUMERIC
+          ? ((BigDecimal) value).compareTo((BigDecimal) that.value) == 0
+          : value.equals(that.value));
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(kind, kind == LiteralKind.EXACT_NUMERIC ? ((BigDecimal) value).stripTrailingZeros() : value);
+    }
+
+    @Override
+    public String toString() {
+      return signature + " " + getDigestText();
+    }
+  }
+
+  /**
+   * Replaces literals compared to an expression in WHERE and HAVING clauses by dynamic parameters
+   * and records their values. Literals used as function arguments (e.g. a rounding scale) are left
+   * untouched, as they can change the type or the shape of the plan.
+   */
+  private static final class LiteralExtractor extends SqlShuttle {
+    private static final Set<SqlKind> BINDABLE_KINDS = Sets.immutableEnumSet(
+      SqlKind.EQUALS, SqlKind.NOT_EQUALS,
+      SqlKind.LESS_THAN, SqlKind.LESS_THAN_OR_EQUAL,
+      SqlKind.GREATER_THAN, SqlKind.GREATER_THAN_OR_EQUAL,
+      SqlKind.BETWEEN, SqlKind.IN, SqlKind.NOT_IN, SqlKind.LIKE);
+
+    private final List<BoundValue> values = new ArrayList<>();
+    private final List<SqlLiteral> literals = new ArrayList<>();
+    private int predicateDepth;
+    private boolean bindable;
+    private boolean hasDynamicParams;
+
+    @Override
+    public SqlNode visit(SqlCall call) {
+      final boolean wasBindable = bindable;
+      try {
+        if (call instanceof SqlSelect) {
+          bindable = false;
+          return visitSelect((SqlSelect) call);
+        }
+        bindable = predicateDepth > 0 && BINDABLE_KINDS.contains(call.getKind());
+        return super.visit(call);
+      } finally {
+        bindable = wasBindable;
+      }
+    }
+
+    private SqlNode visitSelect(SqlSelect select) {
+      final List<SqlNode> operands = new ArrayList<>(select.getOperandList());
+      boolean changed = false;
+      for (int i = 0; i < operands.size(); i++) {
+        final SqlNode operand = operands.get(i);
+        if (operand == null) {
+          continue;
+        }
+        final boolean isPredicate = operand == select.getWhere() || operand == select.getHaving();
+        if (isPredicate) {
+          predicateDepth++;
+        }
+        try {
+          final SqlNode newOperand = operand.accept(this);
+          if (newOperand != operand) {
+            operands.set(i, newOperand);
+            changed = true;
+          }
+        } finally {
+          if (isPredicate) {
+            predicateDepth--;
+          }
+        }
+      }
+
+      if (!changed) {
+        return select;
+      }
+      return select.getOperator().createCall(select.getFunctionQuantifier(), select.getParserPosition(),
+        operands.toArray(new SqlNode[0]));
+    }
+
+    @Override
+    public SqlNode visit(SqlDynamicParam param) {
+      hasDynamicParams = true;
+      return param;
+    }
+
+    @Override
+    public SqlNode visit(SqlLiteral literal) {
+      if (!bindable) {
+        return literal;
+      }
+      final BoundValue value = toBoundValue(literal);
+      if (value == null) {
+        return literal;
+      }
+      values.add(value);
+      literals.add(literal);
+      return new SqlDynamicParam(values.size() - 1, literal.getParserPosition());
+    }
+
+    private static BoundValue toBoundValue(SqlLiteral literal) {
+      if (literal instanceof SqlNumericLiteral) {
+        final SqlNumericLiteral numeric = (SqlNumericLiteral) literal;
+        if (!numeric.isExact()) {
+          return null;
+        }
+        final BigDecimal value = numeric.bigDecimalValue();
+        return new BoundValue(LiteralKind.EXACT_NUMERIC, value, numericSignature(numeric, value));
+      }
+      if (literal instanceof SqlCharStringLiteral) {
+        final String value = ((SqlCharStringLiteral) literal).getNlsString().getValue();
+        return new BoundValue(LiteralKind.CHARACTER, value, "CHAR(" + value.length() + ")");
+      }
+      if (literal instanceof SqlDateLiteral) {
+        return new BoundValue(LiteralKind.DATE, ((SqlDateLiteral) literal).getDate(), "DATE");
+      }
+      if (literal instanceof SqlTimestampLiteral) {
+        final SqlTimestampLiteral timestamp = (SqlTimestampLiteral) literal;
+        return new BoundValue(LiteralKind.TIMESTAMP, timestamp.getTimestamp(), "TIMESTAMP(" + timestamp.getPrec() + ")");
+      }
+      return null;
+    }
+
+    /**
+     * Integer literals are typed by range (like {@link SqlNumericLiteral#createSqlType}), decimal
+     * literals by precision and scale.
+     */
+    private static String numericSignature(SqlNumericLiteral numeric, BigDecimal value) {
+      if (numeric.getScale() == 0) {
+        try {
+          value.intValueExact();
+          return "INTEGER";
+        } catch (ArithmeticException e) {
+          // fall through
+        }
+        try {
+          value.longValueExact();
+          return "BIGINT";
+        } catch (ArithmeticException e) {
+          // fall through
+        }
+      }
+      return "DECIMAL(" + numeric.getPrec() + "," + numeric.getScale() + ")";
+    }
+  }
+}
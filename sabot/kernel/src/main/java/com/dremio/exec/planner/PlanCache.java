@@ -31,6 +31,8 @@ import com.google.common.collect.Multimap;
 public class PlanCache {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PlanCache.class);
 
+  private static final PlanCacheStats stats = new PlanCacheStats();
+
   private final Cache<Long, CachedPlan> cachePlans;
   private static Multimap<String, Long> datasetMap;
 
@@ -47,6 +49,30 @@ public class PlanCache {
     return cachePlans;
   }
 
+  public static PlanCacheStats getStats() {
+    return stats;
+  }
+
+  public void recordHit(boolean rebound) {
+    stats.hit(rebound);
+  }
+
+  public void recordMiss() {
+    stats.miss();
+  }
+
+  /**
+   * Caches a plan, and records it in the plan cache stats.
+   *
+   * @param cacheId the cache key
+   * @param cachedPlan the plan to cache
+   * @param parameterizable whether the query had literals to parameterize
+   */
+  public void putCachedPlan(long cacheId, CachedPlan cachedPlan, boolean parameterizable) {
+    cachePlans.put(cacheId, cachedPlan);
+    stats.entryAdded(cachedPlan.isParameterized(), parameterizable);
+  }
+
   private void addCacheToDatasetMap(String datasetId, Long cacheId) {
     synchronized (datasetMap) {
       datasetMap.put(datasetId, cacheId);
@@ -88,6 +114,13 @@ public class PlanCache {
     return result;
   }
 
+  /**
+   * Generates the key a query shares with all the queries only differing from it by literal values.
+   */
+  public static long generateParameterizedCacheKey(ParameterizedQuery query, QueryContext context) {
+    return generateCacheKey(query.getNormalizedSql(), context);
+  }
+
   public static int generateQueryContextOptionsHash(QueryContext context) {
     int result = Objects.hash(context.getOptions().getNonDefaultOptions()
       .stream()
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plan cache counters of this node.
+ */
+public class PlanCacheStats {
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong rebinds = new AtomicLong();
+  private final AtomicLong parameterizedEntries = new AtomicLong();
+  private final AtomicLong nonRebindableEntries = new AtomicLong();
+
+  void hit(boolean rebound) {
+    hits.incrementAndGet();
+    if (rebound) {
+      rebinds.incrementAndGet();
+    }
+  }
+
+  void miss() {
+    misses.incrementAndGet();
+  }
+
+  void entryAdded(boolean parameterized, boolean parameterizable) {
+    if (parameterized) {
+      parameterizedEntries.incrementAndGet();
+    } else if (parameterizable) {
+      nonRebindableEntries.incrementAndGet();
+    }
+  }
+
+  /**
+   * @return number of queries planned from a cached plan, including re-bound plans
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of queries fully planned while the plan cache was enabled
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return number of cache hits where the cached plan was re-bound to new literal values
+   */
+  public long getRebinds() {
+    return rebinds.get();
+  }
+
+  /**
+   * @return number of plans cached under a parameterized key
+   */
+  public long getParameterizedEntries() {
+    return parameterizedEntries.get();
+  }
+
+  /**
+   * @return number of plans which had literals to parameterize, but could not be re-bound
+   */
+  public long getNonRebindableEntries() {
+    return nonRebindableEntries.get();
+  }
+}
@@ -315,6 +315,14 @@ public class PlanCaptureAttemptObserver extends AbstractAttemptObserver {
     numPlanCacheUses = count;
   }
 
+  @Override
+  public void planCacheRebound(int literalCount) {
+    planPhases.add(PlanPhaseProfile.newBuilder()
+      .setPhaseName(PlannerPhase.PLAN_CACHE_USED)
+      .setPlan(String.format("Cached Plan has been re-bound to the %d literal values of the query", literalCount))
+      .build());
+  }
+
   public int getNumPlanCacheUses() {
     return numPlanCacheUses;
   }
@@ -85,6 +85,12 @@ public interface AttemptObserver {
    */
   default void planCacheUsed(int count) {};
 
+  /**
+   * Called when the cached plan has been re-bound to the literal values of the query.
+   * @param literalCount number of literals of the query
+   */
+  default void planCacheRebound(int literalCount) {};
+
   /**
    * Retrieving the latest acceleration profile
    */
@@ -99,6 +99,13 @@ public class AttemptObservers implements AttemptObserver {
     }
   }
 
+  @Override
+  public void planCacheRebound(int literalCount) {
+    for (final AttemptObserver observer : observers) {
+      observer.planCacheRebound(literalCount);
+    }
+  }
+
   @Override
   public void setCachedAccelDetails(CachedPlan cachedPlan) {
     for (final AttemptObserver observer : observers) {
@@ -178,6 +178,11 @@ public class OutOfBandAttemptObserver implements AttemptObserver {
     execute(() -> innerObserver.planCacheUsed(count));
   }
 
+  @Override
+  public void planCacheRebound(int literalCount) {
+    execute(() -> innerObserver.planCacheRebound(literalCount));
+  }
+
   @Override
   public void planSerializable(final RelNode serializable) {
     execute(() -> innerObserver.planSerializable(serializable));
@@ -175,6 +175,7 @@ public class HashJoinPrel extends JoinPrel {
       extraJoinCondition,
       joinType,
       vectorize,
+      currentRight instanceof BroadcastExchangePrel,
       buildRuntimeFilterInfo(creator)
     );
   }
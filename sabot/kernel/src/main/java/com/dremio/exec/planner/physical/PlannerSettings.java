@@ -370,6 +370,7 @@ public class PlannerSettings implements Context{
    * Options to enable/disable plan cache and set plan cache policy
    */
   public static final BooleanValidator QUERY_PLAN_CACHE_ENABLED = new BooleanValidator("planner.query_plan_cache_enabled", true);
+  public static final BooleanValidator QUERY_PLAN_CACHE_PARAMETERIZE_LITERALS = new BooleanValidator("planner.query_plan_cache_parameterize_literals", false);
 
   private final SabotConfig sabotConfig;
   private final ExecutionControls executionControls;
@@ -573,6 +574,10 @@ public class PlannerSettings implements Context{
     return options.getOption(QUERY_PLAN_CACHE_ENABLED);
   }
 
+  public boolean isPlanCacheLiteralParameterizationEnabled() {
+    return options.getOption(QUERY_PLAN_CACHE_PARAMETERIZE_LITERALS);
+  }
+
   public long getCaseExpressionsThreshold() {
     return options.getOption(CASE_EXPRESSIONS_THRESHOLD);
   }
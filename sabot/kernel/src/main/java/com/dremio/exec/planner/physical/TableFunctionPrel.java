@@ -234,6 +234,10 @@ public class TableFunctionPrel extends SinglePrel implements RuntimeFilteredRel
     return tableMetadata;
   }
 
+  public TableFunctionConfig getTableFunctionConfig() {
+    return functionConfig;
+  }
+
   @Override
   public List<RuntimeFilteredRel.Info> getRuntimeFilters() {
     return runtimeFilters;
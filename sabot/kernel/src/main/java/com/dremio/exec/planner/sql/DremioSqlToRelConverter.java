@@ -28,7 +28,9 @@ import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelRoot;
 import org.apache.calcite.rel.hint.RelHint;
 import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlLiteral;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.type.SqlOperandTypeChecker;
 import org.apache.calcite.sql.validate.SqlValidator;
@@ -38,6 +40,8 @@ import org.apache.calcite.sql2rel.SqlToRelConverter;
 
 import com.dremio.exec.catalog.CatalogIdentity;
 import com.dremio.exec.ops.ViewExpansionContext.ViewExpansionToken;
+import com.dremio.exec.planner.DremioRexBuilder;
+import com.dremio.exec.planner.ParameterLiterals;
 import com.dremio.exec.planner.acceleration.ExpansionNode;
 import com.dremio.exec.planner.common.MoreRelOptUtil;
 import com.dremio.exec.planner.sql.SqlConverter.RelRootPlus;
@@ -82,6 +86,20 @@ public class DremioSqlToRelConverter extends SqlToRelConverter {
     return typeFlattener.rewrite(rootRel);
   }
 
+  @Override
+  protected RexNode convertExtendedExpression(SqlNode node, Blackboard bb) {
+    // tracks the literals of the plan cache key parameters, only them are re-bound in cached plans
+    if (node instanceof SqlLiteral && rexBuilder instanceof DremioRexBuilder) {
+      final ParameterLiterals parameterLiterals = ((DremioRexBuilder) rexBuilder).getParameterLiterals();
+      if (parameterLiterals != null && parameterLiterals.indexOf(node) >= 0) {
+        final RexNode literal = bb.visit((SqlLiteral) node);
+        parameterLiterals.converted(node, literal);
+        return literal;
+      }
+    }
+    return super.convertExtendedExpression(node, bb);
+  }
+
   @Override
   protected RelNode convertSetOp(SqlCall call) {
     RelNode result = super.convertSetOp(call);
@@ -23,6 +23,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.sql.SqlExplainLevel;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.dialect.CalciteSqlDialect;
@@ -33,7 +34,11 @@ import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.physical.base.PhysicalOperator;
 import com.dremio.exec.planner.CachedAccelDetails;
 import com.dremio.exec.planner.CachedPlan;
+import com.dremio.exec.planner.DremioRexBuilder;
 import com.dremio.exec.planner.DremioVolcanoPlanner;
+import com.dremio.exec.planner.LiteralRebinder;
+import com.dremio.exec.planner.ParameterLiterals;
+import com.dremio.exec.planner.ParameterizedQuery;
 import com.dremio.exec.planner.PlanCache;
 import com.dremio.exec.planner.logical.Rel;
 import com.dremio.exec.planner.physical.PlannerSettings;
@@ -63,6 +68,19 @@ public class NormalHandler implements SqlToPlanHandler {
       final long cachedKey = planCache.generateCacheKey(sqlNode.toSqlString(CalciteSqlDialect.DEFAULT).getSql(),
         config.getContext());
       config.getObserver().setCacheKey(cachedKey);
+      // must be computed before validation, which rewrites the sql node in place
+      final ParameterizedQuery parameterizedQuery =
+        plannerSettings.isPlanCacheEnabled() && plannerSettings.isPlanCacheLiteralParameterizationEnabled()
+          ? ParameterizedQuery.of(sqlNode) : null;
+      final long parameterizedKey = (parameterizedQuery != null)
+        ? PlanCache.generateParameterizedCacheKey(parameterizedQuery, config.getContext()) : cachedKey;
+      // follows the parameterized literals through planning, only them are re-bound in the cached plan
+      ParameterLiterals parameterLiterals = null;
+      final RexBuilder rexBuilder = config.getConverter().getCluster().getRexBuilder();
+      if (parameterizedQuery != null && rexBuilder instanceof DremioRexBuilder) {
+        parameterLiterals = parameterizedQuery.newParameterLiterals();
+        ((DremioRexBuilder) rexBuilder).setParameterLiterals(parameterLiterals);
+      }
       final ConvertedRelNode convertedRelNode = PrelTransformer.validateAndConvert(config, sqlNode);
       final RelDataType validatedRowType = convertedRelNode.getValidatedRowType();
       final RelNode queryRelNode = convertedRelNode.getConvertedNode();
@@ -74,6 +92,9 @@ public class NormalHandler implements SqlToPlanHandler {
       }
       final Catalog catalog = config.getContext().getCatalog();
       CachedPlan cachedPlan = (planCache != null) ? planCache.getIfPresentAndValid(catalog, cachedKey) : null;
+      if (cachedPlan == null && planCache != null && parameterizedQuery != null) {
+        cachedPlan = planCache.getIfPresentAndValid(catalog, parameterizedKey);
+      }
       Prel prel;
       if (!plannerSettings.isPlanCacheEnabled() || cachedPlan == null) {
         final Rel drel = PrelTransformer.convertToDrel(config, queryRelNode, validatedRowType);
@@ -85,14 +106,15 @@ public class NormalHandler implements SqlToPlanHandler {
         //after we generate a physical plan, save it in the plan cache if plan cache is present
         boolean supportPlanCache = config.getConverter().getFunctionContext().getContextInformation().isPlanCacheable();
         if (plannerSettings.isPlanCacheEnabled() && planCache != null && supportPlanCache) {
-          if (planCache.addCacheToDatasetMap(catalog, cachedKey)) {
-            CachedPlan newCachedPlan = CachedPlan.createCachedPlan(sql, prel, textPlan, prel.getEstimatedSize());
-            config.getObserver().setCachedAccelDetails(newCachedPlan);
-            planCache.getCachePlans().put(cachedKey, newCachedPlan);
-          }
+          planCache.recordMiss();
+          cachePlan(config, planCache, catalog, sql, prel, parameterizedQuery, parameterLiterals, cachedKey,
+            parameterizedKey);
         }
       } else {
-        prel = cachedPlan.getPrel();
+        prel = (cachedPlan.isParameterized() && parameterizedQuery != null)
+          ? cachedPlan.getPrel(parameterizedQuery.getValues()) : cachedPlan.getPrel();
+        final boolean rebound = prel != cachedPlan.getPrel();
+        planCache.recordHit(rebound);
 
         // After the plan has been cached during planning, the job could be canceled during execution.
         // Reset the cancel flag in cached plan, otherwise the job will always be canceled.
@@ -103,6 +125,9 @@ public class NormalHandler implements SqlToPlanHandler {
           config.getObserver().applyAccelDetails(accelDetails);
         }
         config.getObserver().planCacheUsed(cachedPlan.updateUseCount());
+        if (rebound) {
+          config.getObserver().planCacheRebound(parameterizedQuery.getValues().size());
+        }
         //update writer if needed
         final OptionManager options = config.getContext().getOptions();
         final PlannerSettings.StoreQueryResultsPolicy storeQueryResultsPolicy = Optional
@@ -140,6 +165,33 @@ public class NormalHandler implements SqlToPlanHandler {
     }
   }
 
+  /**
+   * Caches the plan under the parameterized key if its literals can later be re-bound, and under
+   * the exact query key otherwise.
+   */
+  private void cachePlan(SqlHandlerConfig config, PlanCache planCache, Catalog catalog, String sql, Prel prel,
+                         ParameterizedQuery parameterizedQuery, ParameterLiterals parameterLiterals,
+                         long cachedKey, long parameterizedKey) {
+    CachedPlan newCachedPlan = CachedPlan.createCachedPlan(sql, prel, textPlan, prel.getEstimatedSize());
+    config.getObserver().setCachedAccelDetails(newCachedPlan);
+    long key = cachedKey;
+
+    // substitutions are matched against the literal values of the query, accelerated plans are never re-bound
+    final CachedAccelDetails accelDetails = newCachedPlan.getAccelDetails();
+    final boolean accelerated = accelDetails != null && accelDetails.getSubstitutionInfo() != null;
+    if (parameterizedQuery != null && parameterLiterals != null && !accelerated
+      && LiteralRebinder.isRebindable(prel, parameterizedQuery.getValues(), parameterLiterals)) {
+      newCachedPlan = CachedPlan.createParameterizedCachedPlan(sql, prel, textPlan, prel.getEstimatedSize(),
+        parameterizedQuery.getValues(), parameterLiterals);
+      newCachedPlan.setAccelDetails(accelDetails);
+      key = parameterizedKey;
+    }
+
+    if (planCache.addCacheToDatasetMap(catalog, key)) {
+      planCache.putCachedPlan(key, newCachedPlan, parameterizedQuery != null);
+    }
+  }
+
   @Override
   public String getTextPlan() {
     return textPlan;
@@ -51,6 +51,7 @@ import com.dremio.exec.planner.observer.QueryObserverFactory;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.server.options.SystemOptionManager;
 import com.dremio.exec.store.CatalogService;
+import com.dremio.exec.store.cache.BlockCacheFileSystemWrapper;
 import com.dremio.exec.store.dfs.FileSystemWrapper;
 import com.dremio.exec.store.sys.accel.AccelerationListManager;
 import com.dremio.exec.store.sys.accel.AccelerationManager;
@@ -217,7 +218,13 @@ public class SabotContext implements AutoCloseable {
     this.viewCreatorFactory = viewCreatorFactory;
     this.queryPlanningAllocator = queryPlanningAllocator;
     this.spillService = spillService;
-    this.fileSystemWrapper = config.getInstance(
+    // the block cache is opt-in, and a configured wrapper takes precedence
+    FileSystemWrapper blockCacheWrapper = null;
+    if (!config.hasPath(FileSystemWrapper.FILE_SYSTEM_WRAPPER_CLASS)
+      && BlockCacheFileSystemWrapper.isEnabled(dremioConfig)) {
+      blockCacheWrapper = BlockCacheFileSystemWrapper.newInstance(dremioConfig, this.optionManager, endpoint, allocator);
+    }
+    this.fileSystemWrapper = blockCacheWrapper != null ? blockCacheWrapper : config.getInstance(
       FileSystemWrapper.FILE_SYSTEM_WRAPPER_CLASS,
       FileSystemWrapper.class,
       (fs, storageId, conf, operatorContext, enableAsync, isMetadataEnabled) -> fs,
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.FSInputStream;
+import com.google.common.base.Throwables;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * A blocking input stream over an async reader, for a file of a known size.
+ *
+ * Small reads, like the ones decoding the thrift structures of parquet files byte by byte, are served from a buffer
+ * read ahead.
+ */
+class AsyncByteReaderInputStream extends FSInputStream {
+  private static final int READ_AHEAD_SIZE = 64 * 1024;
+  private static final int MAX_BUFFERED_READ = 8 * 1024;
+
+  private final AsyncByteReader reader;
+  private final long length;
+  private long position;
+
+  private byte[] readAhead;
+  private long readAheadStart;
+  private int readAheadLength;
+
+  AsyncByteReaderInputStream(AsyncByteReader reader, long length) {
+    this.reader = reader;
+    this.length = length;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final byte[] b = new byte[1];
+    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    return read(ByteBuffer.wrap(b, off, len));
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    final int read = read(position, dst);
+    if (read > 0) {
+      position += read;
+    }
+    return read;
+  }
+
+  @Override
+  public int read(long position, ByteBuffer dst) throws IOException {
+    if (position >= length) {
+      return -1;
+    }
+    final int len = (int) Math.min(dst.remaining(), length - position);
+    if (len == 0) {
+      return 0;
+    }
+
+    if (len <= MAX_BUFFERED_READ) {
+      if (position < readAheadStart || position + len > readAheadStart + readAheadLength) {
+        fillReadAhead(position);
+      }
+      dst.put(readAhead, (int) (position - readAheadStart), len);
+      return len;
+    }
+
+    readFully(position, Unpooled.wrappedBuffer(dst), len);
+    dst.position(dst.position() + len);
+    return len;
+  }
+
+  private void fillReadAhead(long position) throws IOException {
+    if (readAhead == null) {
+      readAhead = new byte[READ_AHEAD_SIZE];
+    }
+    readAheadLength = 0;
+    final int len = (int) Math.min(READ_AHEAD_SIZE, length - position);
+    readFully(position, Unpooled.wrappedBuffer(readAhead), len);
+    readAheadStart = position;
+    readAheadLength = len;
+  }
+
+  private void readFully(long position, ByteBuf dst, int len) throws IOException {
+    try {
+      reader.readFully(position, dst, 0, len).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  @Override
+  public long getPosition() throws IOException {
+    return position;
+  }
+
+  @Override
+  public void setPosition(long position) throws IOException {
+    this.position = position;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    final long skipped = Math.max(0, Math.min(n, length - position));
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - position));
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+}
@@ -0,0 +1,603 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.concurrent.NamedThreadFactory;
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.work.CacheManagerMountPointInfo;
+import com.dremio.exec.work.CacheManagerStoragePluginInfo;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.NettyArrowBuf;
+
+/**
+ * A cache of fixed size, aligned blocks of remote files on the local disks of an executor.
+ *
+ * Blocks are stored as files spread over the configured mount points, and the least recently used ones are evicted
+ * when a mount point, or the share of the cache given to a storage plugin, is full. The index of the cached blocks is
+ * kept in memory, so the blocks left over by a previous run are dropped on startup.
+ *
+ * The blocks read to be cached are held in buffers of the allocator of the cache until they are written, so at most
+ * MAX_PENDING_WRITES blocks are being read or written at a time. Misses beyond that are not cached.
+ */
+public class BlockCache implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(BlockCache.class);
+
+  static final String DIR_NAME = "block-cache";
+  static final int NUM_SUB_DIRS = 256;
+  private static final int MAX_PENDING_WRITES = 32;
+
+  private final long blockSize;
+  private final List<MountPoint> mountPoints;
+  private final long maxSpace;
+  private final ExecutorService writers;
+  private final BufferAllocator allocator;
+
+  // access ordered, the eldest entry is the least recently used block
+  private final LinkedHashMap<BlockKey, Block> blocks = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, PluginUsage> plugins = new HashMap<>();
+  private final Set<BlockKey> pendingWrites = ConcurrentHashMap.newKeySet();
+  private final AtomicLong nextBlockId = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private volatile boolean closed;
+
+  @VisibleForTesting
+  BlockCache(List<MountPoint> mountPoints, long blockSize, ExecutorService writers, BufferAllocator allocator) {
+    this.mountPoints = mountPoints;
+    this.blockSize = blockSize;
+    this.maxSpace = mountPoints.stream().mapToLong(m -> m.maxSpace).sum();
+    this.writers = writers;
+    this.allocator = allocator;
+  }
+
+  /**
+   * Creates the cache on the file system mount points of the executor cache configuration.
+   *
+   * @param parentAllocator allocator of the node, the blocks being cached are held in a child allocator
+   * @return the cache, or null if none of the mount points could be set up
+   */
+  public static BlockCache newInstance(DremioConfig config, NodeEndpoint endpoint, BufferAllocator parentAllocator) {
+    final List<String> paths = config.getStringList(DremioConfig.CACHE_FS_PATH_LIST);
+    final List<Integer> quotas = config.getIntList(DremioConfig.CACHE_FS_QUOTA_LIST);
+    final List<Integer> freeSpaces = config.getIntList(DremioConfig.CACHE_FS_ENSURE_FREE_SPACE_LIST);
+    final boolean isYarnDeployment = config.getBoolean(DremioConfig.YARN_ENABLED_BOOL);
+
+    final List<MountPoint> mountPoints = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      Path dir = Paths.get(paths.get(i));
+      if (isYarnDeployment) {
+        dir = dir.resolve(Integer.toString(endpoint.getFabricPort()));
+      }
+      dir = dir.resolve(DIR_NAME);
+      try {
+        mountPoints.add(MountPoint.create(mountPoints.size(), dir, get(quotas, i), get(freeSpaces, i)));
+      } catch (IOException e) {
+        logger.warn("Failed to set up the block cache in {}, skipping it", dir, e);
+      }
+    }
+    if (mountPoints.isEmpty()) {
+      return null;
+    }
+
+    final int numWriters = Math.max(1, mountPoints.size());
+    final ThreadPoolExecutor writers = new ThreadPoolExecutor(numWriters, numWriters, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(MAX_PENDING_WRITES), new NamedThreadFactory("block-cache-writer-"));
+    writers.allowCoreThreadTimeOut(true);
+    final long blockSize = config.getBytes(DremioConfig.CACHE_BLOCK_SIZE);
+    final BufferAllocator allocator =
+      parentAllocator.newChildAllocator("block-cache", 0, MAX_PENDING_WRITES * blockSize);
+    return new BlockCache(mountPoints, blockSize, writers, allocator);
+  }
+
+  private static int get(List<Integer> values, int index) {
+    return values.get(Math.min(index, values.size() - 1));
+  }
+
+  public long getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Sets the share of the cache the blocks of a storage plugin can use.
+   */
+  public synchronized void setMaxSpacePct(String pluginId, int maxSpacePct) {
+    plugins.computeIfAbsent(pluginId, PluginUsage::new).maxSpace = maxSpace * maxSpacePct / 100;
+  }
+
+  /**
+   * Reads a part of a cached block.
+   *
+   * @return true if the block was cached, false otherwise
+   */
+  public boolean read(BlockKey key, int blockOffset, ByteBuf dst, int dstOffset, int len) {
+    final Block block;
+    synchronized (this) {
+      block = blocks.get(key);
+    }
+    if (block == null || block.length < blockOffset + len) {
+      misses.increment();
+      return false;
+    }
+
+    final long start = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(block.file, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = dst.nioBuffer(dstOffset, len);
+      long position = blockOffset;
+      while (buffer.hasRemaining()) {
+        final int read = channel.read(buffer, position);
+        if (read < 0) {
+          throw new EOFException(String.format("Block file %s is shorter than expected", block.file));
+        }
+        position += read;
+      }
+    } catch (IOException e) {
+      // evicted in the meantime, or the disk failed
+      logger.debug("Failed to read block {} of {} from {}", key.index, key.path, block.file, e);
+      invalidate(key, block);
+      misses.increment();
+      return false;
+    }
+    block.mountPoint.reads.increment();
+    block.mountPoint.readNanos.add(System.nanoTime() - start);
+    hits.increment();
+    return true;
+  }
+
+  /**
+   * Allocates a buffer to read a missing block into before caching it with {@link #put(BlockKey, ByteBuf, int)}, or
+   * releasing it with {@link #cancel(BlockKey, ByteBuf)}.
+   *
+   * @return the buffer, or null if the block is already being cached, or if too many blocks are being cached
+   */
+  public ByteBuf allocateBlock(BlockKey key, int length) {
+    if (closed || pendingWrites.size() >= MAX_PENDING_WRITES || isCached(key) || !pendingWrites.add(key)) {
+      return null;
+    }
+    try {
+      return NettyArrowBuf.unwrapBuffer(allocator.buffer(length));
+    } catch (OutOfMemoryException e) {
+      logger.debug("Not caching block {} of {}, too many blocks are being cached", key.index, key.path);
+      pendingWrites.remove(key);
+      return null;
+    }
+  }
+
+  /**
+   * Releases a block allocated with {@link #allocateBlock(BlockKey, int)} without caching it.
+   */
+  public void cancel(BlockKey key, ByteBuf data) {
+    data.release();
+    pendingWrites.remove(key);
+  }
+
+  /**
+   * Stores a block allocated with {@link #allocateBlock(BlockKey, int)} in the background. The cache takes ownership
+   * of the buffer.
+   *
+   * @param key the block
+   * @param data buffer holding the block, starting at index 0
+   * @param length size of the block, only the last block of a file may be shorter than the block size
+   */
+  public void put(BlockKey key, ByteBuf data, int length) {
+    if (!closed) {
+      try {
+        writers.execute(() -> {
+          try {
+            write(key, data, length);
+          } finally {
+            data.release();
+            pendingWrites.remove(key);
+          }
+        });
+        return;
+      } catch (RejectedExecutionException e) {
+        // shut down
+        logger.debug("Skipping block {} of {}, the cache is closed", key.index, key.path);
+      }
+    }
+    cancel(key, data);
+  }
+
+  private synchronized boolean isCached(BlockKey key) {
+    return blocks.containsKey(key);
+  }
+
+  private void write(BlockKey key, ByteBuf data, int length) {
+    if (closed) {
+      return;
+    }
+    final MountPoint mountPoint = chooseMountPoint();
+    if (mountPoint == null) {
+      return;
+    }
+
+    final List<Block> evicted = new ArrayList<>();
+    final PluginUsage plugin;
+    synchronized (this) {
+      plugin = reserve(key.pluginId, mountPoint, length, evicted);
+    }
+    delete(evicted);
+    if (plugin == null) {
+      return;
+    }
+
+    final Block block = new Block(key, mountPoint, mountPoint.getFile(nextBlockId.getAndIncrement()), length);
+    final long start = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(block.file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      final ByteBuffer buffer = data.nioBuffer(0, length);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to cache block {} of {} in {}", key.index, key.path, block.file, e);
+      synchronized (this) {
+        release(plugin, mountPoint, length);
+      }
+      delete(Collections.singletonList(block));
+      return;
+    }
+    mountPoint.writes.increment();
+    mountPoint.writeNanos.add(System.nanoTime() - start);
+
+    final boolean added;
+    synchronized (this) {
+      added = !closed && blocks.putIfAbsent(key, block) == null;
+      if (!added) {
+        release(plugin, mountPoint, length);
+      }
+    }
+    if (!added) {
+      delete(Collections.singletonList(block));
+    }
+  }
+
+  private MountPoint chooseMountPoint() {
+    MountPoint chosen = null;
+    long chosenFreeSpace = 0;
+    for (MountPoint mountPoint : mountPoints) {
+      if (mountPoint.isLowOnSpace()) {
+        continue;
+      }
+      final long freeSpace;
+      synchronized (this) {
+        freeSpace = mountPoint.maxSpace - mountPoint.usedSpace;
+      }
+      if (chosen == null || freeSpace > chosenFreeSpace) {
+        chosen = mountPoint;
+        chosenFreeSpace = freeSpace;
+      }
+    }
+    return chosen;
+  }
+
+  /**
+   * Makes room for a block in the share of its plugin and in the mount point, evicting the least recently used blocks.
+   *
+   * @return the usage of the plugin, or null if there is no room for the block
+   */
+  private PluginUsage reserve(String pluginId, MountPoint mountPoint, int length, List<Block> evicted) {
+    final PluginUsage plugin = plugins.get(pluginId);
+    if (closed || plugin == null || length > plugin.maxSpace || length > mountPoint.maxSpace) {
+      return null;
+    }
+
+    evict(block -> block.key.pluginId.equals(pluginId), () -> plugin.usedSpace + length > plugin.maxSpace, evicted);
+    evict(block -> block.mountPoint == mountPoint, () -> mountPoint.usedSpace + length > mountPoint.maxSpace, evicted);
+    // blocks being written can't be evicted
+    if (plugin.usedSpace + length > plugin.maxSpace || mountPoint.usedSpace + length > mountPoint.maxSpace) {
+      return null;
+    }
+
+    plugin.usedSpace += length;
+    plugin.numBlocks++;
+    mountPoint.usedSpace += length;
+    mountPoint.numBlocks++;
+    return plugin;
+  }
+
+  private void evict(Predicate<Block> candidate, BooleanSupplier isFull, List<Block> evicted) {
+    final Map<MountPoint, Long> evictedBytes = new IdentityHashMap<>();
+    final Iterator<Block> iterator = blocks.values().iterator();
+    while (isFull.getAsBoolean() && iterator.hasNext()) {
+      final Block block = iterator.next();
+      if (!candidate.test(block)) {
+        continue;
+      }
+      iterator.remove();
+      release(plugins.get(block.key.pluginId), block.mountPoint, block.length);
+      evictedBytes.merge(block.mountPoint, (long) block.length, Long::sum);
+      evicted.add(block);
+      evictions.increment();
+    }
+    final long now = System.currentTimeMillis();
+    evictedBytes.forEach((mountPoint, bytes) -> {
+      mountPoint.lastEvictionTime = now;
+      mountPoint.lastEvictedBytes = bytes;
+    });
+  }
+
+  private void release(PluginUsage plugin, MountPoint mountPoint, int length) {
+    if (plugin != null) {
+      plugin.usedSpace -= length;
+      plugin.numBlocks--;
+    }
+    mountPoint.usedSpace -= length;
+    mountPoint.numBlocks--;
+  }
+
+  private void invalidate(BlockKey key, Block block) {
+    synchronized (this) {
+      if (!blocks.remove(key, block)) {
+        return;
+      }
+      release(plugins.get(key.pluginId), block.mountPoint, block.length);
+    }
+    delete(Collections.singletonList(block));
+  }
+
+  private static void delete(List<Block> blocks) {
+    for (Block block : blocks) {
+      try {
+        Files.deleteIfExists(block.file);
+      } catch (IOException e) {
+        logger.warn("Failed to delete cached block {}", block.file, e);
+      }
+    }
+  }
+
+  public List<CacheManagerMountPointInfo> getMountPointStats(String hostname) {
+    final List<CacheManagerMountPointInfo> stats = new ArrayList<>();
+    for (MountPoint mountPoint : mountPoints) {
+      final long reads = mountPoint.reads.sum();
+      final long writes = mountPoint.writes.sum();
+      final long freeSpace = mountPoint.getFreeSpace();
+      synchronized (this) {
+        stats.add(new CacheManagerMountPointInfo(hostname, mountPoint.dir.toString(), mountPoint.id, NUM_SUB_DIRS,
+          mountPoint.numBlocks, mountPoint.maxSpace, mountPoint.usedSpace,
+          reads == 0 ? 0 : mountPoint.readNanos.sum() / reads, writes == 0 ? 0 : mountPoint.writeNanos.sum() / writes,
+          closed ? "CLOSED" : "ACTIVE", freeSpace < mountPoint.minFreeSpace ? "LOW" : "NORMAL", mountPoint.totalSpace,
+          freeSpace, mountPoint.lastEvictionTime, mountPoint.lastEvictedBytes));
+      }
+    }
+    return stats;
+  }
+
+  public synchronized List<CacheManagerStoragePluginInfo> getStoragePluginStats(String hostname) {
+    final List<CacheManagerStoragePluginInfo> stats = new ArrayList<>();
+    for (PluginUsage plugin : plugins.values()) {
+      stats.add(new CacheManagerStoragePluginInfo(hostname, plugin.pluginId, plugin.numBlocks, plugin.usedSpace,
+        plugin.maxSpace));
+    }
+    return stats;
+  }
+
+  @VisibleForTesting
+  synchronized int getNumBlocks() {
+    return blocks.size();
+  }
+
+  @VisibleForTesting
+  long getHits() {
+    return hits.sum();
+  }
+
+  @VisibleForTesting
+  long getMisses() {
+    return misses.sum();
+  }
+
+  @VisibleForTesting
+  long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public void close() throws Exception {
+    closed = true;
+    writers.shutdown();
+    if (!writers.awaitTermination(10, TimeUnit.SECONDS)) {
+      logger.warn("Timed out waiting for the block cache writers to finish");
+    }
+    for (MountPoint mountPoint : mountPoints) {
+      MoreFiles.deleteRecursively(mountPoint.dir, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+    AutoCloseables.close(allocator);
+  }
+
+  /**
+   * Identifies a block of a given version of a file read through a storage plugin.
+   */
+  public static final class BlockKey {
+    private final String pluginId;
+    private final String path;
+    private final String version;
+    private final long index;
+
+    public BlockKey(String pluginId, String path, String version, long index) {
+      this.pluginId = pluginId;
+      this.path = path;
+      this.version = version;
+      this.index = index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final BlockKey that = (BlockKey) o;
+      return index == that.index
+        && pluginId.equals(that.pluginId)
+        && path.equals(that.path)
+        && version.equals(that.version);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(pluginId, path, version, index);
+    }
+  }
+
+  private static final class Block {
+    private final BlockKey key;
+    private final MountPoint mountPoint;
+    private final Path file;
+    private final int length;
+
+    private Block(BlockKey key, MountPoint mountPoint, Path file, int length) {
+      this.key = key;
+      this.mountPoint = mountPoint;
+      this.file = file;
+      this.length = length;
+    }
+  }
+
+  private static final class PluginUsage {
+    private final String pluginId;
+    private long maxSpace;
+    private long usedSpace;
+    private long numBlocks;
+
+    private PluginUsage(String pluginId) {
+      this.pluginId = pluginId;
+    }
+  }
+
+  /**
+   * A directory of the cache, on one of the local disks.
+   */
+  static final class MountPoint {
+    private final int id;
+    private final Path dir;
+    private final FileStore store;
+    private final long totalSpace;
+    private final long maxSpace;
+    private final long minFreeSpace;
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+
+    // guarded by the cache
+    private long usedSpace;
+    private long numBlocks;
+    private long lastEvictionTime;
+    private long lastEvictedBytes;
+
+    private MountPoint(int id, Path dir, FileStore store, long totalSpace, long maxSpace, long minFreeSpace) {
+      this.id = id;
+      this.dir = dir;
+      this.store = store;
+      this.totalSpace = totalSpace;
+      this.maxSpace = maxSpace;
+      this.minFreeSpace = minFreeSpace;
+    }
+
+    /**
+     * Sets up an empty cache directory.
+     *
+     * @param quotaPct the share of the disk the cache can use
+     * @param ensureFreeSpacePct the share of the disk to keep free, blocks aren't added beyond it
+     */
+    static MountPoint create(int id, Path dir, int quotaPct, int ensureFreeSpacePct) throws IOException {
+      final FileStore store = prepare(dir);
+      final long totalSpace = store.getTotalSpace();
+      return new MountPoint(id, dir, store, totalSpace, totalSpace * quotaPct / 100,
+        totalSpace * ensureFreeSpacePct / 100);
+    }
+
+    @VisibleForTesting
+    static MountPoint create(int id, Path dir, long maxSpace) throws IOException {
+      final FileStore store = prepare(dir);
+      return new MountPoint(id, dir, store, store.getTotalSpace(), maxSpace, 0);
+    }
+
+    private static FileStore prepare(Path dir) throws IOException {
+      if (Files.exists(dir)) {
+        MoreFiles.deleteRecursively(dir, RecursiveDeleteOption.ALLOW_INSECURE);
+      }
+      for (int i = 0; i < NUM_SUB_DIRS; i++) {
+        Files.createDirectories(dir.resolve(subDirName(i)));
+      }
+      return Files.getFileStore(dir);
+    }
+
+    private static String subDirName(long blockId) {
+      return String.format("%02x", blockId % NUM_SUB_DIRS);
+    }
+
+    private Path getFile(long blockId) {
+      return dir.resolve(subDirName(blockId)).resolve(Long.toString(blockId));
+    }
+
+    private long getFreeSpace() {
+      try {
+        return store.getUsableSpace();
+      } catch (IOException e) {
+        return 0;
+      }
+    }
+
+    private boolean isLowOnSpace() {
+      return getFreeSpace() < minFreeSpace;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.exec.store.cache.BlockCache.BlockKey;
+import com.dremio.io.AsyncByteReader;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * An async reader serving the blocks of a file from the local block cache, and reading the missing ones through
+ * another reader.
+ *
+ * Missing blocks are read whole, one remote read per block, and stored in the cache in the background once the version
+ * of the file has been checked. When the cache can't take more blocks, only the requested range is read.
+ */
+class BlockCacheAsyncByteReader implements AsyncByteReader {
+  private static final Logger logger = LoggerFactory.getLogger(BlockCacheAsyncByteReader.class);
+
+  private final BlockCache cache;
+  private final AsyncByteReader delegate;
+  private final String pluginId;
+  private final String path;
+  private final String version;
+  private final LongSupplier fileLength;
+
+  /**
+   * @param fileLength supplies the size of the file, or -1 if it can't be found
+   */
+  BlockCacheAsyncByteReader(BlockCache cache, AsyncByteReader delegate, String pluginId, String path, String version,
+                            LongSupplier fileLength) {
+    this.cache = cache;
+    this.delegate = delegate;
+    this.pluginId = pluginId;
+    this.path = path;
+    this.version = version;
+    this.fileLength = fileLength;
+  }
+
+  @Override
+  public CompletableFuture<Void> readFully(long offset, ByteBuf dst, int dstOffset, int len) {
+    if (len == 0) {
+      return completedFuture;
+    }
+
+    final long blockSize = cache.getBlockSize();
+    final long end = offset + len;
+    final List<CompletableFuture<Void>> remoteReads = new ArrayList<>();
+    long fileLength = Long.MIN_VALUE;
+    for (long index = offset / blockSize; index * blockSize < end; index++) {
+      final long blockStart = index * blockSize;
+      final long from = Math.max(offset, blockStart);
+      final long to = Math.min(end, blockStart + blockSize);
+      if (cache.read(key(index), (int) (from - blockStart), dst, dstOffset + (int) (from - offset), (int) (to - from))) {
+        continue;
+      }
+
+      if (fileLength == Long.MIN_VALUE) {
+        fileLength = this.fileLength.getAsLong();
+      }
+      final long blockLength = Math.min(blockSize, fileLength - blockStart);
+      if (blockLength < to - blockStart) {
+        // the size of the file is unknown, or doesn't match the read, leave it to the other reader
+        remoteReads.add(delegate.readFully(from, dst, dstOffset + (int) (from - offset), (int) (to - from)));
+        continue;
+      }
+      remoteReads.add(readBlock(index, (int) blockLength, (int) (from - blockStart), dst,
+        dstOffset + (int) (from - offset), (int) (to - from)));
+    }
+
+    if (remoteReads.size() == 1) {
+      return remoteReads.get(0);
+    }
+    return CompletableFuture.allOf(remoteReads.toArray(new CompletableFuture[0]));
+  }
+
+  private CompletableFuture<Void> readBlock(long index, int blockLength, int blockOffset, ByteBuf dst, int dstOffset,
+                                            int len) {
+    final BlockKey key = key(index);
+    final ByteBuf block = cache.allocateBlock(key, blockLength);
+    if (block == null) {
+      return delegate.readFully(index * cache.getBlockSize() + blockOffset, dst, dstOffset, len);
+    }
+    return delegate.readFully(index * cache.getBlockSize(), block, 0, blockLength)
+      .whenComplete((v, e) -> {
+        if (e != null) {
+          cache.cancel(key, block);
+          return;
+        }
+        try {
+          block.getBytes(blockOffset, dst, dstOffset, len);
+        } catch (RuntimeException ex) {
+          cache.cancel(key, block);
+          throw ex;
+        }
+        populate(index, key, block, blockLength);
+      });
+  }
+
+  private void populate(long index, BlockKey key, ByteBuf block, int blockLength) {
+    checkVersion(version).whenComplete((v, e) -> {
+      if (e == null) {
+        cache.put(key, block, blockLength);
+      } else {
+        logger.debug("Not caching block {} of {}, version check failed", index, path, e);
+        cache.cancel(key, block);
+      }
+    });
+  }
+
+  private BlockKey key(long index) {
+    return new BlockKey(pluginId, path, version, index);
+  }
+
+  @Override
+  public CompletableFuture<Void> checkVersion(String version) {
+    return delegate.checkVersion(version);
+  }
+
+  @Override
+  public List<ReaderStat> getStats() {
+    return delegate.getStats();
+  }
+
+  @Override
+  public void close() throws Exception {
+    delegate.close();
+  }
+}
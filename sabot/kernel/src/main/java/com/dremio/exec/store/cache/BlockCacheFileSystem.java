@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.AsyncByteReader.FileKey;
+import com.dremio.io.FSInputStream;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.FilterFileSystem;
+import com.dremio.io.file.Path;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+/**
+ * A file system whose async readers go through the local block cache.
+ */
+public class BlockCacheFileSystem extends FilterFileSystem {
+  private static final Logger logger = LoggerFactory.getLogger(BlockCacheFileSystem.class);
+
+  private final BlockCache cache;
+  private final String pluginId;
+
+  BlockCacheFileSystem(FileSystem fs, BlockCache cache, String pluginId) {
+    super(fs);
+    this.cache = cache;
+    this.pluginId = pluginId;
+  }
+
+  /**
+   * Opens a file of a known size and version, reading it through the block cache when the file system has one.
+   *
+   * @param mTime modification time of the file, the file isn't cached if it is unknown
+   */
+  public static FSInputStream open(FileSystem fs, Path path, long length, long mTime, FileKey.FileType fileType)
+    throws IOException {
+    final BlockCacheFileSystem cacheFs = mTime > 0 ? fs.unwrap(BlockCacheFileSystem.class) : null;
+    if (cacheFs == null) {
+      return fs.open(path);
+    }
+    final AsyncByteReader reader = cacheFs.newReader(FileKey.of(path, Long.toString(mTime), fileType),
+      Collections.emptyMap(), () -> length);
+    return new AsyncByteReaderInputStream(reader, length);
+  }
+
+  @Override
+  public AsyncByteReader getAsyncByteReader(FileKey fileKey, Map<String, String> options) throws IOException {
+    final Path path = fileKey.getPath();
+    final Supplier<Long> length = Suppliers.memoize(() -> {
+      try {
+        return getFileAttributes(path).size();
+      } catch (IOException e) {
+        logger.debug("Failed to get the size of {}, reading it without the block cache", path, e);
+        return -1L;
+      }
+    });
+    return newReader(fileKey, options, length::get);
+  }
+
+  private AsyncByteReader newReader(FileKey fileKey, Map<String, String> options, LongSupplier length)
+    throws IOException {
+    return new BlockCacheAsyncByteReader(cache, super.getAsyncByteReader(fileKey, options), pluginId,
+      fileKey.getPath().toString(), fileKey.getVersion(), length);
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> clazz) {
+    if (clazz.isInstance(this)) {
+      return clazz.cast(this);
+    }
+    return super.unwrap(clazz);
+  }
+}
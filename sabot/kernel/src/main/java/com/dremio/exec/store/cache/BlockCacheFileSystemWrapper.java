@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.rocksdb.RocksIterator;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.store.dfs.AsyncStreamConf;
+import com.dremio.exec.store.dfs.CacheProperties;
+import com.dremio.exec.store.dfs.FileSystemWrapper;
+import com.dremio.exec.store.sys.CacheManagerStatsProvider;
+import com.dremio.exec.work.CacheManagerDatasetInfo;
+import com.dremio.exec.work.CacheManagerFilesInfo;
+import com.dremio.exec.work.CacheManagerMountPointInfo;
+import com.dremio.exec.work.CacheManagerStoragePluginInfo;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.UriSchemes;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.exec.context.OperatorContext;
+
+/**
+ * Wraps the file systems of the sources that request caching, so that their async reads go through the local block
+ * cache of the executor.
+ *
+ * The cache keeps its index in memory, so it only reports the mount point and storage plugin statistics.
+ */
+public class BlockCacheFileSystemWrapper implements FileSystemWrapper, CacheManagerStatsProvider {
+  private final BlockCache cache;
+  private final OptionManager optionManager;
+  private final String hostname;
+
+  BlockCacheFileSystemWrapper(BlockCache cache, OptionManager optionManager, String hostname) {
+    this.cache = cache;
+    this.optionManager = optionManager;
+    this.hostname = hostname;
+  }
+
+  /**
+   * @return whether the blocks of remote files should be cached on the local disks of the node
+   */
+  public static boolean isEnabled(DremioConfig config) {
+    return config != null
+      && config.getBoolean(DremioConfig.ENABLE_EXECUTOR_BOOL)
+      && config.getBoolean(DremioConfig.CACHE_ENABLED)
+      && config.getBoolean(DremioConfig.CACHE_BLOCKS_ENABLED);
+  }
+
+  /**
+   * Creates the wrapper of an executor with the block cache enabled.
+   *
+   * @return the wrapper, or null if the cache couldn't be set up
+   */
+  public static FileSystemWrapper newInstance(DremioConfig config, OptionManager optionManager, NodeEndpoint endpoint,
+                                              BufferAllocator allocator) {
+    final BlockCache cache = BlockCache.newInstance(config, endpoint, allocator);
+    return cache == null ? null : new BlockCacheFileSystemWrapper(cache, optionManager, endpoint.getAddress());
+  }
+
+  @Override
+  public FileSystem wrap(FileSystem fs, String storageId, AsyncStreamConf conf, OperatorContext context,
+                         boolean enableAsync, boolean isMetadataRefresh) throws IOException {
+    if (conf == null || !enableAsync || isMetadataRefresh || !fs.supportsAsync()
+      || UriSchemes.FILE_SCHEME.equals(fs.getScheme())) {
+      return fs;
+    }
+
+    final CacheProperties cacheProperties = conf.getCacheProperties();
+    if (!cacheProperties.isCachingEnabled(context != null ? context.getOptions() : optionManager)) {
+      return fs;
+    }
+    cache.setMaxSpacePct(storageId, cacheProperties.cacheMaxSpaceLimitPct());
+    return new BlockCacheFileSystem(fs, cache, storageId);
+  }
+
+  @Override
+  public List<CacheManagerMountPointInfo> getMountPointStats() {
+    return cache.getMountPointStats(hostname);
+  }
+
+  @Override
+  public List<CacheManagerStoragePluginInfo> getStoragePluginStats() {
+    return cache.getStoragePluginStats(hostname);
+  }
+
+  @Override
+  public RocksIterator getDatasetIterator() {
+    return null;
+  }
+
+  @Override
+  public List<CacheManagerDatasetInfo> getDatasetStats(RocksIterator dsIterator) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public RocksIterator getCachedFilesIterator() {
+    return null;
+  }
+
+  @Override
+  public List<CacheManagerFilesInfo> getCachedFilesStats(RocksIterator fileIterator) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void close() throws IOException {
+    AutoCloseables.close(IOException.class, cache);
+  }
+}
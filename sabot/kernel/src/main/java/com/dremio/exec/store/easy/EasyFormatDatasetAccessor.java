@@ -322,7 +322,8 @@ public class EasyFormatDatasetAccessor implements FileDatasetHandle {
           .setLength(completeFileWork.getLength())
           .setUpdateKey(FileSystemCachedEntity.newBuilder()
               .setPath(pathString)
-              .setLastModificationTime(completeFileWork.getFileAttributes().lastModifiedTime().toMillis()))
+              .setLastModificationTime(completeFileWork.getFileAttributes().lastModifiedTime().toMillis())
+              .setLength(completeFileWork.getFileAttributes().size()))
           .build();
 
       List<PartitionValue> partitionValues = new ArrayList<>();
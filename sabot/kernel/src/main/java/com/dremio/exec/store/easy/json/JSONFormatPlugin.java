@@ -22,6 +22,7 @@ import java.util.Objects;
 import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.expression.SchemaPath;
 import com.dremio.common.logical.FormatPluginConfig;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.proto.UserBitShared.CoreOperatorType;
 import com.dremio.exec.server.SabotContext;
 import com.dremio.exec.store.EasyCoercionReader;
@@ -38,6 +39,7 @@ import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.store.easy.proto.EasyProtobuf.EasyDatasetSplitXAttr;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
@@ -56,7 +58,28 @@ public class JSONFormatPlugin extends EasyFormatPlugin<JSONFormatConfig> {
 
   @Override
   public RecordReader getRecordReader(OperatorContext context, FileSystem dfs, EasyDatasetSplitXAttr splitAttributes, List<SchemaPath> columns) throws ExecutionSetupException {
-    return new JSONRecordReader(context, splitAttributes.getPath(), getFsPlugin().getCompressionCodecFactory(), dfs, columns);
+    if (coversWholeFile(splitAttributes, context.getOptions().getOption(ExecConstants.JSON_BLOCK_SPLITTABLE))) {
+      // the file may have grown since the last metadata refresh, read it to its end.
+      return new JSONRecordReader(context, splitAttributes.getPath(), getFsPlugin().getCompressionCodecFactory(), dfs,
+        columns);
+    }
+    return new JSONRecordReader(context, splitAttributes.getPath(), splitAttributes.getStart(),
+      splitAttributes.getLength(), getFsPlugin().getCompressionCodecFactory(), dfs, columns);
+  }
+
+  /**
+   * Whether a split is the only one of its file. The splits are created at the metadata refresh, so this doesn't depend
+   * on the current value of store.json.block_splittable, unless the size of the file wasn't recorded with the split.
+   */
+  @VisibleForTesting
+  static boolean coversWholeFile(EasyDatasetSplitXAttr splitAttributes, boolean blockSplittable) {
+    if (splitAttributes.getStart() > 0) {
+      return false;
+    }
+    if (splitAttributes.hasUpdateKey() && splitAttributes.getUpdateKey().hasLength()) {
+      return splitAttributes.getLength() >= splitAttributes.getUpdateKey().getLength();
+    }
+    return !blockSplittable;
   }
 
   @Override
@@ -65,6 +88,11 @@ public class JSONFormatPlugin extends EasyFormatPlugin<JSONFormatConfig> {
     return new EasyCoercionReader(context, columns, inner, config.getFullSchema(), Iterables.getFirst(config.getReferencedTables(), null), config.getUserDefinedSchemaSettings());
   }
 
+  @Override
+  public boolean isBlockSplittable() {
+    return getContext().getOptionManager().getOption(ExecConstants.JSON_BLOCK_SPLITTABLE);
+  }
+
   @Override
   public RecordWriter getRecordWriter(OperatorContext context, EasyWriter writer) throws IOException {
     RecordWriter recordWriter = new JsonRecordWriter(context, writer, (JSONFormatConfig) getConfig());
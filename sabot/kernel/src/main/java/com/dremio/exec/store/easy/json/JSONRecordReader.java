@@ -31,7 +31,9 @@ import com.dremio.exec.store.AbstractRecordReader;
 import com.dremio.exec.store.easy.json.JsonProcessor.ReadState;
 import com.dremio.exec.store.easy.json.reader.CountingJsonReader;
 import com.dremio.exec.vector.complex.fn.JsonReader;
+import com.dremio.io.CompressedFSInputStream;
 import com.dremio.io.CompressionCodecFactory;
+import com.dremio.io.FSInputStream;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.FileSystemUtils;
 import com.dremio.io.file.Path;
@@ -42,6 +44,7 @@ import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.math.LongMath;
 
 public class JSONRecordReader extends AbstractRecordReader {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JSONRecordReader.class);
@@ -52,6 +55,8 @@ public class JSONRecordReader extends AbstractRecordReader {
 
   // Data we're consuming
   private final Path fsPath;
+  private final long start;
+  private final long length;
   private final JsonNode embeddedContent;
 
   private final CompressionCodecFactory codecFactory;
@@ -79,7 +84,29 @@ public class JSONRecordReader extends AbstractRecordReader {
       final CompressionCodecFactory codecFactory,
       final FileSystem fileSystem,
       final List<SchemaPath> columns) throws OutOfMemoryException {
-    this(context, inputPath, null, codecFactory, fileSystem, columns);
+    this(context, inputPath, 0, Long.MAX_VALUE, codecFactory, fileSystem, columns);
+  }
+
+  /**
+   * Create a JSON Record Reader that reads the records starting in a split of a file, see {@link LineSplitInputStream}.
+   * @param context
+   * @param inputPath
+   * @param start  offset of the split in the file
+   * @param length  length of the split
+   * @param codecFactory
+   * @param fileSystem
+   * @param columns  pathnames of columns/subfields to read
+   * @throws OutOfMemoryException
+   */
+  public JSONRecordReader(
+      final OperatorContext context,
+      final String inputPath,
+      final long start,
+      final long length,
+      final CompressionCodecFactory codecFactory,
+      final FileSystem fileSystem,
+      final List<SchemaPath> columns) throws OutOfMemoryException {
+    this(context, inputPath, start, length, null, codecFactory, fileSystem, columns);
   }
 
   @Override
@@ -99,11 +126,13 @@ public class JSONRecordReader extends AbstractRecordReader {
   public JSONRecordReader(final OperatorContext context, final JsonNode embeddedContent,
       final CompressionCodecFactory codecFactory, final FileSystem fileSystem, final List<SchemaPath> columns)
       throws OutOfMemoryException {
-    this(context, null, embeddedContent, codecFactory, fileSystem, columns);
+    this(context, null, 0, Long.MAX_VALUE, embeddedContent, codecFactory, fileSystem, columns);
   }
 
   private JSONRecordReader(final OperatorContext operatorContext,
                            final String inputPath,
+                           final long start,
+                           final long length,
                            final JsonNode embeddedContent,
                            final CompressionCodecFactory codecFactory,
                            final FileSystem fileSystem,
@@ -124,6 +153,8 @@ public class JSONRecordReader extends AbstractRecordReader {
       this.fsPath = null;
     }
 
+    this.start = start;
+    this.length = length;
     this.codecFactory = codecFactory;
     this.fileSystem = fileSystem;
     this.context = operatorContext;
@@ -143,6 +174,8 @@ public class JSONRecordReader extends AbstractRecordReader {
   public String toString() {
     return super.toString()
         + "[hadoopPath = " + fsPath
+        + ", start = " + start
+        + ", length = " + length
         + ", recordCount = " + recordCount
         + ", runningRecordCount = " + runningRecordCount + ", ...]";
   }
@@ -151,7 +184,7 @@ public class JSONRecordReader extends AbstractRecordReader {
   public void setup(final OutputMutator output) throws ExecutionSetupException {
     try{
       if (fsPath != null) {
-        this.stream = FileSystemUtils.openPossiblyCompressedStream(codecFactory, fileSystem, fsPath);
+        this.stream = openStream();
       }
 
       this.writer = new VectorContainerWriter(output);
@@ -174,6 +207,19 @@ public class JSONRecordReader extends AbstractRecordReader {
     }
   }
 
+  private InputStream openStream() throws IOException {
+    final FSInputStream input = FileSystemUtils.openPossiblyCompressedStream(codecFactory, fileSystem, fsPath);
+    if (input instanceof CompressedFSInputStream) {
+      // compressed files aren't split, the length of their split is the compressed size
+      Preconditions.checkArgument(start == 0, "Cannot use split on compressed stream.");
+      return input;
+    }
+    if (start == 0 && (length <= 0 || length == Long.MAX_VALUE)) {
+      return input;
+    }
+    return new LineSplitInputStream(input, start, LongMath.saturatedAdd(start, length));
+  }
+
   private void setupParser() throws IOException {
     if(fsPath != null){
       jsonReader.setSource(stream);
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.dremio.io.FSInputStream;
+
+/**
+ * A stream over the lines of a split [start, end) of a file, so that when a file is split at arbitrary offsets each of
+ * its lines is read by exactly one split: the lines starting in (start, end] are read whole, and the first line of the
+ * file by the split starting it.
+ *
+ * The line the split starts in is skipped, the previous split reads it up to its end.
+ */
+final class LineSplitInputStream extends InputStream {
+  private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+
+  private final FSInputStream in;
+  private final long end;
+  private long position;
+  private boolean finished;
+
+  LineSplitInputStream(FSInputStream in, long start, long end) throws IOException {
+    this.in = in;
+    this.end = end;
+    if (start > 0) {
+      in.setPosition(start);
+      position = start;
+      skipLine();
+    }
+  }
+
+  private void skipLine() throws IOException {
+    final byte[] buffer = new byte[SKIP_BUFFER_SIZE];
+    while (true) {
+      final int read = in.read(buffer, 0, buffer.length);
+      if (read < 0) {
+        finished = true;
+        return;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer[i] == '\n') {
+          position += i + 1;
+          in.setPosition(position);
+          finished = position > end;
+          return;
+        }
+      }
+      position += read;
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    final byte[] b = new byte[1];
+    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (finished) {
+      return -1;
+    }
+    if (len == 0) {
+      return 0;
+    }
+
+    final int read = in.read(b, off, len);
+    if (read < 0) {
+      finished = true;
+      return -1;
+    }
+    if (position + read > end) {
+      // the line holding the end of the split is the last one read
+      for (int i = (int) Math.max(0, end - position); i < read; i++) {
+        if (b[off + i] == '\n') {
+          finished = true;
+          position += i + 1;
+          return i + 1;
+        }
+      }
+    }
+    position += read;
+    return read;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
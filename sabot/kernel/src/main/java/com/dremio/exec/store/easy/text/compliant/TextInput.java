@@ -34,6 +34,7 @@ package com.dremio.exec.store.easy.text.compliant;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.BoundsChecking;
@@ -54,6 +55,11 @@ import io.netty.util.internal.PlatformDependent;
 final class TextInput {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TextInput.class);
 
+  // the bytes are scanned a word at a time when the first byte of the buffer is the lowest byte of the word
+  private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGHS = 0x8080808080808080L;
+
 //  private static final int READ_CHARS_LIMIT = 1024*64;
   private final byte[] lineSeparator;
   private final byte normalizedLineSeparator;
@@ -350,6 +356,75 @@ final class TextInput {
     return byteChar;
   }
 
+  /**
+   * Appends to the output the bytes following the last one read, up to the first one equal to one of the given bytes,
+   * which is left to be read. Stops before the last byte of the buffer, so that {@link #nextChar()} reads it and moves
+   * to the next buffer.
+   * @return the number of bytes appended
+   */
+  final int appendUntil(TextOutput output, byte b1, byte b2, byte b3) {
+    final int available = length - bufferPtr;
+    if (available <= 0) {
+      return 0;
+    }
+    if (BoundsChecking.BOUNDS_CHECKING_ENABLED) {
+      buffer.checkBytes(bufferPtr - 1, length - 1);
+    }
+
+    final long address = bStartMinus1 + bufferPtr;
+    final int count = indexOfAny(address, available, b1, b2, b3);
+    if (count > 0) {
+      output.append(address, count);
+      bufferPtr += count;
+    }
+    return count;
+  }
+
+  /**
+   * Last byte read, to be called after {@link #appendUntil(TextOutput, byte, byte, byte)} appended bytes.
+   * @return the last byte read
+   */
+  final byte lastChar() {
+    return PlatformDependent.getByte(bStartMinus1 + bufferPtr - 1);
+  }
+
+  /**
+   * Finds the first of the bytes at the given address equal to one of the given bytes. Compares 8 bytes at a time on
+   * little endian platforms: a byte of a word equal to b has its high bit set in {@code zeroBytes(word ^ (b * ONES))},
+   * and the lowest of them is the first one.
+   * @return the index of the first byte equal to one of the given bytes, or length if there is none
+   */
+  static int indexOfAny(long address, int length, byte b1, byte b2, byte b3) {
+    int i = 0;
+    if (LITTLE_ENDIAN) {
+      final long p1 = ONES * (b1 & 0xff);
+      final long p2 = ONES * (b2 & 0xff);
+      final long p3 = ONES * (b3 & 0xff);
+      for (; i + Long.BYTES <= length; i += Long.BYTES) {
+        final long word = PlatformDependent.getLong(address + i);
+        final long matches = zeroBytes(word ^ p1) | zeroBytes(word ^ p2) | zeroBytes(word ^ p3);
+        if (matches != 0) {
+          return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+        }
+      }
+    }
+    for (; i < length; i++) {
+      final byte b = PlatformDependent.getByte(address + i);
+      if (b == b1 || b == b2 || b == b3) {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Sets the high bit of the lowest zero byte of the word. The bytes above it may be set too, whether they are zero or
+   * not.
+   */
+  private static long zeroBytes(long word) {
+    return (word - ONES) & ~word & HIGHS;
+  }
+
   /**
    * Number of lines read since the start of this split.
    * @return
@@ -73,6 +73,8 @@ final class TextReader implements AutoCloseable {
   private final byte quote;
   private final byte quoteEscape;
   private final byte newLine;
+  // first byte of the line delimiter of the input, the values are scanned up to it
+  private final byte newLineDelimiterStart;
 
   /**
    * The CsvParser supports all settings provided by {@link CsvParserSettings}, and requires this configuration to be
@@ -104,6 +106,7 @@ final class TextReader implements AutoCloseable {
     final byte[] newLineDelimiter = settings.getNewLineDelimiter();
     isNormalLineDelimiter = ((newLineDelimiter.length == 1) && (newLineDelimiter[0] == settings.getNormalizedNewLine())) ?
       true : false;
+    newLineDelimiterStart = newLineDelimiter[0];
   }
 
   public TextOutput getOutput(){
@@ -207,9 +210,13 @@ final class TextReader implements AutoCloseable {
     final TextOutput output = this.output;
     final TextInput input = this.input;
 
+    final byte newLineDelimiterStart = this.newLineDelimiterStart;
+
     byte ch = this.ch;
     while (ch != delimiter && ch != newLine) {
       output.append(ch);
+      // appends the rest of the value in bulk, up to the end of the buffer
+      input.appendUntil(output, delimiter, newLine, newLineDelimiterStart);
       ch = input.nextChar();
     }
     this.ch = ch;
@@ -261,6 +268,10 @@ final class TextReader implements AutoCloseable {
         }
         output.append(ch);
         prev = ch;
+        // appends the bytes up to the next quote in bulk, up to the end of the buffer
+        if (input.appendUntil(output, quote, quote, quote) > 0) {
+          prev = input.lastChar();
+        }
       } else if (prev == quoteEscape) {
         output.append(quote);
         prev = NULL_BYTE;
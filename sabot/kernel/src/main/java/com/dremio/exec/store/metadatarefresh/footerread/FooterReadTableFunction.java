@@ -177,7 +177,7 @@ public class FooterReadTableFunction extends AbstractTableFunction {
         }
         Footer footer = null;
         try {
-          footer = footerReader(getFS(path)).getFooter(PathUtils.withoutQueryParams(path), fileSize);
+          footer = footerReader(getFS(path)).getFooter(PathUtils.withoutQueryParams(path), fileSize, mtimeVector.get(currentRow));
         } catch (Exception e) {
           String msg = String.format("Invalid %s footer in the dataset %s for file %s. Error - %s.", fileType, tableName, new String(pathVector.get(currentRow)), e.getMessage());
           throw UserException.validationError(e).message(msg).buildSilently();
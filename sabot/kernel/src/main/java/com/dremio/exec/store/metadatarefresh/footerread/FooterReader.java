@@ -19,4 +19,11 @@ import java.io.IOException;
 
 public interface FooterReader {
   Footer getFooter(String path, long fileSize) throws IOException;
+
+  /**
+   * @param mTime modification time of the file, which lets readers reuse what they know of an unchanged file
+   */
+  default Footer getFooter(String path, long fileSize, long mTime) throws IOException {
+    return getFooter(path, fileSize);
+  }
 }
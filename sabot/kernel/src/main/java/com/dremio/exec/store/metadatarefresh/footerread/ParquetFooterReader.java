@@ -89,7 +89,12 @@ public class ParquetFooterReader implements FooterReader {
 
   @Override
   public Footer getFooter(String path, long fileSize) throws IOException {
-    MutableParquetMetadata parquetMetadata = this.readFooter ? readFooter(path, fileSize) : null;
+    return getFooter(path, fileSize, -1);
+  }
+
+  @Override
+  public Footer getFooter(String path, long fileSize, long mTime) throws IOException {
+    MutableParquetMetadata parquetMetadata = this.readFooter ? readFooter(path, fileSize, mTime) : null;
     if(readFooter) {
       return new ParquetFooter(createBatchSchemaIfNeeded(parquetMetadata, path, fileSize), getRowCount(parquetMetadata, fileSize), parquetMetadata.getBlocks().size());
     } else {
@@ -225,9 +230,9 @@ public class ParquetFooterReader implements FooterReader {
     }
   }
 
-  private MutableParquetMetadata readFooter(String path, long fileSize) throws IOException {
+  private MutableParquetMetadata readFooter(String path, long fileSize, long mTime) throws IOException {
     logger.debug("Reading footer of file [{}]", path);
-    try (SingleStreamProvider singleStreamProvider = new SingleStreamProvider(this.fs, Path.of(path), fileSize,
+    try (SingleStreamProvider singleStreamProvider = new SingleStreamProvider(this.fs, Path.of(path), fileSize, mTime,
       maxFooterLen(), false, null, opContext, false)) {
       return singleStreamProvider.getFooter();
     }
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.io.AsyncByteReader;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.NettyArrowBuf;
+
+/**
+ * Reads a set of ranges of a file through an {@link AsyncByteReader} with few requests: ranges that are at most
+ * {@code maxGap} bytes apart are merged into one read, discarding the bytes in between, and merged ranges larger than
+ * {@code maxRequestSize} are split into requests issued in parallel.
+ *
+ * The bytes of the requests in flight are bounded per query, across all the readers of the query on this executor.
+ */
+final class CoalescingRangeReader {
+  private final AsyncByteReader reader;
+  private final BufferAllocator allocator;
+  private final long maxGap;
+  private final long maxRequestSize;
+  private final QueryId queryId;
+  private final long maxInFlightBytes;
+  private final ParquetReaderStats stats;
+
+  /**
+   * @param queryId query the bytes in flight are accounted to, or null to only bound the reads of this reader
+   */
+  CoalescingRangeReader(AsyncByteReader reader, BufferAllocator allocator, long maxGap, long maxRequestSize,
+                        QueryId queryId, long maxInFlightBytes, ParquetReaderStats stats) {
+    Preconditions.checkArgument(maxRequestSize > 0, "The max request size must be positive");
+    Preconditions.checkArgument(maxInFlightBytes > 0, "The max bytes in flight must be positive");
+    this.reader = reader;
+    this.allocator = allocator;
+    this.maxGap = maxGap;
+    this.maxRequestSize = maxRequestSize;
+    this.queryId = queryId;
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.stats = stats;
+  }
+
+  /**
+   * A range of bytes of the file
+   */
+  static final class Range {
+    private final long offset;
+    private final long length;
+
+    Range(long offset, long length) {
+      Preconditions.checkArgument(offset >= 0 && length >= 0, "Invalid range [%s, %s)", offset, offset + length);
+      this.offset = offset;
+      this.length = length;
+    }
+
+    long getOffset() {
+      return offset;
+    }
+
+    long getLength() {
+      return length;
+    }
+
+    long getEnd() {
+      return offset + length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Range range = (Range) o;
+      return offset == range.offset && length == range.length;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(offset, length);
+    }
+
+    @Override
+    public String toString() {
+      return "[" + offset + ", " + getEnd() + ")";
+    }
+  }
+
+  /**
+   * Ranges read into the same buffer, with the requests fetching it
+   */
+  static final class MergedRange {
+    private final Range range;
+    private final List<Range> ranges;
+    private final List<Range> requests;
+
+    private MergedRange(Range range, List<Range> ranges, List<Range> requests) {
+      this.range = range;
+      this.ranges = ranges;
+      this.requests = requests;
+    }
+
+    Range getRange() {
+      return range;
+    }
+
+    /**
+     * @return the ranges merged, in file order
+     */
+    List<Range> getRanges() {
+      return ranges;
+    }
+
+    /**
+     * @return the requests covering the merged range, in file order
+     */
+    List<Range> getRequests() {
+      return requests;
+    }
+  }
+
+  /**
+   * Plans the requests reading the given ranges.
+   */
+  @VisibleForTesting
+  static List<MergedRange> plan(List<Range> ranges, long maxGap, long maxRequestSize) {
+    final List<Range> sorted = new ArrayList<>(ranges);
+    sorted.sort(Comparator.comparingLong(Range::getOffset).thenComparingLong(Range::getEnd));
+
+    final List<MergedRange> plan = new ArrayList<>();
+    List<Range> merged = new ArrayList<>();
+    long start = -1;
+    long end = -1;
+    for (Range range : sorted) {
+      if (!merged.isEmpty() && range.getOffset() - end > maxGap) {
+        plan.add(merge(start, end, merged, maxRequestSize));
+        merged = new ArrayList<>();
+      }
+      if (merged.isEmpty()) {
+        start = range.getOffset();
+        end = range.getEnd();
+      } else {
+        end = Math.max(end, range.getEnd());
+      }
+      merged.add(range);
+    }
+    if (!merged.isEmpty()) {
+      plan.add(merge(start, end, merged, maxRequestSize));
+    }
+    return plan;
+  }
+
+  private static MergedRange merge(long start, long end, List<Range> ranges, long maxRequestSize) {
+    // requests of about the same size, so that none of them is left to complete last on its own
+    final long length = end - start;
+    final long numRequests = Math.max(1, (length + maxRequestSize - 1) / maxRequestSize);
+    final List<Range> requests = new ArrayList<>();
+    long offset = start;
+    for (long i = 0; i < numRequests; i++) {
+      final long requestLength = length / numRequests + (i < length % numRequests ? 1 : 0);
+      requests.add(new Range(offset, requestLength));
+      offset += requestLength;
+    }
+    return new MergedRange(new Range(start, length), Collections.unmodifiableList(ranges),
+      Collections.unmodifiableList(requests));
+  }
+
+  /**
+   * Reads the given ranges, blocking until all of them are read.
+   *
+   * @return a buffer for each of the ranges, in the order of the ranges. The caller owns the buffers.
+   */
+  List<ByteBuf> read(List<Range> ranges) throws IOException {
+    final List<MergedRange> plan = plan(ranges, maxGap, maxRequestSize);
+    final List<ByteBuf> buffers = new ArrayList<>(plan.size());
+    final List<CompletableFuture<Void>> requests = new ArrayList<>();
+    boolean done = false;
+    try (InFlightBytes inFlightBytes = InFlightBytes.acquire(queryId, maxInFlightBytes)) {
+      for (MergedRange merged : plan) {
+        final Range range = merged.getRange();
+        Preconditions.checkArgument(range.getLength() <= Integer.MAX_VALUE, "Range %s is too large to be read", range);
+        final ByteBuf buffer = NettyArrowBuf.unwrapBuffer(allocator.buffer(range.getLength()));
+        buffers.add(buffer);
+        for (Range request : merged.getRequests()) {
+          requests.add(read(inFlightBytes, request, buffer, (int) (request.getOffset() - range.getOffset())));
+        }
+        if (stats != null) {
+          stats.numReadRequests += merged.getRequests().size();
+          stats.totalReadRequestBytes += range.getLength();
+          stats.numMergedRanges += merged.getRanges().size() - 1;
+        }
+      }
+      await(CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])));
+
+      final List<ByteBuf> slices = new ArrayList<>(ranges.size());
+      for (Range range : ranges) {
+        slices.add(slice(plan, buffers, range));
+      }
+      done = true;
+      return slices;
+    } finally {
+      if (done) {
+        buffers.forEach(ByteBuf::release);
+      } else {
+        // the requests still in flight write into the buffers
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture[0]))
+          .whenComplete((v, e) -> buffers.forEach(ByteBuf::release));
+      }
+    }
+  }
+
+  private CompletableFuture<Void> read(InFlightBytes inFlightBytes, Range request, ByteBuf buffer, int bufferOffset)
+    throws IOException {
+    final int permits = inFlightBytes.acquire(request.getLength());
+    final CompletableFuture<Void> future;
+    try {
+      future = reader.readFully(request.getOffset(), buffer, bufferOffset, (int) request.getLength());
+    } catch (RuntimeException e) {
+      inFlightBytes.release(permits);
+      throw e;
+    }
+    return future.whenComplete((v, e) -> inFlightBytes.release(permits));
+  }
+
+  private static ByteBuf slice(List<MergedRange> plan, List<ByteBuf> buffers, Range range) {
+    for (int i = 0; i < plan.size(); i++) {
+      final Range merged = plan.get(i).getRange();
+      if (merged.getOffset() <= range.getOffset() && range.getEnd() <= merged.getEnd()) {
+        return buffers.get(i).retainedSlice((int) (range.getOffset() - merged.getOffset()), (int) range.getLength());
+      }
+    }
+    throw new IllegalStateException("Range " + range + " wasn't read");
+  }
+
+  private static void await(CompletableFuture<Void> future) throws IOException {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * The bytes in flight of a query. Shared by the readers of the query for as long as one of them is reading.
+   */
+  @VisibleForTesting
+  static final class InFlightBytes implements AutoCloseable {
+    private static final ConcurrentMap<QueryId, InFlightBytes> QUERIES = new ConcurrentHashMap<>();
+
+    private final QueryId queryId;
+    private final int maxBytes;
+    private final Semaphore permits;
+    // guarded by the updates of QUERIES
+    private int users;
+
+    private InFlightBytes(QueryId queryId, long maxBytes) {
+      this.queryId = queryId;
+      this.maxBytes = (int) Math.min(Integer.MAX_VALUE, maxBytes);
+      this.permits = new Semaphore(this.maxBytes);
+    }
+
+    static InFlightBytes acquire(QueryId queryId, long maxBytes) {
+      if (queryId == null) {
+        return new InFlightBytes(null, maxBytes);
+      }
+      return QUERIES.compute(queryId, (id, inFlightBytes) -> {
+        final InFlightBytes acquired = inFlightBytes != null ? inFlightBytes : new InFlightBytes(id, maxBytes);
+        acquired.users++;
+        return acquired;
+      });
+    }
+
+    /**
+     * Waits until the bytes of a request can be in flight. A request larger than the limit waits for all the others.
+     *
+     * @return the permits to release once the request completes
+     */
+    int acquire(long bytes) throws InterruptedIOException {
+      final int acquired = (int) Math.min(bytes, maxBytes);
+      try {
+        permits.acquire(acquired);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      return acquired;
+    }
+
+    void release(int acquired) {
+      permits.release(acquired);
+    }
+
+    @VisibleForTesting
+    static int getNumQueries() {
+      return QUERIES.size();
+    }
+
+    @Override
+    public void close() {
+      if (queryId != null) {
+        QUERIES.computeIfPresent(queryId, (id, inFlightBytes) -> --inFlightBytes.users == 0 ? null : inFlightBytes);
+      }
+    }
+  }
+}
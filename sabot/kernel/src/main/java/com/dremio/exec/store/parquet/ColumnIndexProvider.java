@@ -118,6 +118,13 @@ public class ColumnIndexProvider implements Closeable {
         return null;
     }
 
+    /**
+     * @return the column indexes read, by offset in the file
+     */
+    Map<Long, ColumnIndex> getColumnIndexes() {
+        return columnIndexMap;
+    }
+
     @Override
     public void close() {
       columnIndexMap.clear();
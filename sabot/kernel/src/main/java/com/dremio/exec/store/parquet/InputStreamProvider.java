@@ -87,4 +87,13 @@ public interface InputStreamProvider extends AutoCloseable {
    */
   void enableColumnIndices(List<ColumnChunkMetaData> selectedColumns) throws IOException;
 
+  /**
+   * Hints the column chunks of a row group that are about to be read, so that the provider can fetch them ahead with
+   * fewer requests. Called before the streams of the columns are obtained.
+   * @param columns chunks of the row group to be read
+   * @throws IOException
+   */
+  default void prefetch(List<ColumnChunkMetaData> columns) throws IOException {
+  }
+
 }
@@ -113,6 +113,13 @@ public class OffsetIndexProvider implements Closeable {
         return null;
     }
 
+    /**
+     * @return the offset indexes read, by offset in the file
+     */
+    Map<Long, OffsetIndex> getOffsetIndexes() {
+        return offsetIndexMap;
+    }
+
     @Override
     public void close() {
         offsetIndexMap.clear();
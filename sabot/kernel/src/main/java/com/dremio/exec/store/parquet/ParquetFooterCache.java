@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.internal.hadoop.metadata.IndexReference;
+
+import com.dremio.common.config.SabotConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.Path;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Executor wide cache of the parsed footers of the parquet files, and of the column and offset indexes read from them,
+ * so that the splits of a file read by different fragments, and the queries scanning the same files again, don't
+ * fetch and parse them from the file system each time.<br>
+ * <br>
+ * Entries are keyed by the path, size and modification time of the file, so a rewritten file is read again. The cache
+ * is bounded by the estimated heap size of the footers and indexes it holds, see
+ * {@link ExecConstants#PARQUET_FOOTER_CACHE_MAX_SIZE}. Parsed footers are much larger than their serialized form, since
+ * each column chunk of each row group becomes a few objects, so they are weighed by their number of column chunks.
+ */
+public final class ParquetFooterCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ParquetFooterCache.class);
+
+  // estimated heap size of the parsed file metadata, row groups and column chunks, on top of the serialized footer
+  private static final long FOOTER_OVERHEAD = 1024;
+  private static final long ROW_GROUP_OVERHEAD = 256;
+  private static final long COLUMN_CHUNK_OVERHEAD = 512;
+  // estimated ratio of the heap size of a parsed index to its serialized size
+  private static final long INDEX_EXPANSION = 4;
+
+  private static volatile ParquetFooterCache instance;
+
+  private final long maxSize;
+  // null when disabled
+  private final Cache<Key, Entry> cache;
+
+  private final AtomicLong size = new AtomicLong();
+  private final LongAdder footerHits = new LongAdder();
+  private final LongAdder footerMisses = new LongAdder();
+  private final LongAdder indexHits = new LongAdder();
+  private final LongAdder indexMisses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  @VisibleForTesting
+  ParquetFooterCache(long maxSize) {
+    this.maxSize = Math.max(0, maxSize);
+    this.cache = maxSize <= 0 ? null : CacheBuilder.newBuilder()
+      .maximumWeight(maxSize)
+      .weigher((Weigher<Key, Entry>) (key, entry) -> entry.weight)
+      .removalListener((RemovalListener<Key, Entry>) this::onRemoval)
+      .build();
+  }
+
+  /**
+   * @return the cache of this executor, sized from the given config when first used
+   */
+  public static ParquetFooterCache getInstance(SabotConfig config) {
+    ParquetFooterCache footerCache = instance;
+    if (footerCache == null) {
+      synchronized (ParquetFooterCache.class) {
+        footerCache = instance;
+        if (footerCache == null) {
+          footerCache = new ParquetFooterCache(config.getBytes(ExecConstants.PARQUET_FOOTER_CACHE_MAX_SIZE));
+          logger.info("Caching up to {} bytes of parquet footers", footerCache.maxSize);
+          instance = footerCache;
+        }
+      }
+    }
+    return footerCache;
+  }
+
+  /**
+   * @return the cache of the executor running the operator, or null if the operator doesn't read through it
+   */
+  static ParquetFooterCache getInstance(OperatorContext context) {
+    if (context == null || context.getOptions() == null
+      || !context.getOptions().getOption(ExecConstants.PARQUET_FOOTER_CACHE_ENABLED)) {
+      return null;
+    }
+    return getInstance(context.getConfig());
+  }
+
+  /**
+   * Opens the stream to read the footer from, only called when the footer isn't cached.
+   */
+  @FunctionalInterface
+  public interface FooterStream {
+    BulkInputStream open() throws IOException;
+  }
+
+  /**
+   * @param mTime modification time of the file, or -1 if unknown in which case the footer isn't cached
+   * @return the footer of the file. Its list of row groups is a copy the caller is free to trim.
+   */
+  public ParquetMetadata getFooter(FileSystem fs, Path path, long length, long mTime, long maxFooterLen,
+                                   FooterStream stream) throws IOException {
+    final Key key = key(fs, path, length, mTime);
+    if (key == null) {
+      return parse(SingletonParquetFooterCache.readFooterBytes(stream.open(), path.toString(), length, fs, maxFooterLen));
+    }
+
+    final boolean[] loaded = new boolean[1];
+    final Entry entry;
+    try {
+      entry = cache.get(key, () -> {
+        loaded[0] = true;
+        final byte[] footerBytes = SingletonParquetFooterCache.readFooterBytes(stream.open(), path.toString(), length, fs,
+          maxFooterLen);
+        final ParquetMetadata footer = parse(footerBytes);
+        final Entry newEntry = new Entry(footer, footerBytes.length, ImmutableMap.of(), ImmutableMap.of(),
+          estimateSize(footer, footerBytes.length));
+        size.addAndGet(newEntry.weight);
+        return newEntry;
+      });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IOException(e.getCause());
+    }
+
+    if (loaded[0]) {
+      footerMisses.increment();
+    } else {
+      footerHits.increment();
+      // the footer was cached by a reader with a higher limit
+      if (entry.footerLength > maxFooterLen) {
+        throw new IOException("Footer size of " + path + " is " + entry.footerLength + ". Max supported footer size is " + maxFooterLen);
+      }
+    }
+    return new ParquetMetadata(entry.footer.getFileMetaData(), new ArrayList<>(entry.footer.getBlocks()));
+  }
+
+  /**
+   * @param reader reads the column indexes of the columns from the file, when they aren't all cached
+   * @return the column indexes of the columns, null if the reader returned null
+   */
+  public ColumnIndexProvider getColumnIndexProvider(FileSystem fs, Path path, long length, long mTime,
+                                                    List<ColumnChunkMetaData> columns,
+                                                    Supplier<ColumnIndexProvider> reader) {
+    final Key key = key(fs, path, length, mTime);
+    // indexes are only cached along with the footer of their file
+    final Entry entry = key == null ? null : cache.getIfPresent(key);
+    if (entry == null) {
+      return reader.get();
+    }
+
+    final Map<Long, ColumnIndex> cached = find(columns, ColumnChunkMetaData::getColumnIndexReference, entry.columnIndexes);
+    if (cached != null) {
+      indexHits.increment();
+      return new ColumnIndexProvider(cached);
+    }
+
+    indexMisses.increment();
+    final ColumnIndexProvider provider = reader.get();
+    if (provider != null) {
+      final Map<Long, ColumnIndex> read = provider.getColumnIndexes();
+      final long added = addedSize(columns, ColumnChunkMetaData::getColumnIndexReference, entry.columnIndexes, read);
+      update(key, entry, new Entry(entry.footer, entry.footerLength, merge(entry.columnIndexes, read), entry.offsetIndexes,
+        entry.weight + added));
+    }
+    return provider;
+  }
+
+  /**
+   * @param reader reads the offset indexes of the columns from the file, when they aren't all cached
+   * @return the offset indexes of the columns, null if the reader returned null
+   */
+  public OffsetIndexProvider getOffsetIndexProvider(FileSystem fs, Path path, long length, long mTime,
+                                                    List<ColumnChunkMetaData> columns,
+                                                    Supplier<OffsetIndexProvider> reader) {
+    final Key key = key(fs, path, length, mTime);
+    // indexes are only cached along with the footer of their file
+    final Entry entry = key == null ? null : cache.getIfPresent(key);
+    if (entry == null) {
+      return reader.get();
+    }
+
+    final Map<Long, OffsetIndex> cached = find(columns, ColumnChunkMetaData::getOffsetIndexReference, entry.offsetIndexes);
+    if (cached != null) {
+      indexHits.increment();
+      return new OffsetIndexProvider(cached);
+    }
+
+    indexMisses.increment();
+    final OffsetIndexProvider provider = reader.get();
+    if (provider != null) {
+      final Map<Long, OffsetIndex> read = provider.getOffsetIndexes();
+      final long added = addedSize(columns, ColumnChunkMetaData::getOffsetIndexReference, entry.offsetIndexes, read);
+      update(key, entry, new Entry(entry.footer, entry.footerLength, entry.columnIndexes, merge(entry.offsetIndexes, read),
+        entry.weight + added));
+    }
+    return provider;
+  }
+
+  private Key key(FileSystem fs, Path path, long length, long mTime) {
+    // splits without a modification time have it set to 0
+    if (cache == null || mTime <= 0 || length < 0) {
+      return null;
+    }
+    return new Key(fs.getScheme(), path.toString(), length, mTime);
+  }
+
+  /**
+   * @return estimated heap size of the parsed footer
+   */
+  @VisibleForTesting
+  static long estimateSize(ParquetMetadata footer, int footerLength) {
+    long size = FOOTER_OVERHEAD + footerLength;
+    for (BlockMetaData block : footer.getBlocks()) {
+      size += ROW_GROUP_OVERHEAD + block.getColumns().size() * COLUMN_CHUNK_OVERHEAD;
+    }
+    return size;
+  }
+
+  private static ParquetMetadata parse(byte[] footerBytes) throws IOException {
+    return ParquetFormatPlugin.parquetMetadataConverter.readParquetMetadata(new ByteArrayInputStream(footerBytes),
+      ParquetMetadataConverter.NO_FILTER);
+  }
+
+  /**
+   * @return the cached indexes of the columns, or null if any is missing
+   */
+  private static <I> Map<Long, I> find(List<ColumnChunkMetaData> columns,
+                                       Function<ColumnChunkMetaData, IndexReference> reference, Map<Long, I> cached) {
+    final Map<Long, I> found = new HashMap<>();
+    for (ColumnChunkMetaData column : columns) {
+      final IndexReference ref = reference.apply(column);
+      if (ref == null) {
+        continue;
+      }
+      final I index = cached.get(ref.getOffset());
+      if (index == null) {
+        return null;
+      }
+      found.put(ref.getOffset(), index);
+    }
+    return found;
+  }
+
+  private static <I> long addedSize(List<ColumnChunkMetaData> columns,
+                                    Function<ColumnChunkMetaData, IndexReference> reference,
+                                    Map<Long, I> cached, Map<Long, I> read) {
+    long added = 0;
+    for (ColumnChunkMetaData column : columns) {
+      final IndexReference ref = reference.apply(column);
+      if (ref != null && read.containsKey(ref.getOffset()) && !cached.containsKey(ref.getOffset())) {
+        added += ref.getLength() * INDEX_EXPANSION;
+      }
+    }
+    return added;
+  }
+
+  private static <I> Map<Long, I> merge(Map<Long, I> cached, Map<Long, I> read) {
+    final Map<Long, I> merged = new HashMap<>(cached);
+    merged.putAll(read);
+    return ImmutableMap.copyOf(merged);
+  }
+
+  private void update(Key key, Entry entry, Entry updated) {
+    // lost to a concurrent update, or the entry was evicted
+    if (updated.weight != entry.weight && cache.asMap().replace(key, entry, updated)) {
+      size.addAndGet(updated.weight);
+    }
+  }
+
+  private void onRemoval(RemovalNotification<Key, Entry> notification) {
+    size.addAndGet(-notification.getValue().weight);
+    if (notification.wasEvicted()) {
+      evictions.increment();
+    }
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @return estimated heap size of the cached footers and indexes
+   */
+  public long getSize() {
+    return size.get();
+  }
+
+  public long getNumEntries() {
+    return cache == null ? 0 : cache.size();
+  }
+
+  public long getFooterHits() {
+    return footerHits.sum();
+  }
+
+  public long getFooterMisses() {
+    return footerMisses.sum();
+  }
+
+  public long getIndexHits() {
+    return indexHits.sum();
+  }
+
+  public long getIndexMisses() {
+    return indexMisses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  private static final class Key {
+    private final String scheme;
+    private final String path;
+    private final long length;
+    private final long mTime;
+
+    private Key(String scheme, String path, long length, long mTime) {
+      this.scheme = scheme;
+      this.path = path;
+      this.length = length;
+      this.mTime = mTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return length == key.length && mTime == key.mTime && Objects.equals(scheme, key.scheme) && path.equals(key.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(scheme, path, length, mTime);
+    }
+  }
+
+  private static final class Entry {
+    private final ParquetMetadata footer;
+    private final int footerLength;
+    // by offset in the file
+    private final Map<Long, ColumnIndex> columnIndexes;
+    private final Map<Long, OffsetIndex> offsetIndexes;
+    private final int weight;
+
+    private Entry(ParquetMetadata footer, int footerLength, Map<Long, ColumnIndex> columnIndexes,
+                  Map<Long, OffsetIndex> offsetIndexes, long weight) {
+      this.footer = footer;
+      this.footerLength = footerLength;
+      this.columnIndexes = columnIndexes;
+      this.offsetIndexes = offsetIndexes;
+      this.weight = (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+  }
+}
@@ -38,6 +38,11 @@ public class ParquetReaderStats {
   public long timeDictPagesDecompressed;
   public long timePagesDecompressed;
 
+  // reads of column chunks planned by CoalescingRangeReader
+  public long numReadRequests;
+  public long totalReadRequestBytes;
+  public long numMergedRanges;
+
   public ParquetReaderStats() {
   }
 
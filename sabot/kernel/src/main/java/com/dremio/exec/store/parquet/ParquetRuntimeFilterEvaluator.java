@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.PrimitiveType;
+
+import com.dremio.exec.util.ValueListFilter;
+
+/**
+ * Evaluates the value list of a join runtime filter against the metadata of a parquet column chunk: the min/max
+ * statistics of the chunk, the min/max of its pages in the column index, and its dictionary.
+ *
+ * The metadata only tells which pages can't contain any value of the list, so that the pages, or the whole row group,
+ * can be skipped before they are read and decompressed. Only the types for which the order of parquet and the keys of
+ * the value list agree are evaluated: signed 32 and 64 bit integers, and strings short enough not to be truncated in
+ * the value list.
+ */
+public class ParquetRuntimeFilterEvaluator {
+
+  private final ColumnChunkMetaData column;
+  private final PrimitiveType.PrimitiveTypeName type;
+  private final Comparator<Object> comparator;
+  // values of the list, sorted by the parquet order of the column
+  private final Object[] values;
+  private final boolean containsNull;
+
+  private ParquetRuntimeFilterEvaluator(ColumnChunkMetaData column, Object[] values, boolean containsNull) {
+    this.column = column;
+    this.type = column.getPrimitiveType().getPrimitiveTypeName();
+    this.comparator = comparator(column.getPrimitiveType());
+    this.values = values;
+    this.containsNull = containsNull;
+    Arrays.sort(this.values, comparator);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Comparator<Object> comparator(PrimitiveType type) {
+    return (Comparator<Object>) (Comparator<?>) type.comparator();
+  }
+
+  /**
+   * @return the evaluator of the filter on the column, or null if the type of the column isn't supported
+   */
+  public static ParquetRuntimeFilterEvaluator of(ValueListFilter filter, ColumnChunkMetaData column) {
+    if (filter.isBoolField()) {
+      return null;
+    }
+    final PrimitiveType primitiveType = column.getPrimitiveType();
+    final LogicalTypeAnnotation logicalType = primitiveType.getLogicalTypeAnnotation();
+    final ArrowBuf buf = filter.valOnlyBuf();
+    final int blockSize = filter.getBlockSize();
+    final Object[] values = new Object[filter.getValueCount()];
+    switch (filter.getFieldType()) {
+      case INT:
+        if (primitiveType.getPrimitiveTypeName() != PrimitiveType.PrimitiveTypeName.INT32 || !isSignedInt(logicalType)
+          || blockSize != Integer.BYTES) {
+          return null;
+        }
+        for (int i = 0; i < values.length; i++) {
+          values[i] = buf.getInt((long) i * blockSize);
+        }
+        break;
+      case BIGINT:
+        if (primitiveType.getPrimitiveTypeName() != PrimitiveType.PrimitiveTypeName.INT64 || !isSignedInt(logicalType)
+          || blockSize != Long.BYTES) {
+          return null;
+        }
+        for (int i = 0; i < values.length; i++) {
+          values[i] = buf.getLong((long) i * blockSize);
+        }
+        break;
+      case VARCHAR:
+        if (primitiveType.getPrimitiveTypeName() != PrimitiveType.PrimitiveTypeName.BINARY
+          || !(logicalType instanceof LogicalTypeAnnotation.StringLogicalTypeAnnotation)) {
+          return null;
+        }
+        for (int i = 0; i < values.length; i++) {
+          // the first byte of a key is the length of the value, right aligned in the key
+          final long offset = (long) i * blockSize;
+          final int length = buf.getByte(offset);
+          if (length < 0 || length >= blockSize - 1) {
+            // the value may have been truncated to its prefix
+            return null;
+          }
+          final byte[] bytes = new byte[length];
+          buf.getBytes(offset + blockSize - length, bytes);
+          values[i] = Binary.fromConstantByteArray(bytes);
+        }
+        break;
+      default:
+        return null;
+    }
+    return new ParquetRuntimeFilterEvaluator(column, values, filter.isContainsNull());
+  }
+
+  private static boolean isSignedInt(LogicalTypeAnnotation logicalType) {
+    return logicalType == null || (logicalType instanceof LogicalTypeAnnotation.IntLogicalTypeAnnotation
+      && ((LogicalTypeAnnotation.IntLogicalTypeAnnotation) logicalType).isSigned());
+  }
+
+  public ColumnChunkMetaData getColumn() {
+    return column;
+  }
+
+  /**
+   * @return false if the statistics of the column chunk show that none of its values is in the list
+   */
+  public boolean mightMatch(Statistics<?> statistics) {
+    if (statistics == null || statistics.isEmpty()) {
+      return true;
+    }
+    final boolean mayHaveNulls = !statistics.isNumNullsSet() || statistics.getNumNulls() > 0;
+    if (containsNull && mayHaveNulls) {
+      return true;
+    }
+    if (!statistics.hasNonNullValue()) {
+      return false;
+    }
+    return containsValueBetween(statistics.genericGetMin(), statistics.genericGetMax());
+  }
+
+  /**
+   * @return false if no value of the dictionary is in the list. The dictionary must be the one of a chunk whose pages
+   * are all dictionary encoded.
+   */
+  public boolean mightMatch(Dictionary dictionary, boolean mayHaveNulls) {
+    if (containsNull && mayHaveNulls) {
+      return true;
+    }
+    for (int id = 0; id <= dictionary.getMaxId(); id++) {
+      if (Arrays.binarySearch(values, decode(dictionary, id), comparator) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return for each page of the column index, whether none of its values is in the list
+   */
+  public boolean[] getSkippablePages(ColumnIndex columnIndex) {
+    final List<Boolean> nullPages = columnIndex.getNullPages();
+    final List<ByteBuffer> minValues = columnIndex.getMinValues();
+    final List<ByteBuffer> maxValues = columnIndex.getMaxValues();
+    final List<Long> nullCounts = columnIndex.getNullCounts();
+    final boolean[] skippable = new boolean[nullPages.size()];
+    for (int page = 0; page < skippable.length; page++) {
+      final boolean mayHaveNulls = nullCounts == null || nullCounts.get(page) > 0;
+      if (containsNull && mayHaveNulls) {
+        continue;
+      }
+      skippable[page] = nullPages.get(page)
+        || !containsValueBetween(decode(minValues.get(page)), decode(maxValues.get(page)));
+    }
+    return skippable;
+  }
+
+  /**
+   * Compute the rows of a row group in the skippable pages of a column.
+   *
+   * @return the ranges of rows, as pairs of first and last (inclusive) row indices
+   */
+  public static List<long[]> getSkippableRows(boolean[] skippablePages, OffsetIndex offsetIndex, long rowCount) {
+    final List<long[]> ranges = new ArrayList<>();
+    if (offsetIndex == null || offsetIndex.getPageCount() != skippablePages.length) {
+      return ranges;
+    }
+    for (int page = 0; page < skippablePages.length; page++) {
+      if (skippablePages[page]) {
+        ranges.add(new long[] {offsetIndex.getFirstRowIndex(page), offsetIndex.getLastRowIndex(page, rowCount)});
+      }
+    }
+    return ranges;
+  }
+
+  /**
+   * @return true if the union of the ranges covers all the rows of the row group
+   */
+  public static boolean coversAllRows(List<long[]> ranges, long rowCount) {
+    final List<long[]> sorted = new ArrayList<>(ranges);
+    sorted.sort(Comparator.comparingLong(range -> range[0]));
+    long nextRow = 0;
+    for (long[] range : sorted) {
+      if (range[0] > nextRow) {
+        return false;
+      }
+      nextRow = Math.max(nextRow, range[1] + 1);
+    }
+    return nextRow >= rowCount;
+  }
+
+  private boolean containsValueBetween(Object min, Object max) {
+    // first value greater than or equal to min
+    int index = Arrays.binarySearch(values, min, comparator);
+    if (index >= 0) {
+      return true;
+    }
+    index = -index - 1;
+    return index < values.length && comparator.compare(values[index], max) <= 0;
+  }
+
+  private Object decode(ByteBuffer buffer) {
+    final ByteBuffer value = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    switch (type) {
+      case INT32:
+        return value.getInt(value.position());
+      case INT64:
+        return value.getLong(value.position());
+      default:
+        return Binary.fromConstantByteBuffer(value);
+    }
+  }
+
+  private Object decode(Dictionary dictionary, int id) {
+    switch (type) {
+      case INT32:
+        return dictionary.decodeToInt(id);
+      case INT64:
+        return dictionary.decodeToLong(id);
+      default:
+        return dictionary.decodeToBinary(id);
+    }
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.store.parquet.CoalescingRangeReader.Range;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.AsyncByteReader.FileKey;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.Path;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.annotations.VisibleForTesting;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The column chunks of a row group, fetched ahead with a {@link CoalescingRangeReader} when the file system of the file
+ * supports async reads.
+ *
+ * The chunks are held until the next row group is prefetched, or until they are closed. The streams over a chunk read
+ * from the file when they are positioned outside of it. If the chunks don't fit in the memory of the operator, they are
+ * read as usual.
+ */
+class PrefetchedColumnChunks implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(PrefetchedColumnChunks.class);
+
+  private final FileSystem fs;
+  private final Path path;
+  private final long mTime;
+  private final OperatorContext context;
+
+  private final Map<Range, ByteBuf> chunks = new HashMap<>();
+  private final List<PrefetchedStream> streams = new ArrayList<>();
+
+  /**
+   * Opens a stream over the file
+   */
+  @FunctionalInterface
+  interface StreamOpener {
+    BulkInputStream open() throws IOException;
+  }
+
+  private PrefetchedColumnChunks(FileSystem fs, Path path, long mTime, OperatorContext context) {
+    this.fs = fs;
+    this.path = path;
+    this.mTime = mTime;
+    this.context = context;
+  }
+
+  /**
+   * @param mTime modification time of the file, its chunks aren't prefetched if it is unknown
+   * @return the chunks of the file, or null if they aren't prefetched
+   */
+  static PrefetchedColumnChunks of(FileSystem fs, Path path, long mTime, OperatorContext context) {
+    if (context == null || context.getOptions() == null || mTime <= 0 || !fs.supportsAsync()
+      || !context.getOptions().getOption(ExecConstants.PARQUET_COALESCED_READS_ENABLED)) {
+      return null;
+    }
+    return new PrefetchedColumnChunks(fs, path, mTime, context);
+  }
+
+  /**
+   * Fetches the given column chunks, releasing the ones fetched before. The chunks are fetched in file order until
+   * {@link ExecConstants#PARQUET_COALESCED_READS_MAX_BUFFERED} is reached, the others are read as usual. None of them
+   * are fetched if the operator is out of memory.
+   */
+  void prefetch(List<ColumnChunkMetaData> columns) throws IOException {
+    release();
+
+    final OptionManager options = context.getOptions();
+    final long maxBuffered = options.getOption(ExecConstants.PARQUET_COALESCED_READS_MAX_BUFFERED);
+    final List<ColumnChunkMetaData> sorted = new ArrayList<>(columns);
+    sorted.sort(Comparator.comparingLong(ColumnChunkMetaData::getStartingPos));
+    final List<Range> ranges = new ArrayList<>();
+    long buffered = 0;
+    for (ColumnChunkMetaData column : sorted) {
+      final Range range = range(column);
+      if (ranges.contains(range) || buffered + range.getLength() > maxBuffered) {
+        continue;
+      }
+      ranges.add(range);
+      buffered += range.getLength();
+    }
+    if (ranges.isEmpty()) {
+      return;
+    }
+
+    final ParquetReaderStats readStats = new ParquetReaderStats();
+    final AsyncByteReader reader = fs.getAsyncByteReader(
+      FileKey.of(path, Long.toString(mTime), FileKey.FileType.PARQUET), Collections.emptyMap());
+    try {
+      final List<ByteBuf> buffers = new CoalescingRangeReader(reader, context.getAllocator(),
+        options.getOption(ExecConstants.PARQUET_COALESCED_READS_MAX_GAP),
+        options.getOption(ExecConstants.PARQUET_COALESCED_READS_MAX_REQUEST_SIZE),
+        context.getFragmentHandle() != null ? context.getFragmentHandle().getQueryId() : null,
+        options.getOption(ExecConstants.PARQUET_COALESCED_READS_MAX_IN_FLIGHT),
+        readStats)
+        .read(ranges);
+      for (int i = 0; i < ranges.size(); i++) {
+        chunks.put(ranges.get(i), buffers.get(i));
+      }
+    } catch (OutOfMemoryException e) {
+      logger.debug("Not enough memory to prefetch {} bytes of {}, reading the column chunks as usual", buffered, path);
+    } finally {
+      AutoCloseables.close(IOException.class, reader);
+      addStats(readStats);
+    }
+  }
+
+  private void addStats(ParquetReaderStats readStats) {
+    if (context.getStats() != null) {
+      context.getStats().addLongStat(Metric.NUM_COALESCED_READ_REQUESTS, readStats.numReadRequests);
+      context.getStats().addLongStat(Metric.COALESCED_READ_BYTES, readStats.totalReadRequestBytes);
+      context.getStats().addLongStat(Metric.NUM_MERGED_READ_RANGES, readStats.numMergedRanges);
+    }
+  }
+
+  /**
+   * @param opener opens the stream the reads outside of the chunk go to
+   * @return a stream over the chunk of the column, or null if it wasn't prefetched
+   */
+  BulkInputStream getStream(ColumnChunkMetaData column, StreamOpener opener) {
+    if (column == null) {
+      return null;
+    }
+    final Range range = range(column);
+    final ByteBuf chunk = chunks.get(range);
+    if (chunk == null) {
+      return null;
+    }
+    final PrefetchedStream stream = new PrefetchedStream(range, chunk.retainedDuplicate(), opener);
+    streams.add(stream);
+    return stream;
+  }
+
+  private static Range range(ColumnChunkMetaData column) {
+    return new Range(column.getStartingPos(), column.getTotalSize());
+  }
+
+  private void release() {
+    chunks.values().forEach(ByteBuf::release);
+    chunks.clear();
+    // the streams of the previous row groups keep their fallback stream, if they had to open one
+    streams.removeIf(PrefetchedStream::release);
+  }
+
+  @Override
+  public void close() throws IOException {
+    release();
+    AutoCloseables.close(IOException.class, streams);
+    streams.clear();
+  }
+
+  /**
+   * A stream over a prefetched chunk, positioned with the offsets of the file. The chunk is released once read to its
+   * end.
+   */
+  @VisibleForTesting
+  static final class PrefetchedStream implements BulkInputStream {
+    private final Range range;
+    private final StreamOpener opener;
+    // null once released
+    private ByteBuf chunk;
+    private BulkInputStream fallback;
+    private long position;
+
+    /**
+     * @param chunk the chunk, which the stream takes ownership of
+     */
+    PrefetchedStream(Range range, ByteBuf chunk, StreamOpener opener) {
+      this.range = range;
+      this.chunk = chunk;
+      this.opener = opener;
+      this.position = range.getOffset();
+    }
+
+    @Override
+    public void seek(long offset) throws IOException {
+      position = offset;
+    }
+
+    @Override
+    public long getPos() throws IOException {
+      return position;
+    }
+
+    private boolean inChunk(int length) {
+      return chunk != null && position >= range.getOffset() && position + length <= range.getEnd();
+    }
+
+    @Override
+    public void readFully(ByteBuf buf, int length) throws IOException {
+      if (inChunk(length)) {
+        buf.setBytes(buf.writerIndex(), chunk, (int) (position - range.getOffset()), length);
+        buf.writerIndex(buf.writerIndex() + length);
+        advance(length);
+        return;
+      }
+      fallback().readFully(buf, length);
+      position += length;
+    }
+
+    @Override
+    public void readFully(byte[] dst, int dstOffset, int dstLen) throws IOException {
+      if (inChunk(dstLen)) {
+        chunk.getBytes((int) (position - range.getOffset()), dst, dstOffset, dstLen);
+        advance(dstLen);
+        return;
+      }
+      fallback().readFully(dst, dstOffset, dstLen);
+      position += dstLen;
+    }
+
+    private void advance(int length) {
+      position += length;
+      if (position == range.getEnd()) {
+        release();
+      }
+    }
+
+    private BulkInputStream fallback() throws IOException {
+      if (fallback == null) {
+        fallback = opener.open();
+      }
+      fallback.seek(position);
+      return fallback;
+    }
+
+    /**
+     * @return true if the stream has nothing left to close
+     */
+    private boolean release() {
+      if (chunk != null) {
+        chunk.release();
+        chunk = null;
+      }
+      return fallback == null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      release();
+      if (fallback != null) {
+        fallback.close();
+        fallback = null;
+      }
+    }
+  }
+}
@@ -24,9 +24,13 @@ import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.util.AutoCloseables;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.apache.parquet.io.SeekableInputStream;
 
+import com.dremio.exec.store.cache.BlockCacheFileSystem;
 import com.dremio.io.ArrowBufFSInputStream;
+import com.dremio.io.AsyncByteReader.FileKey;
+import com.dremio.io.FSInputStream;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.Path;
 import com.dremio.sabot.exec.context.OperatorContext;
@@ -40,18 +44,31 @@ public class SingleStreamProvider implements InputStreamProvider {
   private final Path path;
   private final BufferAllocator allocator;
   private final long fileLength;
+  private final long mTime;
   private final long maxFooterLen;
   private final boolean readFullFile;
   private BulkInputStream stream;
   private OperatorContext context;
+  private final ParquetFooterCache footerCache;
+  // null when the column chunks aren't fetched ahead
+  private final PrefetchedColumnChunks prefetchedChunks;
 
   private MutableParquetMetadata footer;
   private boolean readColumnOffsetIndices;
 
   public SingleStreamProvider(FileSystem fs, Path path, long fileLength, long maxFooterLen, boolean readFullFile, MutableParquetMetadata footer, OperatorContext context, boolean readColumnOffsetIndices) {
+    this(fs, path, fileLength, -1, maxFooterLen, readFullFile, footer, context, readColumnOffsetIndices);
+  }
+
+  /**
+   * @param mTime modification time of the file, to share its footer and page indexes through the
+   *              {@link ParquetFooterCache}, or -1 if unknown
+   */
+  public SingleStreamProvider(FileSystem fs, Path path, long fileLength, long mTime, long maxFooterLen, boolean readFullFile, MutableParquetMetadata footer, OperatorContext context, boolean readColumnOffsetIndices) {
     this.fs = fs;
     this.path = path;
     this.fileLength = fileLength;
+    this.mTime = mTime;
     this.maxFooterLen = maxFooterLen;
     this.readFullFile = readFullFile;
     this.footer = footer;
@@ -62,6 +79,9 @@ public class SingleStreamProvider implements InputStreamProvider {
       this.allocator = null;
     }
     this.readColumnOffsetIndices = readColumnOffsetIndices;
+    this.footerCache = ParquetFooterCache.getInstance(context);
+    // the whole file is in memory already
+    this.prefetchedChunks = readFullFile ? null : PrefetchedColumnChunks.of(fs, path, mTime, context);
   }
 
   @Override
@@ -71,6 +91,18 @@ public class SingleStreamProvider implements InputStreamProvider {
 
   @Override
   public BulkInputStream getStream(ColumnChunkMetaData column) throws IOException {
+    if (prefetchedChunks != null) {
+      // the shared stream is left to the other columns
+      final BulkInputStream prefetchedStream = prefetchedChunks.getStream(column,
+        () -> BulkInputStream.wrap(Streams.wrap(open())));
+      if (prefetchedStream != null) {
+        return prefetchedStream;
+      }
+    }
+    return getStream();
+  }
+
+  private BulkInputStream getStream() throws IOException {
     if(stream == null) {
       stream = initStream();
     }
@@ -79,10 +111,10 @@ public class SingleStreamProvider implements InputStreamProvider {
 
   private BulkInputStream initStream() throws IOException {
     if (!readFullFile) {
-      return BulkInputStream.wrap(Streams.wrap(fs.open(path)));
+      return BulkInputStream.wrap(Streams.wrap(open()));
     }
 
-    try (SeekableInputStream is = Streams.wrap(fs.open(path))) {
+    try (SeekableInputStream is = Streams.wrap(open())) {
       int len = (int) fileLength;
       ArrowBuf buf = allocator.buffer(len);
       if (buf == null) {
@@ -100,6 +132,13 @@ public class SingleStreamProvider implements InputStreamProvider {
     }
   }
 
+  @Override
+  public void prefetch(List<ColumnChunkMetaData> columns) throws IOException {
+    if (prefetchedChunks != null) {
+      prefetchedChunks.prefetch(columns);
+    }
+  }
+
   @Override
   public void enableColumnIndices(List<ColumnChunkMetaData> selectedColumns) throws IOException {
     this.readColumnOffsetIndices = true;
@@ -111,16 +150,24 @@ public class SingleStreamProvider implements InputStreamProvider {
       if ((columns.size() == 0) || (columns.get(0).getOffsetIndexReference() == null)) {
         return null;
       }
-      try (BulkInputStream inputStream = BulkInputStream.wrap(Streams.wrap(fs.open(path)))) {
-        OffsetIndexProvider offsetIndexProvider;
-        offsetIndexProvider = new OffsetIndexProvider(inputStream, allocator, columns);
-        if ((context != null) && (context.getStats() != null)) {
-          context.getStats().addLongStat(com.dremio.sabot.op.scan.ScanOperator.Metric.OFFSET_INDEX_READ, 1);
-        }
-        return offsetIndexProvider;
-      } catch (IOException ex) {
-        //Ignore error and return null;
+      if (footerCache != null) {
+        return footerCache.getOffsetIndexProvider(fs, path, fileLength, mTime, columns, () -> readOffsetIndexProvider(columns));
+      }
+      return readOffsetIndexProvider(columns);
+    }
+    return null;
+  }
+
+  private OffsetIndexProvider readOffsetIndexProvider(List<ColumnChunkMetaData> columns) {
+    try (BulkInputStream inputStream = BulkInputStream.wrap(Streams.wrap(open()))) {
+      OffsetIndexProvider offsetIndexProvider;
+      offsetIndexProvider = new OffsetIndexProvider(inputStream, allocator, columns);
+      if ((context != null) && (context.getStats() != null)) {
+        context.getStats().addLongStat(com.dremio.sabot.op.scan.ScanOperator.Metric.OFFSET_INDEX_READ, 1);
       }
+      return offsetIndexProvider;
+    } catch (IOException ex) {
+      //Ignore error and return null;
     }
     return null;
   }
@@ -131,16 +178,28 @@ public class SingleStreamProvider implements InputStreamProvider {
       if ((columns.size() == 0) || (columns.get(0).getColumnIndexReference() == null)) {
         return null;
       }
-      try (BulkInputStream inputStream = BulkInputStream.wrap(Streams.wrap(fs.open(path)))) {
-        ColumnIndexProvider columnIndexProvider;
-        columnIndexProvider = new ColumnIndexProvider(inputStream, allocator, columns);
-        if ((context != null) && (context.getStats() != null)) {
-          context.getStats().addLongStat(com.dremio.sabot.op.scan.ScanOperator.Metric.COLUMN_INDEX_READ, 1);
-        }
-        return columnIndexProvider;
-      } catch (IOException ex) {
-        //Ignore error and return null;
+      if (footerCache != null) {
+        return footerCache.getColumnIndexProvider(fs, path, fileLength, mTime, columns, () -> readColumnIndexProvider(columns));
       }
+      return readColumnIndexProvider(columns);
+    }
+    return null;
+  }
+
+  private FSInputStream open() throws IOException {
+    return BlockCacheFileSystem.open(fs, path, fileLength, mTime, FileKey.FileType.PARQUET);
+  }
+
+  private ColumnIndexProvider readColumnIndexProvider(List<ColumnChunkMetaData> columns) {
+    try (BulkInputStream inputStream = BulkInputStream.wrap(Streams.wrap(open()))) {
+      ColumnIndexProvider columnIndexProvider;
+      columnIndexProvider = new ColumnIndexProvider(inputStream, allocator, columns);
+      if ((context != null) && (context.getStats() != null)) {
+        context.getStats().addLongStat(com.dremio.sabot.op.scan.ScanOperator.Metric.COLUMN_INDEX_READ, 1);
+      }
+      return columnIndexProvider;
+    } catch (IOException ex) {
+      //Ignore error and return null;
     }
     return null;
   }
@@ -148,8 +207,17 @@ public class SingleStreamProvider implements InputStreamProvider {
   @Override
   public MutableParquetMetadata getFooter() throws IOException {
     if(footer == null) {
-      SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
-      footer = new MutableParquetMetadata(footerCache.getFooter(getStream(null), path.toString(), fileLength, fs, maxFooterLen), path.getName());
+      final ParquetMetadata parquetMetadata;
+      if (footerCache != null) {
+        try {
+          parquetMetadata = footerCache.getFooter(fs, path, fileLength, mTime, maxFooterLen, () -> getStream(null));
+        } catch (IOException ioe) {
+          throw new RuntimeException("Failed to read parquet footer for file " + path, ioe);
+        }
+      } else {
+        parquetMetadata = new SingletonParquetFooterCache().getFooter(getStream(null), path.toString(), fileLength, fs, maxFooterLen);
+      }
+      footer = new MutableParquetMetadata(parquetMetadata, path.getName());
     }
     return footer;
   }
@@ -162,7 +230,7 @@ public class SingleStreamProvider implements InputStreamProvider {
   @Override
   public void close() throws IOException {
     try {
-      AutoCloseables.close(stream);
+      AutoCloseables.close(stream, prefetchedChunks);
     } catch (IOException | RuntimeException e) {
       throw e;
     } catch (Exception e) {
@@ -96,6 +96,15 @@ public class SingletonParquetFooterCache {
 
   private static ParquetMetadata readFooter(BulkInputStream file, String path, long fileLength, MetadataFilter filter, FileSystem fs,
                                             long maxFooterLen) throws IOException {
+    final byte[] footerBytes = readFooterBytes(file, path, fileLength, fs, maxFooterLen);
+    return ParquetFormatPlugin.parquetMetadataConverter.readParquetMetadata(new ByteArrayInputStream(footerBytes), filter);
+  }
+
+  /**
+   * @return the serialized footer of the file, without the footer length and magic bytes that follow it
+   */
+  static byte[] readFooterBytes(BulkInputStream file, String path, long fileLength, FileSystem fs,
+                                long maxFooterLen) throws IOException {
     Preconditions.checkArgument(fileLength >= MIN_FILE_SIZE || fileLength == -1, "%s is not a Parquet file (too small)", path);
 
     if (fileLength == -1) {
@@ -129,7 +138,7 @@ public class SingletonParquetFooterCache {
       footerBytes = ArrayUtils.subarray(footerBytes, start, start + size);
     }
 
-    return ParquetFormatPlugin.parquetMetadataConverter.readParquetMetadata(new ByteArrayInputStream(footerBytes), filter);
+    return footerBytes;
   }
 }
 
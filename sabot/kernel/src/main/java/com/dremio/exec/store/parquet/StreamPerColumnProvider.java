@@ -17,12 +17,16 @@ package com.dremio.exec.store.parquet;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 
 import com.dremio.common.AutoCloseables;
+import com.dremio.exec.store.cache.BlockCacheFileSystem;
+import com.dremio.io.AsyncByteReader.FileKey;
 import com.dremio.io.FSInputStream;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.Path;
@@ -37,18 +41,31 @@ public class StreamPerColumnProvider implements InputStreamProvider {
   private final FileSystem fs;
   private final Path path;
   private final long length;
+  private final long mTime;
   private MutableParquetMetadata footer;
   private final long maxFooterLen;
   private boolean readColumnOffsetIndexes;
   private final BufferAllocator allocator;
   private final OperatorContext context;
+  private final ParquetFooterCache footerCache;
+  // null when the column chunks aren't fetched ahead
+  private final PrefetchedColumnChunks prefetchedChunks;
 
   private final List<BulkInputStream> streams = new ArrayList<>();
 
   public StreamPerColumnProvider(FileSystem fs, Path path, long length, long maxFooterLen, MutableParquetMetadata footer, OperatorContext context, boolean readColumnOffsetIndexes) {
+    this(fs, path, length, -1, maxFooterLen, footer, context, readColumnOffsetIndexes);
+  }
+
+  /**
+   * @param mTime modification time of the file, to share its footer and page indexes through the
+   *              {@link ParquetFooterCache}, or -1 if unknown
+   */
+  public StreamPerColumnProvider(FileSystem fs, Path path, long length, long mTime, long maxFooterLen, MutableParquetMetadata footer, OperatorContext context, boolean readColumnOffsetIndexes) {
     this.fs = fs;
     this.path = path;
     this.length = length;
+    this.mTime = mTime;
     this.maxFooterLen = maxFooterLen;
     this.footer = footer;
     this.readColumnOffsetIndexes = readColumnOffsetIndexes;
@@ -58,6 +75,8 @@ public class StreamPerColumnProvider implements InputStreamProvider {
       this.allocator = null;
     }
     this.context = context;
+    this.footerCache = ParquetFooterCache.getInstance(context);
+    this.prefetchedChunks = PrefetchedColumnChunks.of(fs, path, mTime, context);
   }
 
   @Override
@@ -67,7 +86,17 @@ public class StreamPerColumnProvider implements InputStreamProvider {
 
   @Override
   public BulkInputStream getStream(ColumnChunkMetaData column) throws IOException {
-    FSInputStream is = fs.open(path);
+    if (prefetchedChunks != null) {
+      final BulkInputStream stream = prefetchedChunks.getStream(column, this::openStream);
+      if (stream != null) {
+        return stream;
+      }
+    }
+    return openStream();
+  }
+
+  private BulkInputStream openStream() throws IOException {
+    FSInputStream is = open();
     BulkInputStream stream = BulkInputStream.wrap(Streams.wrap(is));
     streams.add(stream);
     return stream;
@@ -78,6 +107,13 @@ public class StreamPerColumnProvider implements InputStreamProvider {
     return false;
   }
 
+  @Override
+  public void prefetch(List<ColumnChunkMetaData> columns) throws IOException {
+    if (prefetchedChunks != null) {
+      prefetchedChunks.prefetch(columns);
+    }
+  }
+
   @Override
   public void enableColumnIndices(List<ColumnChunkMetaData> selectedColumns) throws IOException {
     this.readColumnOffsetIndexes = true;
@@ -89,17 +125,25 @@ public class StreamPerColumnProvider implements InputStreamProvider {
       if ((columns.size() == 0) || (columns.get(0).getOffsetIndexReference() == null)) {
           return null;
       }
-      OffsetIndexProvider offsetIndexProvider;
-      Preconditions.checkState(allocator != null, "Allocator null when trying to getOffsetIndexProvider");
-      try (BulkInputStream inputStream = BulkInputStream.wrap(Streams.wrap(fs.open(path)))) {
-        offsetIndexProvider = new OffsetIndexProvider(inputStream, allocator, columns);
-        if ((context != null) && (context.getStats() != null)) {
-          context.getStats().addLongStat(com.dremio.sabot.op.scan.ScanOperator.Metric.OFFSET_INDEX_READ, 1);
-        }
-        return offsetIndexProvider;
-      } catch (IOException ex) {
-        //Ignore IOException.
+      if (footerCache != null) {
+        return footerCache.getOffsetIndexProvider(fs, path, length, mTime, columns, () -> readOffsetIndexProvider(columns));
+      }
+      return readOffsetIndexProvider(columns);
+    }
+    return null;
+  }
+
+  private OffsetIndexProvider readOffsetIndexProvider(List<ColumnChunkMetaData> columns) {
+    OffsetIndexProvider offsetIndexProvider;
+    Preconditions.checkState(allocator != null, "Allocator null when trying to getOffsetIndexProvider");
+    try (BulkInputStream inputStream = BulkInputStream.wrap(Streams.wrap(open()))) {
+      offsetIndexProvider = new OffsetIndexProvider(inputStream, allocator, columns);
+      if ((context != null) && (context.getStats() != null)) {
+        context.getStats().addLongStat(com.dremio.sabot.op.scan.ScanOperator.Metric.OFFSET_INDEX_READ, 1);
       }
+      return offsetIndexProvider;
+    } catch (IOException ex) {
+      //Ignore IOException.
     }
     return null;
   }
@@ -110,17 +154,29 @@ public class StreamPerColumnProvider implements InputStreamProvider {
       if ((columns.size() == 0) || (columns.get(0).getColumnIndexReference() == null)) {
         return null;
       }
-      Preconditions.checkState(allocator != null, "Allocator null when trying to getColumnIndexProvider");
-      try (BulkInputStream inputStream = BulkInputStream.wrap(Streams.wrap(fs.open(path)))) {
-        ColumnIndexProvider columnIndexProvider;
-        columnIndexProvider = new ColumnIndexProvider(inputStream, allocator, columns);
-        if ((context != null) && (context.getStats() != null)) {
-          context.getStats().addLongStat(com.dremio.sabot.op.scan.ScanOperator.Metric.COLUMN_INDEX_READ, 1);
-        }
-        return columnIndexProvider;
-      } catch (IOException ex) {
-        //Ignore IOException.
+      if (footerCache != null) {
+        return footerCache.getColumnIndexProvider(fs, path, length, mTime, columns, () -> readColumnIndexProvider(columns));
       }
+      return readColumnIndexProvider(columns);
+    }
+    return null;
+  }
+
+  private FSInputStream open() throws IOException {
+    return BlockCacheFileSystem.open(fs, path, length, mTime, FileKey.FileType.PARQUET);
+  }
+
+  private ColumnIndexProvider readColumnIndexProvider(List<ColumnChunkMetaData> columns) {
+    Preconditions.checkState(allocator != null, "Allocator null when trying to getColumnIndexProvider");
+    try (BulkInputStream inputStream = BulkInputStream.wrap(Streams.wrap(open()))) {
+      ColumnIndexProvider columnIndexProvider;
+      columnIndexProvider = new ColumnIndexProvider(inputStream, allocator, columns);
+      if ((context != null) && (context.getStats() != null)) {
+        context.getStats().addLongStat(com.dremio.sabot.op.scan.ScanOperator.Metric.COLUMN_INDEX_READ, 1);
+      }
+      return columnIndexProvider;
+    } catch (IOException ex) {
+      //Ignore IOException.
     }
     return null;
   }
@@ -128,8 +184,17 @@ public class StreamPerColumnProvider implements InputStreamProvider {
   @Override
   public MutableParquetMetadata getFooter() throws IOException {
     if(footer == null) {
-      SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
-      footer = new MutableParquetMetadata(footerCache.getFooter(getStream(null), path.toString(), length, fs, maxFooterLen), path.getName());
+      final ParquetMetadata parquetMetadata;
+      if (footerCache != null) {
+        try {
+          parquetMetadata = footerCache.getFooter(fs, path, length, mTime, maxFooterLen, () -> getStream(null));
+        } catch (IOException ioe) {
+          throw new RuntimeException("Failed to read parquet footer for file " + path, ioe);
+        }
+      } else {
+        parquetMetadata = new SingletonParquetFooterCache().getFooter(getStream(null), path.toString(), length, fs, maxFooterLen);
+      }
+      footer = new MutableParquetMetadata(parquetMetadata, path.getName());
     }
     return footer;
   }
@@ -137,7 +202,7 @@ public class StreamPerColumnProvider implements InputStreamProvider {
   @Override
   public void close() throws IOException {
     try {
-      AutoCloseables.close(streams);
+      AutoCloseables.close(streams, Collections.singletonList(prefetchedChunks));
     } catch (IOException | RuntimeException e) {
       throw e;
     } catch (Exception e) {
@@ -38,10 +38,21 @@ import org.apache.arrow.vector.complex.StructVector;
 import org.apache.arrow.vector.complex.UnionVector;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.EncodingStats;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.statistics.Statistics;
 import org.apache.parquet.compression.CompressionCodecFactory;
+import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.PageType;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.CodecFactory;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
 import org.apache.parquet.io.InvalidRecordException;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.OriginalType;
@@ -84,6 +95,7 @@ import com.google.common.collect.Range;
 public class UnifiedParquetReader implements RecordReader {
 
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(UnifiedParquetReader.class);
+  private static final ParquetMetadataConverter METADATA_CONVERTER = new ParquetMetadataConverter();
   private final OperatorContext context;
   private final MutableParquetMetadata footer;
   private final ParquetDatasetSplitScanXAttr readEntry;
@@ -787,6 +799,9 @@ public class UnifiedParquetReader implements RecordReader {
   }
 
   private ExecutionPath getExecutionPath() {
+    if (isRowGroupPrunedByRuntimeFilters()) {
+      return ExecutionPath.SKIP_ALL;
+    }
     if ((globalDictionaryFieldInfoMap != null && !globalDictionaryFieldInfoMap.isEmpty())) {
       return ExecutionPath.DEPRECATED_VECTORIZED;
     }
@@ -800,6 +815,136 @@ public class UnifiedParquetReader implements RecordReader {
     return ExecutionPath.VECTORIZED;
   }
 
+  /**
+   * Check the value lists of the runtime filters against the metadata of the row group: the statistics of the column
+   * chunks, the column index of their pages, and the dictionary of the fully dictionary encoded chunks. The row group
+   * is skipped when none of its rows can match one of the filters.
+   */
+  private boolean isRowGroupPrunedByRuntimeFilters() {
+    if (!context.getOptions().getOption(ExecConstants.RUNTIME_FILTER_PRUNE_PARQUET_ROW_GROUPS)) {
+      return false;
+    }
+    final List<ParquetRuntimeFilterEvaluator> evaluators = new ArrayList<>();
+    final BlockMetaData block = footer.getBlocks().get(readEntry.getRowGroupIndex());
+    for (CompositeColumnFilter filter : runtimeFilters.stream()
+      .flatMap(f -> f.getNonPartitionColumnFilters().stream()).collect(Collectors.toList())) {
+      final ValueListFilter valueList = filter.getValueList();
+      final ColumnChunkMetaData column = valueList == null ? null : getColumnChunk(block, valueList.getFieldName());
+      final ParquetRuntimeFilterEvaluator evaluator = column == null ? null :
+        ParquetRuntimeFilterEvaluator.of(valueList, column);
+      if (evaluator != null) {
+        evaluators.add(evaluator);
+      }
+    }
+    if (evaluators.isEmpty()) {
+      return false;
+    }
+
+    boolean pruned = evaluators.stream().anyMatch(e -> !e.mightMatch(e.getColumn().getStatistics()));
+    if (!pruned) {
+      pruned = isPrunedByColumnIndexes(evaluators, block.getRowCount());
+    }
+    for (int i = 0; i < evaluators.size() && !pruned; i++) {
+      pruned = !mightMatchDictionary(evaluators.get(i));
+    }
+    if (pruned) {
+      logger.debug("Skipping row group {} of {}, none of its rows match the runtime filters",
+        readEntry.getRowGroupIndex(), readEntry.getPath());
+      context.getStats().addLongStat(Metric.NUM_ROW_GROUPS_PRUNED_BY_RUNTIME_FILTER, 1);
+    }
+    return pruned;
+  }
+
+  private ColumnChunkMetaData getColumnChunk(BlockMetaData block, String fieldName) {
+    final String parquetColumnName = fieldName == null ? null : columnResolver.getParquetColumnName(fieldName);
+    if (parquetColumnName == null) {
+      return null;
+    }
+    for (ColumnChunkMetaData column : block.getColumns()) {
+      if (column.getPath().size() == 1 && column.getPath().toArray()[0].equalsIgnoreCase(parquetColumnName)) {
+        return column;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return true if, for every row of the row group, the column index of one of the filtered columns shows that the
+   * page of the row doesn't match
+   */
+  private boolean isPrunedByColumnIndexes(List<ParquetRuntimeFilterEvaluator> evaluators, long rowCount) {
+    if (inputStreamProvider == null || !context.getOptions().getOption(ExecConstants.READ_COLUMN_INDEXES)) {
+      return false;
+    }
+    final List<ColumnChunkMetaData> columns = evaluators.stream()
+      .map(ParquetRuntimeFilterEvaluator::getColumn)
+      .filter(c -> c.getColumnIndexReference() != null && c.getOffsetIndexReference() != null)
+      .collect(Collectors.toList());
+    if (columns.isEmpty()) {
+      return false;
+    }
+    try (ColumnIndexProvider columnIndexProvider = inputStreamProvider.getColumnIndexProvider(columns);
+         OffsetIndexProvider offsetIndexProvider = inputStreamProvider.getOffsetIndexProvider(columns)) {
+      if (columnIndexProvider == null || offsetIndexProvider == null) {
+        return false;
+      }
+      final List<long[]> skippableRows = new ArrayList<>();
+      long skippablePages = 0;
+      for (ParquetRuntimeFilterEvaluator evaluator : evaluators) {
+        final ColumnIndex columnIndex = columnIndexProvider.getColumnIndex(evaluator.getColumn());
+        final OffsetIndex offsetIndex = offsetIndexProvider.getOffsetIndex(evaluator.getColumn());
+        if (columnIndex == null || offsetIndex == null) {
+          continue;
+        }
+        final boolean[] pages = evaluator.getSkippablePages(columnIndex);
+        for (boolean page : pages) {
+          skippablePages += page ? 1 : 0;
+        }
+        skippableRows.addAll(ParquetRuntimeFilterEvaluator.getSkippableRows(pages, offsetIndex, rowCount));
+      }
+      context.getStats().addLongStat(Metric.NUM_PAGES_PRUNED_BY_RUNTIME_FILTER, skippablePages);
+      return ParquetRuntimeFilterEvaluator.coversAllRows(skippableRows, rowCount);
+    }
+  }
+
+  /**
+   * @return false if the column chunk is fully dictionary encoded, and none of the values of its dictionary matches
+   */
+  private boolean mightMatchDictionary(ParquetRuntimeFilterEvaluator evaluator) {
+    final ColumnChunkMetaData column = evaluator.getColumn();
+    final EncodingStats encodingStats = column.getEncodingStats();
+    if (inputStreamProvider == null || encodingStats == null || !encodingStats.hasDictionaryPages()
+      || encodingStats.hasNonDictionaryEncodedPages()) {
+      return true;
+    }
+    final Statistics<?> statistics = column.getStatistics();
+    final boolean mayHaveNulls = statistics == null || statistics.isEmpty() || !statistics.isNumNullsSet()
+      || statistics.getNumNulls() > 0;
+    final ColumnDescriptor descriptor = footer.getFileMetaData().getSchema().getColumnDescription(column.getPath().toArray());
+    // decompressed in heap, the dictionary only lives until it is checked
+    final CodecFactory heapCodecFactory = new CodecFactory(new Configuration(), 0);
+    try {
+      final BulkInputStream stream = inputStreamProvider.getStream(column);
+      stream.seek(column.getStartingPos());
+      final PageHeader pageHeader = Util.readPageHeader(stream.asSeekableInputStream());
+      if (pageHeader.getType() != PageType.DICTIONARY_PAGE) {
+        return true;
+      }
+      final byte[] data = new byte[pageHeader.getCompressed_page_size()];
+      stream.readFully(data, 0, data.length);
+      final DictionaryPage page = new DictionaryPage(
+        heapCodecFactory.getDecompressor(column.getCodec()).decompress(BytesInput.from(data), pageHeader.getUncompressed_page_size()),
+        pageHeader.getDictionary_page_header().getNum_values(),
+        METADATA_CONVERTER.getEncoding(pageHeader.getDictionary_page_header().getEncoding()));
+      return evaluator.mightMatch(page.getEncoding().initDictionary(descriptor, page), mayHaveNulls);
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Unable to read the dictionary of column {} in {}", column.getPath(), readEntry.getPath(), e);
+      return true;
+    } finally {
+      heapCodecFactory.release();
+    }
+  }
+
   private boolean filterCanContainNull() {
     return CollectionUtils.isEmpty(filterConditions)
             && runtimeFilters
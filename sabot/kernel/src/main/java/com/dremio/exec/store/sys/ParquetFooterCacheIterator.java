@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.sys;
+
+import java.util.Iterator;
+
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.server.SabotContext;
+import com.dremio.exec.store.parquet.ParquetFooterCache;
+
+/**
+ * Iterator over the statistics of the parquet footer cache of the node running the scan.
+ */
+public class ParquetFooterCacheIterator implements Iterator<Object> {
+
+  private final NodeEndpoint endpoint;
+  private final ParquetFooterCache cache;
+  private boolean beforeFirst = true;
+
+  public ParquetFooterCacheIterator(final SabotContext dbContext) {
+    this.endpoint = dbContext.getEndpoint();
+    this.cache = ParquetFooterCache.getInstance(dbContext.getConfig());
+  }
+
+  @Override
+  public boolean hasNext() {
+    return beforeFirst;
+  }
+
+  @Override
+  public Object next() {
+    if (!beforeFirst) {
+      throw new IllegalStateException();
+    }
+    beforeFirst = false;
+    final ParquetFooterCacheInfo info = new ParquetFooterCacheInfo();
+    info.hostname = endpoint.getAddress();
+    info.fabric_port = endpoint.getFabricPort();
+    info.node_id = endpoint.getAddress() + ":" + endpoint.getFabricPort();
+    info.max_size = cache.getMaxSize();
+    info.size = cache.getSize();
+    info.entries = cache.getNumEntries();
+    info.footer_hits = cache.getFooterHits();
+    info.footer_misses = cache.getFooterMisses();
+    info.index_hits = cache.getIndexHits();
+    info.index_misses = cache.getIndexMisses();
+    info.evictions = cache.getEvictions();
+    return info;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  public static class ParquetFooterCacheInfo {
+    public String node_id;
+    public String hostname;
+    public long fabric_port;
+    // serialized size of the cached footers and page indexes, in bytes
+    public long max_size;
+    public long size;
+    public long entries;
+    public long footer_hits;
+    public long footer_misses;
+    public long index_hits;
+    public long index_misses;
+    public long evictions;
+  }
+}
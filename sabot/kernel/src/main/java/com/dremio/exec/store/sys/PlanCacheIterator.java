@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.sys;
+
+import java.util.Iterator;
+
+import com.dremio.exec.planner.PlanCache;
+import com.dremio.exec.planner.PlanCacheStats;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.server.SabotContext;
+
+/**
+ * Iterator over the plan cache stats of the node running the scan.
+ */
+public class PlanCacheIterator implements Iterator<Object> {
+
+  private boolean beforeFirst = true;
+  private final SabotContext dbContext;
+
+  public PlanCacheIterator(final SabotContext dbContext) {
+    this.dbContext = dbContext;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return beforeFirst;
+  }
+
+  @Override
+  public Object next() {
+    if (!beforeFirst) {
+      throw new IllegalStateException();
+    }
+    beforeFirst = false;
+    final PlanCacheInfo info = new PlanCacheInfo();
+
+    final NodeEndpoint endpoint = dbContext.getEndpoint();
+    info.hostname = endpoint.getAddress();
+    info.fabric_port = endpoint.getFabricPort();
+
+    final PlanCacheStats stats = PlanCache.getStats();
+    info.hits = stats.getHits();
+    info.misses = stats.getMisses();
+    info.rebinds = stats.getRebinds();
+    info.parameterized_entries = stats.getParameterizedEntries();
+    info.non_rebindable_entries = stats.getNonRebindableEntries();
+    return info;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  public static class PlanCacheInfo {
+    public String hostname;
+    public long fabric_port;
+    public long hits;
+    public long misses;
+    public long rebinds;
+    public long parameterized_entries;
+    public long non_rebindable_entries;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.sys;
+
+import java.util.Iterator;
+
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.server.SabotContext;
+import com.dremio.service.spill.SpillDirectoryStats;
+
+/**
+ * Iterator over the spill directories of the node running the scan, with their live statistics.
+ */
+public class SpillDirectoryIterator implements Iterator<Object> {
+
+  private final NodeEndpoint endpoint;
+  private final Iterator<SpillDirectoryStats> stats;
+
+  public SpillDirectoryIterator(final SabotContext dbContext) {
+    this.endpoint = dbContext.getEndpoint();
+    this.stats = dbContext.getSpillService().getSpillDirectoryStats().iterator();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return stats.hasNext();
+  }
+
+  @Override
+  public Object next() {
+    final SpillDirectoryStats directory = stats.next();
+    final SpillDirectoryInfo info = new SpillDirectoryInfo();
+    info.hostname = endpoint.getAddress();
+    info.fabric_port = endpoint.getFabricPort();
+    info.node_id = endpoint.getAddress() + ":" + endpoint.getFabricPort();
+    info.path = directory.getPath();
+    info.healthy = directory.isHealthy();
+    info.free_space = directory.getFreeSpace() < 0 ? null : directory.getFreeSpace();
+    info.total_space = directory.getTotalSpace() < 0 ? null : directory.getTotalSpace();
+    info.files_created = directory.getFilesCreated();
+    info.active_writers = directory.getActiveWriters();
+    info.bytes_written = directory.getBytesWritten();
+    info.write_nanos = directory.getWriteNanos();
+    info.write_bandwidth = directory.getWriteBandwidth();
+    return info;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  public static class SpillDirectoryInfo {
+    public String node_id;
+    public String hostname;
+    public long fabric_port;
+    public String path;
+    public boolean healthy;
+    // null when the health check is disabled for the directory
+    public Long free_space;
+    public Long total_space;
+    public long files_created;
+    public int active_writers;
+    public long bytes_written;
+    public long write_nanos;
+    // bytes per second, averaged over the recent spill files
+    public double write_bandwidth;
+  }
+}
@@ -137,6 +137,13 @@ public enum SystemTable implements DatasetHandle, DatasetMetadata, PartitionChun
     }
   },
 
+  PLAN_CACHE(false, PlanCacheIterator.PlanCacheInfo.class, "plan_cache") {
+    @Override
+    public Iterator<?> getIterator(final SabotContext sContext, final OperatorContext context) {
+      return new PlanCacheIterator(sContext);
+    }
+  },
+
   SLICING_THREADS(true, SlicingThreadInfo.class, "slicing_threads") {
     @Override
     public Iterator<?> getIterator(SabotContext sContext, OperatorContext context) {
@@ -151,6 +158,20 @@ public enum SystemTable implements DatasetHandle, DatasetMetadata, PartitionChun
     }
   },
 
+  SPILL_DIRECTORIES(true, SpillDirectoryIterator.SpillDirectoryInfo.class, "spill_directories") {
+    @Override
+    public Iterator<?> getIterator(final SabotContext sContext, final OperatorContext context) {
+      return new SpillDirectoryIterator(sContext);
+    }
+  },
+
+  PARQUET_FOOTER_CACHE(true, ParquetFooterCacheIterator.ParquetFooterCacheInfo.class, "parquet_footer_cache") {
+    @Override
+    public Iterator<?> getIterator(final SabotContext sContext, final OperatorContext context) {
+      return new ParquetFooterCacheIterator(sContext);
+    }
+  },
+
   DEPENDENCIES(false, AccelerationListManager.DependencyInfo.class, "dependencies") {
     @Override
     public Iterator<?> getIterator(final SabotContext sContext, final OperatorContext context) {
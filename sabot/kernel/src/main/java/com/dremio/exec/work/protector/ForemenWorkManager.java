@@ -44,6 +44,7 @@ import com.dremio.exec.maestro.MaestroForwarder;
 import com.dremio.exec.maestro.MaestroService;
 import com.dremio.exec.planner.CachedPlan;
 import com.dremio.exec.planner.PlanCache;
+import com.dremio.exec.planner.PlanCacheStats;
 import com.dremio.exec.planner.observer.OutOfBandQueryObserver;
 import com.dremio.exec.planner.observer.QueryObserver;
 import com.dremio.exec.planner.sql.handlers.commands.PreparedPlan;
@@ -235,6 +236,12 @@ public class ForemenWorkManager implements Service, SafeExit {
 
     planCache = new PlanCache(cachedPlans, Multimaps.synchronizedListMultimap(ArrayListMultimap.create()));
 
+    final PlanCacheStats planCacheStats = PlanCache.getStats();
+    Metrics.newGauge(Metrics.join("plan_cache", "entries"), cachedPlans::size);
+    Metrics.newGauge(Metrics.join("plan_cache", "hits"), planCacheStats::getHits);
+    Metrics.newGauge(Metrics.join("plan_cache", "misses"), planCacheStats::getMisses);
+    Metrics.newGauge(Metrics.join("plan_cache", "rebinds"), planCacheStats::getRebinds);
+
   }
 
   @Override
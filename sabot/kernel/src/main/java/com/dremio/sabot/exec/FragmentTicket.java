@@ -18,6 +18,7 @@ package com.dremio.sabot.exec;
 import org.apache.arrow.memory.BufferAllocator;
 
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.sabot.op.join.vhash.SharedJoinBuilds;
 import com.dremio.sabot.task.AsyncTaskWrapper;
 import com.dremio.sabot.task.SchedulingGroup;
 import com.google.common.base.Preconditions;
@@ -45,6 +46,10 @@ public class FragmentTicket implements AutoCloseable {
 
   public FragmentHandle getHandle() { return handle; }
 
+  public SharedJoinBuilds getSharedJoinBuilds() {
+    return phaseTicket.getSharedJoinBuilds();
+  }
+
   public SchedulingGroup<AsyncTaskWrapper> getSchedulingGroup() {
     return schedulingGroup;
   }
@@ -22,6 +22,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.arrow.memory.BufferAllocator;
 
 import com.dremio.exec.proto.CoordExecRPC.NodePhaseStatus;
+import com.dremio.sabot.op.join.vhash.SharedJoinBuilds;
 import com.google.common.collect.ImmutableList;
 
 /**
@@ -42,12 +43,14 @@ public class PhaseTicket extends TicketWithChildren {
   private final int majorFragmentId;
   private final int phaseWeight;
   private final Set<FragmentTicket> fragmentTickets = ConcurrentHashMap.newKeySet();
+  private final SharedJoinBuilds sharedJoinBuilds;
 
   public PhaseTicket(QueryTicket queryTicket, int majorFragmentId, BufferAllocator allocator, int phaseWeight) {
     super(allocator);
     this.queryTicket = queryTicket;
     this.majorFragmentId = majorFragmentId;
     this.phaseWeight = phaseWeight;
+    this.sharedJoinBuilds = new SharedJoinBuilds(allocator);
   }
 
   public int getMajorFragmentId() {
@@ -85,4 +88,12 @@ public class PhaseTicket extends TicketWithChildren {
   public int getPhaseWeight() {
     return phaseWeight;
   }
+
+  /**
+   * Hash join builds shared by the fragments of this phase on this node. They are allocated from the phase allocator,
+   * and closed by the last fragment using them, before the phase ticket is closed.
+   */
+  public SharedJoinBuilds getSharedJoinBuilds() {
+    return sharedJoinBuilds;
+  }
 }
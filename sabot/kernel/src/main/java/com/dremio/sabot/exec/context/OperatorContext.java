@@ -47,6 +47,7 @@ import com.dremio.exec.testing.ExecutionControls;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.filter.VectorContainerWithSV;
+import com.dremio.sabot.op.join.vhash.SharedJoinBuild;
 import com.dremio.service.spill.SpillService;
 
 public abstract class OperatorContext {
@@ -132,6 +133,14 @@ public abstract class OperatorContext {
 
   public abstract ExpressionSplitCache getExpressionSplitCache();
 
+  /**
+   * Join the build of a broadcast hash join shared by the fragments of the phase running on this node.
+   *
+   * @param operatorId local id of the join operator
+   * @return the handle of the fragment on the shared build, or null if builds can't be shared in this context
+   */
+  public abstract SharedJoinBuild.Participant joinSharedBuild(int operatorId);
+
   public static int getChildCount(PhysicalOperator popConfig) {
     Iterator<PhysicalOperator> iter = popConfig.iterator();
     int i = 0;
@@ -57,6 +57,11 @@ import com.dremio.options.OptionManager;
 import com.dremio.sabot.exec.fragment.FragmentExecutorBuilder;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.filter.VectorContainerWithSV;
+import com.dremio.sabot.op.join.vhash.SharedJoinBuild;
+import com.dremio.sabot.op.join.vhash.SharedJoinBuilds;
+import com.dremio.sabot.threads.sharedres.SharedResource;
+import com.dremio.sabot.threads.sharedres.SharedResourceGroup;
+import com.dremio.sabot.threads.sharedres.SharedResourceType;
 import com.dremio.service.spill.SpillService;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -91,6 +96,8 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
   private final Map<Integer, MajorFragmentAssignment> majorFragmentAssignments;
   private final List<MinorFragmentEndpoint> minorFragmentEndpoints;
   private final ExpressionSplitCache expressionSplitCache;
+  private final SharedJoinBuilds sharedJoinBuilds;
+  private final SharedResourceGroup resourceGroup;
 
   public OperatorContextImpl(
     SabotConfig sabotConfig,
@@ -117,6 +124,39 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
     EndpointsIndex endpointsIndex,
     List<MinorFragmentEndpoint> minorFragmentEndpoints,
     ExpressionSplitCache expressionSplitCache) throws OutOfMemoryException {
+    this(sabotConfig, dremioConfig, handle, popConfig, allocator, fragmentOutputAllocator, compiler, stats,
+      executionControls, fragmentExecutorBuilder, executor, functions, contextInformation, optionManager, spillService,
+      nodeDebugContextProvider, targetBatchSize, tunnelProvider, assignments, majorFragmentAssignments,
+      nodeEndpointProvider, endpointsIndex, minorFragmentEndpoints, expressionSplitCache, null, null);
+  }
+
+  public OperatorContextImpl(
+    SabotConfig sabotConfig,
+    DremioConfig dremioConfig,
+    FragmentHandle handle,
+    PhysicalOperator popConfig,
+    BufferAllocator allocator,
+    BufferAllocator fragmentOutputAllocator,
+    CodeCompiler compiler,
+    OperatorStats stats,
+    ExecutionControls executionControls,
+    FragmentExecutorBuilder fragmentExecutorBuilder,
+    ExecutorService executor,
+    FunctionLookupContext functions,
+    ContextInformation contextInformation,
+    final OptionManager optionManager,
+    SpillService spillService,
+    NodeDebugContextProvider nodeDebugContextProvider,
+    int targetBatchSize,
+    TunnelProvider tunnelProvider,
+    List<FragmentAssignment> assignments,
+    List<MajorFragmentAssignment> majorFragmentAssignments,
+    Provider<CoordinationProtos.NodeEndpoint> nodeEndpointProvider,
+    EndpointsIndex endpointsIndex,
+    List<MinorFragmentEndpoint> minorFragmentEndpoints,
+    ExpressionSplitCache expressionSplitCache,
+    SharedJoinBuilds sharedJoinBuilds,
+    SharedResourceGroup resourceGroup) throws OutOfMemoryException {
     this.config = sabotConfig;
     this.dremioConfig = dremioConfig;
     this.handle = handle;
@@ -147,6 +187,8 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
             .orElse(Collections.emptyMap());
     this.minorFragmentEndpoints = minorFragmentEndpoints;
     this.expressionSplitCache = expressionSplitCache;
+    this.sharedJoinBuilds = sharedJoinBuilds;
+    this.resourceGroup = resourceGroup;
   }
 
   public OperatorContextImpl(
@@ -203,6 +245,16 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
     return expressionSplitCache;
   }
 
+  @Override
+  public SharedJoinBuild.Participant joinSharedBuild(int operatorId) {
+    if (sharedJoinBuilds == null || resourceGroup == null) {
+      return null;
+    }
+    final SharedResource resource = resourceGroup.createResource("shared-join-build-" + operatorId,
+      SharedResourceType.SHARED_JOIN_BUILD);
+    return sharedJoinBuilds.join(operatorId, resource);
+  }
+
   @Override
   public QueryId getQueryIdForLocalQuery() {
     if (fragmentExecutorBuilder == null) {
@@ -37,7 +37,7 @@ public class FileCursorManagerImpl implements FileCursorManager {
   private FileWriterMonitor writerMonitor;
   private final List<FileReaderMonitor> allReaderMonitors = new ArrayList<>();
   private Runnable onAllReadersDone;
-  private long curWriteCursor = INVALID_CURSOR;
+  private volatile long curWriteCursor = INVALID_CURSOR;
   private long curMaxReadCursor = INVALID_CURSOR;
   private boolean allRegistrationsDone;
 
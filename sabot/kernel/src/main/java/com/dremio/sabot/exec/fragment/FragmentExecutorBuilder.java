@@ -316,7 +316,9 @@ public class FragmentExecutorBuilder {
             cachedReader.getPlanFragmentsIndex().getEndpointsIndex(),
             nodeEndpointProvider,
             major.getExtFragmentAssignmentsList(),
-            expressionSplitCache
+            expressionSplitCache,
+            ticket.getSharedJoinBuilds(),
+            sharedResources.getGroup(PIPELINE_RES_GRP)
           );
 
         final FragmentStatusReporter statusReporter = new FragmentStatusReporter(fragment.getHandle(), schedulingWeight, stats,
@@ -51,6 +51,8 @@ import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorContextImpl;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.join.vhash.SharedJoinBuilds;
+import com.dremio.sabot.threads.sharedres.SharedResourceGroup;
 import com.dremio.service.namespace.NamespaceService;
 import com.dremio.service.spill.SpillService;
 import com.google.common.base.Preconditions;
@@ -82,6 +84,8 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
   private final List<CoordExecRPC.MajorFragmentAssignment> extFragmentAssignments;
   private List<MinorFragmentEndpoint> minorFragmentEndpoints;
   private final ExpressionSplitCache expressionSplitCache;
+  private final SharedJoinBuilds sharedJoinBuilds;
+  private final SharedResourceGroup resourceGroup;
 
   public OperatorContextCreator(FragmentStats stats, BufferAllocator allocator, CodeCompiler compiler,
                                 SabotConfig config, DremioConfig dremioConfig, FragmentHandle handle, ExecutionControls executionControls,
@@ -91,7 +95,8 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
                                 NodeDebugContextProvider nodeDebugContextProvider, TunnelProvider tunnelProvider,
                                 List<FragmentAssignment> assignments, EndpointsIndex endpointsIndex,
                                 Provider<CoordinationProtos.NodeEndpoint> nodeEndpointProvider,
-                                List<CoordExecRPC.MajorFragmentAssignment> extFragmentAssignments, ExpressionSplitCache expressionSplitCache) {
+                                List<CoordExecRPC.MajorFragmentAssignment> extFragmentAssignments, ExpressionSplitCache expressionSplitCache,
+                                SharedJoinBuilds sharedJoinBuilds, SharedResourceGroup resourceGroup) {
     super();
     this.stats = stats;
     this.allocator = allocator;
@@ -116,6 +121,8 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
     this.endpointsIndex = endpointsIndex;
     this.extFragmentAssignments = extFragmentAssignments;
     this.expressionSplitCache = expressionSplitCache;
+    this.sharedJoinBuilds = sharedJoinBuilds;
+    this.resourceGroup = resourceGroup;
   }
 
   public void setFragmentOutputAllocator(BufferAllocator fragmentOutputAllocator) {
@@ -170,7 +177,9 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
         nodeEndpointProvider,
         endpointsIndex,
         minorFragmentEndpoints,
-        expressionSplitCache);
+        expressionSplitCache,
+        sharedJoinBuilds,
+        resourceGroup);
       operatorContexts.add(context);
       closeable.commit();
       return context;
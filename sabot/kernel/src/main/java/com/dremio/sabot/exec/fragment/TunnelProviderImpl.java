@@ -87,10 +87,11 @@ class TunnelProviderImpl implements TunnelProvider {
   }
 
   @Override
-  public AccountingFileTunnel getFileTunnel(FileStreamManager streamManager, int maxBatchesPerFile) throws IOException {
+  public AccountingFileTunnel getFileTunnel(FileStreamManager streamManager, int maxBatchesPerFile, long flushThreshold,
+                                            long maxFlushDelayMillis) throws IOException {
     final SharedResource resource = resourceGroup.createResource("writer-file-" + streamManager.getId(),
       SharedResourceType.SEND_MSG_DATA);
-    final FileTunnel fileTunnel = new FileTunnel(streamManager, maxBatchesPerFile);
+    final FileTunnel fileTunnel = new FileTunnel(streamManager, maxBatchesPerFile, flushThreshold, maxFlushDelayMillis);
     return new AccountingFileTunnel(fileTunnel, cursorManagerFactory, resource);
   }
 }
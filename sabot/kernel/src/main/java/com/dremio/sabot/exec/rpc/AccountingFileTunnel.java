@@ -16,8 +16,11 @@
 package com.dremio.sabot.exec.rpc;
 
 import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import com.dremio.common.AutoCloseables;
+import com.dremio.common.concurrent.CloseableSchedulerThreadPool;
 import com.dremio.exec.proto.ExecRPC;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.sabot.exec.cursors.FileCursorManager;
@@ -26,11 +29,21 @@ import com.dremio.sabot.threads.sharedres.SharedResource;
 
 /**
  * Wrapper over FileTunnel to account pending batches and flow control (TODO)
+ *
+ * The batches left unflushed by the tunnel are flushed by a timer once they waited for the max flush delay, even if the
+ * writer stalls and doesn't send any other batch.
  */
 public class AccountingFileTunnel implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(AccountingFileTunnel.class);
+  private static final CloseableSchedulerThreadPool FLUSH_TIMER = newFlushTimer();
+
   private final FileTunnel tunnel;
   private final FileCursorManager.Observer observer;
-  private boolean allReceiversDone;
+  private volatile boolean allReceiversDone;
+  private long lastCursor = -1;
+  // flush of the unflushed batches scheduled by the timer, if any.
+  private ScheduledFuture<?> delayedFlush;
+  private boolean closed;
 
   public AccountingFileTunnel(FileTunnel tunnel, FileCursorManagerFactory cursorManagerFactory, SharedResource sharedResource) {
     this.tunnel = tunnel;
@@ -43,13 +56,48 @@ public class AccountingFileTunnel implements AutoCloseable {
   }
 
   public void sendStreamComplete(ExecRPC.FragmentStreamComplete streamComplete) throws IOException {
-    long cursor = tunnel.sendStreamComplete(streamComplete);
-    observer.updateCursor(tunnel.getCurrentFileSeq(), cursor);
+    updateCursor(tunnel.sendStreamComplete(streamComplete));
   }
 
   public void sendRecordBatch(FragmentWritableBatch batch) throws IOException {
-    long cursor = tunnel.sendRecordBatch(batch);
-    observer.updateCursor(tunnel.getCurrentFileSeq(), cursor);
+    updateCursor(tunnel.sendRecordBatch(batch));
+    scheduleDelayedFlush();
+  }
+
+  private static CloseableSchedulerThreadPool newFlushTimer() {
+    final CloseableSchedulerThreadPool timer = new CloseableSchedulerThreadPool("file-tunnel-flush-", 1);
+    timer.setRemoveOnCancelPolicy(true);
+    return timer;
+  }
+
+  private synchronized void scheduleDelayedFlush() {
+    final long delayMillis = tunnel.getMaxFlushDelayMillis();
+    if (delayMillis > 0 && delayedFlush == null && !closed && tunnel.hasUnflushedMessages()) {
+      delayedFlush = FLUSH_TIMER.schedule(this::delayedFlush, delayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void delayedFlush() {
+    synchronized (this) {
+      delayedFlush = null;
+      if (closed) {
+        return;
+      }
+    }
+    try {
+      updateCursor(tunnel.flushPending());
+    } catch (IOException e) {
+      // the writer fails on its next write.
+      logger.warn("Failed to flush file tunnel {}", tunnel.getFileStreamManager().getId(), e);
+    }
+  }
+
+  private synchronized void updateCursor(long cursor) {
+    // the batches buffered by the tunnel aren't visible to the readers yet.
+    if (!closed && cursor > lastCursor) {
+      observer.updateCursor(tunnel.getCurrentFileSeq(), cursor);
+      lastCursor = cursor;
+    }
   }
 
   public boolean isAllReceiversDone() {
@@ -58,6 +106,13 @@ public class AccountingFileTunnel implements AutoCloseable {
 
   @Override
   public void close() throws Exception {
+    synchronized (this) {
+      closed = true;
+      if (delayedFlush != null) {
+        delayedFlush.cancel(false);
+        delayedFlush = null;
+      }
+    }
     AutoCloseables.close(tunnel, observer);
   }
 }
@@ -17,6 +17,7 @@ package com.dremio.sabot.exec.rpc;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.memory.util.LargeMemoryUtil;
 import org.slf4j.Logger;
@@ -31,24 +32,52 @@ import io.netty.buffer.ByteBuf;
 
 /**
  * Tunnel-like API that writes batches/completions to a file.
+ *
+ * Small batches are coalesced in larger chunks of the file : the output is only flushed once enough bytes have been
+ * written since the last flush, or once the oldest unflushed batch has waited long enough, and the readers are only
+ * told about the batches that were flushed. As the writer may stall, {@link #flushPending()} can be called by another
+ * thread, the methods writing to the file are synchronized.
  */
 public class FileTunnel implements AutoCloseable {
   private static final Logger logger = LoggerFactory.getLogger(FileTunnel.class);
   private final FileStreamManager fileStreamManager;
   private final int maxBatchesPerFile;
+  private final long flushThreshold;
+  private final long maxFlushDelayMillis;
+  private final long maxFlushDelayNanos;
   private int currentFileSeq;
   private long currentBatchSeq;
+  // seq of the last message flushed to the file, visible to the readers.
+  private long lastFlushedSeq = -1;
+  private long unflushedBytes;
+  // time the first unflushed message was written at.
+  private long unflushedSinceNanos;
   private OutputStream currentOutput;
   private static final int IO_CHUNK_SIZE = 32 * 1024;
   private byte[] ioBuffer;
 
   public FileTunnel(FileStreamManager fileStreamManager, int maxBatchesPerFile) throws IOException {
+    this(fileStreamManager, maxBatchesPerFile, 0, 0);
+  }
+
+  /**
+   * @param flushThreshold min number of bytes written before the output is flushed, 0 to flush after each batch.
+   * @param maxFlushDelayMillis max time a batch waits before the output is flushed, 0 to only flush on size.
+   */
+  public FileTunnel(FileStreamManager fileStreamManager, int maxBatchesPerFile, long flushThreshold,
+                    long maxFlushDelayMillis) throws IOException {
     this.fileStreamManager = fileStreamManager;
     this.maxBatchesPerFile = maxBatchesPerFile;
+    this.flushThreshold = flushThreshold;
+    this.maxFlushDelayMillis = maxFlushDelayMillis;
+    this.maxFlushDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxFlushDelayMillis);
     this.currentOutput = fileStreamManager.createOutputStream(currentFileSeq);
   }
 
-  public long sendRecordBatch(FragmentWritableBatch batch) throws IOException {
+  /**
+   * @return seq of the last message flushed to the file, which may be before this batch.
+   */
+  public synchronized long sendRecordBatch(FragmentWritableBatch batch) throws IOException {
     try {
       writeMessage(currentOutput,
         FileExec.FileMessage.newBuilder()
@@ -61,8 +90,11 @@ public class FileTunnel implements AutoCloseable {
       );
       if (currentBatchSeq % maxBatchesPerFile == 0) {
         switchOutputStream();
+      } else if (unflushedBytes >= flushThreshold
+        || (maxFlushDelayNanos > 0 && System.nanoTime() - unflushedSinceNanos >= maxFlushDelayNanos)) {
+        flush();
       }
-      return currentBatchSeq - 1;
+      return lastFlushedSeq;
     } finally {
       for (ByteBuf byteBuf : batch.getBuffers()) {
         byteBuf.release();
@@ -70,7 +102,7 @@ public class FileTunnel implements AutoCloseable {
     }
   }
 
-  public long sendStreamComplete(ExecRPC.FragmentStreamComplete streamComplete) throws IOException {
+  public synchronized long sendStreamComplete(ExecRPC.FragmentStreamComplete streamComplete) throws IOException {
     logger.debug("sending streamComplete currentFileSeq {} currentBatchSeq {}", currentFileSeq, currentBatchSeq);
     writeMessage(currentOutput,
       FileExec.FileMessage.newBuilder()
@@ -82,7 +114,9 @@ public class FileTunnel implements AutoCloseable {
     );
     currentOutput.close();
     currentOutput = null;
-    return currentBatchSeq - 1;
+    lastFlushedSeq = currentBatchSeq - 1;
+    unflushedBytes = 0;
+    return lastFlushedSeq;
   }
 
 
@@ -98,6 +132,8 @@ public class FileTunnel implements AutoCloseable {
     // close current stream
     currentOutput.close();
     currentOutput = null;
+    lastFlushedSeq = currentBatchSeq - 1;
+    unflushedBytes = 0;
 
     // create a fresh stream
     ++currentFileSeq;
@@ -112,17 +148,47 @@ public class FileTunnel implements AutoCloseable {
     return currentFileSeq;
   }
 
+  public long getMaxFlushDelayMillis() {
+    return maxFlushDelayMillis;
+  }
+
+  public synchronized boolean hasUnflushedMessages() {
+    return currentOutput != null && unflushedBytes > 0;
+  }
+
+  /**
+   * Flush the messages written since the last flush, if any.
+   *
+   * @return seq of the last message flushed to the file.
+   */
+  public synchronized long flushPending() throws IOException {
+    if (hasUnflushedMessages()) {
+      flush();
+    }
+    return lastFlushedSeq;
+  }
+
+  private void flush() throws IOException {
+    currentOutput.flush();
+    lastFlushedSeq = currentBatchSeq - 1;
+    unflushedBytes = 0;
+  }
+
   private void writeMessage(OutputStream output, FileExec.FileMessage message, ByteBuf[] extraBufs) throws IOException {
     // msg contains :
     // - protobuf msg
     // - arrow buffers (optional)
+    if (unflushedBytes == 0 && maxFlushDelayNanos > 0) {
+      unflushedSinceNanos = System.nanoTime();
+    }
     message.writeDelimitedTo(output);
+    unflushedBytes += message.getSerializedSize();
     if (extraBufs != null) {
       for (ByteBuf byteBuf : extraBufs) {
         writeArrowBuf(byteBuf, output);
+        unflushedBytes += byteBuf.readableBytes();
       }
     }
-    output.flush();
   }
 
   // copy to pre-alloced heap buffer to avoid repeated heap allocations
@@ -140,8 +206,12 @@ public class FileTunnel implements AutoCloseable {
   }
 
   @Override
-  public void close() throws Exception {
+  public synchronized void close() throws Exception {
     logger.debug("close fileTunnel");
-    AutoCloseables.close(currentOutput);
+    try {
+      AutoCloseables.close(currentOutput);
+    } finally {
+      currentOutput = null;
+    }
   }
 }
@@ -22,5 +22,6 @@ import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 public interface TunnelProvider {
   AccountingExecToCoordTunnel getCoordTunnel();
   AccountingExecTunnel getExecTunnel(final NodeEndpoint endpoint);
-  AccountingFileTunnel getFileTunnel(FileStreamManager streamManager, int maxBatchesPerFile) throws IOException;
+  AccountingFileTunnel getFileTunnel(FileStreamManager streamManager, int maxBatchesPerFile, long flushThreshold,
+                                     long maxFlushDelayMillis) throws IOException;
 }
@@ -88,6 +88,11 @@ public class HashAggStats {
     OOB_DROP_NO_VICTIM, // Number of times OOB dropped spilling notification as all allocations were minimal.
     OOB_SPILL, // Spill was done due to oob.
     OOB_DROP_ALREADY_SPILLING, // Number of times operator dropped spilling notification as it was already spilling
+
+    SPILL_IO_BYTES_WRITTEN,    /* bytes written to spill files, after compression */
+    SPILL_COMPRESSION_NANOS,   /* time spent compressing spill files */
+    SPILL_DECOMPRESSION_NANOS, /* time spent decompressing spill files */
+    SPILL_UNCOMPRESSED_BLOCKS, /* blocks of spill files written uncompressed, as they didn't compress well */
     ;
 
     @Override
@@ -57,6 +57,7 @@ import com.dremio.options.OptionManager;
 import com.dremio.options.Options;
 import com.dremio.options.TypeValidators.BooleanValidator;
 import com.dremio.options.TypeValidators.DoubleValidator;
+import com.dremio.options.TypeValidators.EnumValidator;
 import com.dremio.options.TypeValidators.PositiveLongValidator;
 import com.dremio.options.TypeValidators.PowerOfTwoLongValidator;
 import com.dremio.options.TypeValidators.RangeDoubleValidator;
@@ -75,6 +76,7 @@ import com.dremio.sabot.op.common.ht2.PivotBuilder;
 import com.dremio.sabot.op.common.ht2.PivotBuilder.PivotInfo;
 import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.sort.external.SpillCompression;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -364,6 +366,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   public static final DoubleValidator OOB_SPILL_TRIGGER_HEADROOM_FACTOR = new RangeDoubleValidator("exec.operator.aggregate.vectorize.oob_trigger_headroom_factor", 0.0d, 10.0d, .2d);
   public static final BooleanValidator OOB_SPILL_TRIGGER_ENABLED = new BooleanValidator("exec.operator.aggregate.vectorize.oob_trigger_enabled", true);
   public static final BooleanValidator VECTORIZED_HASHAGG_ENABLE_MICRO_SPILLS = new BooleanValidator("exec.operator.aggregate.vectorize.enable_micro_spills", true);
+  public static final EnumValidator<SpillCompression> VECTORIZED_HASHAGG_SPILL_COMPRESSION = new EnumValidator<>("exec.operator.aggregate.vectorize.spill_compression", SpillCompression.class, SpillCompression.LZ4);
   /*
    * If variable column records size is much larger then default (15) size, let the vector created for new batches
    * can go up to 1M (256 * 4K). Config option can be used to reduce, if really needed.
@@ -1977,6 +1980,10 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     stats.setLongStat(Metric.RECURSION_DEPTH, computeRecursionDepth());
     stats.setLongStat(Metric.TOTAL_SPILLED_DATA_SIZE, partitionSpillHandler.getTotalSpilledDataSize());
     stats.setLongStat(Metric.MAX_SPILLED_DATA_SIZE, partitionSpillHandler.getMaxSpilledDataSize());
+    stats.setLongStat(Metric.SPILL_IO_BYTES_WRITTEN, partitionSpillHandler.getSpillIOWriteBytes());
+    stats.setLongStat(Metric.SPILL_COMPRESSION_NANOS, partitionSpillHandler.getSpillCompressionNanos());
+    stats.setLongStat(Metric.SPILL_DECOMPRESSION_NANOS, partitionSpillHandler.getSpillDecompressionNanos());
+    stats.setLongStat(Metric.SPILL_UNCOMPRESSED_BLOCKS, partitionSpillHandler.getSpillUncompressedBlocks());
 
     stats.setLongStat(Metric.OOB_SENDS, oobSends);
     stats.setLongStat(Metric.OOB_RECEIVES, oobReceives);
@@ -37,6 +37,7 @@ import com.dremio.sabot.op.common.ht2.LBlockHashTable;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
+import com.google.common.io.ByteStreams;
 
 import io.netty.util.internal.PlatformDependent;
 
@@ -153,8 +154,10 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
 
     /* STEP 3: read info on types of accumulators -- sum, min, max etc */
     final byte[] accumulatorTypes = partitionToLoadSpilledData.getAccumulatorTypes();
-    Preconditions.checkArgument(input.read(accumulatorTypes, 0, numAccumulators) == numAccumulators,
-      "ERROR: read incorrect length of accumulator types");
+    // the types may span two blocks of a compressed spill file, a single read may not return all of them.
+    try (OperatorStats.WaitRecorder recorder = OperatorStats.getWaitRecorder(operatorStats)) {
+      ByteStreams.readFully(input, accumulatorTypes, 0, numAccumulators);
+    }
 
     /* STEP 4: read metadata for accumulator vectors */
     final UserBitShared.RecordBatchDef accumulatorBatchDef;
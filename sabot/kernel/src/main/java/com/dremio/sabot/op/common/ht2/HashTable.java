@@ -101,6 +101,7 @@ public interface HashTable {
     private final boolean enforceVarWidthBufferLimit;
     private final int maxHashTableBatchSize;
     private final NullComparator nullComparator;
+    private final int probeGroupSize;
 
     public HashTableCreateArgs(HashConfig hashConfig,
                                PivotDef pivot,
@@ -110,6 +111,19 @@ public interface HashTable {
                                boolean enforceVarWidthBufferLimit,
                                int maxHashTableBatchSize,
                                NullComparator nullComparator) {
+      this(hashConfig, pivot, allocator, initialSize, defaultVarLengthSize, enforceVarWidthBufferLimit,
+        maxHashTableBatchSize, nullComparator, 0);
+    }
+
+    public HashTableCreateArgs(HashConfig hashConfig,
+                               PivotDef pivot,
+                               BufferAllocator allocator,
+                               int initialSize,
+                               int defaultVarLengthSize,
+                               boolean enforceVarWidthBufferLimit,
+                               int maxHashTableBatchSize,
+                               NullComparator nullComparator,
+                               int probeGroupSize) {
       this.hashConfig = hashConfig;
       this.pivot = pivot;
       this.allocator = allocator;
@@ -118,6 +132,7 @@ public interface HashTable {
       this.enforceVarWidthBufferLimit = enforceVarWidthBufferLimit;
       this.maxHashTableBatchSize = maxHashTableBatchSize;
       this.nullComparator = nullComparator;
+      this.probeGroupSize = probeGroupSize;
     }
 
     public HashConfig getHashConfig() {
@@ -151,6 +166,13 @@ public interface HashTable {
     public NullComparator getNullComparator() {
       return nullComparator;
     }
+
+    /**
+     * @return number of keys probed together by the vectorized add and find, 0 to probe one key at a time.
+     */
+    public int getProbeGroupSize() {
+      return probeGroupSize;
+    }
   }
 }
 
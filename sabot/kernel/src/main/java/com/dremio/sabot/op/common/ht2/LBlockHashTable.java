@@ -83,6 +83,12 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
   private static final int RETRY_RETURN_CODE = -2;
   public static final int ORDINAL_SIZE = 4;
 
+  /**
+   * Tables with fewer slots than this are probed one key at a time, as their control blocks are likely to fit in the
+   * CPU caches.
+   */
+  public static final int BATCHED_PROBE_MIN_CAPACITY = 1 << 18;
+
   private final HashConfigWrapper config;
   private ResizeListener resizeListener;
   private SpaceCheckListener spaceCheckListener;
@@ -134,10 +140,15 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
   private final boolean enforceVarWidthBufferLimit;
   private int maxOrdinalBeforeExpand;
 
+  // keys probed together by the vectorized add and find, see probeBatched()
+  private final int probeGroupSize;
+  // only keeps the prefetching loads from being optimized away. Concurrent finds may lose updates, which is harmless.
+  private long prefetchSink;
+
   public LBlockHashTable(HashTableCreateArgs createArgs) {
     this(createArgs.getHashConfig(), createArgs.getPivot(), createArgs.getAllocator(), createArgs.getInitialSize(),
       createArgs.getDefaultVarLengthSize(), createArgs.isEnforceVarWidthBufferLimit(),
-      createArgs.getMaxHashTableBatchSize(), createArgs.getNullComparator());
+      createArgs.getMaxHashTableBatchSize(), createArgs.getNullComparator(), createArgs.getProbeGroupSize());
   }
 
   public LBlockHashTable(HashConfig config,
@@ -159,6 +170,23 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
                          final boolean enforceVarWidthBufferLimit,
                          final int maxHashTableBatchSize,
                          NullComparator nullComparator) {
+    this(config, pivot, parentAllocator, initialSize, defaultVariableLengthSize,
+      enforceVarWidthBufferLimit, maxHashTableBatchSize, nullComparator, 0);
+  }
+
+  /**
+   * @param probeGroupSize number of keys probed together by the vectorized {@link #add} and {@link #find} on large
+   *                       tables, to overlap their cache misses. 0 or 1 to probe one key at a time.
+   */
+  public LBlockHashTable(HashConfig config,
+                         PivotDef pivot,
+                         BufferAllocator parentAllocator,
+                         int initialSize,
+                         int defaultVariableLengthSize,
+                         final boolean enforceVarWidthBufferLimit,
+                         final int maxHashTableBatchSize,
+                         NullComparator nullComparator,
+                         final int probeGroupSize) {
     this.pivot = pivot;
     this.allocator = parentAllocator.newChildAllocator("hashtable", 0, parentAllocator.getLimit());
     this.nullComparator = nullComparator;
@@ -180,6 +208,7 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
     this.unusedForFixedBlocks = 0;
     this.unusedForVarBlocks = 0;
     this.maxOrdinalBeforeExpand = 0;
+    this.probeGroupSize = probeGroupSize;
     internalInit(LHashCapacities.capacity(this.config, initialSize, false));
 
     logger.debug("initialized hashtable, maxSize:{}, capacity:{}, maxVariableBlockLength:{}, maxValuesPerBatch:{}",
@@ -245,6 +274,10 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
   /* XXX: Assumes, for now, that it add does not fail with OOM */
   @Override
   public final void add(int numRecords, long keyFixedVectorAddr, long keyVarVectorAddr, long hashVectorAddr8B, long outputAddr) {
+    if (useBatchedProbe()) {
+      probeBatched(numRecords, false, 0, keyFixedVectorAddr, keyVarVectorAddr, hashVectorAddr8B, outputAddr, true);
+      return;
+    }
     for (int keyIndex = 0; keyIndex < numRecords; keyIndex++, outputAddr += 4, hashVectorAddr8B += 8) {
       final int keyHash = (int)PlatformDependent.getLong(hashVectorAddr8B);
       PlatformDependent.putInt(outputAddr,
@@ -265,6 +298,10 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
   /* XXX: Assumes, for now, that it add does not fail with OOM */
   @Override
   public final void addSv2(int numRecords, long sv2Addr, long keyFixedVectorAddr, long keyVarVectorAddr, long tableHashAddr4B, long outputAddr) {
+    if (useBatchedProbe()) {
+      probeBatched(numRecords, true, sv2Addr, keyFixedVectorAddr, keyVarVectorAddr, tableHashAddr4B, outputAddr, true);
+      return;
+    }
     for (int index = 0 ; index < numRecords; index++, outputAddr += 4) {
       final int keyIndex = SV2UnsignedUtil.read(sv2Addr, index);
       final int keyHash = PlatformDependent.getInt(tableHashAddr4B + keyIndex * 4);
@@ -301,6 +338,10 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
    */
   @Override
   public final void find(int numRecords, long keyFixedVectorAddr, long keyVarVectorAddr, long hashVectorAddr8B, long outputAddr) {
+    if (useBatchedProbe()) {
+      probeBatched(numRecords, false, 0, keyFixedVectorAddr, keyVarVectorAddr, hashVectorAddr8B, outputAddr, false);
+      return;
+    }
     NullComparator.Mode mode = nullComparator == null ? NullComparator.Mode.NONE : nullComparator.getMode();
     int blockWidth = pivot.getBlockWidth();
     long bitsAddr = keyFixedVectorAddr;
@@ -370,6 +411,10 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
    */
   @Override
   public final void findSv2(int numRecords, long sv2Addr, long keyFixedVectorAddr, long keyVarVectorAddr, long hashVectorAddr4B, long outputAddr) {
+    if (useBatchedProbe()) {
+      probeBatched(numRecords, true, sv2Addr, keyFixedVectorAddr, keyVarVectorAddr, hashVectorAddr4B, outputAddr, false);
+      return;
+    }
     NullComparator.Mode mode = nullComparator == null ? NullComparator.Mode.NONE : nullComparator.getMode();
     int blockWidth = pivot.getBlockWidth();
 
@@ -433,6 +478,120 @@ public final class LBlockHashTable implements HashTable, AutoCloseable {
     }
   }
 
+  private boolean useBatchedProbe() {
+    return probeGroupSize > 1 && capacity >= BATCHED_PROBE_MIN_CAPACITY;
+  }
+
+  /**
+   * Search, or add, a vector of keys in groups of {@link #probeGroupSize} keys (group prefetching).
+   *
+   * The first probed slot of every key of a group is loaded first, then the table rows these slots point to, in loops
+   * where the loads don't depend on each other: the cache misses of the group are taken in parallel rather than one
+   * after the other. The keys of the group are then probed as usual, mostly hitting the cache. When searching, a key
+   * whose first slot is free is known to be missing without probing again.
+   *
+   * The state of the groups is local to the call, so that a built table can be searched by several threads at once.
+   *
+   * @param numRecords         number of records to search
+   * @param hasSv2             if true, the records are selected by the sv2, and the hash vector has 4-byte hashes
+   *                           indexed by record. Otherwise the hash vector has 8-byte hashes.
+   * @param sv2Addr            sv2Addr of valid ordinals
+   * @param keyFixedVectorAddr starting address of fixed vector block
+   * @param keyVarVectorAddr   starting address of variable vector block
+   * @param hashVectorAddr     starting address of hash vector block
+   * @param outputAddr         starting address of output vector block
+   * @param insertNew          true to add the missing keys, false to only search
+   */
+  private void probeBatched(final int numRecords, final boolean hasSv2, final long sv2Addr,
+                            final long keyFixedVectorAddr, final long keyVarVectorAddr, final long hashVectorAddr,
+                            long outputAddr, final boolean insertNew) {
+    final NullComparator.Mode mode = insertNew || nullComparator == null ? NullComparator.Mode.NONE : nullComparator.getMode();
+    final int blockWidth = pivot.getBlockWidth();
+    final int[] keyIndices = new int[probeGroupSize];
+    final int[] keyHashes = new int[probeGroupSize];
+    final long[] controls = new long[probeGroupSize];
+    long touched = 0;
+
+    for (int start = 0; start < numRecords; start += probeGroupSize) {
+      final int count = Math.min(probeGroupSize, numRecords - start);
+      for (int i = 0; i < count; i++) {
+        if (hasSv2) {
+          final int keyIndex = SV2UnsignedUtil.read(sv2Addr, start + i);
+          keyIndices[i] = keyIndex;
+          keyHashes[i] = PlatformDependent.getInt(hashVectorAddr + keyIndex * 4L);
+        } else {
+          keyIndices[i] = start + i;
+          keyHashes[i] = (int) PlatformDependent.getLong(hashVectorAddr + (start + i) * 8L);
+        }
+      }
+
+      touched += prefetchGroup(keyHashes, controls, count);
+
+      for (int i = 0; i < count; i++, outputAddr += 4) {
+        final int keyIndex = keyIndices[i];
+        final int ordinal;
+        if (mode != NullComparator.Mode.NONE && !isComparable(mode, keyFixedVectorAddr + (long) keyIndex * blockWidth)) {
+          // the nulls are not comparable. as such, this doesn't match.
+          ordinal = SKIP;
+        } else if (!insertNew && controls[i] == LFREE) {
+          ordinal = -1;
+        } else {
+          ordinal = getOrInsert(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHashes[i], insertNew);
+        }
+        PlatformDependent.putInt(outputAddr, ordinal);
+      }
+    }
+    prefetchSink += touched;
+  }
+
+  /**
+   * Load the first probed slot of each key of a group, and the first bytes of the table row of the slots whose hash
+   * matches.
+   *
+   * @param keyHashes hashes of the keys of the group
+   * @param controls  output, control word of the first probed slot of each key
+   * @param count     number of keys in the group
+   * @return a value depending on the loaded table rows, to keep the loads from being optimized away
+   */
+  private int prefetchGroup(final int[] keyHashes, final long[] controls, final int count) {
+    final long[] tableControlAddresses = this.tableControlAddresses;
+    final long[] tableFixedAddresses = this.tableFixedAddresses;
+    final int blockWidth = pivot.getBlockWidth();
+    final int mask = capacity - 1;
+
+    for (int i = 0; i < count; i++) {
+      final int controlIndex = keyHashes[i] & mask;
+      controls[i] = PlatformDependent.getLong(tableControlAddresses[getBatchIndexForOrdinal(controlIndex)] +
+        ((controlIndex & CHUNK_OFFSET_MASK) * CONTROL_WIDTH));
+    }
+
+    int touched = 0;
+    for (int i = 0; i < count; i++) {
+      final long control = controls[i];
+      if (control != LFREE && keyHashes[i] == (int) (control >>> 32)) {
+        final int ordinal = (int) control;
+        touched += PlatformDependent.getInt(tableFixedAddresses[getBatchIndexForOrdinal(ordinal)] +
+          ((ordinal & CHUNK_OFFSET_MASK) * blockWidth));
+      }
+    }
+    return touched;
+  }
+
+  private boolean isComparable(final NullComparator.Mode mode, final long bitsAddr) {
+    switch (mode) {
+      case FOUR:
+        final int four = nullComparator.getFour();
+        return (PlatformDependent.getInt(bitsAddr) & four) == four;
+      case EIGHT:
+        final long eight = nullComparator.getEight();
+        return (PlatformDependent.getLong(bitsAddr) & eight) == eight;
+      case BIG:
+        return nullComparator.isComparableBigBits(bitsAddr);
+      default:
+        return true;
+    }
+  }
+
   // TODO: we need to fix the hashjoin operator code to pass addresses directly pointing
   // to records in pivot buffers and then we can remove this method. right now it is
   // passing starting address of pivot buffers and the hash table has to repeat
@@ -64,4 +64,9 @@ public class SpillServiceOptionsImpl implements SpillServiceOptions {
   public long spillSweepThreshold() {
     return options().getOption(ExecConstants.SPILL_SWEEP_THRESHOLD);
   }
+
+  @Override
+  public double slowDirectoryFactor() {
+    return options().getOption(ExecConstants.SPILL_SLOW_DIRECTORY_FACTOR);
+  }
 }
@@ -49,7 +49,9 @@ import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.options.Options;
 import com.dremio.options.TypeValidators.BooleanValidator;
+import com.dremio.options.TypeValidators.EnumValidator;
 import com.dremio.options.TypeValidators.PowerOfTwoLongValidator;
+import com.dremio.options.TypeValidators.RangeLongValidator;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.common.hashtable.ChainedHashTable;
@@ -62,6 +64,7 @@ import com.dremio.sabot.op.join.JoinUtils;
 import com.dremio.sabot.op.join.vhash.HashJoinStats;
 import com.dremio.sabot.op.join.vhash.VectorizedHashJoinOperator;
 import com.dremio.sabot.op.join.vhash.spill.VectorizedSpillingHashJoinOperator;
+import com.dremio.sabot.op.sort.external.SpillCompression;
 import com.dremio.sabot.op.spi.DualInputOperator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -74,8 +77,15 @@ import io.netty.util.internal.PlatformDependent;
 @Options
 public class HashJoinOperator implements DualInputOperator {
 
+  // Off by default : a hot key of a left/full join can't be joined in block nested loop mode, and fails once it's
+  // spilled, where the non-spilling operator may still fit it in memory.
   public static final BooleanValidator ENABLE_SPILL = new BooleanValidator("exec.op.join.spill", false);
   public static final PowerOfTwoLongValidator NUM_PARTITIONS = new PowerOfTwoLongValidator("exec.op.join.spill.num_partitions", 16, 8);
+  // Number of times a spilled partition can be re-partitioned (with a new hash seed) before switching to block nested loop
+  public static final RangeLongValidator MAX_SPILL_RECURSION_DEPTH = new RangeLongValidator("exec.op.join.spill.max_recursion_depth", 1, 16, 4);
+  // For testing only : spill a partition once it holds more than these many build records (0 to disable)
+  public static final RangeLongValidator TEST_SPILL_PARTITION_RECORDS = new RangeLongValidator("exec.op.join.spill.test_partition_records", 0, Integer.MAX_VALUE, 0);
+  public static final EnumValidator<SpillCompression> SPILL_COMPRESSION = new EnumValidator<>("exec.op.join.spill.compression", SpillCompression.class, SpillCompression.LZ4);
 
   private long outputRecords;
 
@@ -473,7 +483,9 @@ public class HashJoinOperator implements DualInputOperator {
     @Override
     public DualInputOperator create(OperatorContext context, HashJoinPOP config) throws ExecutionSetupException {
       if(config.isVectorize()) {
-        if (context.getOptions().getOption(ENABLE_SPILL)) {
+        // the spilling operator doesn't support extra join conditions and runtime filters yet, nor sharing its build.
+        if (context.getOptions().getOption(ENABLE_SPILL) && config.getExtraCondition() == null &&
+          config.getRuntimeFilterInfo() == null && !VectorizedHashJoinOperator.canShareBuild(context, config)) {
           return new VectorizedSpillingHashJoinOperator(context, config);
         } else {
           return new VectorizedHashJoinOperator(context, config);
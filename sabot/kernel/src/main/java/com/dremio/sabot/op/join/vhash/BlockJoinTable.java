@@ -49,6 +49,8 @@ public class BlockJoinTable implements JoinTable {
   private final Stopwatch pivotBuildWatch = Stopwatch.createUnstarted();
   private final Stopwatch insertWatch = Stopwatch.createUnstarted();
   private boolean tableTracing;
+  // false for the probe views of a table, which don't own it
+  private final boolean ownsTable;
   private final Stopwatch buildHashComputationWatch = Stopwatch.createUnstarted();
   private final Stopwatch probeHashComputationWatch = Stopwatch.createUnstarted();
 
@@ -59,11 +61,32 @@ public class BlockJoinTable implements JoinTable {
     this.table = HashTable.getInstance(sabotConfig,
       optionManager.getOption(ExecConstants.ENABLE_NATIVE_HASHTABLE_FOR_JOIN),
       new HashTable.HashTableCreateArgs(HashConfig.getDefault(), buildPivot, allocator, minSize,
-        varFieldAverageSize, false, MAX_VALUES_PER_BATCH, nullMask));
+        varFieldAverageSize, false, MAX_VALUES_PER_BATCH, nullMask,
+        (int) optionManager.getOption(ExecConstants.HASHTABLE_PROBE_GROUP_SIZE)));
     this.buildPivot = buildPivot;
     this.probePivot = probePivot;
     this.allocator = allocator;
     this.tableTracing = false;
+    this.ownsTable = true;
+  }
+
+  private BlockJoinTable(BlockJoinTable table, BufferAllocator allocator) {
+    this.table = table.table;
+    this.buildPivot = table.buildPivot;
+    this.probePivot = table.probePivot;
+    this.allocator = allocator;
+    this.tableTracing = false;
+    this.ownsTable = false;
+  }
+
+  /**
+   * Get a view to probe this table, once fully built, concurrently with other views. The view has its own probe stats
+   * and allocates its probe buffers from the given allocator. It can't insert, and closing it doesn't close this table.
+   *
+   * @param allocator allocator of the probing operator
+   */
+  public BlockJoinTable newProbeView(BufferAllocator allocator) {
+    return new BlockJoinTable(this, allocator);
   }
 
   /* Copy the keys of the records specified in keyOffsetAddr to destination memory
@@ -130,6 +153,7 @@ public class BlockJoinTable implements JoinTable {
 
   @Override
   public void insert(long outAddr, int records) {
+    Preconditions.checkState(ownsTable, "Can't insert into a probe view of a table.");
     try(FixedBlockVector fbv = new FixedBlockVector(allocator, buildPivot.getBlockWidth());
         VariableBlockVector var = new VariableBlockVector(allocator, buildPivot.getVariableCount());
         ){
@@ -223,7 +247,9 @@ public class BlockJoinTable implements JoinTable {
 
   @Override
   public void close() throws Exception {
-    table.close();
+    if (ownsTable) {
+      table.close();
+    }
   }
 
   @Override
@@ -59,7 +59,19 @@ public class HashJoinStats {
     EXTRA_CONDITION_EVALUATION_COUNT,
     EXTRA_CONDITION_EVALUATION_MATCHED,
     EXTRA_CONDITION_SETUP_NANOS,
-    BUILD_CARRYOVER_COPY_NANOS;
+    BUILD_CARRYOVER_COPY_NANOS,
+    SPILL_COUNT,                  /* number of partitions spilled, across all recursion levels */
+    SPILL_BUILD_BYTES,            /* bytes of build records written to spill files */
+    SPILL_PROBE_BYTES,            /* bytes of probe records written to spill files */
+    MAX_PARTITION_SPILL_BYTES,    /* build and probe bytes spilled by the largest partition */
+    SPILL_READ_BYTES,             /* bytes read back from spill files */
+    SPILL_RECURSION_DEPTH,        /* deepest recursion level of spilled partitions */
+    SPILL_BLOCK_NESTED_LOOP_PASSES, /* number of passes over skewed partitions that could not be re-partitioned */
+    SPILL_IO_BYTES_WRITTEN,       /* bytes written to spill files, after compression */
+    SPILL_COMPRESSION_NANOS,      /* time spent compressing spill files */
+    SPILL_DECOMPRESSION_NANOS,    /* time spent decompressing spill files */
+    SPILL_UNCOMPRESSED_BLOCKS,    /* blocks of spill files written uncompressed, as they didn't compress well */
+    SHARED_BUILD;                 /* 1 if the fragment built a table shared by the node, 2 if it probed one built by another fragment */
 
     @Override
     public int metricId() {
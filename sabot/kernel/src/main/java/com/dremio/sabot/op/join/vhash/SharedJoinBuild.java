@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.ExpandableHyperContainer;
+import com.dremio.sabot.op.join.hash.BuildInfo;
+import com.dremio.sabot.threads.sharedres.SharedResource;
+import com.google.common.base.Preconditions;
+
+/**
+ * Build side of a broadcast hash join, shared by the fragments of the join running on the same node.
+ *
+ * All the fragments of a broadcast join receive the same build records. Rather than each building an identical
+ * table, the first fragment to join the build inserts its batches, and the others drop theirs. The others block on
+ * their {@link SharedResource} until the table is built. From then on the table, the build batches and the links
+ * are only read, and every fragment probes them with its own probe side.
+ *
+ * The build is allocated from its own allocator, so that it outlives the fragment that built it. It is closed by the
+ * last fragment to release it.
+ */
+public class SharedJoinBuild implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SharedJoinBuild.class);
+
+  private enum State {
+    BUILDING,
+    BUILT,
+    FAILED
+  }
+
+  private final SharedJoinBuilds builds;
+  private final int operatorId;
+  private final BufferAllocator allocator;
+  private final List<SharedResource> waiting = new ArrayList<>();
+
+  private State state = State.BUILDING;
+  private int participants;
+  private boolean hasBuilder;
+
+  private BlockJoinTable table;
+  private ExpandableHyperContainer hyperContainer;
+  private List<BuildInfo> buildInfos = Collections.emptyList();
+  private List<ArrowBuf> startIndices = Collections.emptyList();
+  private int maxHashTableIndex = -1;
+
+  SharedJoinBuild(SharedJoinBuilds builds, int operatorId, BufferAllocator allocator) {
+    this.builds = builds;
+    this.operatorId = operatorId;
+    this.allocator = allocator;
+  }
+
+  int getOperatorId() {
+    return operatorId;
+  }
+
+  synchronized Participant join(SharedResource resource) {
+    participants++;
+    final boolean builder = !hasBuilder;
+    hasBuilder = true;
+    return new Participant(resource, builder);
+  }
+
+  /**
+   * @return true if the last participant released the build
+   */
+  synchronized boolean release() {
+    Preconditions.checkState(participants > 0, "shared build of operator %s released too many times", operatorId);
+    return --participants == 0;
+  }
+
+  private void built(BlockJoinTable table, ExpandableHyperContainer hyperContainer, List<BuildInfo> buildInfos,
+                     List<ArrowBuf> startIndices, int maxHashTableIndex) {
+    final List<SharedResource> toWake;
+    synchronized (this) {
+      Preconditions.checkState(state == State.BUILDING, "shared build of operator %s is %s", operatorId, state);
+      this.table = table;
+      this.hyperContainer = hyperContainer;
+      this.buildInfos = Collections.unmodifiableList(new ArrayList<>(buildInfos));
+      this.startIndices = Collections.unmodifiableList(new ArrayList<>(startIndices));
+      this.maxHashTableIndex = maxHashTableIndex;
+      state = State.BUILT;
+      toWake = new ArrayList<>(waiting);
+      waiting.clear();
+    }
+    logger.debug("Shared build of operator {} done, waking up {} fragments", operatorId, toWake.size());
+    toWake.forEach(SharedResource::markAvailable);
+  }
+
+  private void failed() {
+    final List<SharedResource> toWake;
+    synchronized (this) {
+      if (state != State.BUILDING) {
+        return;
+      }
+      state = State.FAILED;
+      toWake = new ArrayList<>(waiting);
+      waiting.clear();
+    }
+    toWake.forEach(SharedResource::markAvailable);
+  }
+
+  private synchronized boolean isBuilt(SharedResource resource) {
+    switch (state) {
+      case BUILT:
+        return true;
+      case FAILED:
+        throw new IllegalStateException(String.format("The fragment building the shared table of operator %d failed.",
+          operatorId));
+      default:
+        if (!waiting.contains(resource)) {
+          waiting.add(resource);
+        }
+        // woken up by the builder once the table is built. Both are done while holding the lock of the build.
+        resource.markBlocked();
+        return false;
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    closeables.add(hyperContainer);
+    closeables.add(table);
+    closeables.addAll(buildInfos);
+    closeables.addAll(startIndices);
+    closeables.add(allocator);
+    AutoCloseables.close(closeables);
+  }
+
+  /**
+   * Handle of a fragment on the shared build.
+   */
+  public final class Participant implements AutoCloseable {
+    private final SharedResource resource;
+    private final boolean builder;
+    private boolean closed;
+
+    private Participant(SharedResource resource, boolean builder) {
+      this.resource = resource;
+      this.builder = builder;
+    }
+
+    /**
+     * @return true if this fragment builds the table, false if it drops its build records and probes the table built
+     * by another fragment
+     */
+    public boolean isBuilder() {
+      return builder;
+    }
+
+    /**
+     * @return the allocator the builder must allocate the table, the build batches and the links from.
+     */
+    public BufferAllocator getAllocator() {
+      Preconditions.checkState(builder, "only the builder allocates from the shared build");
+      return allocator;
+    }
+
+    /**
+     * Hand the built table over to the shared build, which now owns it, and wake up the fragments waiting for it.
+     */
+    public void built(BlockJoinTable table, ExpandableHyperContainer hyperContainer, List<BuildInfo> buildInfos,
+                      List<ArrowBuf> startIndices, int maxHashTableIndex) {
+      Preconditions.checkState(builder, "only the builder can complete the shared build");
+      SharedJoinBuild.this.built(table, hyperContainer, buildInfos, startIndices, maxHashTableIndex);
+    }
+
+    /**
+     * Check whether the table is built. If not, the resource of the fragment is blocked until it is.
+     *
+     * @return true if the table is built and can be probed
+     */
+    public boolean isBuilt() {
+      return SharedJoinBuild.this.isBuilt(resource);
+    }
+
+    public BlockJoinTable getTable() {
+      return table;
+    }
+
+    public ExpandableHyperContainer getHyperContainer() {
+      return hyperContainer;
+    }
+
+    public List<BuildInfo> getBuildInfos() {
+      return buildInfos;
+    }
+
+    public List<ArrowBuf> getStartIndices() {
+      return startIndices;
+    }
+
+    public int getMaxHashTableIndex() {
+      return maxHashTableIndex;
+    }
+
+    /**
+     * Release the build. If the builder releases it before completing it, the fragments waiting for it fail.
+     */
+    @Override
+    public void close() throws Exception {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (builder) {
+        failed();
+      }
+      builds.release(SharedJoinBuild.this);
+    }
+  }
+}
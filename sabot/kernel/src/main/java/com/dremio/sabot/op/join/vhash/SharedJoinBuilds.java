@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.dremio.sabot.threads.sharedres.SharedResource;
+import com.google.common.base.Preconditions;
+
+/**
+ * Builds of the broadcast hash joins of a phase (major fragment), shared by the fragments of the phase running on this
+ * node. Keyed by the local id of the join operator.
+ *
+ * A build lives as long as a fragment uses it: a fragment joining after all the others released a build starts a new
+ * one.
+ */
+public class SharedJoinBuilds {
+
+  private final BufferAllocator allocator;
+  private final Map<Integer, SharedJoinBuild> builds = new HashMap<>();
+
+  /**
+   * @param allocator allocator of the phase, parent of the allocators of the builds
+   */
+  public SharedJoinBuilds(BufferAllocator allocator) {
+    this.allocator = Preconditions.checkNotNull(allocator);
+  }
+
+  /**
+   * Join the build of a hash join. The first fragment to join builds the table, the others wait for it.
+   *
+   * @param operatorId local id of the join operator
+   * @param resource   resource of the fragment, blocked while the fragment waits for the build
+   * @return the handle of the fragment on the build, to close once the fragment is done probing
+   */
+  public synchronized SharedJoinBuild.Participant join(int operatorId, SharedResource resource) {
+    SharedJoinBuild build = builds.get(operatorId);
+    if (build == null) {
+      build = new SharedJoinBuild(this, operatorId,
+        allocator.newChildAllocator("shared-join-build:" + operatorId, 0, Long.MAX_VALUE));
+      builds.put(operatorId, build);
+    }
+    return build.join(resource);
+  }
+
+  /**
+   * Release a build, and close it if no fragment uses it anymore.
+   */
+  void release(SharedJoinBuild build) throws Exception {
+    final boolean last;
+    synchronized (this) {
+      last = build.release();
+      if (last) {
+        builds.remove(build.getOperatorId(), build);
+      }
+    }
+    if (last) {
+      build.close();
+    }
+  }
+
+  synchronized int size() {
+    return builds.size();
+  }
+}
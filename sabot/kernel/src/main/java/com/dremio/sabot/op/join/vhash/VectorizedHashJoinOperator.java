@@ -33,6 +33,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VarBinaryVector;
@@ -166,6 +167,10 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   private long outputRecords = 0;
   private int runtimeValFilterCap;
   private long duplicateBuildRecordCount;
+  // handle on the build shared with the other fragments of the node, null if this fragment builds its own table
+  private SharedJoinBuild.Participant sharedBuild;
+  // false once the build is handed over to the shared build, or if another fragment built it
+  private boolean ownsBuild = true;
 
   public VectorizedHashJoinOperator(OperatorContext context, HashJoinPOP popConfig) throws OutOfMemoryException {
     this.context = context;
@@ -178,6 +183,17 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     this.filterManager = new RuntimeFilterManager(context.getAllocator(), runtimeValFilterCap, allMinorFragments);
   }
 
+  /**
+   * Whether the fragments of the join running on the same node can share a single build of the table. The build side
+   * must be broadcast, so that all the fragments receive the same records, and the join must not output the build
+   * records that don't match, which would require the fragments to agree on the matches.
+   */
+  public static boolean canShareBuild(OperatorContext context, HashJoinPOP config) {
+    return config.isBroadcastBuild()
+      && (config.getJoinType() == JoinRelType.INNER || config.getJoinType() == JoinRelType.LEFT)
+      && context.getOptions().getOption(ExecConstants.ENABLE_SHARED_BROADCAST_JOIN_BUILD);
+  }
+
   @Override
   public State getState() {
     return state;
@@ -223,6 +239,14 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       mode = Mode.VECTORIZED_GENERIC;
     }
 
+    if (canShareBuild(context, config)) {
+      sharedBuild = context.joinSharedBuild(config.getProps().getLocalOperatorId());
+    }
+    if (sharedBuild != null) {
+      // only the generic table can be probed by several fragments at once
+      mode = Mode.VECTORIZED_GENERIC;
+    }
+
     boolean isEqualForNullKey = false;
     for(JoinCondition c : config.getConditions()){
       final FieldVector build = getField(right, c.getRight());
@@ -337,10 +361,15 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       case VECTORIZED_GENERIC:
         // Create the PivotDef for unpivot in projectBuildNonMatches
         this.buildUnpivot = PivotBuilder.getBlockDefinition(buildOutputFields);
+        if (sharedBuild != null && !sharedBuild.isBuilder()) {
+          // the table is built by another fragment, and attached once built
+          ownsBuild = false;
+          break;
+        }
         // Create the hyper container with isKeyBits that indicates which field is key and will not be added to hyper container
-        hyperContainer = new ExpandableHyperContainer(context.getAllocator(), right.getSchema(), isKeyBits);
+        hyperContainer = new ExpandableHyperContainer(getBuildAllocator(), right.getSchema(), isKeyBits);
         // Create generic hash table
-        this.table = new BlockJoinTable(buildPivot, probePivot, context.getAllocator(), comparator,
+        this.table = new BlockJoinTable(buildPivot, probePivot, getBuildAllocator(), comparator,
           (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), INITIAL_VAR_FIELD_AVERAGE_SIZE,
           context.getConfig(), context.getOptions());
         break;
@@ -354,6 +383,13 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     return outgoing;
   }
 
+  /**
+   * @return the allocator of the table, the build batches and the links
+   */
+  private BufferAllocator getBuildAllocator() {
+    return sharedBuild != null ? sharedBuild.getAllocator() : context.getAllocator();
+  }
+
   // Get ids for a field
   private int[] getFieldIds(VectorAccessible accessible, LogicalExpression expr){
     final LogicalExpression materialized = context.getClassProducer().materialize(expr, accessible);
@@ -378,6 +414,11 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   public void consumeDataRight(int records) throws Exception {
     state.is(State.CAN_CONSUME_R);
 
+    if (!ownsBuild) {
+      // another fragment of the node inserts the same records in the shared table
+      return;
+    }
+
     // ensure that none of the variable length vectors are corrupt so we can avoid doing bounds checking later.
     for(FieldVector v : buildVectorsToValidate){
       VariableLengthValidator.validateVariable(v, records);
@@ -403,7 +444,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
      * to the hyper vector container. Will be used when we want to retrieve
      * records that have matching keys on the probe side.
      */
-    hyperContainer.addBatch(VectorContainer.getTransferClone(right, context.getAllocator()));
+    hyperContainer.addBatch(VectorContainer.getTransferClone(right, getBuildAllocator()));
     // completed processing a batch, increment batch index
 
     buildBatchIndex++;
@@ -497,7 +538,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     final TimeUnit ns = TimeUnit.NANOSECONDS;
     final OperatorStats stats = context.getStats();
 
-    if(table != null){
+    if(table != null && ownsBuild){
       stats.setLongStat(Metric.NUM_ENTRIES, table.size());
       stats.setLongStat(Metric.NUM_BUCKETS,  table.capacity());
       stats.setLongStat(Metric.NUM_RESIZING, table.getRehashCount());
@@ -505,6 +546,8 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       stats.setLongStat(Metric.PIVOT_TIME_NANOS, table.getBuildPivotTime(ns));
       stats.setLongStat(Metric.INSERT_TIME_NANOS, table.getInsertTime(ns) - table.getRehashTime(ns));
       stats.setLongStat(Metric.HASHCOMPUTATION_TIME_NANOS, table.getBuildHashComputationTime(ns));
+    }
+    if(table != null){
       stats.setLongStat(Metric.RUNTIME_FILTER_DROP_COUNT, filterManager.getFilterDropCount());
       stats.setLongStat(Metric.RUNTIME_COL_FILTER_DROP_COUNT, filterManager.getSubFilterDropCount());
     }
@@ -512,6 +555,9 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     stats.setLongStat(Metric.VECTORIZED, mode.ordinal());
     stats.setLongStat(Metric.LINK_TIME_NANOS, linkWatch.elapsed(ns));
     stats.setLongStat(Metric.DUPLICATE_BUILD_RECORD_COUNT, duplicateBuildRecordCount);
+    if (sharedBuild != null) {
+      stats.setLongStat(Metric.SHARED_BUILD, sharedBuild.isBuilder() ? 1 : 2);
+    }
 
     if(probe != null){
       stats.setLongStat(Metric.PROBE_PIVOT_NANOS, table.getProbePivotTime(ns));
@@ -537,6 +583,11 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   public void noMoreToConsumeRight() throws Exception {
     state.is(State.CAN_CONSUME_R);
 
+    if (sharedBuild != null && !attachSharedBuild()) {
+      // called again once the fragment building the table is done
+      return;
+    }
+
     if ((table.size() == 0) && !(joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL)) {
       // nothing needs to be read on the left side as right side is empty
       state = State.DONE;
@@ -566,6 +617,41 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     state = State.CAN_CONSUME_L;
   }
 
+  /**
+   * Hand the table over to the shared build if this fragment built it, or attach the table built by another fragment.
+   *
+   * @return false if the table isn't built yet, in which case the fragment is blocked until it is
+   */
+  private boolean attachSharedBuild() {
+    if (ownsBuild) {
+      updateStats();
+      sharedBuild.built((BlockJoinTable) table, hyperContainer, buildInfoList, startIndices, maxHashTableIndex);
+      ownsBuild = false;
+      table = null;
+    }
+    if (table != null) {
+      return true;
+    }
+    if (!sharedBuild.isBuilt()) {
+      return false;
+    }
+
+    // the shared structures are only read from now on, the probe state is kept by each fragment
+    table = sharedBuild.getTable().newProbeView(context.getAllocator());
+    hyperContainer = sharedBuild.getHyperContainer();
+    buildInfoList.clear();
+    buildInfoList.addAll(sharedBuild.getBuildInfos());
+    startIndices.clear();
+    startIndices.addAll(sharedBuild.getStartIndices());
+    maxHashTableIndex = sharedBuild.getMaxHashTableIndex();
+    AutoCloseables.closeNoChecked(AutoCloseables.all(keyMatchBitVectors));
+    keyMatchBitVectors.clear();
+    for (int i = 0; i < startIndices.size(); i++) {
+      keyMatchBitVectors.add(new MatchBitSet(HashTable.BATCH_SIZE, context.getAllocator()));
+    }
+    return true;
+  }
+
   @Override
   public void consumeDataLeft(int records) throws Exception {
     state.is(State.CAN_CONSUME_L);
@@ -625,7 +711,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   public ArrowBuf newLinksBuffer(int recordCount) {
     // Each link is 6 bytes.
     // First 4 bytes are used to identify the batch and remaining 2 bytes for record within the batch.
-    final ArrowBuf linkBuf = context.getAllocator().buffer(recordCount * HashTable.BUILD_RECORD_LINK_SIZE);
+    final ArrowBuf linkBuf = getBuildAllocator().buffer(recordCount * HashTable.BUILD_RECORD_LINK_SIZE);
 
     // Initialize the buffer. Write -1 (int) in the first four bytes.
     long bufOffset = linkBuf.memoryAddress();
@@ -999,15 +1085,24 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     updateStats();
     List<AutoCloseable> autoCloseables = new ArrayList<>();
     autoCloseables.add(filterManager);
-    autoCloseables.add(hyperContainer);
+    if (ownsBuild) {
+      autoCloseables.add(hyperContainer);
+    }
+    // the table, or the probe view of the shared table
     autoCloseables.add(table);
     autoCloseables.add(probe);
     autoCloseables.add(outgoing);
-    autoCloseables.addAll(buildInfoList);
+    if (ownsBuild) {
+      autoCloseables.addAll(buildInfoList);
+    }
     autoCloseables.addAll(probeIncomingKeys);
     autoCloseables.addAll(buildOutputKeys);
-    autoCloseables.addAll(startIndices);
+    if (ownsBuild) {
+      autoCloseables.addAll(startIndices);
+    }
     autoCloseables.addAll(keyMatchBitVectors);
+    // last, as it may close the shared build
+    autoCloseables.add(sharedBuild);
     AutoCloseables.close(autoCloseables);
   }
 
@@ -82,6 +82,8 @@ public final class JoinSetupParams {
    */
   private final List<FieldVector> probeIncomingKeys;
   private final List<FieldVector> probeOutputs;
+  // All build side columns in output, in the order of the build schema (used when spilling in-memory build records)
+  private final List<FieldVector> buildOutputs;
 
   JoinSetupParams(OptionManager options,
                   SabotConfig sabotConfig,
@@ -101,7 +103,8 @@ public final class JoinSetupParams {
                   NullComparator comparator,
                   PivotDef probeKeyPivot,
                   List<FieldVector> probeIncomingKeys,
-                  List<FieldVector> probeOutputs) {
+                  List<FieldVector> probeOutputs,
+                  List<FieldVector> buildOutputs) {
 
     this.options = options;
     this.sabotConfig = sabotConfig;
@@ -122,6 +125,7 @@ public final class JoinSetupParams {
     this.probeKeyPivot = probeKeyPivot;
     this.probeIncomingKeys = probeIncomingKeys;
     this.probeOutputs = probeOutputs;
+    this.buildOutputs = buildOutputs;
   }
 
   public OptionManager getOptions() {
@@ -200,6 +204,10 @@ public final class JoinSetupParams {
     return probeOutputs;
   }
 
+  public List<FieldVector> getBuildOutputs() {
+    return buildOutputs;
+  }
+
   public int getMaxInputBatchSize() {
     return (int) options.getOption(ExecConstants.TARGET_BATCH_RECORDS_MAX);
   }
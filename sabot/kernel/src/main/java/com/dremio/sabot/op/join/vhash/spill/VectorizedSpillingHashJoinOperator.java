@@ -15,8 +15,11 @@
  */
 package com.dremio.sabot.op.join.vhash.spill;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -32,11 +35,14 @@ import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.util.ImmutableBitSet;
 
 import com.dremio.common.AutoCloseables;
+import com.dremio.common.exceptions.UserException;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ValueVectorReadExpression;
 import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.VectorAccessible;
@@ -56,13 +62,30 @@ import com.dremio.sabot.op.common.ht2.Pivots;
 import com.dremio.sabot.op.common.ht2.VariableBlockVector;
 import com.dremio.sabot.op.copier.CopierFactory;
 import com.dremio.sabot.op.join.JoinUtils;
+import com.dremio.sabot.op.join.hash.HashJoinOperator;
 import com.dremio.sabot.op.join.vhash.HashJoinStats.Metric;
 import com.dremio.sabot.op.join.vhash.spill.partition.MultiPartition;
 import com.dremio.sabot.op.join.vhash.spill.partition.Partition;
+import com.dremio.sabot.op.join.vhash.spill.partition.SpilledPartition;
+import com.dremio.sabot.op.sort.external.SpillCompression;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillInputStream;
 import com.dremio.sabot.op.spi.DualInputOperator;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 
+/**
+ * Hash join that spills to disk when the build side doesn't fit in memory (grace hash join).
+ *
+ * The incoming records are split into partitions. When a partition can't be grown in memory, its build records are
+ * written to disk, along with all the build and probe records that follow for the same partition. Once the incoming
+ * probe side is done, each spilled partition is joined by replaying its build records, followed by its probe records,
+ * in a new set of partitions (using a different hash seed). These may spill again, which is handled recursively.
+ *
+ * If re-partitioning doesn't reduce the number of build records (eg. a single hot key), or the max recursion depth is
+ * reached, the partition is joined in block nested loop mode instead : the build records are joined in blocks that
+ * fit in memory, each block being joined with all the probe records.
+ */
 public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedSpillingHashJoinOperator.class);
 
@@ -77,8 +100,23 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
   private final VectorContainer outgoing;
   private final int targetOutputBatchSize;
 
-  private Partition partition;
+  // partition of the incoming records, or of the records of the spilled partition being replayed.
+  private MultiPartition partition;
   private JoinSetupParams joinSetupParams;
+  private CopierFactory copierFactory;
+  private SpillManager spillManager;
+  // spilled partitions that are yet to be replayed, in the order of replay.
+  private final Deque<SpilledPartition> spilledPartitions = new ArrayDeque<>();
+  private Replay replay;
+  private PostProbePhase postProbePhase = PostProbePhase.NON_MATCHES;
+  private int replayCount;
+  private int maxReplayDepth;
+  private int maxSpillDepth;
+  private long spillCount;
+  private long spillBuildBytes;
+  private long spillProbeBytes;
+  private long maxPartitionSpillBytes;
+  private long blockNestedLoopPasses;
   private final Stopwatch pivotBuildWatch = Stopwatch.createUnstarted();
   private final Stopwatch pivotProbeWatch = Stopwatch.createUnstarted();
 
@@ -87,8 +125,18 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
   private boolean debugInsertion = false;
   private long outputRecords = 0;
   private int runtimeValFilterCap;
-  private FixedBlockVector pivotFixedBlock;
-  private VariableBlockVector pivotVarBlock;
+
+  /*
+   * Work that remains once the incoming probe side is done.
+   */
+  private enum PostProbePhase {
+    // output the unmatched build records of the current partition.
+    NON_MATCHES,
+    // pick the next spilled partition, and replay its build records.
+    NEXT_PARTITION,
+    // replay the probe records of the current spilled partition.
+    REPLAY_PROBE
+  }
 
   public VectorizedSpillingHashJoinOperator(OperatorContext context, HashJoinPOP popConfig) throws OutOfMemoryException {
     this.context = context;
@@ -116,6 +164,41 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
     outgoing.buildSchema(SelectionVectorMode.NONE);
     outgoing.setInitialCapacity(targetOutputBatchSize);
 
+    for(VectorWrapper<?> w : right){
+      final FieldVector v = (FieldVector) w.getValueVector();
+      if(v instanceof VarBinaryVector || v instanceof VarCharVector){
+        buildVectorsToValidate.add(v);
+      }
+    }
+
+    for(VectorWrapper<?> w : left){
+      final FieldVector v = (FieldVector) w.getValueVector();
+      if(v instanceof VarBinaryVector || v instanceof VarCharVector){
+        probeVectorsToValidate.add(v);
+      }
+    }
+    debugInsertion = context.getOptions().getOption(ExecConstants.DEBUG_HASHJOIN_INSERTION);
+    maxReplayDepth = (int) context.getOptions().getOption(HashJoinOperator.MAX_SPILL_RECURSION_DEPTH);
+
+    copierFactory = CopierFactory.getInstance(context.getConfig(), context.getOptions());
+    final FragmentHandle handle = context.getFragmentHandle();
+    final String spillId = String.format("joinspill-%s.%s.%s.%s", QueryIdHelper.getQueryId(handle.getQueryId()),
+      handle.getMajorFragmentId(), handle.getMinorFragmentId(), config.getProps().getLocalOperatorId());
+    spillManager = new SpillManager(context.getConfig(), context.getOptions(), spillId, null,
+      context.getSpillService(), "hash join spilling", context.getStats(), null,
+      SpillCompression.fromOption(context.getOptions().getOption(HashJoinOperator.SPILL_COMPRESSION)));
+
+    joinSetupParams = createSetupParams(left, right);
+    partition = new MultiPartition(joinSetupParams, copierFactory, spillManager, "s0", 0, false);
+    state = State.CAN_CONSUME_R;
+    return outgoing;
+  }
+
+  /*
+   * Create the setup params for joining the given build & probe batches (either the incoming batches, or the batches
+   * replayed from a spilled partition). The output is always to the outgoing container.
+   */
+  private JoinSetupParams createSetupParams(VectorAccessible left, VectorAccessible right) {
     final List<FieldVectorPair> buildFields = new ArrayList<>();
     final List<FieldVectorPair> probeFields = new ArrayList<>();
     /* The build side key fields in output, the pivoted keys will be unpivoted to the vectors of key fields for non matched records
@@ -170,28 +253,16 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
       fieldIndex++;
     }
 
-    for(VectorWrapper<?> w : right){
-      final FieldVector v = (FieldVector) w.getValueVector();
-      if(v instanceof VarBinaryVector || v instanceof VarCharVector){
-        buildVectorsToValidate.add(v);
-      }
-    }
-
-    for(VectorWrapper<?> w : left){
-      final FieldVector v = (FieldVector) w.getValueVector();
-      if(v instanceof VarBinaryVector || v instanceof VarCharVector){
-        probeVectorsToValidate.add(v);
-      }
-    }
-
     int i = 0;
     final List<FieldVector> probeOutputs = new ArrayList<>();
     final List<FieldVector> probeIncomingKeys = new ArrayList<>();
     final List<FieldVector> buildOutputKeys = new ArrayList<>();
     final List<FieldVector> buildOutputCarryOvers = new ArrayList<>();
+    final List<FieldVector> buildOutputs = new ArrayList<>();
     for(VectorWrapper<?> w : outgoing){
       final FieldVector v = (FieldVector) w.getValueVector();
       if(i < right.getSchema().getFieldCount()){
+        buildOutputs.add(v);
         if (isKeyBits.get(i)) {
           /* The corresponding field is key, so the fields in build side and probe side will
            * be added to probeIncomingKeys and buildOutputKeys. They will be used to create
@@ -232,15 +303,14 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
       buildOutputCarryOvers.stream()
         .map(ValueVector::getField)
         .collect(Collectors.toList()));
-    debugInsertion = context.getOptions().getOption(ExecConstants.DEBUG_HASHJOIN_INSERTION);
 
     final BufferAllocator allocator = context.getAllocator();
-    pivotFixedBlock = new FixedBlockVector(allocator, buildKeyPivot.getBlockWidth());
-    pivotVarBlock = new VariableBlockVector(allocator, buildKeyPivot.getVariableCount());
+    final FixedBlockVector pivotFixedBlock = new FixedBlockVector(allocator, buildKeyPivot.getBlockWidth());
+    final VariableBlockVector pivotVarBlock = new VariableBlockVector(allocator, buildKeyPivot.getVariableCount());
 
     BufferAllocator buildAllocator = context.getAllocator().newChildAllocator("join_build", 0 /*reservation*/,
       Long.MAX_VALUE);
-    joinSetupParams = new JoinSetupParams(
+    return new JoinSetupParams(
       context.getOptions(),
       context.getConfig(),
       context.getAllocator(),
@@ -259,10 +329,8 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
       comparator,
       probePivot,
       probeIncomingKeys,
-      probeOutputs);
-    partition = new MultiPartition(joinSetupParams, CopierFactory.getInstance(context.getConfig(), context.getOptions()));
-    state = State.CAN_CONSUME_R;
-    return outgoing;
+      probeOutputs,
+      buildOutputs);
   }
 
   // Get ids for a field
@@ -294,12 +362,7 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
       VariableLengthValidator.validateVariable(v, records);
     }
 
-    pivotBuildWatch.start();
-    pivotFixedBlock.reset();
-    pivotVarBlock.reset();
-    Pivots.pivot(joinSetupParams.getBuildKeyPivot(), records, pivotFixedBlock, pivotVarBlock);
-    pivotBuildWatch.stop();
-
+    pivotBuild(joinSetupParams, records);
     consumePivotedDataRight(records);
     updateStats();
   }
@@ -308,12 +371,27 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
     partition.buildPivoted(records);
   }
 
+  private void pivotBuild(JoinSetupParams params, int records) {
+    pivotBuildWatch.start();
+    params.getPivotedFixedBlock().reset();
+    params.getPivotedVariableBlock().reset();
+    Pivots.pivot(params.getBuildKeyPivot(), records, params.getPivotedFixedBlock(), params.getPivotedVariableBlock());
+    pivotBuildWatch.stop();
+  }
+
+  private void pivotProbe(JoinSetupParams params, int records) {
+    pivotProbeWatch.start();
+    params.getPivotedFixedBlock().reset();
+    params.getPivotedVariableBlock().reset();
+    Pivots.pivot(params.getProbeKeyPivot(), records, params.getPivotedFixedBlock(), params.getPivotedVariableBlock());
+    pivotProbeWatch.stop();
+  }
+
   @Override
   public void noMoreToConsumeRight() throws Exception {
     state.is(State.CAN_CONSUME_R);
 
-    if (partition.isBuildSideEmpty() &&
-      !(joinSetupParams.getJoinType() == JoinRelType.LEFT || joinSetupParams.getJoinType() == JoinRelType.FULL)) {
+    if (partition.isBuildSideEmpty() && !projectUnmatchedProbe()) {
       // nothing needs to be read on the left side as right side is empty
       state = State.DONE;
       return;
@@ -331,12 +409,7 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
       VariableLengthValidator.validateVariable(v, records);
     }
 
-    pivotProbeWatch.start();
-    pivotFixedBlock.reset();
-    pivotVarBlock.reset();
-    Pivots.pivot(joinSetupParams.getProbeKeyPivot(), records, pivotFixedBlock, pivotVarBlock);
-    pivotProbeWatch.stop();
-
+    pivotProbe(joinSetupParams, records);
     state = State.CAN_PRODUCE;
   }
 
@@ -358,25 +431,161 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
         return outgoing.setAllCount(-probedRecords);
       }
     } else {
-      final int unmatched = partition.projectBuildNonMatches(0, targetOutputBatchSize - 1);
-      outputRecords += Math.abs(unmatched);
-      if (unmatched > -1) {
-        state = State.DONE;
-        return outgoing.setAllCount(unmatched);
-      } else {
-        // remainder, need to output again.
-        return outgoing.setAllCount(-unmatched);
+      return outgoing.setAllCount(outputPostProbe());
+    }
+  }
+
+  /*
+   * Produce the output that follows the incoming probe side : the unmatched build records of each partition, and the
+   * results of replaying the spilled partitions.
+   *
+   * Returns as soon as some records are written to the output, since replaying the build records of the next spilled
+   * partition may re-use the output vectors (when spilling again).
+   *
+   * @return number of records written to output.
+   */
+  private int outputPostProbe() throws Exception {
+    while (true) {
+      switch (postProbePhase) {
+        case NON_MATCHES: {
+          if (!projectUnmatchedBuild()) {
+            postProbePhase = PostProbePhase.NEXT_PARTITION;
+            break;
+          }
+          final int unmatched = partition.projectBuildNonMatches(0, targetOutputBatchSize - 1);
+          outputRecords += Math.abs(unmatched);
+          if (unmatched > -1) {
+            postProbePhase = PostProbePhase.NEXT_PARTITION;
+          }
+          if (unmatched != 0) {
+            return Math.abs(unmatched);
+          }
+          break;
+        }
+
+        case NEXT_PARTITION:
+          if (!startNextReplay()) {
+            state = State.DONE;
+            return 0;
+          }
+          postProbePhase = PostProbePhase.REPLAY_PROBE;
+          break;
+
+        case REPLAY_PROBE: {
+          if (!replay.probeBatchLoaded) {
+            if (!replay.loadNextProbeBatch()) {
+              postProbePhase = PostProbePhase.NON_MATCHES;
+              break;
+            }
+            pivotProbe(replay.setupParams, replay.left.getRecordCount());
+          }
+          final int probedRecords = partition.probePivoted(replay.left.getRecordCount(), 0, targetOutputBatchSize - 1);
+          outputRecords += Math.abs(probedRecords);
+          if (probedRecords > -1) {
+            replay.probeBatchLoaded = false;
+          }
+          if (probedRecords != 0) {
+            return Math.abs(probedRecords);
+          }
+          break;
+        }
+
+        default:
+          throw new IllegalStateException("unexpected phase " + postProbePhase);
       }
     }
   }
 
+  /*
+   * Collect the spilled partitions of the current partition, and start replaying the next spilled partition.
+   *
+   * @return false if there are no more partitions to replay.
+   */
+  private boolean startNextReplay() throws Exception {
+    final SpilledPartition replayed = replay == null ? null : replay.spilled;
+    final List<SpilledPartition> children = partition.finishSpilledPartitions();
+    long childrenBuildRecords = 0;
+    // add to the front of the queue (in the same order), so that the deeper levels are replayed first.
+    for (int i = children.size() - 1; i >= 0; --i) {
+      SpilledPartition child = children.get(i);
+      logger.debug("spilled partition {}", child);
+      ++spillCount;
+      spillBuildBytes += child.getBuildBytes();
+      spillProbeBytes += child.getProbeBytes();
+      maxPartitionSpillBytes = Math.max(maxPartitionSpillBytes, child.getBuildBytes() + child.getProbeBytes());
+      childrenBuildRecords += child.getBuildRecords();
+
+      if (replayed != null && !child.isBlockMode() && child.getBuildRecords() >= replayed.getBuildRecords()) {
+        // re-partitioning didn't split the build records (eg. a single hot key), join them in blocks instead.
+        child = child.toBlockMode();
+      }
+      spilledPartitions.addFirst(child);
+    }
+
+    if (replayed != null && replayed.isBlockMode() && !children.isEmpty() &&
+      childrenBuildRecords >= replayed.getBuildRecords()) {
+      throw UserException.memoryError()
+        .message("Query was cancelled because there isn't enough memory to hold a block of build records of a " +
+          "spilled hash join partition.")
+        .addContext("partition", replayed.toString())
+        .build(logger);
+    }
+
+    // release the current partition, and the records it was replayed from.
+    final AutoCloseable current = partition;
+    final AutoCloseable currentReplay = replay;
+    partition = null;
+    replay = null;
+    AutoCloseables.close(current, currentReplay);
+
+    while (!spilledPartitions.isEmpty()) {
+      final SpilledPartition next = spilledPartitions.pollFirst();
+      if (!needsReplay(next)) {
+        next.close();
+        continue;
+      }
+
+      final boolean blockMode = next.isBlockMode() || next.getDepth() > maxReplayDepth;
+      logger.debug("replaying partition {}{}", next, blockMode ? " in block nested loop mode" : "");
+      maxSpillDepth = Math.max(maxSpillDepth, next.getDepth());
+      if (blockMode) {
+        ++blockNestedLoopPasses;
+      }
+
+      replay = new Replay(next);
+      partition = new MultiPartition(replay.setupParams, copierFactory, spillManager, "s" + (++replayCount),
+        next.getDepth(), blockMode);
+      replay.build();
+      return true;
+    }
+    return false;
+  }
+
+  /*
+   * A spilled partition produces output only if the records on one side can match records on the other side, or if
+   * the unmatched records need to be projected.
+   */
+  private boolean needsReplay(SpilledPartition spilled) {
+    final boolean hasBuild = spilled.getBuildRecords() > 0;
+    final boolean hasProbe = spilled.getProbeRecords() > 0;
+    return (hasBuild || hasProbe) && (hasBuild || projectUnmatchedProbe()) && (hasProbe || projectUnmatchedBuild());
+  }
+
+  private boolean projectUnmatchedBuild() {
+    return config.getJoinType() == JoinRelType.FULL || config.getJoinType() == JoinRelType.RIGHT;
+  }
+
+  private boolean projectUnmatchedProbe() {
+    return config.getJoinType() == JoinRelType.FULL || config.getJoinType() == JoinRelType.LEFT;
+  }
+
   @Override
   public void noMoreToConsumeLeft() throws Exception {
     state.is(State.CAN_CONSUME_L);
 
     finishedProbe = true;
-    if (joinSetupParams.getJoinType() == JoinRelType.FULL || joinSetupParams.getJoinType() == JoinRelType.RIGHT){
-      // if we need to project build records that didn't match, make sure we do so.
+    if (projectUnmatchedBuild() || partition.hasSpilledPartitions()) {
+      // if we need to project build records that didn't match, or replay spilled partitions, make sure we do so.
       state = State.CAN_PRODUCE;
     } else {
       state = State.DONE;
@@ -388,7 +597,8 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
     final TimeUnit ns = TimeUnit.NANOSECONDS;
 
     Partition.Stats partitionStats = null;
-    if (partition != null) {
+    if (partition != null && replay == null) {
+      // only the partition of the incoming records is reported, the replayed partitions are covered by spill stats.
       partitionStats = partition.getStats();
     }
     if (partitionStats != null) {
@@ -413,7 +623,21 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
       stats.setLongStat(Metric.PROBE_HASHCOMPUTATION_TIME_NANOS, partitionStats.getProbeHashComputationTime());
       stats.setLongStat(Metric.PROBE_COPY_NANOS, partitionStats.getProbeCopyNanos());
       stats.setLongStat(Metric.UNMATCHED_PROBE_COUNT, partitionStats.getProbeUnmatchedKeyCount());
-      stats.setLongStat(Metric.OUTPUT_RECORDS, outputRecords);
+    }
+    stats.setLongStat(Metric.OUTPUT_RECORDS, outputRecords);
+
+    stats.setLongStat(Metric.SPILL_COUNT, spillCount);
+    stats.setLongStat(Metric.SPILL_BUILD_BYTES, spillBuildBytes);
+    stats.setLongStat(Metric.SPILL_PROBE_BYTES, spillProbeBytes);
+    stats.setLongStat(Metric.MAX_PARTITION_SPILL_BYTES, maxPartitionSpillBytes);
+    stats.setLongStat(Metric.SPILL_RECURSION_DEPTH, maxSpillDepth);
+    stats.setLongStat(Metric.SPILL_BLOCK_NESTED_LOOP_PASSES, blockNestedLoopPasses);
+    if (spillManager != null) {
+      stats.setLongStat(Metric.SPILL_READ_BYTES, spillManager.getAppReadBytes());
+      stats.setLongStat(Metric.SPILL_IO_BYTES_WRITTEN, spillManager.getIOWriteBytes());
+      stats.setLongStat(Metric.SPILL_COMPRESSION_NANOS, spillManager.getCompressionNanos());
+      stats.setLongStat(Metric.SPILL_DECOMPRESSION_NANOS, spillManager.getDecompressionNanos());
+      stats.setLongStat(Metric.SPILL_UNCOMPRESSED_BLOCKS, spillManager.getUncompressedBlocks());
     }
   }
 
@@ -429,6 +653,7 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
     autoCloseables.add(filterManager);
     autoCloseables.add(outgoing);
     autoCloseables.add(partition);
+    autoCloseables.add(replay);
     if (joinSetupParams != null) {
       autoCloseables.add(joinSetupParams.getPivotedFixedBlock());
       autoCloseables.add(joinSetupParams.getPivotedVariableBlock());
@@ -436,6 +661,87 @@ public class VectorizedSpillingHashJoinOperator implements DualInputOperator {
       autoCloseables.addAll(joinSetupParams.getBuildOutputKeys());
       autoCloseables.add(joinSetupParams.getBuildAllocator());
     }
+    autoCloseables.addAll(spilledPartitions);
+    autoCloseables.add(spillManager);
     AutoCloseables.close(autoCloseables);
   }
+
+  /*
+   * Replay of a spilled partition : all the build records are inserted up-front, and the probe records are read
+   * one batch at a time.
+   */
+  private final class Replay implements AutoCloseable {
+    private final SpilledPartition spilled;
+    private final VectorContainer right;
+    private final VectorContainer left;
+    private final JoinSetupParams setupParams;
+    private SpillInputStream probeInput;
+    private int probeBatchesRead;
+    private boolean probeBatchLoaded;
+
+    Replay(SpilledPartition spilled) throws Exception {
+      this.spilled = spilled;
+      try (AutoCloseables.RollbackCloseable rc = new AutoCloseables.RollbackCloseable()) {
+        rc.add(spilled);
+        right = rc.add(VectorContainer.create(context.getAllocator(), joinSetupParams.getRight().getSchema()));
+        left = rc.add(VectorContainer.create(context.getAllocator(), joinSetupParams.getLeft().getSchema()));
+        setupParams = createSetupParams(left, right);
+        rc.add(setupParams.getPivotedFixedBlock());
+        rc.add(setupParams.getPivotedVariableBlock());
+        rc.add(setupParams.getBuildAllocator());
+        rc.commit();
+      }
+    }
+
+    /*
+     * Insert all the build records in the partition (which may spill again).
+     */
+    void build() throws Exception {
+      if (spilled.getBuildBatches() == 0) {
+        return;
+      }
+      try (SpillInputStream input = spilled.getBuildFile().open(true)) {
+        for (int i = 0; i < spilled.getBuildBatches(); ++i) {
+          right.zeroVectors();
+          input.load(right, context.getAllocator());
+          pivotBuild(setupParams, right.getRecordCount());
+          partition.buildPivoted(right.getRecordCount());
+        }
+      } finally {
+        // the records have been copied to the partition.
+        right.zeroVectors();
+      }
+    }
+
+    /*
+     * Read the next batch of probe records.
+     *
+     * @return false if all the probe records have been read.
+     */
+    boolean loadNextProbeBatch() throws IOException {
+      if (probeBatchesRead == spilled.getProbeBatches()) {
+        if (probeInput != null) {
+          probeInput.close();
+          probeInput = null;
+        }
+        left.zeroVectors();
+        return false;
+      }
+
+      if (probeInput == null) {
+        probeInput = spilled.getProbeFile().open(true);
+      }
+      left.zeroVectors();
+      probeInput.load(left, context.getAllocator());
+      ++probeBatchesRead;
+      probeBatchLoaded = true;
+      return true;
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(probeInput, left, right, setupParams.getPivotedFixedBlock(),
+        setupParams.getPivotedVariableBlock(), setupParams.getBuildAllocator(), spilled);
+    }
+  }
 }
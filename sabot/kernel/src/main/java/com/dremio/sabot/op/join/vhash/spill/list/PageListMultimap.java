@@ -280,6 +280,17 @@ public class PageListMultimap implements AutoCloseable {
     logger.trace("insert key {} index {} next {}", key, listIndex, oldHead);
   }
 
+  /**
+   * Allocate the pages needed to insert a collection of items, so that the following
+   * insertCollection() doesn't need to allocate any memory.
+   * @param numRecords The number of records that will be inserted
+   * @param maxKeyValue The maximum value of the key
+   */
+  public void reserve(int numRecords, int maxKeyValue) {
+    Preconditions.checkArgument(state == State.BUILD);
+    expandIfNecessary(numRecords, maxKeyValue);
+  }
+
   /**
    * Insert a collection of items for a given batchId.
    * @param keysAddress Address to a collection of four byte keys
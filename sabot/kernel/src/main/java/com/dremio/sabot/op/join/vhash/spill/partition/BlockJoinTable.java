@@ -47,7 +47,8 @@ public class BlockJoinTable implements JoinTable {
     this.table = HashTable.getInstance(sabotConfig,
       optionManager.getOption(ExecConstants.ENABLE_NATIVE_HASHTABLE_FOR_JOIN),
       new HashTable.HashTableCreateArgs(HashConfig.getDefault(), buildPivot, allocator, minSize,
-        varFieldAverageSize, false, MAX_VALUES_PER_BATCH, nullMask));
+        varFieldAverageSize, false, MAX_VALUES_PER_BATCH, nullMask,
+        (int) optionManager.getOption(ExecConstants.HASHTABLE_PROBE_GROUP_SIZE)));
     this.tableTracing = false;
   }
 
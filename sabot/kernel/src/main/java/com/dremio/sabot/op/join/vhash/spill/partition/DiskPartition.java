@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash.spill.partition;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.copier.CopierFactory;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.dremio.sabot.op.join.vhash.spill.JoinSetupParams;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillOutputStream;
+import com.google.common.base.Preconditions;
+
+/**
+ * Implementation of partition where both the build and the probe records are written to disk, to be joined
+ * later by replaying them (see {@link SpilledPartition}).
+ */
+class DiskPartition implements Partition {
+  private final JoinSetupParams setupParams;
+  private final CopierFactory copierFactory;
+  private final String name;
+  private final long sv2Addr;
+  private final int replayDepth;
+  private final boolean replayInBlockMode;
+  private final SpillWriter buildWriter;
+  private final SpillWriter probeWriter;
+
+  private VectorContainer buildOutputs;
+  private SelectedRecordsWriter buildSelected;
+  private SelectedRecordsWriter probeSelected;
+  private boolean finished;
+
+  DiskPartition(JoinSetupParams setupParams, CopierFactory copierFactory, SpillManager spillManager, String name,
+                long sv2Addr, int replayDepth, boolean replayInBlockMode) {
+    this.setupParams = setupParams;
+    this.copierFactory = copierFactory;
+    this.name = name;
+    this.sv2Addr = sv2Addr;
+    this.replayDepth = replayDepth;
+    this.replayInBlockMode = replayInBlockMode;
+    this.buildWriter = new SpillWriter(spillManager.getSpillFile(name + "-build"));
+    this.probeWriter = new SpillWriter(spillManager.getSpillFile(name + "-probe"));
+  }
+
+  /**
+   * Write the build records that were projected in the build side of the output batch. Used to move the
+   * records of an in-memory partition to disk.
+   *
+   * @param records number of records in output.
+   */
+  void spillBuildOutput(int records) throws IOException {
+    if (buildOutputs == null) {
+      // view on the build side vectors of the output batch, not closed since it doesn't own the vectors.
+      buildOutputs = new VectorContainer();
+      for (FieldVector vector : setupParams.getBuildOutputs()) {
+        buildOutputs.add(vector);
+      }
+      buildOutputs.buildSchema();
+    }
+    buildOutputs.setAllCount(records);
+    buildWriter.write(buildOutputs);
+  }
+
+  @Override
+  public void hashPivoted(int records, long keyFixedVectorAddr, long keyVarVectorAddr, long seed, long hashoutAddr8B) {
+    throw new UnsupportedOperationException("hash computation is not done in this partition implementation");
+  }
+
+  @Override
+  public void buildPivoted(int records) throws Exception {
+    Preconditions.checkState(!finished);
+    if (buildSelected == null) {
+      buildSelected = new SelectedRecordsWriter(setupParams.getRight(), buildWriter);
+    }
+    buildSelected.write(records);
+  }
+
+  @Override
+  public boolean isBuildSideEmpty() {
+    return buildWriter.records == 0;
+  }
+
+  @Override
+  public int probePivoted(int records, int startOutputIndex, int maxOutputIndex) throws Exception {
+    Preconditions.checkState(!finished);
+    if (probeSelected == null) {
+      probeSelected = new SelectedRecordsWriter(setupParams.getLeft(), probeWriter);
+    }
+    probeSelected.write(records);
+    // nothing is output till the partition is replayed.
+    return 0;
+  }
+
+  @Override
+  public int projectBuildNonMatches(int startOutputIndex, int maxOutputIndex) throws Exception {
+    // the unmatched build records are output when the partition is replayed.
+    return 0;
+  }
+
+  /**
+   * Complete the spill files, and transfer their ownership to the returned spilled partition.
+   */
+  SpilledPartition finish() throws IOException {
+    Preconditions.checkState(!finished);
+    buildWriter.finish();
+    probeWriter.finish();
+    finished = true;
+    return new SpilledPartition(name, replayDepth, replayInBlockMode,
+      buildWriter.file, buildWriter.batches, buildWriter.records, buildWriter.bytes,
+      probeWriter.file, probeWriter.batches, probeWriter.records, probeWriter.bytes);
+  }
+
+  @Override
+  public Stats getStats() {
+    return new Stats() {
+      @Override
+      public long getBuildNumEntries() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildNumBuckets() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildNumResizing() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildResizingTimeNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildPivotTimeNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildHashComputationTimeNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildInsertTimeNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildLinkTimeNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildKeyCopyNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildCarryOverCopyNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildUnmatchedKeyCount() {
+        return 0;
+      }
+
+      @Override
+      public long getBuildCopyNonMatchNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getProbePivotTimeNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getProbeHashComputationTime() {
+        return 0;
+      }
+
+      @Override
+      public long getProbeFindTimeNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getProbeListTimeNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getProbeCopyNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getProbeUnmatchedKeyCount() {
+        return 0;
+      }
+    };
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (finished) {
+      // the spill files are owned by the spilled partition.
+      AutoCloseables.close(buildSelected, probeSelected);
+    } else {
+      AutoCloseables.close(buildSelected, probeSelected, buildWriter, probeWriter);
+    }
+  }
+
+  /**
+   * Copies the records selected by the partition sv2 from an incoming batch, and writes them to a spill file.
+   */
+  private final class SelectedRecordsWriter implements AutoCloseable {
+    private final VectorContainer container;
+    private final List<FieldBufferCopier> copiers;
+    private final SpillWriter writer;
+
+    SelectedRecordsWriter(VectorAccessible incoming, SpillWriter writer) {
+      this.container = VectorContainer.create(setupParams.getOpAllocator(), incoming.getSchema());
+      this.copiers = copierFactory.getTwoByteCopiers(VectorContainer.getFieldVectors(incoming),
+        VectorContainer.getFieldVectors(container));
+      this.writer = writer;
+    }
+
+    void write(int records) throws IOException {
+      for (FieldBufferCopier copier : copiers) {
+        copier.copy(sv2Addr, records);
+      }
+      container.setAllCount(records);
+      try {
+        writer.write(container);
+      } finally {
+        // release the memory till the next batch.
+        container.zeroVectors();
+      }
+    }
+
+    @Override
+    public void close() {
+      container.close();
+    }
+  }
+
+  /**
+   * Writes batches to a spill file, and tracks the number of batches written.
+   */
+  private static final class SpillWriter implements AutoCloseable {
+    private final SpillFile file;
+    private SpillOutputStream output;
+    private int batches;
+    private long records;
+    private long bytes;
+
+    SpillWriter(SpillFile file) {
+      this.file = file;
+    }
+
+    void write(VectorContainer container) throws IOException {
+      if (output == null) {
+        output = file.create(true);
+      }
+      bytes += output.writeBatch(container);
+      records += container.getRecordCount();
+      ++batches;
+    }
+
+    void finish() throws IOException {
+      if (output != null) {
+        output.close();
+        output = null;
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(output, file);
+    }
+  }
+}
@@ -36,6 +36,7 @@ import com.dremio.sabot.op.join.vhash.spill.JoinSetupParams;
 import com.dremio.sabot.op.join.vhash.spill.list.PageListMultimap;
 import com.dremio.sabot.op.join.vhash.spill.pool.PagePool;
 import com.dremio.sabot.op.join.vhash.spill.slicer.PageBatchSlicer;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 
 /**
@@ -60,6 +61,7 @@ class MemoryPartition implements Partition {
   private final ArrowBuf hashTableOrdinals4B;
   private VectorizedProbe probe = null;
   private int buildBatchIndex = 0;
+  private long buildRecords = 0;
 
   MemoryPartition(JoinSetupParams setupParams, CopierFactory copierFactory, int partitionIdx, long sv2Addr, long tableHashAddr4B)  {
     this.setupParams = setupParams;
@@ -110,6 +112,16 @@ class MemoryPartition implements Partition {
     if (batchPages == null) {
       throw new OutOfMemoryException("unable to add batch");
     }
+
+    /* Allocate the pages for the links up-front, so that a failure to allocate leaves the partition unchanged (the
+     * keys already inserted in the table have no linked record) and the batch can be retried, or spilled.
+     */
+    try {
+      linkedList.reserve(records, table.size() - 1);
+    } catch (OutOfMemoryException ex) {
+      AutoCloseables.close(ex, batchPages);
+      throw ex;
+    }
     slicedBatches.addAll(batchPages);
 
     // For each batch, add to the hyper container and update the linked list.
@@ -137,6 +149,39 @@ class MemoryPartition implements Partition {
           .build(logger);
       }
     }
+    buildRecords += records;
+  }
+
+  /**
+   * Write all the build records of this partition to a disk partition. Must be done before any probe.
+   *
+   * @param disk partition to write the records to
+   */
+  void spillBuild(DiskPartition disk) throws Exception {
+    Preconditions.checkState(probe == null, "partition can't be spilled once probed");
+    if (buildRecords == 0) {
+      return;
+    }
+
+    // none of the build records has been visited yet, so all of them are output as non-matches.
+    probe = new VectorizedProbe(setupParams, copierFactory, sv2Addr, tableHashAddr4B, table, linkedList,
+      hyperContainer, true);
+    final int maxOutputIndex = setupParams.getMaxInputBatchSize() - 1;
+    int ret;
+    do {
+      ret = probe.projectBuildNonMatches(0, maxOutputIndex);
+      if (ret != 0) {
+        disk.spillBuildOutput(Math.abs(ret));
+      }
+    } while (ret < 0);
+  }
+
+  long getBuildRecords() {
+    return buildRecords;
+  }
+
+  long getAllocatedMemory() {
+    return allocator.getAllocatedMemory();
   }
 
   @Override
@@ -17,6 +17,7 @@ package com.dremio.sabot.op.join.vhash.spill.partition;
 
 import static com.dremio.sabot.op.join.vhash.spill.JoinSetupParams.TABLE_HASH_SIZE;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -24,16 +25,22 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.calcite.rel.core.JoinRelType;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.AutoCloseables.RollbackCloseable;
 import com.dremio.exec.record.selection.SelectionVector2;
+import com.dremio.sabot.op.common.ht2.BlockChunk;
+import com.dremio.sabot.op.common.ht2.HashComputation;
+import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.copier.CopierFactory;
 import com.dremio.sabot.op.join.hash.HashJoinOperator;
 import com.dremio.sabot.op.join.vhash.spill.JoinSetupParams;
 import com.dremio.sabot.op.join.vhash.spill.SV2UnsignedUtil;
 import com.dremio.sabot.op.join.vhash.spill.pool.Page;
 import com.dremio.sabot.op.join.vhash.spill.pool.PagePool;
+import com.dremio.sabot.op.sort.external.SpillManager;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 
@@ -41,6 +48,11 @@ import io.netty.util.internal.PlatformDependent;
 
 /**
  * Partition impl that acts as a bridge to multiple child partitions.
+ *
+ * If a spill manager is provided, a child partition that can't be grown in memory is spilled to disk : its build
+ * records are moved to a {@link DiskPartition}, along with all the records that follow for the same partition.
+ * In block mode, the build records already in memory are kept and only the records that follow are spilled (see
+ * {@link OverflowPartition}).
  */
 public class MultiPartition implements Partition {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(MultiPartition.class);
@@ -50,8 +62,16 @@ public class MultiPartition implements Partition {
   private final int partitionMask;
 
   private final JoinSetupParams setupParams;
+  private final CopierFactory copierFactory;
   private final PagePool pool;
-  private final long hashGenerationSeed = 0; //new Random().nextLong();
+  private final long hashGenerationSeed;
+  private final SpillManager spillManager;
+  private final String spillPrefix;
+  private final int depth;
+  private final boolean blockMode;
+  private final long testSpillPartitionRecords;
+  // reserved while building, and released to have enough memory to spill a partition.
+  private Page spillReservePage;
   private final List<Page> preAllocedPages = new ArrayList<>();
   private final ArrowBuf fullHashValues8B;
   private final ArrowBuf tableHashValues4B;
@@ -65,7 +85,29 @@ public class MultiPartition implements Partition {
   private final Stopwatch probeHashComputationWatch = Stopwatch.createUnstarted();
 
   public MultiPartition(JoinSetupParams setupParams, CopierFactory copierFactory) {
+    this(setupParams, copierFactory, null, null, 0, false);
+  }
+
+  /**
+   * @param setupParams join setup params
+   * @param copierFactory copier factory
+   * @param spillManager used to spill child partitions, or null if spilling is disabled
+   * @param spillPrefix prefix for the names of spill files
+   * @param depth recursion depth : 0 for the incoming records, n for the records replayed from a partition spilled
+   *              at depth n - 1
+   * @param blockMode if set, the child partitions are not spilled but overflow to disk (block nested loop)
+   */
+  public MultiPartition(JoinSetupParams setupParams, CopierFactory copierFactory, SpillManager spillManager,
+                        String spillPrefix, int depth, boolean blockMode) {
     this.setupParams = setupParams;
+    this.copierFactory = copierFactory;
+    this.spillManager = spillManager;
+    this.spillPrefix = spillPrefix;
+    this.depth = depth;
+    this.blockMode = blockMode;
+    // use a different seed at each level, so that the records of a spilled partition are split when re-partitioned.
+    this.hashGenerationSeed = depth * 0x9E3779B97F4A7C15L;
+    this.testSpillPartitionRecords = setupParams.getOptions().getOption(HashJoinOperator.TEST_SPILL_PARTITION_RECORDS);
 
     numPartitions = (int)setupParams.getOptions().getOption(HashJoinOperator.NUM_PARTITIONS);
     partitionMask = numPartitions - 1;
@@ -90,6 +132,9 @@ public class MultiPartition implements Partition {
         throw new RuntimeException(ex);
       }
     }
+    if (spillManager != null) {
+      spillReservePage = pool.newPage();
+    }
   }
 
   // Allocate sliced buffer from a page.
@@ -120,8 +165,10 @@ public class MultiPartition implements Partition {
 
   @Override
   public void hashPivoted(int records, long keyFixedVectorAddr, long keyVarVectorAddr, long seed, long hashoutAddr8B) {
-    Preconditions.checkArgument(numPartitions > 0);
-    childWrappers[0].getPartition().hashPivoted(records, keyFixedVectorAddr, keyVarVectorAddr, seed, hashoutAddr8B);
+    // computed here rather than by a child partition, since the child partitions may have been moved to disk.
+    final PivotDef pivot = setupParams.getBuildKeyPivot();
+    HashComputation.computeHash(new BlockChunk(keyFixedVectorAddr, keyVarVectorAddr, pivot.getVariableCount() == 0,
+      pivot.getBlockWidth(), records, hashoutAddr8B, seed));
   }
 
   @Override
@@ -135,12 +182,140 @@ public class MultiPartition implements Partition {
     for (int i = 0; i < numPartitions; ++i) {
       PartitionWrapper child = childWrappers[i];
       if (child.getNumRecords() > 0) {
-        child.getPartition().buildPivoted(child.getNumRecords());
+        buildChildPartition(i);
         logger.trace("partition {} : inserted {} records", i, child.getNumRecords());
       }
     }
   }
 
+  private void buildChildPartition(int partitionIdx) throws Exception {
+    final PartitionWrapper child = childWrappers[partitionIdx];
+    while (true) {
+      if (exceedsTestSpillLimit(child.getPartition(), child.getNumRecords())) {
+        handleBuildFailure(partitionIdx, null);
+        continue;
+      }
+
+      try {
+        child.getPartition().buildPivoted(child.getNumRecords());
+        return;
+      } catch (OutOfMemoryException ex) {
+        handleBuildFailure(partitionIdx, ex);
+      }
+    }
+  }
+
+  private boolean exceedsTestSpillLimit(Partition partition, int records) {
+    if (spillManager == null || testSpillPartitionRecords == 0 || !(partition instanceof MemoryPartition)) {
+      return false;
+    }
+    final MemoryPartition memoryPartition = (MemoryPartition) partition;
+    return memoryPartition.getBuildRecords() > 0 &&
+      memoryPartition.getBuildRecords() + records > testSpillPartitionRecords;
+  }
+
+  /*
+   * Make room for the build records of a child partition, that failed to be inserted in memory. After this, the
+   * insertion can be retried.
+   */
+  private void handleBuildFailure(int partitionIdx, OutOfMemoryException ex) throws Exception {
+    final Partition failed = childWrappers[partitionIdx].getPartition();
+    if (spillManager == null || !(failed instanceof MemoryPartition)) {
+      throw ex != null ? ex : new IllegalStateException("partition " + partitionIdx + " can't be spilled");
+    }
+
+    final JoinRelType joinType = setupParams.getJoinType();
+    final boolean projectUnmatchedProbe = joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL;
+    if (blockMode && !projectUnmatchedProbe && !failed.isBuildSideEmpty()) {
+      // keep the in-memory records as a block, and send the rest to disk.
+      logger.debug("partition {} at depth {} : overflowing to disk after {} build records", partitionIdx, depth,
+        ((MemoryPartition) failed).getBuildRecords());
+      childWrappers[partitionIdx].setPartition(
+        new OverflowPartition((MemoryPartition) failed, newDiskPartition(partitionIdx)));
+      return;
+    }
+
+    // spill the partition using the most memory, or the failed one if there is nothing else to free up.
+    int victim = partitionIdx;
+    long victimMemory = -1;
+    for (int i = 0; i < numPartitions; ++i) {
+      final Partition partition = childWrappers[i].getPartition();
+      if (partition instanceof MemoryPartition && !partition.isBuildSideEmpty() &&
+        ((MemoryPartition) partition).getAllocatedMemory() > victimMemory) {
+        victim = i;
+        victimMemory = ((MemoryPartition) partition).getAllocatedMemory();
+      }
+    }
+    spillChildPartition(victim);
+  }
+
+  private void spillChildPartition(int partitionIdx) throws Exception {
+    final PartitionWrapper child = childWrappers[partitionIdx];
+    final MemoryPartition memoryPartition = (MemoryPartition) child.getPartition();
+    logger.debug("partition {} at depth {} : spilling {} build records", partitionIdx, depth,
+      memoryPartition.getBuildRecords());
+
+    // release the reserve so that there is enough memory to write out the records.
+    if (spillReservePage != null) {
+      spillReservePage.close();
+      spillReservePage = null;
+      pool.releaseUnusedToMinimum();
+    }
+
+    final DiskPartition diskPartition = newDiskPartition(partitionIdx);
+    try {
+      memoryPartition.spillBuild(diskPartition);
+    } catch (Exception e) {
+      AutoCloseables.close(e, diskPartition);
+      throw e;
+    }
+    child.setPartition(diskPartition);
+    memoryPartition.close();
+
+    // try to get back the reserve, it's ok to proceed without it.
+    final List<Page> pages = pool.getPages(1);
+    if (pages != null) {
+      spillReservePage = pages.get(0);
+    }
+  }
+
+  private DiskPartition newDiskPartition(int partitionIdx) {
+    // overflow records are joined at the same depth, spilled records are re-partitioned at the next one.
+    return new DiskPartition(setupParams, copierFactory, spillManager, spillPrefix + "-" + partitionIdx,
+      childWrappers[partitionIdx].getSv2Addr(), blockMode ? depth : depth + 1, blockMode);
+  }
+
+  /**
+   * @return true if any of the child partitions has records on disk.
+   */
+  public boolean hasSpilledPartitions() {
+    for (int i = 0; i < numPartitions; ++i) {
+      if (!(childWrappers[i].getPartition() instanceof MemoryPartition)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Complete the spill files of the child partitions that have records on disk. Must be invoked once the probe
+   * side and the unmatched build records are done.
+   *
+   * @return the spilled partitions, which are now owned by the caller.
+   */
+  public List<SpilledPartition> finishSpilledPartitions() throws IOException {
+    final List<SpilledPartition> spilled = new ArrayList<>();
+    for (int i = 0; i < numPartitions; ++i) {
+      final Partition partition = childWrappers[i].getPartition();
+      if (partition instanceof DiskPartition) {
+        spilled.add(((DiskPartition) partition).finish());
+      } else if (partition instanceof OverflowPartition) {
+        spilled.add(((OverflowPartition) partition).finish());
+      }
+    }
+    return spilled;
+  }
+
   private void computeHashAndSplitToChildPartitions(int records) {
     /*
      * HashTable is used to compute the hash'es however it is build with BuildPivot. So make sure
@@ -364,6 +539,7 @@ public class MultiPartition implements Partition {
     List<AutoCloseable> autoCloseables = new ArrayList<>(Arrays.asList(childWrappers));
     autoCloseables.add(tableHashValues4B);
     autoCloseables.add(fullHashValues8B);
+    autoCloseables.add(spillReservePage);
     autoCloseables.addAll(preAllocedPages);
     autoCloseables.add(pool);
     AutoCloseables.close(autoCloseables);
@@ -373,7 +549,7 @@ public class MultiPartition implements Partition {
    * Helper class to track input sv2 for a partition.
    */
   private static final class PartitionWrapper implements AutoCloseable {
-    private final Partition partition;
+    private Partition partition;
     private final ArrowBuf sv2;
     private final int maxRecords;
     private int numRecords;
@@ -402,6 +578,14 @@ public class MultiPartition implements Partition {
 
     Partition getPartition() { return partition; }
 
+    void setPartition(Partition partition) {
+      this.partition = partition;
+    }
+
+    long getSv2Addr() {
+      return sv2.memoryAddress();
+    }
+
     @Override
     public void close() throws Exception {
       AutoCloseables.close(partition, sv2);
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash.spill.partition;
+
+import java.io.IOException;
+
+import com.dremio.common.AutoCloseables;
+
+/**
+ * Partition used in block nested loop mode, when the build records of a partition can't be split any further by
+ * re-partitioning (eg. a single hot key).
+ *
+ * The build records that are already in memory form a block. All build records that follow are spilled, and
+ * every probe record is both probed against the block and spilled. The spilled records are then joined in another
+ * pass, so that each build record is in exactly one block, and is joined with all the probe records.
+ *
+ * Since a probe record is probed against multiple blocks, this can't be used when the unmatched probe records
+ * need to be projected (left and full joins).
+ */
+class OverflowPartition implements Partition {
+  private final MemoryPartition block;
+  private final DiskPartition overflow;
+  private boolean probeBatchSpilled;
+
+  OverflowPartition(MemoryPartition block, DiskPartition overflow) {
+    this.block = block;
+    this.overflow = overflow;
+  }
+
+  @Override
+  public void buildPivoted(int records) throws Exception {
+    overflow.buildPivoted(records);
+  }
+
+  @Override
+  public boolean isBuildSideEmpty() {
+    return block.isBuildSideEmpty() && overflow.isBuildSideEmpty();
+  }
+
+  @Override
+  public void hashPivoted(int records, long keyFixedVectorAddr, long keyVarVectorAddr, long seed, long hashoutAddr8B) {
+    block.hashPivoted(records, keyFixedVectorAddr, keyVarVectorAddr, seed, hashoutAddr8B);
+  }
+
+  @Override
+  public int probePivoted(int records, int startOutputIndex, int maxOutputIndex) throws Exception {
+    // the same batch is probed again till the probe is complete, spill it only the first time.
+    if (!probeBatchSpilled) {
+      overflow.probePivoted(records, startOutputIndex, maxOutputIndex);
+      probeBatchSpilled = true;
+    }
+    final int ret = block.probePivoted(records, startOutputIndex, maxOutputIndex);
+    if (ret > -1) {
+      probeBatchSpilled = false;
+    }
+    return ret;
+  }
+
+  @Override
+  public int projectBuildNonMatches(int startOutputIndex, int maxOutputIndex) throws Exception {
+    return block.projectBuildNonMatches(startOutputIndex, maxOutputIndex);
+  }
+
+  SpilledPartition finish() throws IOException {
+    return overflow.finish();
+  }
+
+  @Override
+  public Stats getStats() {
+    return block.getStats();
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(block, overflow);
+  }
+}
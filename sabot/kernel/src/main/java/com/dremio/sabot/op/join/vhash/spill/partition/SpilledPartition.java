@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash.spill.partition;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+
+/**
+ * Build and probe records of a partition that were written to disk. These are joined later by
+ * replaying the build records, followed by the probe records.
+ *
+ * Owns the spill files, which are deleted on close.
+ */
+public final class SpilledPartition implements AutoCloseable {
+  private final String name;
+  private final int depth;
+  private final boolean blockMode;
+  private final SpillFile buildFile;
+  private final int buildBatches;
+  private final long buildRecords;
+  private final long buildBytes;
+  private final SpillFile probeFile;
+  private final int probeBatches;
+  private final long probeRecords;
+  private final long probeBytes;
+
+  SpilledPartition(String name, int depth, boolean blockMode,
+                   SpillFile buildFile, int buildBatches, long buildRecords, long buildBytes,
+                   SpillFile probeFile, int probeBatches, long probeRecords, long probeBytes) {
+    this.name = name;
+    this.depth = depth;
+    this.blockMode = blockMode;
+    this.buildFile = buildFile;
+    this.buildBatches = buildBatches;
+    this.buildRecords = buildRecords;
+    this.buildBytes = buildBytes;
+    this.probeFile = probeFile;
+    this.probeBatches = probeBatches;
+    this.probeRecords = probeRecords;
+    this.probeBytes = probeBytes;
+  }
+
+  /**
+   * Get a copy of this partition that must be joined in block nested loop mode (used when re-partitioning doesn't
+   * split the build records, eg. with a single hot key).
+   */
+  public SpilledPartition toBlockMode() {
+    return new SpilledPartition(name, depth, true, buildFile, buildBatches, buildRecords, buildBytes,
+      probeFile, probeBatches, probeRecords, probeBytes);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the recursion depth at which the records of this partition are joined.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * @return true if the build records must be joined in blocks that fit in memory, each block being joined with
+   * all the probe records, instead of being re-partitioned.
+   */
+  public boolean isBlockMode() {
+    return blockMode;
+  }
+
+  public SpillFile getBuildFile() {
+    return buildFile;
+  }
+
+  public int getBuildBatches() {
+    return buildBatches;
+  }
+
+  public long getBuildRecords() {
+    return buildRecords;
+  }
+
+  public long getBuildBytes() {
+    return buildBytes;
+  }
+
+  public SpillFile getProbeFile() {
+    return probeFile;
+  }
+
+  public int getProbeBatches() {
+    return probeBatches;
+  }
+
+  public long getProbeRecords() {
+    return probeRecords;
+  }
+
+  public long getProbeBytes() {
+    return probeBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s (depth %d%s) : %d build records (%d bytes), %d probe records (%d bytes)",
+      name, depth, blockMode ? ", block mode" : "", buildRecords, buildBytes, probeRecords, probeBytes);
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(buildFile, probeFile);
+  }
+}
@@ -77,6 +77,22 @@ public class VectorizedProbe implements AutoCloseable {
     JoinTable table,
     PageListMultimap linkedList,
     ExpandableHyperContainer buildBatch) {
+    this(setupParams, copierFactory, sv2Addr, tableHashAddr4B, table, linkedList, buildBatch, false);
+  }
+
+  /**
+   * @param projectAllBuild if set, projectBuildNonMatches() can be used irrespective of the join type. Used to
+   *                        output all the build records of a partition before any probe, when spilling it.
+   */
+  VectorizedProbe(
+    JoinSetupParams setupParams,
+    CopierFactory copierFactory,
+    long sv2Addr,
+    long tableHashAddr4B,
+    JoinTable table,
+    PageListMultimap linkedList,
+    ExpandableHyperContainer buildBatch,
+    boolean projectAllBuild) {
 
     this.buildKeyUnpivot = setupParams.getBuildKeyUnpivot();
     this.allocator = setupParams.getOpAllocator();
@@ -84,7 +100,7 @@ public class VectorizedProbe implements AutoCloseable {
     this.table = table;
 
     JoinRelType joinRelType = setupParams.getJoinType();
-    this.projectUnmatchedBuild = joinRelType == JoinRelType.RIGHT || joinRelType == JoinRelType.FULL;
+    this.projectUnmatchedBuild = projectAllBuild || joinRelType == JoinRelType.RIGHT || joinRelType == JoinRelType.FULL;
     this.projectUnmatchedProbe = joinRelType == JoinRelType.LEFT || joinRelType == JoinRelType.FULL;
 
     List<FieldVector> buildOutputCarryOvers = setupParams.getBuildOutputCarryOvers();
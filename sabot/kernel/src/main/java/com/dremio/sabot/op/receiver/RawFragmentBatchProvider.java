@@ -19,4 +19,18 @@ public interface RawFragmentBatchProvider extends AutoCloseable {
 
   public RawFragmentBatch getNext();
   public boolean isStreamDone();
+
+  /**
+   * @return bytes of the received batches spooled to disk
+   */
+  default long getSpooledBytes() {
+    return 0;
+  }
+
+  /**
+   * @return time spent waiting for the spooled batches to be read back, in nanos
+   */
+  default long getSpoolReadWaitNanos() {
+    return 0;
+  }
 }
@@ -19,6 +19,9 @@ import static com.dremio.exec.cache.VectorAccessibleSerializable.readIntoArrowBu
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -52,8 +55,11 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.Queues;
 
 /**
- * This implementation of RawBatchBuffer starts writing incoming batches to disk once the buffer size reaches a threshold.
- * The order of the incoming buffers is maintained.
+ * This implementation of RawBatchBuffer starts writing incoming batches to disk once the buffer size reaches a threshold,
+ * unless the consumer drains the buffer fast enough. The order of the incoming buffers is maintained.
+ *
+ * Batches are spooled by the fragment thread, and the next spooled batches are read back in the background, ahead of
+ * the consumer.
  */
 public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchBuffer.RawFragmentBatchWrapper> {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SpoolingRawBatchBuffer.class);
@@ -71,6 +77,7 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
   }
 
   private static final float STOP_SPOOLING_FRACTION = (float) 0.5;
+
   public static final long ALLOCATOR_INITIAL_RESERVATION = 1*1024*1024;
   public static final long ALLOCATOR_MAX_RESERVATION = 20L*1000*1000*1000;
 
@@ -96,12 +103,23 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
 
   private final BufferAllocator parentAllocator;
   private final long threshold;
+  private final long maxBatches;
+  private final long maxDrainNanos;
+  private final int prefetchBatches;
   private final int oppositeId;
   private final int bufferIndex;
 
   // spoolingState and currentSizeInMemory can be accessed by both the fragment and fabric threads
   private AtomicReference<SpoolingState> spoolingState = new AtomicReference<>(SpoolingState.PAUSE_SPOOLING);
   private volatile long currentBatchesInMemory = 0;
+  // accessed under the lock of the shared resource
+  private final IntervalMeter consumedIntervals = new IntervalMeter();
+  // written by the fragment thread only
+  private volatile long spooledBatches;
+  private volatile long spooledBytes;
+  private volatile long readWaitNanos;
+  // guards the input stream, read by both the consumer and the prefetch threads
+  private final Object readLock = new Object();
 
   private BufferAllocator allocator = null;
   private SpillFile spillFile;
@@ -118,6 +136,9 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
                                 int fragmentCount, int oppositeId, int bufferIndex) {
     super(resource, config, handle, parentAllocator, fragmentCount);
     this.threshold = config.getLong(ExecConstants.SPOOLING_BUFFER_SIZE);
+    this.maxBatches = Math.max(threshold, config.getLong(ExecConstants.SPOOLING_BUFFER_MAX_SIZE));
+    this.maxDrainNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong(ExecConstants.SPOOLING_BUFFER_MAX_DRAIN_MILLIS));
+    this.prefetchBatches = config.getInt(ExecConstants.SPOOLING_BUFFER_PREFETCH);
     this.oppositeId = oppositeId;
     this.bufferIndex = bufferIndex;
     this.bufferQueue = new SpoolingBufferQueue();
@@ -195,6 +216,25 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
       buffer.add(batchWrapper);
     }
 
+    /**
+     * Start reading back the first spooled batches of the queue, if not read yet.
+     */
+    void prefetch() {
+      final Iterator<RawFragmentBatchWrapper> iterator = buffer.iterator();
+      for (int i = 0; i < prefetchBatches && iterator.hasNext(); i++) {
+        iterator.next().startPrefetch();
+      }
+    }
+
+    /**
+     * Release the batches read back ahead of the consumer, before the allocator they were read with is closed.
+     */
+    void releasePrefetched() {
+      for (RawFragmentBatchWrapper batchWrapper : buffer) {
+        batchWrapper.releasePrefetched();
+      }
+    }
+
     @Override
     public void clear() {
       RawFragmentBatchWrapper batchWrapper;
@@ -237,6 +277,43 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
     spoolingState.set(SpoolingState.CLOSING);
   }
 
+  /**
+   * Whether the incoming batches should be spooled: never while few batches are queued, always once the queue is full,
+   * and in between only if the consumer would take too long to drain the queue at the rate it consumed so far.
+   * Spooling the batches of a consumer that is just a bit behind only to read them back shortly after slows both down.
+   */
+  private boolean shouldSpool(long now) {
+    if (currentBatchesInMemory < threshold) {
+      return false;
+    }
+    if (currentBatchesInMemory >= maxBatches) {
+      return true;
+    }
+    final long consumedInterval = consumedIntervals.get(now);
+    if (consumedInterval < 0) {
+      // nothing consumed yet
+      return true;
+    }
+    return currentBatchesInMemory * consumedInterval > maxDrainNanos;
+  }
+
+  /**
+   * @return number of the received batches spooled to disk
+   */
+  public long getSpooledBatches() {
+    return spooledBatches;
+  }
+
+  @Override
+  public long getSpooledBytes() {
+    return spooledBytes;
+  }
+
+  @Override
+  public long getSpoolReadWaitNanos() {
+    return readWaitNanos;
+  }
+
   @Override
   protected void enqueueInner(RawFragmentBatch batch) {
     assert batch.getHeader().getSendingMajorFragmentId() == oppositeId;
@@ -251,7 +328,7 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
       addBatchForSpooling(wrapper);
     }
     bufferQueue.add(wrapper);
-    if (!spoolCurrentBatch && currentBatchesInMemory >= threshold) {
+    if (!spoolCurrentBatch && shouldSpool(System.nanoTime())) {
       logger.debug("Buffer size {} greater than threshold {}. Start spooling to disk", currentBatchesInMemory, threshold);
       startSpooling();
     }
@@ -263,9 +340,17 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
     if (body != null) {
       currentBatchesInMemory--;
     }
+    final long now = System.nanoTime();
+    consumedIntervals.mark(now);
     if (isCurrentlySpooling() && currentBatchesInMemory < threshold * STOP_SPOOLING_FRACTION) {
       logger.debug("buffer size {} less than {}x threshold. Stop spooling.", currentBatchesInMemory, STOP_SPOOLING_FRACTION);
       pauseSpooling();
+    } else if (isCurrentlySpooling() && !shouldSpool(now)) {
+      logger.debug("consumer drains buffer of size {} fast enough. Stop spooling.", currentBatchesInMemory);
+      pauseSpooling();
+    }
+    if (!isClosing()) {
+      ((SpoolingBufferQueue) bufferQueue).prefetch();
     }
     logger.debug("Got batch. Current buffer size: {}", bufferQueue.size());
   }
@@ -282,7 +367,8 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
         SpoolingRawBatchBuffer.super.close();
       }};
 
-    AutoCloseables.close(allocator, outputStream, inputStream, spillFile, this.spillManager, superCloser, deferred);
+    AutoCloseables.close(((SpoolingBufferQueue) bufferQueue)::releasePrefetched, allocator, outputStream, inputStream,
+      spillFile, this.spillManager, superCloser, deferred);
   }
 
 
@@ -310,7 +396,9 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
 
   class RawFragmentBatchWrapper {
     private RawFragmentBatch batch;
-    private BatchState state;
+    private volatile BatchState state;
+    // read back of the spooled batch ahead of the consumer
+    private CompletableFuture<Void> prefetch;
     private int bodyLength;
     private int totalLength;
     private long start = -1;
@@ -334,17 +422,66 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
     }
 
     public RawFragmentBatch get() {
+      if (prefetch != null) {
+        final long start = System.nanoTime();
+        try {
+          prefetch.get();
+        } catch (ExecutionException e) {
+          throw Throwables.propagate(e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw Throwables.propagate(e);
+        } finally {
+          prefetch = null;
+          readWaitNanos += System.nanoTime() - start;
+        }
+      }
       if (state != BatchState.SPILLED) {
         assert batch.getHeader() != null : "batch header null";
         state = BatchState.AVAILABLE;
         return batch;
       } else {
+        final long start = System.nanoTime();
         try{
           readFromStream();
           return batch;
         }catch(Exception e){
           throw Throwables.propagate(e);
+        } finally {
+          readWaitNanos += System.nanoTime() - start;
+        }
+      }
+    }
+
+    void startPrefetch() {
+      if (state != BatchState.SPILLED || prefetch != null) {
+        return;
+      }
+      prefetch = CompletableFuture.runAsync(() -> {
+        try {
+          readFromStream();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }, SpillManager.getAsyncIOPool());
+    }
+
+    void releasePrefetched() {
+      if (prefetch == null) {
+        return;
+      }
+      try {
+        prefetch.get();
+        if (batch != null) {
+          // read ahead, but never consumed
+          batch.close();
         }
+      } catch (Exception e) {
+        logger.debug("Failed to read back spooled batch", e);
+      } finally {
+        prefetch = null;
+        batch = null;
+        state = BatchState.SPILLED;
       }
     }
 
@@ -374,12 +511,19 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
         if (bodyLength > 0) {
           buf.getBytes(0, stream, bodyLength);
         }
-        stream.hsync();
+        // the batch only needs to be visible to the reads of this buffer, not durable.
+        if (stream.getWrappedStream() instanceof LocalSyncableFileSystem.LocalSyncableOutputStream) {
+          stream.flush();
+        } else {
+          stream.hflush();
+        }
         FileStatus status = spillFile.getFileStatus();
         long len = status.getLen();
         logger.debug("After spooling batch, stream at position {}. File length {}", stream.getPos(), len);
         assert start <= len : String.format("write pos %d is greater than len %d", start, len);
         totalLength = Math.toIntExact(len - start);
+        spooledBatches++;
+        spooledBytes += totalLength;
         long t = watch.elapsed(TimeUnit.MICROSECONDS);
         logger.debug("Took {} us to spool {} to disk. Rate {} mb/s", t, bodyLength, bodyLength / t);
       } finally {
@@ -398,6 +542,12 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
     }
 
     public void readFromStream() throws IOException, InterruptedException {
+      synchronized (readLock) {
+        readFromStreamInner();
+      }
+    }
+
+    private void readFromStreamInner() throws IOException, InterruptedException {
       long pos = start;
       boolean tryAgain = true;
       int duration = 0;
@@ -469,4 +619,31 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
       }
     }
   }
+
+  /**
+   * Moving average of the time between two events, in nanos.
+   */
+  private static final class IntervalMeter {
+    private static final double WEIGHT = 0.2;
+    private long last = -1;
+    private double average = -1;
+
+    void mark(long now) {
+      if (last >= 0) {
+        final long interval = now - last;
+        average = average < 0 ? interval : average + WEIGHT * (interval - average);
+      }
+      last = now;
+    }
+
+    /**
+     * @return the average time between two events, at least the time since the last one, or -1 before the first one
+     */
+    long get(long now) {
+      if (last < 0) {
+        return -1;
+      }
+      return (long) Math.max(average, now - last);
+    }
+  }
 }
@@ -79,7 +79,9 @@ public class MergingReceiverOperator implements ProducerOperator {
   public static enum Metric implements MetricDef{
     BYTES_RECEIVED,
     NUM_SENDERS,
-    NEXT_WAIT_NANOS;
+    NEXT_WAIT_NANOS,
+    SPOOLED_BYTES,
+    SPOOL_READ_WAIT_NANOS;
 
     @Override
     public int metricId() {
@@ -380,6 +382,15 @@ public class MergingReceiverOperator implements ProducerOperator {
 
   @Override
   public void close() throws Exception {
+    long spooledBytes = 0;
+    long spoolReadWaitNanos = 0;
+    for (Node node : nodes) {
+      spooledBytes += node.provider.getSpooledBytes();
+      spoolReadWaitNanos += node.provider.getSpoolReadWaitNanos();
+    }
+    stats.setLongStat(Metric.SPOOLED_BYTES, spooledBytes);
+    stats.setLongStat(Metric.SPOOL_READ_WAIT_NANOS, spoolReadWaitNanos);
+
     List<AutoCloseable> closeables = new ArrayList<>();
     closeables.add(outgoingContainer);
     closeables.addAll(Arrays.asList(nodes));
@@ -44,7 +44,9 @@ public class UnorderedReceiverOperator implements ProducerOperator {
 
   public enum Metric implements MetricDef {
     BYTES_RECEIVED,
-    NUM_SENDERS;
+    NUM_SENDERS,
+    SPOOLED_BYTES,
+    SPOOL_READ_WAIT_NANOS;
 
     @Override
     public int metricId() {
@@ -124,6 +126,10 @@ public class UnorderedReceiverOperator implements ProducerOperator {
 
   @Override
   public void close() throws Exception {
+    if (fragProvider != null) {
+      stats.setLongStat(Metric.SPOOLED_BYTES, fragProvider.getSpooledBytes());
+      stats.setLongStat(Metric.SPOOL_READ_WAIT_NANOS, fragProvider.getSpoolReadWaitNanos());
+    }
     AutoCloseables.close((AutoCloseable) batchLoader, outgoing);
   }
 
@@ -169,7 +169,12 @@ public class ScanOperator implements ProducerOperator {
     NUM_METADATA_IO_READ,
     HIVE_FILE_FORMATS,// File Formats in hive sub scan represented as bitmap. Indices correspond to HiveFilFormat enum
     NUM_ZERO_SIZED_COLUMN, // Number of zero sized column
-    NUM_EXTRA_FOOTER_READS // Number of times footer is read for a split.
+    NUM_EXTRA_FOOTER_READS, // Number of times footer is read for a split.
+    NUM_ROW_GROUPS_PRUNED_BY_RUNTIME_FILTER, // Number of row groups skipped as none of their values match a runtime filter
+    NUM_PAGES_PRUNED_BY_RUNTIME_FILTER, // Number of pages whose column index shows none of their values match a runtime filter
+    NUM_COALESCED_READ_REQUESTS, // Number of requests reading the column chunks fetched ahead
+    COALESCED_READ_BYTES, // Bytes read by these requests, including the gaps between merged chunks
+    NUM_MERGED_READ_RANGES // Number of column chunks read with the request of another chunk
     ;
 
     @Override
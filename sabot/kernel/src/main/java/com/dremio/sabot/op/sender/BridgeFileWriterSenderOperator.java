@@ -35,12 +35,15 @@ import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.options.OptionManager;
 import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.EnumValidator;
 import com.dremio.options.TypeValidators.PositiveLongValidator;
+import com.dremio.options.TypeValidators.RangeLongValidator;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingFileTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.sort.external.SpillCompression;
 import com.dremio.sabot.op.sort.external.SpillManager;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.dremio.service.spill.SpillService;
@@ -52,6 +55,14 @@ import com.dremio.service.spill.SpillService;
 public class BridgeFileWriterSenderOperator extends BaseSender {
   private static final Logger logger = LoggerFactory.getLogger(BridgeFileWriterSenderOperator.class);
   public static final PositiveLongValidator NUM_BATCHES_PER_FILE = new PositiveLongValidator("exec.op.sender.batches_per_file", 100_000, 2_000);
+  public static final EnumValidator<SpillCompression> FILE_COMPRESSION = new EnumValidator<>("exec.op.sender.file_compression", SpillCompression.class, SpillCompression.LZ4);
+  // batches are made visible to the receivers once this many bytes are written, 0 to do it after each batch.
+  public static final RangeLongValidator BYTES_PER_FLUSH = new RangeLongValidator("exec.op.sender.bytes_per_flush", 0, 64 * 1024 * 1024, 1024 * 1024);
+  // batches are made visible to the receivers once they waited this long, even if bytes_per_flush isn't reached yet,
+  // 0 to only flush on size.
+  public static final RangeLongValidator MAX_FLUSH_DELAY_MILLIS = new RangeLongValidator("exec.op.sender.max_flush_delay_millis", 0, 3_600_000, 1_000);
+  // size of the reads of the receivers from the files, 0 for the default of the file system.
+  public static final RangeLongValidator FILE_READ_BUFFER_SIZE = new RangeLongValidator("exec.op.sender.file_read_buffer_size", 0, 16 * 1024 * 1024, 256 * 1024);
   private final BridgeFileWriterSender config;
   private final ExecProtos.FragmentHandle handle;
   private final OperatorStats stats;
@@ -68,7 +79,11 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
   private VectorAccessible incoming;
 
   public enum Metric implements MetricDef {
-    BYTES_SENT;
+    BYTES_SENT,
+    IO_BYTES_WRITTEN,       // bytes written to the files, once compressed
+    COMPRESSION_RATIO,      // bytes written to the files, as a percentage of the bytes sent
+    IO_WRITE_WAIT_NANOS,    // time spent writing to the files
+    COMPRESSION_NANOS;      // time spent compressing the batches
     @Override
     public int metricId() {
       return ordinal();
@@ -107,8 +122,13 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
     this.incoming = incoming;
     checkSchema(incoming.getSchema());
 
-    this.spillManager = new SpillManager(sabotConfig, options, uniqueId, null, spillService, "cte bridge", null);
-    this.tunnel = tunnelProvider.getFileTunnel(new FileStreamManagerImpl(spillManager), (int)options.getOption(NUM_BATCHES_PER_FILE));
+    this.spillManager = new SpillManager(sabotConfig, options, uniqueId, null, spillService, "cte bridge", null,
+      null, SpillCompression.fromOption(options.getOption(FILE_COMPRESSION)));
+    this.tunnel = tunnelProvider.getFileTunnel(
+      new FileStreamManagerImpl(spillManager, (int) options.getOption(FILE_READ_BUFFER_SIZE)),
+      (int)options.getOption(NUM_BATCHES_PER_FILE),
+      options.getOption(BYTES_PER_FLUSH),
+      options.getOption(MAX_FLUSH_DELAY_MILLIS));
     state = State.CAN_CONSUME;
   }
 
@@ -158,6 +178,19 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
     stats.addLongStat(BridgeFileWriterSenderOperator.Metric.BYTES_SENT, writableBatch.getByteCount());
   }
 
+  // the spill manager accounts for the files as they are closed.
+  private void updateFileStats() {
+    if (spillManager == null) {
+      return;
+    }
+    final long appBytes = spillManager.getAppWriteBytes();
+    final long ioBytes = spillManager.getIOWriteBytes();
+    stats.setLongStat(Metric.IO_BYTES_WRITTEN, ioBytes);
+    stats.setLongStat(Metric.COMPRESSION_RATIO, appBytes == 0 ? 100 : ioBytes * 100 / appBytes);
+    stats.setLongStat(Metric.IO_WRITE_WAIT_NANOS, spillManager.getIOWriteWait());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, spillManager.getCompressionNanos());
+  }
+
   @Override
   public void receivingFragmentFinished(ExecProtos.FragmentHandle handle) throws Exception {
     throw new UnsupportedOperationException("receivingFragmentFinished() not expected in this operator");
@@ -172,6 +205,7 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
       .setSendingMinorFragmentId(handle.getMinorFragmentId())
       .build();
     tunnel.sendStreamComplete(completion);
+    updateFileStats();
     state = State.DONE;
     logger.debug("switching to DONE state on invocation of noMoreToConsume()");
   }
@@ -184,6 +218,7 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
   @Override
   public void close() throws Exception {
     AutoCloseables.close(tunnel);
+    updateFileStats();
   }
 
   public static class Creator implements TerminalOperator.Creator<BridgeFileWriterSender> {
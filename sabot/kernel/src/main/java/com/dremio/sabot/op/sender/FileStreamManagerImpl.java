@@ -32,10 +32,13 @@ import com.google.common.base.Throwables;
 
 /**
  * Wrapper over SpillManager to deal with create/open/delete streams.
+ *
+ * The files are compressed with the codec of the spill manager, if any.
  */
 public class FileStreamManagerImpl implements FileStreamManager {
   private static final Logger logger = LoggerFactory.getLogger(FileStreamManagerImpl.class);
   private final SpillManager spillManager;
+  private final int readBufferSize;
 
   /*
    * The spillManager picks a random directory on each invocation of getSpillFile(). To ensure that
@@ -44,8 +47,12 @@ public class FileStreamManagerImpl implements FileStreamManager {
    */
   private final Map<Integer, SpillManager.SpillFile> spillFileMap = new ConcurrentHashMap<>();
 
-  FileStreamManagerImpl(SpillManager spillManager) {
+  /**
+   * @param readBufferSize size of the reads from the files, 0 for the default of the file system.
+   */
+  FileStreamManagerImpl(SpillManager spillManager, int readBufferSize) {
     this.spillManager = spillManager;
+    this.readBufferSize = readBufferSize;
   }
 
   @Override
@@ -58,14 +65,14 @@ public class FileStreamManagerImpl implements FileStreamManager {
     Preconditions.checkState(spillFileMap.get(fileSeq) == null, "duplicate file with seq " + fileSeq);
     SpillFile spillFile = spillManager.getSpillFile(getFileName(fileSeq));
     spillFileMap.put(fileSeq, spillFile);
-    return spillFile.create(false);
+    return spillFile.create(true);
   }
 
   @Override
   public InputStream getInputStream(int fileSeq) throws IOException {
     SpillFile spillFile = spillFileMap.get(fileSeq);
     Preconditions.checkNotNull(spillFile, "reader tried to open file with seq " + fileSeq + " ahead of writer");
-    return spillFile.open(false);
+    return spillFile.open(true, readBufferSize);
   }
 
   @Override
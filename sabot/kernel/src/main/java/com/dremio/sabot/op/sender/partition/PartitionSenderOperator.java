@@ -92,7 +92,9 @@ public class PartitionSenderOperator extends BaseSender {
     PRECOPY_NS,
     FLUSH_NS,
     NUM_FLUSHES,
-    BUCKET_SIZE;
+    BUCKET_SIZE,
+    NUM_SIZE_FLUSHES,     // flushes of outgoing batches that were not full, but too big
+    NUM_DELAYED_FLUSHES;  // flushes of outgoing batches that were not full, but waited for too long
 
     @Override
     public int metricId() {
@@ -18,6 +18,8 @@ package com.dremio.sabot.op.sender.partition.vectorized;
 import java.util.List;
 
 import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.ValueVector;
 import org.apache.arrow.vector.VarBinaryVector;
@@ -41,7 +43,9 @@ import com.google.common.collect.Lists;
  * Manages one outgoing receiver:<br>
  * Copy is done in 2 consecutive batches (A and B) so that we can delay flushing
  * until the end of a copy pass.
- * Handles batch flushing and vector allocations
+ * Handles batch flushing and vector allocations.<br>
+ * The variable width vectors are allocated for the average value size of the last flushed batch, so that filling a
+ * batch doesn't keep reallocating them.
  */
 public class OutgoingBatch extends VectorContainer {
   private final AccountingExecTunnel tunnel;
@@ -54,6 +58,10 @@ public class OutgoingBatch extends VectorContainer {
   // we need these to set the lastSet value for variable length vectors
   private final List<VarCharVector> varchars = Lists.newArrayList();
   private final List<VarBinaryVector> varbins = Lists.newArrayList();
+  private final List<BaseVariableWidthVector> variableWidthVectors = Lists.newArrayList();
+  // average value size of each variable width vector in the last flushed batch, 0 if unknown
+  private final double[] densities;
+  private final int fixedWidthRowSize;
 
   private final int batchIdx;
   private final int nextBatchIdx;
@@ -63,6 +71,8 @@ public class OutgoingBatch extends VectorContainer {
   private int preCopyIdx;
   /** true if receiver finished */
   private volatile boolean dropAll;
+  /** time the pending rows were first seen by the sender, 0 if not seen yet */
+  private long pendingSinceNanos;
 
   OutgoingBatch(int batchIdx, int nextBatchIdx, int maxRecords, final VectorAccessible incoming,
                 BufferAllocator allocator, AccountingExecTunnel tunnel, HashPartitionSender config,
@@ -79,6 +89,7 @@ public class OutgoingBatch extends VectorContainer {
 
     this.stats = stats;
 
+    int fixedWidthRowSize = 0;
     for (VectorWrapper<?> v : incoming) {
       ValueVector outgoingVector = TypeHelper.getNewVector(v.getField(), allocator);
       outgoingVector.setInitialCapacity(maxRecords);
@@ -86,10 +97,26 @@ public class OutgoingBatch extends VectorContainer {
 
       if (outgoingVector instanceof VarBinaryVector) {
         varbins.add(((VarBinaryVector) outgoingVector));
+        variableWidthVectors.add((BaseVariableWidthVector) outgoingVector);
       } else if (outgoingVector instanceof VarCharVector) {
         varchars.add(((VarCharVector) outgoingVector));
+        variableWidthVectors.add((BaseVariableWidthVector) outgoingVector);
+      } else if (outgoingVector instanceof BaseFixedWidthVector) {
+        fixedWidthRowSize += ((BaseFixedWidthVector) outgoingVector).getTypeWidth();
       }
     }
+    this.fixedWidthRowSize = fixedWidthRowSize;
+    this.densities = new double[variableWidthVectors.size()];
+  }
+
+  @Override
+  public void allocateNew() {
+    for (int i = 0; i < densities.length; i++) {
+      if (densities[i] > 0) {
+        variableWidthVectors.get(i).setInitialCapacity(maxRecords, densities[i]);
+      }
+    }
+    super.allocateNew();
   }
 
   int getNextBatchIdx() {
@@ -112,6 +139,33 @@ public class OutgoingBatch extends VectorContainer {
     return preCopyIdx == maxRecords;
   }
 
+  boolean hasPendingRows() {
+    return preCopyIdx > 0;
+  }
+
+  /**
+   * @return approximate size of the rows copied in this batch, not counting the validity and complex vectors
+   */
+  long getPendingBytes() {
+    long bytes = (long) preCopyIdx * fixedWidthRowSize;
+    if (preCopyIdx > 0) {
+      for (BaseVariableWidthVector vector : variableWidthVectors) {
+        bytes += vector.getStartOffset(preCopyIdx);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * @return time since the pending rows of this batch were first seen, as of now
+   */
+  long getPendingNanos(long now) {
+    if (pendingSinceNanos == 0) {
+      pendingSinceNanos = now;
+    }
+    return now - pendingSinceNanos;
+  }
+
   /**
    * Accounts for one row copy and returns (batchIdx, rowIdx) of the copy destination
    *
@@ -139,6 +193,7 @@ public class OutgoingBatch extends VectorContainer {
       // count, reusing the same buffers and copying has overhead only for outgoing batches whose receiver has
       // terminated.
       preCopyIdx = 0;
+      pendingSinceNanos = 0;
       return;
     }
 
@@ -154,6 +209,9 @@ public class OutgoingBatch extends VectorContainer {
     for (VarCharVector vector : varchars) {
       vector.setLastSet(preCopyIdx);
     }
+    for (int i = 0; i < densities.length; i++) {
+      densities[i] = (double) variableWidthVectors.get(i).getStartOffset(preCopyIdx) / preCopyIdx;
+    }
     setAllCount(preCopyIdx);
     if (!hasSchema()) {
       buildSchema();
@@ -175,6 +233,7 @@ public class OutgoingBatch extends VectorContainer {
     stats.stopWait();
 
     preCopyIdx = 0;
+    pendingSinceNanos = 0;
   }
 
   private void updateStats(FragmentWritableBatch writableBatch) {
@@ -16,10 +16,13 @@
 package com.dremio.sabot.op.sender.partition.vectorized;
 
 import static com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric.N_RECEIVERS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 
@@ -34,12 +37,16 @@ import com.dremio.common.expression.SchemaPath;
 import com.dremio.common.util.Numbers;
 import com.dremio.exec.physical.config.HashPartitionSender;
 import com.dremio.exec.physical.config.MinorFragmentEndpoint;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos;
 import com.dremio.exec.proto.ExecRPC;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.TypedFieldId;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
+import com.dremio.options.OptionManager;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.RangeLongValidator;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
@@ -56,12 +63,22 @@ import io.netty.util.internal.PlatformDependent;
 
 /**
  * Implementation of hash partition sender that relies on vectorized copy of the data.<br>
- * Each incoming batch may be processed in multiple passes, each time copying up to numRecordsBeforeFlush rows.
+ * Each incoming batch may be processed in multiple passes, each time copying up to numRecordsBeforeFlush rows.<br>
+ * An outgoing batch is flushed once full, or at the end of a pass once its rows take too much memory or have been
+ * waiting for too long, so that receivers of sparse partitions don't wait for the end of the stream.
  */
+@Options
 public class VectorizedPartitionSenderOperator extends BaseSender {
   @VisibleForTesting
   public static final int PARTITION_MULTIPLE = 8;
 
+  // size of the rows of an outgoing batch before it's flushed even if not full, 0 to only flush full batches
+  public static final RangeLongValidator FLUSH_BYTES = new RangeLongValidator("exec.op.sender.partition.flush_bytes",
+    0, 1024 * 1024 * 1024, 8 * 1024 * 1024);
+  // time the rows of an outgoing batch may wait before it's flushed even if not full, 0 to only flush full batches
+  public static final RangeLongValidator MAX_FLUSH_DELAY_MILLIS = new RangeLongValidator("exec.op.sender.partition.max_flush_delay_millis",
+    0, 3_600_000, 2_000);
+
   /** used to ensure outgoing batches creation and */
   private final Object batchCreationLock = new Object();
 
@@ -87,6 +104,8 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
    * how many rows we should copy in a single pass
    * */
   private int numRecordsBeforeFlush;
+  private final long flushBytes;
+  private final long maxFlushDelayNanos;
 
   private List<MultiDestCopier> copiers = Lists.newArrayList();
 
@@ -145,6 +164,10 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
 
     stats.setLongStat(N_RECEIVERS, numReceivers);
 
+    final OptionManager options = context.getOptions();
+    flushBytes = options.getOption(FLUSH_BYTES);
+    maxFlushDelayNanos = MILLISECONDS.toNanos(options.getOption(MAX_FLUSH_DELAY_MILLIS));
+
     modSize = PARTITION_MULTIPLE * Numbers.nextPowerOfTwo(numReceivers);
     modLookup = new OutgoingBatch[modSize];
     batches = new OutgoingBatch[2 * numReceivers];
@@ -239,7 +262,6 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
     int numPasses = 0;
 
     final OutgoingBatch[] batches = this.batches;
-    final int numBatches = batches.length;
     final List<MultiDestCopier> copiers = this.copiers;
 
     while (start < records) {
@@ -258,11 +280,20 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
 
       // flush
       flushWatch.start();
-      for (int b = 0; b < numBatches; b++) {
-        final OutgoingBatch batch = batches[b];
-        if (batch.isFull()) {
-          batch.flush();
+      final long now = maxFlushDelayNanos > 0 ? System.nanoTime() : 0;
+      for (int p = 0; p < numReceivers; p++) {
+        // the full batch of a pair holds the older rows of its partitions, it's sent before the other batch of the
+        // pair so that the receivers get the rows in the order of the incoming stream
+        final OutgoingBatch batchA = batches[p];
+        final OutgoingBatch batchB = batches[p + numReceivers];
+        if (batchA.isFull()) {
+          batchA.flush();
+        }
+        if (batchB.isFull()) {
+          batchB.flush();
         }
+        flushIfPending(batchA, now);
+        flushIfPending(batchB, now);
       }
       flushWatch.stop();
 
@@ -275,6 +306,33 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
     copyWatches.updateStats(stats);
   }
 
+  /**
+   * Flush a batch that isn't full if its rows take too much memory, or have been waiting for too long.
+   */
+  private void flushIfPending(OutgoingBatch batch, long now) {
+    if (!batch.hasPendingRows()) {
+      return;
+    }
+    if (flushBytes > 0 && batch.getPendingBytes() >= flushBytes) {
+      stats.addLongStat(Metric.NUM_SIZE_FLUSHES, 1);
+      flushPartial(batch);
+    } else if (maxFlushDelayNanos > 0 && batch.getPendingNanos(now) >= maxFlushDelayNanos) {
+      stats.addLongStat(Metric.NUM_DELAYED_FLUSHES, 1);
+      flushPartial(batch);
+    }
+  }
+
+  /**
+   * Flush a batch that isn't full. It's still the one receiving the rows of its partitions, so it's allocated again.
+   */
+  private void flushPartial(OutgoingBatch batch) {
+    batch.flush();
+    batch.allocateNew();
+    for (MultiDestCopier copier : copiers) {
+      copier.updateTargets(batch.getBatchIdx(), batch.getFieldVector(copier.getFieldId()));
+    }
+  }
+
   @Override
   public void noMoreToConsume() throws Exception {
     state.is(State.CAN_CONSUME);
@@ -321,20 +379,24 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
   private void sendTermination() {
     final ExecProtos.FragmentHandle handle = context.getFragmentHandle();
 
-    stats.startWait();
+    // a single message for all the receivers of an endpoint
+    final Map<NodeEndpoint, ExecRPC.FragmentStreamComplete.Builder> completions = new LinkedHashMap<>();
     for (MinorFragmentEndpoint destination : config.getDestinations(context.getEndpointsIndex())) {
       // don't send termination message if the receiver fragment is already terminated.
       if (remainingReceivers.get(destination.getMinorFragmentId()) == 0) {
-        ExecRPC.FragmentStreamComplete completion = ExecRPC.FragmentStreamComplete.newBuilder()
+        completions.computeIfAbsent(destination.getEndpoint(), endpoint -> ExecRPC.FragmentStreamComplete.newBuilder()
             .setQueryId(handle.getQueryId())
             .setSendingMajorFragmentId(handle.getMajorFragmentId())
             .setSendingMinorFragmentId(handle.getMinorFragmentId())
-            .setReceivingMajorFragmentId(config.getReceiverMajorFragmentId())
-            .addReceivingMinorFragmentId(destination.getMinorFragmentId())
-            .build();
-        tunnelProvider.getExecTunnel(destination.getEndpoint()).sendStreamComplete(completion);
+            .setReceivingMajorFragmentId(config.getReceiverMajorFragmentId()))
+          .addReceivingMinorFragmentId(destination.getMinorFragmentId());
       }
     }
+
+    stats.startWait();
+    for (Map.Entry<NodeEndpoint, ExecRPC.FragmentStreamComplete.Builder> completion : completions.entrySet()) {
+      tunnelProvider.getExecTunnel(completion.getKey()).sendStreamComplete(completion.getValue().build());
+    }
     stats.stopWait();
   }
 
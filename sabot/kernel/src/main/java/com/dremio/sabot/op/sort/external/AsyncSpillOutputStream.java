@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.dremio.exec.store.LocalSyncableFileSystem.WritesArrowBuf;
+import com.google.common.base.Preconditions;
+
+/**
+ * Output stream that writes to the underlying stream in the background.
+ *
+ * Writes are accumulated in fixed size buffers, and a buffer is handed to a background writer once it is full.
+ * The number of buffers is bounded, so the caller only waits on the disk when all the buffers are pending (with two
+ * buffers, one is filled while the other one is written). Buffers are written in order, by at most one task at a time.
+ *
+ * The buffers are allocated from the given allocator when the stream is created, so that they are accounted to the
+ * operator, and released when the stream is closed.
+ *
+ * A failure of a background write is reported by the next write, flush or close.
+ *
+ * When the underlying stream {@link WritesArrowBuf}, the buffers are written to it directly, rather than copied through
+ * the heap.
+ */
+class AsyncSpillOutputStream extends OutputStream implements WritesArrowBuf {
+  // size of the heap buffer the background writer copies the buffers through.
+  private static final int TRANSFER_SIZE = 64 * 1024;
+
+  private final OutputStream out;
+  // null if the underlying stream can't write arrow buffers
+  private final WritesArrowBuf directOut;
+  private final Executor executor;
+  private final int bufferSize;
+  private final ArrowBuf buffers;
+  private final byte[] transfer;
+
+  private final Object lock = new Object();
+  // guarded by lock
+  private final ArrayDeque<ArrowBuf> freeBuffers = new ArrayDeque<>();
+  private final ArrayDeque<Chunk> pendingChunks = new ArrayDeque<>();
+  private boolean writerRunning;
+  private IOException failure;
+  private long backgroundWriteNanos;
+
+  // only accessed by the caller thread
+  private ArrowBuf current;
+  private int position;
+  private long waitNanos;
+  private boolean closed;
+
+  /**
+   * @throws org.apache.arrow.memory.OutOfMemoryException if the buffers can't be allocated.
+   */
+  AsyncSpillOutputStream(OutputStream out, Executor executor, BufferAllocator allocator, int bufferSize,
+                         int maxBuffers) {
+    Preconditions.checkArgument(bufferSize > 0, "buffer size must be positive");
+    Preconditions.checkArgument(maxBuffers >= 2, "at least two buffers are required");
+    this.out = out;
+    this.directOut = out instanceof WritesArrowBuf ? (WritesArrowBuf) out : null;
+    this.executor = executor;
+    this.bufferSize = bufferSize;
+    this.buffers = allocator.buffer((long) bufferSize * maxBuffers);
+    for (int i = 0; i < maxBuffers; i++) {
+      freeBuffers.add(buffers.slice((long) i * bufferSize, bufferSize));
+    }
+    this.transfer = directOut != null ? null : new byte[Math.min(bufferSize, TRANSFER_SIZE)];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureBuffer();
+    current.setByte(position++, b);
+    if (position == bufferSize) {
+      queueCurrent();
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    Preconditions.checkPositionIndexes(off, off + len, b.length);
+    while (len > 0) {
+      ensureBuffer();
+      final int toCopy = Math.min(len, bufferSize - position);
+      current.setBytes(position, b, off, toCopy);
+      position += toCopy;
+      off += toCopy;
+      len -= toCopy;
+      if (position == bufferSize) {
+        queueCurrent();
+      }
+    }
+  }
+
+  /**
+   * Copies the readable bytes of the buffer, without going through the heap.
+   */
+  @Override
+  public int write(ArrowBuf buf) throws IOException {
+    final int length = (int) buf.readableBytes();
+    long index = buf.readerIndex();
+    int remaining = length;
+    while (remaining > 0) {
+      ensureBuffer();
+      final int toCopy = Math.min(remaining, bufferSize - position);
+      current.setBytes(position, buf, index, toCopy);
+      position += toCopy;
+      index += toCopy;
+      remaining -= toCopy;
+      if (position == bufferSize) {
+        queueCurrent();
+      }
+    }
+    return length;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    Preconditions.checkState(!closed, "stream is closed");
+    if (position > 0) {
+      queueCurrent();
+    }
+    waitForWriter(true);
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (position > 0) {
+        queueCurrent();
+      }
+    } finally {
+      // the underlying stream can't be closed while the background writer uses it.
+      try {
+        waitForWriter(false);
+      } finally {
+        try {
+          out.close();
+        } finally {
+          current = null;
+          synchronized (lock) {
+            freeBuffers.clear();
+            pendingChunks.clear();
+          }
+          buffers.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return time spent by the caller waiting for the background writer.
+   */
+  long getWaitNanos() {
+    return waitNanos;
+  }
+
+  /**
+   * @return time spent writing to the underlying stream in the background.
+   */
+  long getBackgroundWriteNanos() {
+    synchronized (lock) {
+      return backgroundWriteNanos;
+    }
+  }
+
+  private void ensureBuffer() throws IOException {
+    Preconditions.checkState(!closed, "stream is closed");
+    if (current != null) {
+      return;
+    }
+
+    synchronized (lock) {
+      final long start = System.nanoTime();
+      try {
+        while (true) {
+          checkFailure();
+          if (!freeBuffers.isEmpty()) {
+            current = freeBuffers.poll();
+            break;
+          }
+          lock.wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for a spill buffer");
+      } finally {
+        waitNanos += System.nanoTime() - start;
+      }
+    }
+    position = 0;
+  }
+
+  private void queueCurrent() throws IOException {
+    synchronized (lock) {
+      checkFailure();
+      pendingChunks.add(new Chunk(current, position));
+      current = null;
+      position = 0;
+      if (!writerRunning) {
+        writerRunning = true;
+        executor.execute(this::drain);
+      }
+    }
+  }
+
+  private void waitForWriter(boolean interruptible) throws IOException {
+    boolean interrupted = false;
+    synchronized (lock) {
+      final long start = System.nanoTime();
+      try {
+        while (writerRunning) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            if (interruptible) {
+              Thread.currentThread().interrupt();
+              throw new InterruptedIOException("Interrupted while waiting for spill writes");
+            }
+            interrupted = true;
+          }
+        }
+        checkFailure();
+      } finally {
+        waitNanos += System.nanoTime() - start;
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) {
+      throw new IOException("Background spill write failed", failure);
+    }
+  }
+
+  /**
+   * Writes the pending chunks in order, till there are none left.
+   */
+  private void drain() {
+    while (true) {
+      final Chunk chunk;
+      final boolean skip;
+      synchronized (lock) {
+        chunk = pendingChunks.poll();
+        if (chunk == null) {
+          writerRunning = false;
+          lock.notifyAll();
+          return;
+        }
+        // once a write failed, the stream is corrupt: discard the remaining chunks.
+        skip = failure != null;
+      }
+
+      final long start = System.nanoTime();
+      IOException error = null;
+      if (!skip) {
+        try {
+          if (directOut != null) {
+            writeDirect(chunk);
+          } else {
+            int written = 0;
+            while (written < chunk.length) {
+              final int toWrite = Math.min(transfer.length, chunk.length - written);
+              chunk.buffer.getBytes(written, transfer, 0, toWrite);
+              out.write(transfer, 0, toWrite);
+              written += toWrite;
+            }
+          }
+        } catch (IOException e) {
+          error = e;
+        } catch (RuntimeException e) {
+          error = new IOException(e);
+        }
+      }
+
+      synchronized (lock) {
+        backgroundWriteNanos += System.nanoTime() - start;
+        if (error != null && failure == null) {
+          failure = error;
+        }
+        freeBuffers.add(chunk.buffer);
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private void writeDirect(Chunk chunk) throws IOException {
+    int written = 0;
+    while (written < chunk.length) {
+      // the slice only covers the bytes left to write, as the underlying stream may not honour the reader index
+      final int toWrite = directOut.write(chunk.buffer.slice(written, chunk.length - written));
+      if (toWrite <= 0) {
+        throw new IOException("No progress writing a spill buffer");
+      }
+      written += toWrite;
+    }
+  }
+
+  private static final class Chunk {
+    private final ArrowBuf buffer;
+    private final int length;
+
+    Chunk(ArrowBuf buffer, int length) {
+      this.buffer = buffer;
+      this.length = length;
+    }
+  }
+}
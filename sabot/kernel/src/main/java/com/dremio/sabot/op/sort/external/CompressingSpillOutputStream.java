@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.google.common.base.Preconditions;
+
+import net.jpountz.lz4.LZ4Compressor;
+
+/**
+ * Output stream that writes data in blocks, each block being compressed only if that is worth it.
+ *
+ * Every block starts with a header: the encoding of the block (1 byte), the length of the raw data (4 bytes) and the
+ * length of the stored data (4 bytes). A block is stored raw when compressing it doesn't reduce its size below the
+ * configured ratio, eg. for dense validity bitmaps or random doubles. After such a block, compression is not attempted
+ * for the next few blocks, with an exponential back off, to avoid spending CPU on incompressible data.
+ *
+ * Writes of at least a block are compressed from the caller's array, so that large serialized buffers start on a
+ * block boundary and are compressed on their own.
+ */
+class CompressingSpillOutputStream extends OutputStream {
+  static final int BLOCK_SIZE = 64 * 1024;
+  static final int HEADER_SIZE = 9;
+
+  static final byte RAW = 0;
+  static final byte LZ4 = 1;
+
+  private static final int MAX_BACKOFF_BLOCKS = 64;
+
+  private final OutputStream out;
+  private final LZ4Compressor compressor;
+  private final double maxRatio;
+  private final byte[] block = new byte[BLOCK_SIZE];
+  private final byte[] header = new byte[HEADER_SIZE];
+  private byte[] compressed;
+  private int position;
+
+  private int backoffBlocks;
+  private int blocksToSkip;
+
+  private long uncompressedBlocks;
+
+  /**
+   * @param out underlying stream
+   * @param compressor compressor for the blocks, or null to store all the blocks raw
+   * @param maxRatio a compressed block is only stored if its size is at most this ratio of the raw size
+   */
+  CompressingSpillOutputStream(OutputStream out, LZ4Compressor compressor, double maxRatio) {
+    this.out = out;
+    this.compressor = compressor;
+    this.maxRatio = maxRatio;
+    if (compressor != null) {
+      this.compressed = new byte[compressor.maxCompressedLength(BLOCK_SIZE)];
+    }
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    block[position++] = (byte) b;
+    if (position == BLOCK_SIZE) {
+      flushBlock();
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    Preconditions.checkPositionIndexes(off, off + len, b.length);
+    while (len > 0) {
+      if (position == 0 && len >= BLOCK_SIZE) {
+        writeBlock(b, off, BLOCK_SIZE);
+        off += BLOCK_SIZE;
+        len -= BLOCK_SIZE;
+        continue;
+      }
+
+      final int toCopy = Math.min(len, BLOCK_SIZE - position);
+      System.arraycopy(b, off, block, position, toCopy);
+      position += toCopy;
+      off += toCopy;
+      len -= toCopy;
+      if (position == BLOCK_SIZE) {
+        flushBlock();
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    flushBlock();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flushBlock();
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * @return number of blocks stored raw while compression is enabled, either because they didn't compress well, or
+   * because compression was skipped after such a block.
+   */
+  long getUncompressedBlocks() {
+    return uncompressedBlocks;
+  }
+
+  private void flushBlock() throws IOException {
+    if (position > 0) {
+      writeBlock(block, 0, position);
+      position = 0;
+    }
+  }
+
+  private void writeBlock(byte[] src, int off, int len) throws IOException {
+    if (compressor == null) {
+      writeHeader(RAW, len, len);
+      out.write(src, off, len);
+      return;
+    }
+
+    if (blocksToSkip > 0) {
+      --blocksToSkip;
+    } else {
+      final int compressedLength = compressor.compress(src, off, len, compressed, 0, compressed.length);
+      if (compressedLength <= len * maxRatio) {
+        backoffBlocks = 0;
+        writeHeader(LZ4, len, compressedLength);
+        out.write(compressed, 0, compressedLength);
+        return;
+      }
+      backoffBlocks = Math.min(MAX_BACKOFF_BLOCKS, Math.max(1, backoffBlocks * 2));
+      blocksToSkip = backoffBlocks;
+    }
+
+    ++uncompressedBlocks;
+    writeHeader(RAW, len, len);
+    out.write(src, off, len);
+  }
+
+  private void writeHeader(byte encoding, int rawLength, int storedLength) throws IOException {
+    header[0] = encoding;
+    putInt(header, 1, rawLength);
+    putInt(header, 5, storedLength);
+    out.write(header, 0, HEADER_SIZE);
+  }
+
+  private static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+}
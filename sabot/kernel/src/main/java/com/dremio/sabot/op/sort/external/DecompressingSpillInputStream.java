@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import static com.dremio.sabot.op.sort.external.CompressingSpillOutputStream.BLOCK_SIZE;
+import static com.dremio.sabot.op.sort.external.CompressingSpillOutputStream.HEADER_SIZE;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.base.Preconditions;
+
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * Reads the blocks written by {@link CompressingSpillOutputStream}.
+ */
+class DecompressingSpillInputStream extends InputStream {
+  private final InputStream in;
+  private final LZ4SafeDecompressor decompressor = SpillCompression.lz4().safeDecompressor();
+  private final byte[] header = new byte[HEADER_SIZE];
+  private final byte[] block = new byte[BLOCK_SIZE];
+  private byte[] stored;
+  private int position;
+  private int limit;
+
+  DecompressingSpillInputStream(InputStream in) {
+    this.in = in;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position == limit && !readBlock()) {
+      return -1;
+    }
+    return block[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    Preconditions.checkPositionIndexes(off, off + len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+    if (position == limit && !readBlock()) {
+      return -1;
+    }
+    final int toCopy = Math.min(len, limit - position);
+    System.arraycopy(block, position, b, off, toCopy);
+    position += toCopy;
+    return toCopy;
+  }
+
+  @Override
+  public int available() {
+    return limit - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * Read the next non empty block.
+   *
+   * @return false at the end of the stream
+   */
+  private boolean readBlock() throws IOException {
+    do {
+      final int headerLength = readFully(header, 0, HEADER_SIZE);
+      if (headerLength == 0) {
+        return false;
+      }
+      if (headerLength < HEADER_SIZE) {
+        throw new EOFException("Truncated spill block header");
+      }
+
+      final byte encoding = header[0];
+      final int rawLength = getInt(header, 1);
+      final int storedLength = getInt(header, 5);
+      if (rawLength < 0 || rawLength > BLOCK_SIZE || storedLength < 0) {
+        throw new IOException(String.format("Corrupt spill block: raw length %d, stored length %d", rawLength, storedLength));
+      }
+
+      switch (encoding) {
+        case CompressingSpillOutputStream.RAW:
+          if (storedLength != rawLength) {
+            throw new IOException(String.format("Corrupt raw spill block: raw length %d, stored length %d", rawLength, storedLength));
+          }
+          checkedReadFully(block, storedLength);
+          break;
+
+        case CompressingSpillOutputStream.LZ4:
+          if (stored == null || stored.length < storedLength) {
+            stored = new byte[storedLength];
+          }
+          checkedReadFully(stored, storedLength);
+          try {
+            final int decompressed = decompressor.decompress(stored, 0, storedLength, block, 0, rawLength);
+            if (decompressed != rawLength) {
+              throw new IOException(String.format("Corrupt spill block: expected %d bytes, decompressed %d", rawLength, decompressed));
+            }
+          } catch (LZ4Exception e) {
+            throw new IOException("Corrupt compressed spill block", e);
+          }
+          break;
+
+        default:
+          throw new IOException("Unknown spill block encoding " + encoding);
+      }
+
+      position = 0;
+      limit = rawLength;
+    } while (limit == 0);
+    return true;
+  }
+
+  private void checkedReadFully(byte[] buffer, int length) throws IOException {
+    if (readFully(buffer, 0, length) != length) {
+      throw new EOFException("Truncated spill block");
+    }
+  }
+
+  private int readFully(byte[] buffer, int off, int length) throws IOException {
+    int read = 0;
+    while (read < length) {
+      final int n = in.read(buffer, off + read, length - read);
+      if (n < 0) {
+        break;
+      }
+      read += n;
+    }
+    return read;
+  }
+
+  private static int getInt(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xFF) << 24)
+      | ((bytes[offset + 1] & 0xFF) << 16)
+      | ((bytes[offset + 2] & 0xFF) << 8)
+      | (bytes[offset + 3] & 0xFF);
+  }
+}
@@ -97,6 +97,8 @@ public class DiskRunManager implements AutoCloseable {
 
   private final Stopwatch spillWatch = Stopwatch.createUnstarted();
   private final Stopwatch mergeWatch = Stopwatch.createUnstarted();
+  // time spent waiting for writes while spilling, excluded from the spill compute time.
+  private long spillWriteWaitNanos;
   private final Stopwatch spillCopyWatch = Stopwatch.createUnstarted();
 
   private int run = 0;
@@ -188,7 +190,9 @@ public class DiskRunManager implements AutoCloseable {
       final String id = String.format("esort-%s.%s.%s.%s", QueryIdHelper.getQueryId(handle.getQueryId()),
           handle.getMajorFragmentId(), handle.getMinorFragmentId(), operatorId
       );
-      this.spillManager = new SpillManager(config, optionManager, id, conf, spillService, "sort spilling", stats);
+      // the buffers of the background spill I/O are accounted to the sort
+      this.spillManager = new SpillManager(config, optionManager, id, conf, spillService, "sort spilling", stats,
+        parentAllocator, SpillCompression.fromOption(optionManager.getOption(ExecConstants.EXTERNAL_SORT_SPILL_COMPRESSION)));
       rollback.add(this.spillManager);
 
       rollback.commit();
@@ -199,6 +203,10 @@ public class DiskRunManager implements AutoCloseable {
     return spillWatch.elapsed(TimeUnit.NANOSECONDS);
   }
 
+  public long spillComputeNanos() {
+    return Math.max(0, spillTimeNanos() - spillWriteWaitNanos);
+  }
+
   public long mergeTimeNanos() {
     return mergeWatch.elapsed(TimeUnit.NANOSECONDS);
   }
@@ -244,7 +252,7 @@ public class DiskRunManager implements AutoCloseable {
       if (diskRuns.size() <= 2) {
         final String message = "DiskRunManager: Unable to secure enough memory to merge spilled sort data.";
         final long totalMaxBatchSizeAllRuns = getMaxBatchSizeAllRuns(diskRuns);
-        final long reservation = totalMaxBatchSizeAllRuns + (targetBatchSizeInBytes * 3);
+        final long reservation = getCopierReservation(diskRuns);
         /* we are here for OOM because we couldnt't create a copy allocator for loading batches from even 2 disk runs
          * so record all the information including how much copy allocator tried to reserve before it failed.
          * see getCopierAllocator, the computation has been borrowed from that function.
@@ -285,7 +293,7 @@ public class DiskRunManager implements AutoCloseable {
         if (runsToMerge < 2) {
           final String message = "DiskRunManager: Unable to secure enough memory to merge spilled sort data.";
           final long totalMaxBatchSizeAllRuns = getMaxBatchSizeAllRuns(runList);
-          final long reservation = totalMaxBatchSizeAllRuns + (targetBatchSizeInBytes * 3);
+          final long reservation = getCopierReservation(runList);
           /* we are here for OOM because we couldnt't create a copy allocator for loading batches from even 2 disk runs
            * so record all the information including how much copy allocator tried to reserve before it failed.
            * see getCopierAllocator, the computation has been borrowed from that function.
@@ -434,6 +442,7 @@ public class DiskRunManager implements AutoCloseable {
     /* as per MemoryRun, for copyTargetAllocator, initReservation and maxAllocation are same */
     logger.debug("DiskRunManager-Spill: spill copy allocator reservation {} spill copy allocator limit {}", copyTargetAllocator.getInitReservation(), copyTargetAllocator.getLimit());
     spillWatch.start();
+    final long writeWaitBefore = spillManager.getIOWriteWait();
     try {
       int maxBatchSize = 0;
       int batchCount = 0;
@@ -533,6 +542,7 @@ public class DiskRunManager implements AutoCloseable {
       diskRuns.add(run);
     } finally {
       spillWatch.stop();
+      spillWriteWaitNanos += spillManager.getIOWriteWait() - writeWaitBefore;
     }
   }
 
@@ -555,6 +565,7 @@ public class DiskRunManager implements AutoCloseable {
 
     boolean done = false;
     spillWatch.start();
+    final long writeWaitBefore = spillManager.getIOWriteWait();
     try {
       BatchSchema outgoingSchema = null;
       int recordsSpilledInCurrentIteration = 0;
@@ -627,6 +638,7 @@ public class DiskRunManager implements AutoCloseable {
       }
     } finally {
       spillWatch.stop();
+      spillWriteWaitNanos += spillManager.getIOWriteWait() - writeWaitBefore;
     }
 
     return done;
@@ -692,22 +704,26 @@ public class DiskRunManager implements AutoCloseable {
     return iterators;
   }
 
+  private long getCopierReservation(List<DiskRun> diskRuns) {
+    // for now we always read one batch from all disk runs, so we need to make sure we have enough memory reserved
+    // to allocate the largest batch per run
+    long totalSizeNeeded = getMaxBatchSizeAllRuns(diskRuns);
+
+    // each run also reads ahead of the merge, in buffers allocated from the copy allocator
+    totalSizeNeeded += diskRuns.size() * spillManager.getReadAheadSize();
+
+    // add the required space for the copy output. We use * 3 to manage against a really large vector.
+    totalSizeNeeded += targetBatchSizeInBytes * 3;
+    return totalSizeNeeded;
+  }
+
   private void getCopierAllocator(List<DiskRun> diskRuns) {
     if (copierAllocator != null) {
       copierAllocator.close();
       copierAllocator = null;
     }
 
-    long totalSizeNeeded = 0;
-    // for now we always read one batch from all disk runs, so we need to make sure we have enough memory reserved
-    // to allocate the largest batch per run
-    for(DiskRun run : diskRuns){
-      long batchSize = nextPowerOfTwo(run.largestBatch);
-      totalSizeNeeded += batchSize;
-    }
-
-    // add the required space for the copy output. We use * 3 to manage against a really large vector.
-    totalSizeNeeded += targetBatchSizeInBytes * 3;
+    final long totalSizeNeeded = getCopierReservation(diskRuns);
 
     // because we can't know for sure how much memory will be needed for variable length vectors we don't put a limit
     // on the copy allocator. But this will still be capped by the sort allocator limit.
@@ -877,7 +893,7 @@ public class DiskRunManager implements AutoCloseable {
       try (RollbackCloseable rollback = new RollbackCloseable()){
         this.allocator = rollback.add(parentAllocator.newChildAllocator("diskrun", 0, memCapacity));
         this.container = rollback.add(VectorContainer.create(allocator, dataSchema));
-        this.inputStream = rollback.add(spillFile.open(useArrowEncoding && compressSpilledBatch));
+        this.inputStream = rollback.add(spillFile.open(useArrowEncoding && compressSpilledBatch, parentAllocator));
         this.batchIndexMax = batchCount;
         loadNextBatch(true);
         hyperContainer.addBatch(this.container);
@@ -987,6 +1003,18 @@ public class DiskRunManager implements AutoCloseable {
     return spillManager.getIOWriteWait();
   }
 
+  public long getAsyncWriteNanos() {
+    return spillManager.getAsyncWriteNanos();
+  }
+
+  public long getAsyncReadNanos() {
+    return spillManager.getAsyncReadNanos();
+  }
+
+  public long getUncompressedBlocks() {
+    return spillManager.getUncompressedBlocks();
+  }
+
   public long getOOMAllocateCount() {
     return oomAllocate;
   }
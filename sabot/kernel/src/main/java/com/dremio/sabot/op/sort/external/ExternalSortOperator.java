@@ -122,6 +122,7 @@ public class ExternalSortOperator implements SingleInputOperator {
   private int maxBatchesInMemory = 0;
   private int batchsizeMultiplier;
   private boolean enableSplaySort;
+  private boolean enableRadixSort;
   private boolean enableMicroSpill;
   private State prevState;
   private SortState prevSortState;
@@ -176,6 +177,11 @@ public class ExternalSortOperator implements SingleInputOperator {
 
     OOM_ALLOCATE_COUNT,
     OOM_COPY_COUNT,
+
+    ASYNC_WRITE_NANOS, // time spent writing spill files in the background, overlapped with compute
+    ASYNC_READ_NANOS, // time spent reading ahead spill files in the background, overlapped with compute
+    SPILL_COMPUTE_NANOS, // time spent spilling, excluding the time waiting for writes
+    UNCOMPRESSED_BLOCKS, // blocks of compressed spill files that were written uncompressed, as they didn't compress well
     ;
 
     @Override
@@ -218,6 +224,7 @@ public class ExternalSortOperator implements SingleInputOperator {
       final int varFieldSizeEstimate = (int) options.getOption(ExecConstants.BATCH_VARIABLE_FIELD_SIZE_ESTIMATE);
       final boolean compressSpilledBatch = options.getOption(ExecConstants.EXTERNAL_SORT_COMPRESS_SPILL_FILES);
       this.enableSplaySort = options.getOption(ExecConstants.EXTERNAL_SORT_ENABLE_SPLAY_SORT);
+      this.enableRadixSort = options.getOption(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT);
       this.unconsumedRef = null;
       this.enableMicroSpill = options.getOption(ExecConstants.EXTERNAL_SORT_ENABLE_MICRO_SPILL);
       this.consumePendingIncomingBatch = false;
@@ -225,7 +232,7 @@ public class ExternalSortOperator implements SingleInputOperator {
       this.prevSortState = null;
 
       this.memoryRun = new MemoryRun(config, producer, context.getAllocator(), incoming.getSchema(), tracer,
-        batchsizeMultiplier, enableSplaySort, targetBatchSize, context.getExecutionControls());
+        batchsizeMultiplier, enableSplaySort, enableRadixSort, targetBatchSize, context.getExecutionControls());
       rollback.add(this.memoryRun);
 
       this.incoming = incoming;
@@ -421,6 +428,10 @@ public class ExternalSortOperator implements SingleInputOperator {
       stats.setLongStat(Metric.OOM_ALLOCATE_COUNT, diskRuns.getOOMAllocateCount());
       stats.setLongStat(Metric.OOM_COPY_COUNT, diskRuns.getOOMCopyCount());
       stats.setLongStat(Metric.SPILL_COPY_NANOS, diskRuns.getSpillCopyNanos());
+      stats.setLongStat(Metric.ASYNC_WRITE_NANOS, diskRuns.getAsyncWriteNanos());
+      stats.setLongStat(Metric.ASYNC_READ_NANOS, diskRuns.getAsyncReadNanos());
+      stats.setLongStat(Metric.SPILL_COMPUTE_NANOS, diskRuns.spillComputeNanos());
+      stats.setLongStat(Metric.UNCOMPRESSED_BLOCKS, diskRuns.getUncompressedBlocks());
     }
 
   }
@@ -435,7 +446,7 @@ public class ExternalSortOperator implements SingleInputOperator {
     try {
       memoryRun.closeToDisk(diskRuns);
       memoryRun = new MemoryRun(config, producer, allocator, incoming.getSchema(), tracer,
-        batchsizeMultiplier, enableSplaySort, targetBatchSize, context.getExecutionControls());
+        batchsizeMultiplier, enableSplaySort, enableRadixSort, targetBatchSize, context.getExecutionControls());
     } catch (Exception e) {
       throw UserException.dataWriteError(e)
         .message("Failure while attempting to spill sort data to disk.")
@@ -464,7 +475,7 @@ public class ExternalSortOperator implements SingleInputOperator {
 
   private void finishMicroSpilling() throws Exception {
     memoryRun = new MemoryRun(config, producer, allocator, incoming.getSchema(), tracer,
-      batchsizeMultiplier, enableSplaySort, targetBatchSize, context.getExecutionControls());
+      batchsizeMultiplier, enableSplaySort, enableRadixSort, targetBatchSize, context.getExecutionControls());
 
     if (consumePendingIncomingBatch) {
       Preconditions.checkState(this.unconsumedRef != null);
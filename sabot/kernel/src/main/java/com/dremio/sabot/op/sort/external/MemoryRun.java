@@ -46,7 +46,8 @@ import com.google.common.collect.Lists;
 /**
  * Describes a set of ordered batches of data in memory. Sort each batch as it
  * is inserted using the Sorter.  Sorter can be configured to use QuickSort (by
- * default) or SplaySort.
+ * default) or SplaySort, and uses a RadixSorter when enabled and the leading
+ * sort key is a fixed width field.
  *
  * Memory Guarantees Targeted:
  * - Ensure that spilling can be done before accepting a new batch of records.
@@ -94,6 +95,7 @@ class MemoryRun implements AutoCloseable {
       ExternalSortTracer tracer,
       int batchsizeMultiplier,
       boolean useSplaySort,
+      boolean useRadixSort,
       int targetBatchSize,
       ExecutionControls executionControls
       ) {
@@ -108,6 +110,8 @@ class MemoryRun implements AutoCloseable {
     try {
       if (useSplaySort) {
         this.sorter = new SplaySorter(sortConfig, classProducer, schema, allocator);
+      } else if (useRadixSort && RadixSorter.canSort(sortConfig.getOrderings(), schema)) {
+        this.sorter = new RadixSorter(sortConfig, classProducer, schema, allocator);
       } else {
         this.sorter = new QuickSorter(sortConfig, classProducer, schema, allocator);
       }
@@ -32,6 +32,10 @@ public interface QuickSorterInterface extends AutoCloseable {
   void init(FunctionContext context, ExpandableHyperContainer hyperContainer) throws SchemaChangeException;
   void add(final RecordBatchData batch) throws SchemaChangeException;
   SelectionVector4 getFinalSort(BufferAllocator allocator, int targetBatchSize);
+  /**
+   * Sort the records of the data buffer between start (inclusive) and end (exclusive).
+   */
+  void sort(int start, int end);
   ExpandableHyperContainer getHyperBatch();
   void setDataBuffer(SimpleIntVector intVectorBuffer);
   void close() throws Exception;
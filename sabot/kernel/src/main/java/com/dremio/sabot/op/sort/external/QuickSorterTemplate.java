@@ -97,6 +97,11 @@ public abstract class QuickSorterTemplate implements QuickSorterInterface, Index
     return finalSortedSV4;
   }
 
+  @Override
+  public void sort(int start, int end) {
+    new QuickSort().sort(this, start, end);
+  }
+
   @Override
   public ExpandableHyperContainer getHyperBatch() {
     return hyperBatch;
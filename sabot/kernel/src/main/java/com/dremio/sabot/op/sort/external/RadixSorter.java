@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.calcite.rel.RelFieldCollation.Direction;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.Order.Ordering;
+import com.dremio.exec.exception.ClassTransformationException;
+import com.dremio.exec.exception.SchemaChangeException;
+import com.dremio.exec.expr.ClassGenerator;
+import com.dremio.exec.expr.ClassProducer;
+import com.dremio.exec.expr.CodeGenerator;
+import com.dremio.exec.physical.config.ExternalSort;
+import com.dremio.exec.record.ExpandableHyperContainer;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.selection.SelectionVector2;
+import com.dremio.exec.record.selection.SelectionVector4;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Sorts the records on their leading fixed width sort keys with a least significant digit radix sort, rather than by
+ * comparing pairs of records with the generated comparator.
+ *
+ * As each batch arrives, the leading keys of its records are normalized into a sequence of bytes whose unsigned
+ * lexicographic order is the order of the sort: a null flag byte per key, placed according to the null ordering,
+ * followed by the big endian value with its sign bit flipped, all complemented for a descending key. Each entry also
+ * holds the index of the record in the hyper batch. The histograms of all the digits are collected as the entries are
+ * written, and the final sort skips the digits all the records share.
+ *
+ * The keys that can't be normalized (variable width keys, or keys past {@link #MAX_RADIX_KEYS}) only break the ties of
+ * the radix sort, with the generated comparator of the {@link QuickSorter}.
+ */
+public class RadixSorter implements Sorter {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RadixSorter.class);
+
+  // number of leading keys normalized for the radix sort
+  static final int MAX_RADIX_KEYS = 2;
+  // size of the index of the record in the hyper batch, at the end of each entry
+  private static final int INDEX_SIZE = 4;
+  private static final int DIGIT_VALUES = 256;
+
+  private static final byte NULL_LOW = 0;
+  private static final byte NOT_NULL = 1;
+  private static final byte NULL_HIGH = 2;
+
+  /**
+   * A fixed width sort key, and how to normalize it.
+   */
+  private static final class RadixKey {
+    private final int fieldIndex;
+    private final int width;
+    private final boolean descending;
+    private final byte nullFlag;
+    // offset of the null flag of the key in the entry, followed by the value
+    private final int offset;
+
+    private RadixKey(int fieldIndex, int width, boolean descending, boolean nullsHigh, int offset) {
+      this.fieldIndex = fieldIndex;
+      this.width = width;
+      this.descending = descending;
+      this.nullFlag = nullsHigh ? NULL_HIGH : NULL_LOW;
+      this.offset = offset;
+    }
+
+    private void write(FieldVector vector, int index, long entryAddr) {
+      final long keyAddr = entryAddr + offset;
+      final boolean isNull = vector.isNull(index);
+      final long valueAddr = vector.getDataBufferAddress() + (long) index * width;
+      final byte flag = isNull ? nullFlag : NOT_NULL;
+      PlatformDependent.putByte(keyAddr, descending ? (byte) ~flag : flag);
+      switch (width) {
+        case 4: {
+          int value = isNull ? 0 : PlatformDependent.getInt(valueAddr) ^ Integer.MIN_VALUE;
+          PlatformDependent.putInt(keyAddr + 1, Integer.reverseBytes(descending ? ~value : value));
+          break;
+        }
+        case 8: {
+          long value = isNull ? 0 : PlatformDependent.getLong(valueAddr) ^ Long.MIN_VALUE;
+          PlatformDependent.putLong(keyAddr + 1, Long.reverseBytes(descending ? ~value : value));
+          break;
+        }
+        case 16: {
+          // 128 bits two's complement, little endian: the signed high word first, then the unsigned low word
+          long high = isNull ? 0 : PlatformDependent.getLong(valueAddr + 8) ^ Long.MIN_VALUE;
+          long low = isNull ? 0 : PlatformDependent.getLong(valueAddr);
+          PlatformDependent.putLong(keyAddr + 1, Long.reverseBytes(descending ? ~high : high));
+          PlatformDependent.putLong(keyAddr + 9, Long.reverseBytes(descending ? ~low : low));
+          break;
+        }
+        default:
+          throw new IllegalStateException("Unexpected key width " + width);
+      }
+    }
+  }
+
+  private final ExternalSort sortConfig;
+  private final ClassProducer classProducer;
+  private final Schema schema;
+  private final BufferAllocator allocator;
+
+  private final List<RadixKey> keys;
+  // true if some sort keys are not part of the radix sort, and break its ties
+  private final boolean hasTieBreaker;
+  // number of bytes of the normalized keys, each byte being a digit of the radix sort
+  private final int keyWidth;
+  // size of an entry: the normalized keys, padded, then the index of the record
+  private final int entryWidth;
+  private final int[][] histograms;
+
+  private QuickSorterInterface quickSorter;
+  private SimpleIntVector quickSorterBuffer;
+  private ArrowBuf entries;
+  private ArrowBuf scratch;
+  private int capacity;
+  private int count;
+
+  public RadixSorter(ExternalSort sortConfig, ClassProducer classProducer, Schema schema, BufferAllocator allocator) {
+    Preconditions.checkArgument(canSort(sortConfig.getOrderings(), schema), "Can't radix sort on %s",
+      sortConfig.getOrderings());
+    this.sortConfig = sortConfig;
+    this.classProducer = classProducer;
+    this.schema = schema;
+    this.allocator = allocator;
+
+    final List<RadixKey> keys = new ArrayList<>();
+    int offset = 0;
+    for (Ordering ordering : sortConfig.getOrderings()) {
+      final int fieldIndex = getFieldIndex(ordering.getExpr(), schema);
+      final int width = fieldIndex < 0 ? -1 : getKeyWidth(schema.getFields().get(fieldIndex));
+      if (width < 0 || keys.size() == MAX_RADIX_KEYS) {
+        break;
+      }
+      keys.add(new RadixKey(fieldIndex, width, ordering.getDirection() == Direction.DESCENDING,
+        ordering.nullsSortHigh(), offset));
+      offset += 1 + width;
+    }
+    this.keys = keys;
+    this.hasTieBreaker = keys.size() < sortConfig.getOrderings().size();
+    this.keyWidth = offset;
+    // pad the keys so that entries are moved 8 bytes at a time
+    this.entryWidth = (keyWidth + INDEX_SIZE + 7) & ~7;
+    this.histograms = new int[keyWidth][DIGIT_VALUES];
+    this.quickSorterBuffer = new SimpleIntVector("RadixSorterSimpleIntVector", allocator);
+    this.entries = allocator.getEmpty();
+    this.scratch = allocator.getEmpty();
+  }
+
+  /**
+   * @return true if the leading sort key is a fixed width field the radix sort can normalize
+   */
+  public static boolean canSort(List<Ordering> orderings, Schema schema) {
+    if (orderings.isEmpty()) {
+      return false;
+    }
+    final int fieldIndex = getFieldIndex(orderings.get(0).getExpr(), schema);
+    return fieldIndex >= 0 && getKeyWidth(schema.getFields().get(fieldIndex)) > 0;
+  }
+
+  private static int getFieldIndex(LogicalExpression expr, Schema schema) {
+    if (!(expr instanceof SchemaPath) || !((SchemaPath) expr).isSimplePath()) {
+      return -1;
+    }
+    final String name = ((SchemaPath) expr).getRootSegment().getPath();
+    final List<Field> fields = schema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      if (fields.get(i).getName().equalsIgnoreCase(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the width of the values of the field, or -1 if the radix sort can't normalize them
+   */
+  private static int getKeyWidth(Field field) {
+    switch (CompleteType.fromField(field).toMinorType()) {
+      case INT:
+      case TIME:
+        return 4;
+      case BIGINT:
+      case DATE:
+      case TIMESTAMP:
+        return 8;
+      case DECIMAL:
+        return 16;
+      default:
+        return -1;
+    }
+  }
+
+  @Override
+  public boolean expandMemoryIfNecessary(int newRequiredSize) {
+    try {
+      // Realloc QuickSorter SimpleIntVector, doubles size each time.
+      while (quickSorterBuffer.getValueCapacity() < newRequiredSize) {
+        quickSorterBuffer.reAlloc();
+      }
+      if (capacity < newRequiredSize) {
+        int newCapacity = Math.max(capacity, 1024);
+        while (newCapacity < newRequiredSize) {
+          newCapacity <<= 1;
+        }
+        // the scratch space is allocated upfront, the final sort can happen when the memory is exhausted
+        final long newSize = (long) newCapacity * entryWidth;
+        try (AutoCloseables.RollbackCloseable rollback = new AutoCloseables.RollbackCloseable()) {
+          final ArrowBuf newEntries = rollback.add(allocator.buffer(newSize));
+          final ArrowBuf newScratch = rollback.add(allocator.buffer(newSize));
+          PlatformDependent.copyMemory(entries.memoryAddress(), newEntries.memoryAddress(), (long) count * entryWidth);
+          rollback.commit();
+          entries.close();
+          scratch.close();
+          entries = newEntries;
+          scratch = newScratch;
+          capacity = newCapacity;
+        }
+      }
+    } catch (OutOfMemoryException ex) {
+      return false;
+    } catch (Exception ex) {
+      throw new RuntimeException(ex);
+    }
+
+    return true;
+  }
+
+  @Override
+  public void setup(VectorAccessible batch) throws ClassTransformationException, SchemaChangeException, IOException {
+    // The comparator breaks the ties of the radix sort, and holds the batches.
+    CodeGenerator<QuickSorterInterface> cg = classProducer.createGenerator(QuickSorterInterface.TEMPLATE_DEFINITION);
+    ClassGenerator<QuickSorterInterface> g = cg.getRoot();
+    final Sv4HyperContainer container = new Sv4HyperContainer(allocator, schema);
+    ExternalSortOperator.generateComparisons(g, container, sortConfig.getOrderings(), classProducer);
+    this.quickSorter = cg.getImplementationClass();
+    quickSorter.init(classProducer.getFunctionContext(), container);
+    quickSorter.setDataBuffer(quickSorterBuffer);
+  }
+
+  @Override
+  public void addBatch(RecordBatchData data, BufferAllocator copyTargetAllocator) throws SchemaChangeException {
+    final FieldVector[] vectors = new FieldVector[keys.size()];
+    for (int k = 0; k < vectors.length; k++) {
+      vectors[k] = data.getContainer().getValueAccessorById(FieldVector.class, keys.get(k).fieldIndex)
+        .getValueVector();
+    }
+
+    // adds the batch to the hyper batch, and its indices to the data buffer
+    quickSorter.add(data);
+
+    final SelectionVector2 sv2 = data.getSv2();
+    final int recordCount = data.getRecordCount();
+    Preconditions.checkState(count + recordCount <= capacity, "Radix sorter is full");
+    final long entriesAddr = entries.memoryAddress();
+    for (int i = 0; i < recordCount; i++, count++) {
+      final int index = sv2 != null ? sv2.getIndex(i) : i;
+      final long entryAddr = entriesAddr + (long) count * entryWidth;
+      // clear the padding, which is part of the compared keys
+      for (int offset = 0; offset < entryWidth; offset += 8) {
+        PlatformDependent.putLong(entryAddr + offset, 0);
+      }
+      for (int k = 0; k < vectors.length; k++) {
+        keys.get(k).write(vectors[k], index, entryAddr);
+      }
+      PlatformDependent.putInt(entryAddr + entryWidth - INDEX_SIZE, quickSorterBuffer.get(count));
+      for (int digit = 0; digit < keyWidth; digit++) {
+        histograms[digit][PlatformDependent.getByte(entryAddr + digit) & 0xFF]++;
+      }
+    }
+  }
+
+  @Override
+  public ExpandableHyperContainer getHyperBatch() {
+    if (quickSorter != null) {
+      return quickSorter.getHyperBatch();
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public int getHyperBatchSize() {
+    if (quickSorter != null) {
+      return quickSorter.getHyperBatch().size();
+    } else {
+      return 0;
+    }
+  }
+
+  @Override
+  public SelectionVector4 getFinalSort(BufferAllocator copyTargetAllocator, int targetBatchSize) {
+    final Stopwatch watch = Stopwatch.createStarted();
+
+    final int passes = sortEntries();
+    final long entriesAddr = entries.memoryAddress();
+    final long indexOffset = entryWidth - INDEX_SIZE;
+    for (int i = 0; i < count; i++) {
+      quickSorterBuffer.set(i, PlatformDependent.getInt(entriesAddr + (long) i * entryWidth + indexOffset));
+    }
+    quickSorterBuffer.setValueCount(count);
+    if (hasTieBreaker) {
+      breakTies();
+    }
+
+    final SelectionVector4 sv4 = new SelectionVector4(copyTargetAllocator.buffer(count * 4), count, targetBatchSize);
+    for (int i = 0; i < count; i++) {
+      sv4.set(i, quickSorterBuffer.get(i));
+    }
+
+    logger.debug("Took {} us to radix sort {} records in {} passes", watch.elapsed(TimeUnit.MICROSECONDS), count,
+      passes);
+    return sv4;
+  }
+
+  /**
+   * Sort the entries, one digit at a time starting from the least significant. Digits all the entries share are
+   * skipped.
+   *
+   * @return the number of passes over the entries
+   */
+  private int sortEntries() {
+    if (count == 0) {
+      return 0;
+    }
+    final int[] offsets = new int[DIGIT_VALUES];
+    int passes = 0;
+    for (int digit = keyWidth - 1; digit >= 0; digit--) {
+      final int[] histogram = histograms[digit];
+      long src = entries.memoryAddress();
+      if (histogram[PlatformDependent.getByte(src + digit) & 0xFF] == count) {
+        continue;
+      }
+
+      int start = 0;
+      for (int value = 0; value < DIGIT_VALUES; value++) {
+        offsets[value] = start;
+        start += histogram[value];
+      }
+
+      final long dstAddr = scratch.memoryAddress();
+      final long end = src + (long) count * entryWidth;
+      for (; src < end; src += entryWidth) {
+        final long dst = dstAddr + (long) offsets[PlatformDependent.getByte(src + digit) & 0xFF]++ * entryWidth;
+        for (int offset = 0; offset < entryWidth; offset += 8) {
+          PlatformDependent.putLong(dst + offset, PlatformDependent.getLong(src + offset));
+        }
+      }
+
+      final ArrowBuf sorted = scratch;
+      scratch = entries;
+      entries = sorted;
+      passes++;
+    }
+    return passes;
+  }
+
+  /**
+   * Sort the runs of entries with equal radix keys with the comparator.
+   */
+  private void breakTies() {
+    final long entriesAddr = entries.memoryAddress();
+    int start = 0;
+    for (int i = 1; i <= count; i++) {
+      if (i == count || !sameKeys(entriesAddr + (long) start * entryWidth, entriesAddr + (long) i * entryWidth)) {
+        if (i - start > 1) {
+          quickSorter.sort(start, i);
+        }
+        start = i;
+      }
+    }
+  }
+
+  private boolean sameKeys(long left, long right) {
+    // the keys and their padding, up to the index
+    final int keysEnd = entryWidth - INDEX_SIZE;
+    int offset = 0;
+    for (; offset + 8 <= keysEnd; offset += 8) {
+      if (PlatformDependent.getLong(left + offset) != PlatformDependent.getLong(right + offset)) {
+        return false;
+      }
+    }
+    return offset == keysEnd || PlatformDependent.getInt(left + offset) == PlatformDependent.getInt(right + offset);
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(quickSorterBuffer, entries, scratch);
+    quickSorterBuffer = null;
+  }
+}
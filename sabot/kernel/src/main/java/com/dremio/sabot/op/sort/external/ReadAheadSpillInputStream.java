@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Input stream that reads ahead from the underlying stream in the background.
+ *
+ * The underlying stream is read in fixed size buffers, up to a bounded number of buffers ahead of the caller.
+ * Reading starts as soon as the stream is opened, so that while a merge consumes the current batch of a run, the next
+ * batch of the same run is already being read from disk.
+ *
+ * The buffers are allocated from the given allocator when the stream is opened, so that they are accounted to the
+ * operator, and released when the stream is closed.
+ *
+ * A failure of a background read is reported once the data read before the failure has been consumed.
+ */
+class ReadAheadSpillInputStream extends InputStream {
+  // size of the heap buffer the background reader copies the buffers through.
+  private static final int TRANSFER_SIZE = 64 * 1024;
+
+  private final InputStream in;
+  private final Executor executor;
+  private final int bufferSize;
+  private final ArrowBuf buffers;
+  private final byte[] transfer;
+
+  private final Object lock = new Object();
+  // guarded by lock
+  private final ArrayDeque<ArrowBuf> freeBuffers = new ArrayDeque<>();
+  private final ArrayDeque<Chunk> readyChunks = new ArrayDeque<>();
+  private boolean readerRunning;
+  private boolean endOfStream;
+  private boolean closed;
+  private IOException failure;
+  private long backgroundReadNanos;
+
+  // only accessed by the caller thread
+  private Chunk current;
+  private int position;
+  private long waitNanos;
+
+  /**
+   * @throws org.apache.arrow.memory.OutOfMemoryException if the buffers can't be allocated.
+   */
+  ReadAheadSpillInputStream(InputStream in, Executor executor, BufferAllocator allocator, int bufferSize,
+                            int maxBuffers) {
+    Preconditions.checkArgument(bufferSize > 0, "buffer size must be positive");
+    Preconditions.checkArgument(maxBuffers >= 2, "at least two buffers are required");
+    this.in = in;
+    this.executor = executor;
+    this.bufferSize = bufferSize;
+    this.buffers = allocator.buffer((long) bufferSize * maxBuffers);
+    for (int i = 0; i < maxBuffers; i++) {
+      freeBuffers.add(buffers.slice((long) i * bufferSize, bufferSize));
+    }
+    this.transfer = new byte[Math.min(bufferSize, TRANSFER_SIZE)];
+    synchronized (lock) {
+      scheduleReadAhead();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!ensureChunk()) {
+      return -1;
+    }
+    final int b = current.buffer.getByte(position++) & 0xFF;
+    releaseIfConsumed();
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    Preconditions.checkPositionIndexes(off, off + len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+
+    int copied = 0;
+    while (copied < len && ensureChunk()) {
+      final int toCopy = Math.min(len - copied, current.length - position);
+      current.buffer.getBytes(position, b, off + copied, toCopy);
+      position += toCopy;
+      copied += toCopy;
+      releaseIfConsumed();
+    }
+    return copied == 0 ? -1 : copied;
+  }
+
+  @Override
+  public int available() {
+    return current == null ? 0 : current.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    boolean interrupted = false;
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      // the underlying stream can't be closed while the background reader uses it.
+      while (readerRunning) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      readyChunks.clear();
+      freeBuffers.clear();
+    }
+    current = null;
+    try {
+      in.close();
+    } finally {
+      buffers.close();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return time spent by the caller waiting for the background reader.
+   */
+  long getWaitNanos() {
+    return waitNanos;
+  }
+
+  /**
+   * @return time spent reading from the underlying stream in the background.
+   */
+  long getBackgroundReadNanos() {
+    synchronized (lock) {
+      return backgroundReadNanos;
+    }
+  }
+
+  /**
+   * Make sure there is a chunk with remaining data to read.
+   *
+   * @return false if the end of the stream is reached.
+   */
+  private boolean ensureChunk() throws IOException {
+    if (current != null) {
+      return true;
+    }
+
+    synchronized (lock) {
+      Preconditions.checkState(!closed, "stream is closed");
+      final long start = System.nanoTime();
+      try {
+        while (readyChunks.isEmpty()) {
+          if (failure != null) {
+            throw new IOException("Background spill read failed", failure);
+          }
+          if (endOfStream) {
+            return false;
+          }
+          scheduleReadAhead();
+          lock.wait();
+        }
+        current = readyChunks.poll();
+        position = 0;
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for spill reads");
+      } finally {
+        waitNanos += System.nanoTime() - start;
+      }
+    }
+  }
+
+  private void releaseIfConsumed() {
+    if (position < current.length) {
+      return;
+    }
+    synchronized (lock) {
+      freeBuffers.add(current.buffer);
+      current = null;
+      scheduleReadAhead();
+    }
+  }
+
+  /**
+   * Start the background reader if it isn't running, and there is both something to read and a buffer to read into.
+   * Must be called with the lock held.
+   */
+  private void scheduleReadAhead() {
+    if (readerRunning || closed || endOfStream || failure != null) {
+      return;
+    }
+    if (freeBuffers.isEmpty()) {
+      return;
+    }
+    readerRunning = true;
+    executor.execute(this::readAhead);
+  }
+
+  /**
+   * Fills buffers from the underlying stream, till no buffer is left, or the end of the stream.
+   */
+  private void readAhead() {
+    while (true) {
+      final ArrowBuf buffer;
+      synchronized (lock) {
+        if (closed || endOfStream || failure != null) {
+          readerRunning = false;
+          lock.notifyAll();
+          return;
+        }
+        buffer = freeBuffers.poll();
+        if (buffer == null) {
+          // rescheduled once the caller releases a buffer.
+          readerRunning = false;
+          lock.notifyAll();
+          return;
+        }
+      }
+
+      final long start = System.nanoTime();
+      int length = 0;
+      boolean reachedEnd = false;
+      IOException error = null;
+      try {
+        while (length < bufferSize) {
+          final int read = in.read(transfer, 0, Math.min(transfer.length, bufferSize - length));
+          if (read < 0) {
+            reachedEnd = true;
+            break;
+          }
+          buffer.setBytes(length, transfer, 0, read);
+          length += read;
+        }
+      } catch (IOException e) {
+        error = e;
+      } catch (RuntimeException e) {
+        error = new IOException(e);
+      }
+
+      synchronized (lock) {
+        backgroundReadNanos += System.nanoTime() - start;
+        if (length > 0) {
+          readyChunks.add(new Chunk(buffer, length));
+        } else {
+          freeBuffers.add(buffer);
+        }
+        if (error != null) {
+          failure = error;
+        }
+        if (reachedEnd) {
+          endOfStream = true;
+        }
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private static final class Chunk {
+    private final ArrowBuf buffer;
+    private final int length;
+
+    Chunk(ArrowBuf buffer, int length) {
+      this.buffer = buffer;
+      this.length = length;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import java.util.Locale;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
+/**
+ * Codecs used to compress spill files, selected per operator.
+ *
+ * Spill files are written as a sequence of blocks (see {@link CompressingSpillOutputStream}), each block recording
+ * how it was encoded. The codec only decides how blocks are compressed, so a reader doesn't need to know which codec
+ * was used to write a file.
+ */
+public enum SpillCompression {
+  /**
+   * Blocks are stored as is.
+   */
+  NONE {
+    @Override
+    LZ4Compressor newCompressor(int level) {
+      return null;
+    }
+  },
+
+  /**
+   * Fast LZ4 compression, for spills that are bound by CPU rather than by disk bandwidth.
+   */
+  LZ4 {
+    @Override
+    LZ4Compressor newCompressor(int level) {
+      return LZ4_FACTORY.fastCompressor();
+    }
+  },
+
+  /**
+   * High compression LZ4, trading compression CPU time for fewer bytes written. Uses the configured level, and
+   * decompresses as fast as {@link #LZ4}.
+   */
+  LZ4_HC {
+    @Override
+    LZ4Compressor newCompressor(int level) {
+      return LZ4_FACTORY.highCompressor(Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, level)));
+    }
+  };
+
+  public static final int MIN_LEVEL = 1;
+  public static final int MAX_LEVEL = 17;
+
+  private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+
+  /**
+   * @return compressor for the blocks of a spill file, or null if blocks are not compressed.
+   */
+  abstract LZ4Compressor newCompressor(int level);
+
+  /**
+   * Get the codec from the value of an option, case insensitive.
+   *
+   * @param value option value, may be null if the option is not set.
+   */
+  public static SpillCompression fromOption(String value) {
+    if (value == null) {
+      return NONE;
+    }
+    return valueOf(value.toUpperCase(Locale.ROOT));
+  }
+
+  static LZ4Factory lz4() {
+    return LZ4_FACTORY;
+  }
+}
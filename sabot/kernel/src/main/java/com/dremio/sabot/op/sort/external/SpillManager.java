@@ -22,9 +22,16 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -32,6 +39,7 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import com.dremio.common.concurrent.NamedThreadFactory;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.exec.ExecConstants;
@@ -44,11 +52,9 @@ import com.dremio.exec.store.OutputStreamWithStats;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.service.spill.SpillDirectory;
+import com.dremio.service.spill.SpillDirectoryStats;
 import com.dremio.service.spill.SpillService;
 
-import net.jpountz.lz4.LZ4BlockInputStream;
-import net.jpountz.lz4.LZ4BlockOutputStream;
-
 /**
  * Distribute spills across given list of directories.
  * Monitor disk space left and stop using disks which are running low on free space.
@@ -59,11 +65,24 @@ public class SpillManager implements AutoCloseable {
 
   static final String DREMIO_LOCAL_IMPL_STRING = "fs.dremio-local.impl";
 
+  // background writes and read-ahead of spill files, shared by all the spill managers. The tasks never wait for the
+  // callers, so queueing them behind a bounded number of threads can't deadlock.
+  private static final ThreadPoolExecutor asyncIOPool = newAsyncIOPool();
+
   private final String id;
   private final SpillService spillService;
   private final String caller;
   private final OperatorStats stats;
   private final boolean useDirectWritePathIfPossible;
+  private final boolean asyncIO;
+  private final BufferAllocator asyncIOAllocator;
+  private final int asyncIOBufferSize;
+  private final int asyncIOBuffers;
+  private final SpillCompression compression;
+  private final int compressionLevel;
+  private final double maxCompressionRatio;
+  // writes of the spill files not closed yet, abandoned when the manager is closed
+  private final Set<SpillDirectoryStats.Write> openWrites = ConcurrentHashMap.newKeySet();
   private long appWriteBytes;
   private long appReadBytes;
   private long ioReadBytes;
@@ -72,9 +91,24 @@ public class SpillManager implements AutoCloseable {
   private long decompressionNanos;
   private long ioReadWaitNanos;
   private long ioWriteWaitNanos;
+  private long asyncWriteNanos;
+  private long asyncReadNanos;
+  private long uncompressedBlocks;
 
   public SpillManager(SabotConfig sabotConfig, OptionManager optionManager, String id, Configuration hadoopConf,
       SpillService spillService, String caller, OperatorStats stats)  {
+    this(sabotConfig, optionManager, id, hadoopConf, spillService, caller, stats, null, SpillCompression.LZ4);
+  }
+
+  /**
+   * @param asyncIOAllocator if not null and enabled by {@link ExecConstants#EXTERNAL_SORT_ASYNC_SPILL_IO}, spill files
+   *                         are written in the background, and read ahead of the caller, through buffers allocated
+   *                         from this allocator.
+   * @param compression codec used for the spill files that are created compressed.
+   */
+  public SpillManager(SabotConfig sabotConfig, OptionManager optionManager, String id, Configuration hadoopConf,
+      SpillService spillService, String caller, OperatorStats stats, BufferAllocator asyncIOAllocator,
+      SpillCompression compression)  {
     final List<String> directories = new ArrayList<>(sabotConfig.getStringList(ExecConstants.SPILL_DIRS));
     if (directories.isEmpty()) {
       throw UserException.dataWriteError().message("No spill locations specified.").build(logger);
@@ -84,11 +118,24 @@ public class SpillManager implements AutoCloseable {
     this.id  = id;
     this.caller = caller;
     this.spillService = spillService;
+    this.compression = compression;
+    this.asyncIOAllocator = asyncIOAllocator;
     // load options
     if (optionManager != null) {
       this.useDirectWritePathIfPossible = optionManager.getOption(ExecConstants.EXTERNAL_SORT_DIRECT_WRITE);
+      this.asyncIO = asyncIOAllocator != null && optionManager.getOption(ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO);
+      this.asyncIOBufferSize = (int) optionManager.getOption(ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO_BUFFER_SIZE);
+      this.asyncIOBuffers = (int) optionManager.getOption(ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO_BUFFERS);
+      this.compressionLevel = (int) optionManager.getOption(ExecConstants.SPILL_COMPRESSION_LEVEL);
+      this.maxCompressionRatio = optionManager.getOption(ExecConstants.SPILL_COMPRESSION_MAX_RATIO);
+      setAsyncIOThreads((int) optionManager.getOption(ExecConstants.SPILL_ASYNC_IO_THREADS));
     } else {
       this.useDirectWritePathIfPossible = ExecConstants.EXTERNAL_SORT_DIRECT_WRITE.getDefault().getBoolVal();
+      this.asyncIO = asyncIOAllocator != null && ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO.getDefault().getBoolVal();
+      this.asyncIOBufferSize = (int) ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO_BUFFER_SIZE.getDefault().getNumVal().longValue();
+      this.asyncIOBuffers = (int) ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO_BUFFERS.getDefault().getNumVal().longValue();
+      this.compressionLevel = (int) ExecConstants.SPILL_COMPRESSION_LEVEL.getDefault().getNumVal().longValue();
+      this.maxCompressionRatio = ExecConstants.SPILL_COMPRESSION_MAX_RATIO.getDefault().getFloatVal();
     }
 
     try {
@@ -100,14 +147,50 @@ public class SpillManager implements AutoCloseable {
     }
   }
 
+  private static ThreadPoolExecutor newAsyncIOPool() {
+    final int threads = (int) ExecConstants.SPILL_ASYNC_IO_THREADS.getDefault().getNumVal().longValue();
+    final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(), new NamedThreadFactory("spill-io-"));
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  /**
+   * Resize the pool of the background spill I/O, if the option changed since the last spill manager was created.
+   */
+  private static synchronized void setAsyncIOThreads(int threads) {
+    if (threads > asyncIOPool.getMaximumPoolSize()) {
+      asyncIOPool.setMaximumPoolSize(threads);
+      asyncIOPool.setCorePoolSize(threads);
+    } else if (threads < asyncIOPool.getMaximumPoolSize()) {
+      asyncIOPool.setCorePoolSize(threads);
+      asyncIOPool.setMaximumPoolSize(threads);
+    }
+  }
+
+  /**
+   * @return executor of the background spill I/O, with a bounded number of threads shared by all the spilling
+   * operators. Its tasks must not wait for other tasks, or for the callers.
+   */
+  public static Executor getAsyncIOPool() {
+    return asyncIOPool;
+  }
+
   public String getId() {
     return id;
   }
 
+  /**
+   * @return memory taken by the read-ahead buffers of each open spill file, 0 if the spill files aren't read ahead.
+   */
+  public long getReadAheadSize() {
+    return asyncIO ? (long) asyncIOBufferSize * asyncIOBuffers : 0;
+  }
+
   public SpillFile getSpillFile(String fileName) throws RuntimeException {
     try {
       final SpillDirectory spillDirectory = spillService.getSpillSubdir(id);
-      return new SpillFile(spillDirectory.getFileSystem(), new Path(spillDirectory.getSpillDirPath(), fileName));
+      return new SpillFile(spillDirectory, new Path(spillDirectory.getSpillDirPath(), fileName));
     } catch (UserException e) {
       throw UserException.dataWriteError(e)
         .addContext("for %s spill id %s", caller, id)
@@ -118,15 +201,21 @@ public class SpillManager implements AutoCloseable {
 
   @Override
   public void close() throws Exception {
+    for (SpillDirectoryStats.Write write : openWrites) {
+      write.abandoned();
+    }
+    openWrites.clear();
     spillService.deleteSpillSubdirs(id);
   }
 
   final public class SpillFile implements AutoCloseable {
+    private final SpillDirectory directory;
     private final FileSystem fs;
     private final Path path;
 
-    SpillFile(FileSystem fs, Path path) {
-      this.fs = fs;
+    SpillFile(SpillDirectory directory, Path path) {
+      this.directory = directory;
+      this.fs = directory.getFileSystem();
       this.path = path;
     }
 
@@ -135,7 +224,21 @@ public class SpillManager implements AutoCloseable {
     }
 
     public SpillInputStream open(boolean compressed) throws IOException {
-      return createSpillInputStream(this, compressed);
+      return createSpillInputStream(this, compressed, 0, asyncIOAllocator);
+    }
+
+    /**
+     * @param readAheadAllocator allocator of the read-ahead buffers, see {@link #getReadAheadSize()}.
+     */
+    public SpillInputStream open(boolean compressed, BufferAllocator readAheadAllocator) throws IOException {
+      return createSpillInputStream(this, compressed, 0, readAheadAllocator);
+    }
+
+    /**
+     * @param bufferSize size of the reads from the file system, 0 for its default.
+     */
+    public SpillInputStream open(boolean compressed, int bufferSize) throws IOException {
+      return createSpillInputStream(this, compressed, bufferSize, asyncIOAllocator);
     }
 
     public FSDataOutputStream create() throws IOException {
@@ -188,6 +291,24 @@ public class SpillManager implements AutoCloseable {
 
   private SpillOutputStream createSpillOutputStream(SpillFile file, boolean compressed) throws IOException {
     FSDataOutputStream output = file.fs.create(file.path);
+    final SpillDirectoryStats.Write write = file.directory.writeStarted();
+    openWrites.add(write);
+    try {
+      return createSpillOutputStream(file, compressed, output, write);
+    } catch (IOException | RuntimeException e) {
+      openWrites.remove(write);
+      write.abandoned();
+      try {
+        output.close();
+      } catch (IOException ex) {
+        e.addSuppressed(ex);
+      }
+      throw e;
+    }
+  }
+
+  private SpillOutputStream createSpillOutputStream(SpillFile file, boolean compressed, FSDataOutputStream output,
+                                                    SpillDirectoryStats.Write write) throws IOException {
     OutputStream actualOutput = output;
     try {
       OutputStream inner = output.getWrappedStream();
@@ -197,31 +318,65 @@ public class SpillManager implements AutoCloseable {
     } catch (Exception ex) {
       logger.debug("Failed to get inner wrapped stream, using fallback.", ex);
     }
+    AsyncSpillOutputStream async = null;
+    if (asyncIO) {
+      try {
+        async = new AsyncSpillOutputStream(actualOutput, asyncIOPool, asyncIOAllocator, asyncIOBufferSize,
+          asyncIOBuffers);
+        actualOutput = async;
+      } catch (OutOfMemoryException e) {
+        logger.debug("Not enough memory for the buffers of the background writes, writing {} directly.", file.path, e);
+      }
+    }
     ABOutputStreamWithStats base = new ABOutputStreamWithStats(actualOutput);
-    ABOutputStreamWithStats top = compressed ? new ABOutputStreamWithStats(new LZ4BlockOutputStream(base)) : base;
-    boolean useDirectWrite = useDirectWritePathIfPossible && !compressed && actualOutput instanceof WritesArrowBuf;
-    return new SpillOutputStream(top, base, file, compressed, useDirectWrite);
+    CompressingSpillOutputStream codec = null;
+    if (isCompressed(compressed)) {
+      try {
+        codec = new CompressingSpillOutputStream(base, compression.newCompressor(compressionLevel), maxCompressionRatio);
+      } catch (RuntimeException e) {
+        // releases the buffers of the background writes
+        if (async != null) {
+          try {
+            async.close();
+          } catch (IOException ex) {
+            e.addSuppressed(ex);
+          }
+        }
+        throw e;
+      }
+    }
+    ABOutputStreamWithStats top = codec != null ? new ABOutputStreamWithStats(codec) : base;
+    boolean useDirectWrite = useDirectWritePathIfPossible && codec == null && actualOutput instanceof WritesArrowBuf;
+    return new SpillOutputStream(top, base, async, codec, file, write, useDirectWrite);
   }
 
   public class SpillOutputStream extends FilterOutputStream {
 
     private final ABOutputStreamWithStats top;
     private final ABOutputStreamWithStats base;
+    private final AsyncSpillOutputStream async;
+    private final CompressingSpillOutputStream codec;
     private final SpillFile file;
+    private final SpillDirectoryStats.Write write;
     private final boolean compressed;
     private final boolean writeDirect;
 
     private SpillOutputStream(
         ABOutputStreamWithStats top,
         ABOutputStreamWithStats base,
+        AsyncSpillOutputStream async,
+        CompressingSpillOutputStream codec,
         SpillFile file,
-        boolean compressed,
+        SpillDirectoryStats.Write write,
         boolean writeDirect) {
       super(top);
       this.top = top;
       this.base = base;
+      this.async = async;
+      this.codec = codec;
       this.file = file;
-      this.compressed = compressed;
+      this.write = write;
+      this.compressed = codec != null;
       this.writeDirect = writeDirect;
     }
 
@@ -241,10 +396,20 @@ public class SpillManager implements AutoCloseable {
       return base.getWriteBytes();
     }
 
+    /**
+     * @return time the caller spent on writes to disk (with async writes, only the time spent waiting for them).
+     */
     public long getIOTime() {
       return base.getWriteNanos() + base.getCloseNanos();
     }
 
+    /**
+     * @return time spent writing to disk in the background, overlapped with the caller.
+     */
+    public long getAsyncIOTime() {
+      return async == null ? 0 : async.getBackgroundWriteNanos();
+    }
+
     public long getCompressionTime() {
       if(!compressed) {
         return 0;
@@ -271,7 +436,13 @@ public class SpillManager implements AutoCloseable {
 
     @Override
     public void close() throws IOException {
-      super.close();
+      try {
+        super.close();
+      } finally {
+        // with async writes, the time the caller waited doesn't tell how fast the disk is.
+        write.completed(getIOBytes(), async != null ? getAsyncIOTime() : getIOTime());
+        openWrites.remove(write);
+      }
       if(stats != null) {
         stats.moveProcessingToWait(getIOTime());
       }
@@ -279,32 +450,59 @@ public class SpillManager implements AutoCloseable {
       appWriteBytes += getWriteBytes();
       ioWriteBytes += getIOBytes();
       compressionNanos += getCompressionTime();
+      asyncWriteNanos += getAsyncIOTime();
+      if (codec != null) {
+        uncompressedBlocks += codec.getUncompressedBlocks();
+      }
     }
 
   }
 
-  private SpillInputStream createSpillInputStream(SpillFile file, boolean compressed) throws IOException {
-    InputStream output = file.fs.open(file.path);
+  /**
+   * Files created compressed are only written in compressed blocks if the codec of this manager compresses. Since the
+   * files are read with the manager that created them, a file is read the same way it was written.
+   */
+  private boolean isCompressed(boolean compressed) {
+    return compressed && compression != SpillCompression.NONE;
+  }
+
+  private SpillInputStream createSpillInputStream(SpillFile file, boolean compressed, int bufferSize,
+                                                  BufferAllocator readAheadAllocator) throws IOException {
+    InputStream output = bufferSize > 0 ? file.fs.open(file.path, bufferSize) : file.fs.open(file.path);
+    ReadAheadSpillInputStream readAhead = null;
+    if (asyncIO) {
+      try {
+        readAhead = new ReadAheadSpillInputStream(output, asyncIOPool, readAheadAllocator, asyncIOBufferSize,
+          asyncIOBuffers);
+        output = readAhead;
+      } catch (OutOfMemoryException e) {
+        logger.debug("Not enough memory for the buffers of the read-ahead, reading {} directly.", file.path, e);
+      }
+    }
     InputStreamWithStats base = new InputStreamWithStats(output);
-    InputStreamWithStats top = compressed ? new InputStreamWithStats(new LZ4BlockInputStream(base)) : base;
-    return new SpillInputStream(top, base, file, compressed);
+    final boolean decompress = isCompressed(compressed);
+    InputStreamWithStats top = decompress ? new InputStreamWithStats(new DecompressingSpillInputStream(base)) : base;
+    return new SpillInputStream(top, base, readAhead, file, decompress);
   }
 
   public class SpillInputStream extends FilterInputStream {
 
     private final InputStreamWithStats top;
     private final InputStreamWithStats base;
+    private final ReadAheadSpillInputStream readAhead;
     private final SpillFile file;
     private boolean compressed;
 
     private SpillInputStream(
         InputStreamWithStats top,
         InputStreamWithStats base,
+        ReadAheadSpillInputStream readAhead,
         SpillFile file,
         boolean compressed) {
       super(top);
       this.top = top;
       this.base = base;
+      this.readAhead = readAhead;
       this.file = file;
       this.compressed = compressed;
     }
@@ -325,10 +523,20 @@ public class SpillManager implements AutoCloseable {
       return base.getReadBytes();
     }
 
+    /**
+     * @return time the caller spent on reads from disk (with read-ahead, only the time spent waiting for them).
+     */
     public long getIOTime() {
       return base.getReadNanos();
     }
 
+    /**
+     * @return time spent reading ahead from disk in the background, overlapped with the caller.
+     */
+    public long getAsyncIOTime() {
+      return readAhead == null ? 0 : readAhead.getBackgroundReadNanos();
+    }
+
     public long getDeompressionTime() {
       if(!compressed) {
         return 0;
@@ -352,6 +560,7 @@ public class SpillManager implements AutoCloseable {
       appReadBytes += getDecompressedBytes();
       ioReadBytes += getIOBytes();
       decompressionNanos += getDeompressionTime();
+      asyncReadNanos += getAsyncIOTime();
     }
   }
 
@@ -386,4 +595,19 @@ public class SpillManager implements AutoCloseable {
   public long getIOWriteWait() {
     return ioWriteWaitNanos;
   }
+
+  public long getAsyncWriteNanos() {
+    return asyncWriteNanos;
+  }
+
+  public long getAsyncReadNanos() {
+    return asyncReadNanos;
+  }
+
+  /**
+   * @return number of blocks written uncompressed to compressed spill files, as they didn't compress well enough.
+   */
+  public long getUncompressedBlocks() {
+    return uncompressedBlocks;
+  }
 }
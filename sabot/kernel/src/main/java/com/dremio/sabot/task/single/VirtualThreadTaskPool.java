@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.single;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+
+import com.dremio.config.DremioConfig;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.GroupManager;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.task.TaskPoolFactory;
+import com.dremio.sabot.task.slicing.SlicingTaskPool;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A task pool that dedicates one virtual thread to each task, like {@link DedicatedTaskPool} does with platform
+ * threads.<br>
+ * <br>
+ * A blocked fragment waits on the barrier of its {@link DedicatedFragmentRunnable}, which unmounts its virtual thread
+ * from its carrier thread, so that the many mostly blocked fragments of wide plans don't hold a thread and its stack.
+ * The JVM wide scheduler of the virtual threads has one carrier thread per core. It's left to the JVM flags to change
+ * it, with {@code -D}{@value #PARALLELISM_PROPERTY} in {@code DREMIO_JAVA_SERVER_EXTRA_OPTS} (see dremio-env).<br>
+ * <br>
+ * Virtual threads need Java 21. On older JVMs the factory falls back to the {@link SlicingTaskPool}, which doesn't
+ * hold a thread for blocked fragments either.
+ */
+public class VirtualThreadTaskPool implements TaskPool {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VirtualThreadTaskPool.class);
+
+  static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+  /**
+   * Factory for {@code VirtualThreadTaskPool}
+   */
+  public static final class Factory implements TaskPoolFactory {
+    @Override
+    public TaskPool newInstance(OptionManager options, DremioConfig config) {
+      final ThreadFactory threadFactory = newVirtualThreadFactory();
+      if (threadFactory == null) {
+        logger.warn("Virtual threads aren't supported by Java {}, using the slicing task pool instead",
+          System.getProperty("java.version"));
+        return new SlicingTaskPool.Factory().newInstance(options, config);
+      }
+      return new VirtualThreadTaskPool(threadFactory);
+    }
+  }
+
+  private final ThreadFactory threadFactory;
+  private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+  @VisibleForTesting
+  VirtualThreadTaskPool(ThreadFactory threadFactory) {
+    this.threadFactory = threadFactory;
+  }
+
+  /**
+   * @return a factory of virtual threads, or null if the JVM doesn't support them
+   */
+  @VisibleForTesting
+  static ThreadFactory newVirtualThreadFactory() {
+    try {
+      // Thread.ofVirtual().name("fragment-", 0).factory(), compiled against Java 8
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "fragment-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // older JVM, or preview feature not enabled
+      logger.debug("Virtual threads not available", e);
+      return null;
+    }
+  }
+
+  @Override
+  public void execute(AsyncTaskWrapper task) {
+    final DedicatedFragmentRunnable runnable = new DedicatedFragmentRunnable(task);
+    final Thread thread = threadFactory.newThread(() -> {
+      try {
+        runnable.run();
+      } finally {
+        threads.remove(Thread.currentThread());
+      }
+    });
+    task.setTaskHandle(runnable.toTaskHandle());
+    threads.add(thread);
+    thread.start();
+  }
+
+  @VisibleForTesting
+  int getNumThreads() {
+    return threads.size();
+  }
+
+  @Override
+  public void close() throws Exception {
+    threads.forEach(Thread::interrupt);
+  }
+
+  @Override
+  public GroupManager<AsyncTaskWrapper> getGroupManager() {
+    return DedicatedTaskPool.DUMMY_GROUP_MANAGER;
+  }
+}
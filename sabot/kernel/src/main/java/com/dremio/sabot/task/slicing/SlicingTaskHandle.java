@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+
+/**
+ * Handle of a task scheduled by the {@link SlicingTaskPool}.<br>
+ * <br>
+ * The virtual runtime of the task is the time it ran, divided by its share of the cpu. Each slicing thread runs the
+ * runnable task with the smallest virtual runtime, so that tasks get their weighted share of the cpu.
+ */
+class SlicingTaskHandle implements TaskHandle<AsyncTaskWrapper> {
+
+  private final SlicingTaskPool pool;
+  private final AsyncTaskWrapper task;
+  private final WeightedSchedulingGroup group;
+  private final long weight;
+
+  private volatile int thread;
+  // only updated while the task isn't in a run queue
+  private volatile double vRuntime;
+
+  SlicingTaskHandle(SlicingTaskPool pool, AsyncTaskWrapper task, WeightedSchedulingGroup group, long weight) {
+    this.pool = pool;
+    this.task = task;
+    this.group = group;
+    this.weight = weight;
+  }
+
+  @Override
+  public AsyncTaskWrapper getTask() {
+    return task;
+  }
+
+  @Override
+  public void reEnqueue() {
+    pool.reEnqueue(this);
+  }
+
+  @Override
+  public int getThread() {
+    return thread;
+  }
+
+  void setThread(int thread) {
+    this.thread = thread;
+  }
+
+  WeightedSchedulingGroup getGroup() {
+    return group;
+  }
+
+  long getWeight() {
+    return weight;
+  }
+
+  double getVRuntime() {
+    return vRuntime;
+  }
+
+  void setVRuntime(double vRuntime) {
+    this.vRuntime = vRuntime;
+  }
+
+  /**
+   * Charge the task for a quantum it ran.
+   */
+  void charge(long elapsedNanos) {
+    vRuntime += elapsedNanos / group.share(weight);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s on thread %d", task.getState(), thread);
+  }
+}
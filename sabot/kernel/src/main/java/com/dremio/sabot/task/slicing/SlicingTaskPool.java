@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.GroupManager;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.task.TaskPoolFactory;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * A task pool that runs the tasks in quanta on a fixed number of slicing threads, one per core by default.<br>
+ * <br>
+ * Each thread has its own run queue, ordered by the virtual runtime of the tasks, which grows with the time they ran
+ * divided by their share of the cpu in the tree of {@link SchedulingGroup}. New tasks go to the thread with the
+ * fewest tasks, threads whose run queue is empty steal runnable tasks from the others. Blocked tasks aren't in any run
+ * queue, they are put back in the run queue of their thread by their {@link com.dremio.sabot.threads.AvailabilityCallback}.
+ */
+public class SlicingTaskPool implements TaskPool {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SlicingTaskPool.class);
+
+  /**
+   * Factory for {@code SlicingTaskPool}
+   */
+  public static final class Factory implements TaskPoolFactory {
+    @Override
+    public TaskPool newInstance(OptionManager options, DremioConfig config) {
+      final int numThreads = (int) options.getOption(ExecConstants.SLICING_NUM_THREADS);
+      return new SlicingTaskPool(numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors());
+    }
+  }
+
+  private final Object treeLock = new Object();
+  private final WeightedSchedulingGroup root;
+  private final List<SlicingThread> threads = new ArrayList<>();
+  private final AtomicInteger nextThread = new AtomicInteger();
+
+  public SlicingTaskPool(int numThreads) {
+    Preconditions.checkArgument(numThreads > 0, "number of slicing threads must be positive");
+    this.root = new WeightedSchedulingGroup(this, null, 1);
+    for (int i = 0; i < numThreads; i++) {
+      threads.add(new SlicingThread(this, i));
+    }
+    threads.forEach(Thread::start);
+    logger.info("Started {} slicing threads", numThreads);
+  }
+
+  Object getTreeLock() {
+    return treeLock;
+  }
+
+  @Override
+  public void execute(AsyncTaskWrapper task) {
+    final SchedulingGroup<AsyncTaskWrapper> group = task.getSchedulingGroup();
+    if (group instanceof WeightedSchedulingGroup) {
+      group.addTask(task, task.getTaskWeight());
+    } else {
+      // group of another manager, share the cpu with the groups of the root
+      root.addTask(task, task.getTaskWeight());
+    }
+  }
+
+  /**
+   * Assign a new task to the thread with the fewest tasks, and make it runnable.
+   */
+  TaskHandle<AsyncTaskWrapper> schedule(WeightedSchedulingGroup group, AsyncTaskWrapper task, long weight) {
+    final SlicingTaskHandle handle = new SlicingTaskHandle(this, task, group, weight);
+    final SlicingThread thread = leastLoadedThread();
+    group.activate(weight);
+    thread.assign(handle);
+    // start from the thread's current virtual time, so that new tasks don't starve the others
+    handle.setVRuntime(thread.getMinVRuntime());
+    task.setTaskHandle(handle);
+    thread.enqueue(handle);
+    return handle;
+  }
+
+  private SlicingThread leastLoadedThread() {
+    final int start = Math.floorMod(nextThread.getAndIncrement(), threads.size());
+    SlicingThread best = threads.get(start);
+    for (int i = 1; i < threads.size(); i++) {
+      final SlicingThread thread = threads.get((start + i) % threads.size());
+      if (thread.getNumTasks() < best.getNumTasks()) {
+        best = thread;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Put a task which is no longer blocked back in the run queue of its thread.
+   */
+  void reEnqueue(SlicingTaskHandle handle) {
+    final SlicingThread thread = threads.get(handle.getThread());
+    // don't let a task which was blocked for long run until it catches up with the others
+    handle.setVRuntime(Math.max(handle.getVRuntime(), thread.getMinVRuntime()));
+    thread.enqueue(handle);
+  }
+
+  /**
+   * Steal a runnable task from the run queue of another thread.
+   *
+   * @return the stolen task, now assigned to the thief, or null if no other thread has a runnable task waiting
+   */
+  SlicingTaskHandle steal(SlicingThread thief) {
+    final int start = ThreadLocalRandom.current().nextInt(threads.size());
+    for (int i = 0; i < threads.size(); i++) {
+      final SlicingThread victim = threads.get((start + i) % threads.size());
+      if (victim == thief || victim.getNumStaged() == 0) {
+        continue;
+      }
+      final SlicingTaskHandle handle = victim.poll();
+      if (handle != null) {
+        victim.unassign();
+        thief.assign(handle);
+        // keep its position relative to the other tasks of the victim
+        handle.setVRuntime(handle.getVRuntime() - victim.getMinVRuntime() + thief.getMinVRuntime());
+        return handle;
+      }
+    }
+    return null;
+  }
+
+  void wakeUpIdleThread() {
+    for (SlicingThread thread : threads) {
+      if (thread.isIdle()) {
+        LockSupport.unpark(thread);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Forget a task which is done.
+   */
+  void done(SlicingTaskHandle handle) {
+    threads.get(handle.getThread()).unassign();
+    handle.getGroup().deactivate(handle.getWeight());
+  }
+
+  @Override
+  public Iterable<ThreadInfo> getSlicingThreads() {
+    final List<ThreadInfo> infos = new ArrayList<>(threads.size());
+    for (SlicingThread thread : threads) {
+      infos.add(thread.getThreadInfo());
+    }
+    return infos;
+  }
+
+  @Override
+  public boolean areAllThreadsAlive() {
+    return threads.stream().allMatch(Thread::isAlive);
+  }
+
+  @Override
+  public GroupManager<AsyncTaskWrapper> getGroupManager() {
+    return weight -> root.addGroup(weight, true);
+  }
+
+  @VisibleForTesting
+  int getNumThreads() {
+    return threads.size();
+  }
+
+  @Override
+  public void close() throws Exception {
+    threads.forEach(SlicingThread::shutdown);
+    for (SlicingThread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(5));
+      if (thread.isAlive()) {
+        logger.warn("Slicing thread {} didn't stop, interrupting it", thread.getName());
+        thread.interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dremio.common.perf.StatsCollectionEligibilityRegistrar;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.BlockRun;
+import com.dremio.sabot.task.TaskPool.ThreadInfo;
+
+/**
+ * Executing thread of the {@link SlicingTaskPool}. It runs quanta of the tasks of its own run queue, in the order of
+ * their virtual runtime, and steals runnable tasks from the other threads when its queue is empty.
+ */
+class SlicingThread extends Thread {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SlicingThread.class);
+
+  // bounds the latency of a missed wake up
+  private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final SlicingTaskPool pool;
+  private final int slicingThreadId;
+
+  // guarded by this
+  private final PriorityQueue<SlicingTaskHandle> runQueue =
+    new PriorityQueue<>(Comparator.comparingDouble(SlicingTaskHandle::getVRuntime));
+
+  private final AtomicInteger numTasks = new AtomicInteger();
+  private final AtomicInteger numWorkRequests = new AtomicInteger();
+  // virtual runtime of the last task picked from the run queue, never decreases
+  private volatile double minVRuntime;
+  private volatile boolean idle;
+  private volatile boolean running = true;
+
+  SlicingThread(SlicingTaskPool pool, int slicingThreadId) {
+    super("e" + slicingThreadId + " - slicing");
+    this.pool = pool;
+    this.slicingThreadId = slicingThreadId;
+    setDaemon(true);
+  }
+
+  int getSlicingThreadId() {
+    return slicingThreadId;
+  }
+
+  /**
+   * @return number of tasks assigned to the thread which aren't done, blocked ones included
+   */
+  int getNumTasks() {
+    return numTasks.get();
+  }
+
+  double getMinVRuntime() {
+    return minVRuntime;
+  }
+
+  boolean isIdle() {
+    return idle;
+  }
+
+  synchronized int getNumStaged() {
+    return runQueue.size();
+  }
+
+  /**
+   * Assign a new task, or a task stolen from another thread, to this thread.
+   */
+  void assign(SlicingTaskHandle handle) {
+    numTasks.incrementAndGet();
+    handle.setThread(slicingThreadId);
+  }
+
+  void unassign() {
+    numTasks.decrementAndGet();
+  }
+
+  /**
+   * Add a runnable task to the run queue, and wake up the thread if it is idle.
+   */
+  void enqueue(SlicingTaskHandle handle) {
+    final int staged;
+    synchronized (this) {
+      runQueue.add(handle);
+      staged = runQueue.size();
+    }
+    if (idle) {
+      LockSupport.unpark(this);
+    } else if (staged > 1) {
+      // busy, let an idle thread steal the task
+      pool.wakeUpIdleThread();
+    }
+  }
+
+  /**
+   * @return the runnable task with the smallest virtual runtime, or null if the run queue is empty
+   */
+  synchronized SlicingTaskHandle poll() {
+    return runQueue.poll();
+  }
+
+  void shutdown() {
+    running = false;
+    LockSupport.unpark(this);
+  }
+
+  ThreadInfo getThreadInfo() {
+    return new ThreadInfo(getName(), slicingThreadId, -1, -1, getNumTasks(), getNumStaged(), numWorkRequests.get(),
+      getId());
+  }
+
+  @Override
+  public void run() {
+    StatsCollectionEligibilityRegistrar.addSelf();
+    while (running) {
+      // put try inside the run loop so we don't lose threads with uncaught exceptions.
+      try {
+        SlicingTaskHandle handle = poll();
+        if (handle == null) {
+          numWorkRequests.incrementAndGet();
+          handle = pool.steal(this);
+        }
+        if (handle == null) {
+          park();
+          continue;
+        }
+        minVRuntime = Math.max(minVRuntime, handle.getVRuntime());
+        runQuantum(handle);
+      } catch (Throwable t) {
+        logger.error("Unhandled Exception in slicing thread {}.", slicingThreadId, t);
+      }
+    }
+  }
+
+  private void park() {
+    idle = true;
+    try {
+      // check again once idle is visible, a task enqueued before won't wake us up
+      if (getNumStaged() == 0 && running) {
+        LockSupport.parkNanos(this, PARK_NANOS);
+      }
+    } finally {
+      idle = false;
+    }
+  }
+
+  private void runQuantum(SlicingTaskHandle handle) throws Exception {
+    final AsyncTaskWrapper task = handle.getTask();
+    final long start = System.nanoTime();
+    try {
+      task.run();
+    } catch (Throwable t) {
+      logger.error("Unhandled Exception in task {}, dropping it.", task, t);
+      pool.done(handle);
+      return;
+    }
+    handle.charge(System.nanoTime() - start);
+
+    switch (task.getState()) {
+      case BLOCKED_ON_DOWNSTREAM:
+      case BLOCKED_ON_UPSTREAM:
+      case BLOCKED_ON_SHARED_RESOURCE:
+        // parked until the callback re-enqueues it, possibly right away
+        task.setAvailabilityCallback(new BlockRun(handle));
+        break;
+      case DONE:
+        try {
+          task.getCleaner().close();
+        } finally {
+          pool.done(handle);
+        }
+        break;
+      case RUNNABLE:
+      default:
+        enqueue(handle);
+        break;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+
+/**
+ * Scheduling group of the {@link SlicingTaskPool}.<br>
+ * <br>
+ * Groups form a tree whose leaves are the tasks. The share of the cpu of a task is its weight relative to the other
+ * active tasks of its group, times the share of its group relative to the other active groups of the parent, up to
+ * the root. A group is active while at least one of its tasks isn't done.
+ */
+class WeightedSchedulingGroup implements SchedulingGroup<AsyncTaskWrapper> {
+
+  private final SlicingTaskPool pool;
+  private final WeightedSchedulingGroup parent;
+  private final long weight;
+
+  // guarded by the lock of the pool's tree
+  private int activeTasks;
+  private volatile long activeWeight;
+
+  WeightedSchedulingGroup(SlicingTaskPool pool, WeightedSchedulingGroup parent, long weight) {
+    this.pool = pool;
+    this.parent = parent;
+    this.weight = clamp(weight);
+  }
+
+  static long clamp(long weight) {
+    return Math.max(1, Math.min(weight, TaskManager.MAX_WEIGHT));
+  }
+
+  /**
+   * @param weightBasedScheduler if false, the weight is ignored and the group gets the same share as its siblings
+   */
+  @Override
+  public SchedulingGroup<AsyncTaskWrapper> addGroup(long weight, boolean weightBasedScheduler) {
+    return new WeightedSchedulingGroup(pool, this, weightBasedScheduler ? weight : 1);
+  }
+
+  @Override
+  public TaskHandle<AsyncTaskWrapper> addTask(AsyncTaskWrapper task, long weight) {
+    return pool.schedule(this, task, clamp(weight));
+  }
+
+  /**
+   * Account for a new task of the given weight in this group, and its ancestors.
+   */
+  void activate(long taskWeight) {
+    synchronized (pool.getTreeLock()) {
+      long childWeight = taskWeight;
+      for (WeightedSchedulingGroup group = this; group != null; group = group.parent) {
+        final boolean wasActive = group.activeTasks > 0;
+        group.activeTasks++;
+        group.activeWeight += childWeight;
+        if (wasActive) {
+          // the ancestors already account for this group
+          break;
+        }
+        childWeight = group.weight;
+      }
+    }
+  }
+
+  /**
+   * Remove a done task of the given weight from this group, and its ancestors.
+   */
+  void deactivate(long taskWeight) {
+    synchronized (pool.getTreeLock()) {
+      long childWeight = taskWeight;
+      for (WeightedSchedulingGroup group = this; group != null; group = group.parent) {
+        group.activeTasks--;
+        group.activeWeight -= childWeight;
+        if (group.activeTasks > 0) {
+          break;
+        }
+        childWeight = group.weight;
+      }
+    }
+  }
+
+  /**
+   * @return the share of the cpu of an active task of this group, in ]0, 1]
+   */
+  double share(long taskWeight) {
+    double share = 1;
+    long childWeight = taskWeight;
+    for (WeightedSchedulingGroup group = this; group != null; group = group.parent) {
+      final long total = group.activeWeight;
+      if (total > 0) {
+        share *= Math.min(1d, (double) childWeight / total);
+      }
+      childWeight = group.weight;
+    }
+    return share;
+  }
+}
@@ -23,7 +23,9 @@ import java.io.IOException;
 import org.codehaus.commons.compiler.CompileException;
 import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.dremio.BaseTestQuery;
 import com.dremio.exec.compile.ClassTransformer.ClassSet;
@@ -47,6 +49,9 @@ public class TestClassTransformation extends BaseTestQuery {
 
   private static OptionManager sessionOptions;
 
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @BeforeClass
   public static void beforeTestClassTransformation() throws Exception {
     final UserSession userSession = UserSession.Builder.newBuilder()
@@ -113,6 +118,35 @@ public class TestClassTransformation extends BaseTestQuery {
     logger.debug("Optimized code is {}% smaller than debug code.", (int)((sizeWithDebug - sizeWithoutDebug)/(double)sizeWithDebug*100));
   }
 
+  @Test
+  public void testLoadFromPersistentCodeCache() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(temporaryFolder.newFolder().toPath(), "test", 10);
+    final ClassTransformer ct = new ClassTransformer(sessionOptions);
+    final ClassCompilerSelector classCompilerSelector = new ClassCompilerSelector(DEFAULT_SABOT_CONFIG, sessionOptions);
+
+    final CodeGenerator<ExampleInner> cg = newCodeGenerator(ExampleInner.class, ExampleTemplateWithInner.class);
+    cg.generate();
+    final String key = cache.key(cg.getDefinition().getTemplateClassName(), cg.getGenerifiedCode());
+    try (QueryClassLoader loader = new QueryClassLoader(classCompilerSelector)) {
+      ct.getImplementationClass(loader, cg.getDefinition(), cg.getGeneratedCode(), cg.getMaterializedClassName(),
+        compiled -> cache.put(key, compiled));
+    }
+
+    // the same code generated again, under another class name, is loaded from the cache
+    final CodeGenerator<ExampleInner> other = newCodeGenerator(ExampleInner.class, ExampleTemplateWithInner.class);
+    other.generate();
+    Assert.assertNotEquals(cg.getMaterializedClassName(), other.getMaterializedClassName());
+    final PersistentCodeCache.Entry entry =
+      cache.get(cache.key(other.getDefinition().getTemplateClassName(), other.getGenerifiedCode()));
+    Assert.assertNotNull(entry);
+    try (QueryClassLoader loader = new QueryClassLoader(classCompilerSelector)) {
+      Class<? extends ExampleInner> c = (Class<? extends ExampleInner>) ct.getImplementationClass(loader, other.getDefinition(), entry);
+      ExampleInner t = c.newInstance();
+      t.doOutside();
+      t.doInsideOutside();
+    }
+  }
+
   /**
    * Do a test of a three level class to ensure that nested code generators works correctly.
    * @throws Exception
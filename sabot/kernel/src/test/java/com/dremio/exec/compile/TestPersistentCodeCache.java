@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link PersistentCodeCache}
+ */
+public class TestPersistentCodeCache {
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path root;
+
+  @Before
+  public void setup() throws Exception {
+    root = temporaryFolder.newFolder("codecache").toPath();
+  }
+
+  private static PersistentCodeCache.Entry newEntry(String className) {
+    return new PersistentCodeCache.Entry(className, new ClassBytes[] {
+      new ClassBytes(className, new byte[] {1, 2, 3}),
+      new ClassBytes(className + "$Inner", new byte[] {4, 5})
+    }, TimeUnit.MILLISECONDS.toNanos(25));
+  }
+
+  @Test
+  public void keyIsContentAddressed() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0.0", 10);
+    assertEquals(cache.key("Template", "code"), cache.key("Template", "code"));
+    assertNotEquals(cache.key("Template", "code"), cache.key("Template", "other code"));
+    assertNotEquals(cache.key("Template", "code"), cache.key("OtherTemplate", "code"));
+    assertNotEquals(cache.key("Template", "code"), new PersistentCodeCache(root, "2.0.0", 10).key("Template", "code"));
+  }
+
+  @Test
+  public void warmedAfterRestart() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0.0", 10);
+    final String key = cache.key("Template", "code");
+    assertNull(cache.get(key));
+    cache.put(key, newEntry("com.dremio.s.ProjectorGen1"));
+    assertEquals(1, cache.getEntries());
+    assertEquals(1, cache.getMisses());
+
+    final PersistentCodeCache restarted = new PersistentCodeCache(root, "1.0.0", 10);
+    assertEquals(1, restarted.getWarmedEntries());
+    final PersistentCodeCache.Entry entry = restarted.get(key);
+    assertNotNull(entry);
+    assertEquals("com.dremio.s.ProjectorGen1", entry.getClassName());
+    assertEquals(2, entry.getClasses().length);
+    assertEquals("com.dremio.s.ProjectorGen1$Inner", entry.getClasses()[1].getName());
+    assertArrayEquals(new byte[] {4, 5}, entry.getClasses()[1].getBytes());
+    assertEquals(1, restarted.getHits());
+    assertEquals(25, restarted.getCompileMillisSaved());
+  }
+
+  @Test
+  public void otherVersionsDeleted() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0.0", 10);
+    final String key = cache.key("Template", "code");
+    cache.put(key, newEntry("com.dremio.s.ProjectorGen1"));
+
+    final PersistentCodeCache upgraded = new PersistentCodeCache(root, "2.0.0", 10);
+    assertFalse(Files.exists(cache.getDirectory()));
+    assertEquals(0, upgraded.getEntries());
+    assertNull(upgraded.get(upgraded.key("Template", "code")));
+  }
+
+  @Test
+  public void otherDirectoriesKept() throws Exception {
+    final Path other = Files.createDirectories(root.resolve("other"));
+    Files.write(other.resolve("file"), "not a cache entry".getBytes(StandardCharsets.UTF_8));
+
+    new PersistentCodeCache(root, "1.0.0", 10);
+    new PersistentCodeCache(root, "2.0.0", 10);
+    assertTrue(Files.exists(other.resolve("file")));
+  }
+
+  @Test
+  public void warmedEntriesBoundedBySize() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0.0", 10);
+    cache.put(cache.key("Template", "code"), newEntry("com.dremio.s.ProjectorGen1"));
+    cache.put(cache.key("Template", "other code"), newEntry("com.dremio.s.ProjectorGen2"));
+    final long entrySize = Files.size(cache.getDirectory().resolve(cache.key("Template", "code") + ".class"));
+
+    final PersistentCodeCache restarted = new PersistentCodeCache(root, "1.0.0", 10, entrySize);
+    assertEquals(2, restarted.getEntries());
+    assertEquals(1, restarted.getWarmedEntries());
+    // the entries which aren't warmed are read from disk
+    assertNotNull(restarted.get(cache.key("Template", "code")));
+    assertNotNull(restarted.get(cache.key("Template", "other code")));
+  }
+
+  @Test
+  public void unreadableEntryDropped() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0.0", 10);
+    final String key = cache.key("Template", "code");
+    final Path file = cache.getDirectory().resolve(key + ".class");
+    Files.write(file, "not a class".getBytes(StandardCharsets.UTF_8));
+
+    final PersistentCodeCache restarted = new PersistentCodeCache(root, "1.0.0", 10);
+    assertEquals(0, restarted.getWarmedEntries());
+    assertNull(restarted.get(key));
+    assertFalse(Files.exists(file));
+    assertEquals(0, restarted.getEntries());
+  }
+
+  @Test
+  public void maxEntries() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0.0", 1);
+    cache.put(cache.key("Template", "code"), newEntry("com.dremio.s.ProjectorGen1"));
+    cache.put(cache.key("Template", "other code"), newEntry("com.dremio.s.ProjectorGen2"));
+    assertEquals(1, cache.getEntries());
+    assertNull(cache.get(cache.key("Template", "code")));
+    assertNotNull(cache.get(cache.key("Template", "other code")));
+  }
+
+  @Test
+  public void leastRecentlyUsedEntriesEvicted() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0.0", 2);
+    final String recent = cache.key("Template", "code");
+    final String old = cache.key("Template", "old code");
+    cache.put(recent, newEntry("com.dremio.s.ProjectorGen1"));
+    cache.put(old, newEntry("com.dremio.s.ProjectorGen2"));
+    final long now = System.currentTimeMillis();
+    Files.setLastModifiedTime(cache.getDirectory().resolve(recent + ".class"), FileTime.fromMillis(now));
+    Files.setLastModifiedTime(cache.getDirectory().resolve(old + ".class"),
+      FileTime.fromMillis(now - TimeUnit.HOURS.toMillis(1)));
+
+    final String added = cache.key("Template", "new code");
+    cache.put(added, newEntry("com.dremio.s.ProjectorGen3"));
+    assertEquals(2, cache.getEntries());
+    assertNull(cache.get(old));
+    assertNotNull(cache.get(recent));
+    assertNotNull(cache.get(added));
+  }
+}
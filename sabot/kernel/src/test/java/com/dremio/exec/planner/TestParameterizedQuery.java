@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.junit.Test;
+
+import com.dremio.BaseTestQuery;
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.planner.sql.ParserConfig;
+
+/**
+ * Tests for {@link ParameterizedQuery}
+ */
+public class TestParameterizedQuery extends BaseTestQuery {
+
+  private static ParameterizedQuery parameterize(String sql) {
+    ParserConfig config = new ParserConfig(ParserConfig.QUOTING, 100, PlannerSettings.FULL_NESTED_SCHEMA_SUPPORT.getDefault().getBoolVal());
+    try {
+      return ParameterizedQuery.of(SqlParser.create(sql, config).parseStmt());
+    } catch (SqlParseException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  @Test
+  public void testSameShapeDifferentLiterals() {
+    ParameterizedQuery q1 = parameterize("select a, b from t where a = 12 and d >= DATE '2021-01-01' and c = 'xyz'");
+    ParameterizedQuery q2 = parameterize("select a, b from t where a = 42 and d >= DATE '2022-06-30' and c = 'abc'");
+    assertNotNull(q1);
+    assertNotNull(q2);
+    assertEquals(q1.getNormalizedSql(), q2.getNormalizedSql());
+    assertEquals(3, q1.getValues().size());
+    assertNotEquals(q1.getValues(), q2.getValues());
+  }
+
+  @Test
+  public void testLiteralTypesAreInKey() {
+    // INTEGER vs BIGINT
+    assertNotEquals(parameterize("select a from t where a = 1").getNormalizedSql(),
+      parameterize("select a from t where a = 10000000000").getNormalizedSql());
+    // CHAR(3) vs CHAR(4)
+    assertNotEquals(parameterize("select a from t where c = 'abc'").getNormalizedSql(),
+      parameterize("select a from t where c = 'abcd'").getNormalizedSql());
+    // DECIMAL(2,1) vs DECIMAL(3,2)
+    assertNotEquals(parameterize("select a from t where a > 1.5").getNormalizedSql(),
+      parameterize("select a from t where a > 1.55").getNormalizedSql());
+  }
+
+  @Test
+  public void testInListAndBetween() {
+    ParameterizedQuery q1 = parameterize("select a from t where a in (1, 2, 3) and b between 4 and 5");
+    ParameterizedQuery q2 = parameterize("select a from t where a in (7, 8, 9) and b between 10 and 20");
+    assertEquals(5, q1.getValues().size());
+    assertEquals(q1.getNormalizedSql(), q2.getNormalizedSql());
+  }
+
+  @Test
+  public void testOnlyFilterLiteralsAreParameterized() {
+    ParameterizedQuery q1 = parameterize("select a, 1 from t where a = 12 order by a limit 10");
+    ParameterizedQuery q2 = parameterize("select a, 2 from t where a = 12 order by a limit 20");
+    assertEquals(1, q1.getValues().size());
+    assertNotEquals(q1.getNormalizedSql(), q2.getNormalizedSql());
+
+    // function arguments can change the type of an expression
+    ParameterizedQuery q3 = parameterize("select a from t where round(a, 2) = 12");
+    ParameterizedQuery q4 = parameterize("select a from t where round(a, 3) = 12");
+    assertEquals(1, q3.getValues().size());
+    assertNotEquals(q3.getNormalizedSql(), q4.getNormalizedSql());
+  }
+
+  @Test
+  public void testSubQueryAndHaving() {
+    ParameterizedQuery q1 = parameterize(
+      "select a, count(*) from t where b in (select b from u where c = 1) group by a having count(*) > 10");
+    ParameterizedQuery q2 = parameterize(
+      "select a, count(*) from t where b in (select b from u where c = 2) group by a having count(*) > 20");
+    assertEquals(2, q1.getValues().size());
+    assertEquals(q1.getNormalizedSql(), q2.getNormalizedSql());
+  }
+
+  @Test
+  public void testNotParameterizable() {
+    assertNull(parameterize("select a from t"));
+    assertNull(parameterize("select a from t where a = ?"));
+    assertNull(parameterize("select a from t where a = 1.5e3"));
+  }
+
+  @Test
+  public void testRebindOnlyParameterizedLiterals() throws Exception {
+    final PlanCacheStats stats = PlanCache.getStats();
+    try (AutoCloseable ignored = withSystemOption(PlannerSettings.QUERY_PLAN_CACHE_PARAMETERIZE_LITERALS, true)) {
+      // the scan digest holds its split count, 1, which isn't a literal of the query
+      final long parameterizedEntries = stats.getParameterizedEntries();
+      testBuilder()
+        .sqlQuery("select employee_id + 1 as x, employee_id * 2 as y from cp.\"employee.json\" where employee_id = 1")
+        .unOrdered()
+        .baselineColumns("x", "y")
+        .baselineValues(2L, 2L)
+        .go();
+      assertEquals(parameterizedEntries + 1, stats.getParameterizedEntries());
+
+      // the select list literal has the value of the filter literal the plan is cached for
+      final long rebinds = stats.getRebinds();
+      testBuilder()
+        .sqlQuery("select employee_id + 1 as x, employee_id * 2 as y from cp.\"employee.json\" where employee_id = 2")
+        .unOrdered()
+        .baselineColumns("x", "y")
+        .baselineValues(3L, 4L)
+        .go();
+      assertEquals(rebinds + 1, stats.getRebinds());
+
+      // same values as the cached plan, nothing to re-bind
+      final long hits = stats.getHits();
+      testBuilder()
+        .sqlQuery("select employee_id + 1 as x, employee_id * 2 as y from cp.\"employee.json\" where employee_id = 1")
+        .unOrdered()
+        .baselineColumns("x", "y")
+        .baselineValues(2L, 2L)
+        .go();
+      assertEquals(hits + 1, stats.getHits());
+      assertEquals(rebinds + 1, stats.getRebinds());
+    }
+  }
+
+  @Test
+  public void testFoldedLiteralsAreNotRebound() throws Exception {
+    final PlanCacheStats stats = PlanCache.getStats();
+    try (AutoCloseable ignored = withSystemOption(PlannerSettings.QUERY_PLAN_CACHE_PARAMETERIZE_LITERALS, true)) {
+      // 5 > 3 is reduced to true during planning, its literals can't be found in the plan
+      final long nonRebindableEntries = stats.getNonRebindableEntries();
+      final long rebinds = stats.getRebinds();
+      testBuilder()
+        .sqlQuery("select employee_id from cp.\"employee.json\" where 5 > 3 and employee_id = 1")
+        .unOrdered()
+        .baselineColumns("employee_id")
+        .baselineValues(1L)
+        .go();
+      assertEquals(nonRebindableEntries + 1, stats.getNonRebindableEntries());
+
+      testBuilder()
+        .sqlQuery("select employee_id from cp.\"employee.json\" where 1 > 3 and employee_id = 2")
+        .expectsEmptyResultSet()
+        .go();
+      assertEquals(rebinds, stats.getRebinds());
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.io.AsyncByteReader;
+import com.dremio.test.AllocatorRule;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Test for {@link BlockCache}
+ */
+public class BlockCacheTest {
+  private static final String PLUGIN = "plugin";
+  private static final int BLOCK_SIZE = 16;
+  private static final byte[] DATA = new byte[100];
+  static {
+    for (int i = 0; i < DATA.length; i++) {
+      DATA[i] = (byte) i;
+    }
+  }
+
+  @Rule
+  public final TemporaryFolder tempDir = new TemporaryFolder();
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BlockCache cache;
+
+  /**
+   * A remote file, counting the reads
+   */
+  private static final class RemoteReader implements AsyncByteReader {
+    private int numReads;
+    private long bytesRead;
+    private boolean changed;
+
+    @Override
+    public CompletableFuture<Void> readFully(long offset, ByteBuf dst, int dstOffset, int len) {
+      numReads++;
+      bytesRead += len;
+      dst.setBytes(dstOffset, DATA, (int) offset, len);
+      return completedFuture;
+    }
+
+    @Override
+    public CompletableFuture<Void> checkVersion(String version) {
+      final CompletableFuture<Void> future = new CompletableFuture<>();
+      if (changed) {
+        future.completeExceptionally(new FileNotFoundException("File has changed"));
+      } else {
+        future.complete(null);
+      }
+      return future;
+    }
+  }
+
+  private void setUp(long maxSpace, int pluginMaxSpacePct) throws Exception {
+    setUp(maxSpace, pluginMaxSpacePct, Long.MAX_VALUE);
+  }
+
+  private void setUp(long maxSpace, int pluginMaxSpacePct, long maxPendingBytes) throws Exception {
+    final BufferAllocator allocator = allocatorRule.newAllocator("test-block-cache", 0, maxPendingBytes);
+    cache = new BlockCache(
+      Collections.singletonList(BlockCache.MountPoint.create(0, tempDir.newFolder().toPath(), maxSpace)),
+      BLOCK_SIZE, MoreExecutors.newDirectExecutorService(), allocator);
+    cache.setMaxSpacePct(PLUGIN, pluginMaxSpacePct);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    cache.close();
+  }
+
+  private AsyncByteReader newReader(RemoteReader remote, String version) {
+    return new BlockCacheAsyncByteReader(cache, remote, PLUGIN, "/file", version, () -> DATA.length);
+  }
+
+  private static void assertRead(AsyncByteReader reader, int offset, int len) throws Exception {
+    final ByteBuf buf = Unpooled.buffer(len);
+    try {
+      reader.readFully(offset, buf, 0, len).get();
+      final byte[] bytes = new byte[len];
+      buf.getBytes(0, bytes);
+      assertArrayEquals(Arrays.copyOfRange(DATA, offset, offset + len), bytes);
+    } finally {
+      buf.release();
+    }
+  }
+
+  @Test
+  public void readsAreServedFromCachedBlocks() throws Exception {
+    setUp(1024, 100);
+    final RemoteReader remote = new RemoteReader();
+    final AsyncByteReader reader = newReader(remote, "1");
+
+    // blocks 0 to 2 are read whole
+    assertRead(reader, 5, 40);
+    assertEquals(3, remote.numReads);
+    assertEquals(3, cache.getNumBlocks());
+
+    assertRead(reader, 5, 40);
+    assertRead(reader, 20, 3);
+    assertEquals(3, remote.numReads);
+
+    // the last block of the file is shorter
+    assertRead(reader, 40, 60);
+    assertEquals(7, remote.numReads);
+    assertRead(reader, 90, 10);
+    assertEquals(7, remote.numReads);
+    assertEquals(7, cache.getNumBlocks());
+  }
+
+  @Test
+  public void blocksAreCachedPerVersion() throws Exception {
+    setUp(1024, 100);
+    final RemoteReader remote = new RemoteReader();
+    assertRead(newReader(remote, "1"), 0, 16);
+    assertRead(newReader(remote, "2"), 0, 16);
+    assertEquals(2, remote.numReads);
+    assertEquals(2, cache.getNumBlocks());
+
+    // blocks aren't cached if the file doesn't match the expected version
+    remote.changed = true;
+    assertRead(newReader(remote, "3"), 0, 16);
+    assertRead(newReader(remote, "3"), 0, 16);
+    assertEquals(4, remote.numReads);
+    assertEquals(2, cache.getNumBlocks());
+  }
+
+  @Test
+  public void onlyTheRequestedRangeIsReadWhenBlocksCantBeCached() throws Exception {
+    // no memory to hold the blocks being cached
+    setUp(1024, 100, 0);
+    final RemoteReader remote = new RemoteReader();
+    final AsyncByteReader reader = newReader(remote, "1");
+
+    assertRead(reader, 5, 3);
+    assertRead(reader, 30, 20);
+    assertEquals(4, remote.numReads);
+    assertEquals(23, remote.bytesRead);
+    assertEquals(0, cache.getNumBlocks());
+  }
+
+  @Test
+  public void leastRecentlyUsedBlocksAreEvicted() throws Exception {
+    // room for 4 blocks, 2 of them for the plugin
+    setUp(4 * BLOCK_SIZE, 50);
+    final RemoteReader remote = new RemoteReader();
+    final AsyncByteReader reader = newReader(remote, "1");
+
+    assertRead(reader, 0, 16);
+    assertRead(reader, 16, 16);
+    assertRead(reader, 0, 16);
+    assertRead(reader, 32, 16);
+    assertEquals(3, remote.numReads);
+    assertEquals(2, cache.getNumBlocks());
+    assertEquals(1, cache.getEvictions());
+
+    assertRead(reader, 0, 16);
+    assertEquals(3, remote.numReads);
+    assertRead(reader, 16, 16);
+    assertEquals(4, remote.numReads);
+  }
+
+  @Test
+  public void streamReadsThroughTheCache() throws Exception {
+    setUp(1024, 100);
+    final RemoteReader remote = new RemoteReader();
+    try (AsyncByteReaderInputStream stream = new AsyncByteReaderInputStream(newReader(remote, "1"), DATA.length)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(10);
+      assertEquals(5, stream.read(95, buffer));
+      assertEquals(DATA[99], buffer.get(4));
+      assertEquals(-1, stream.read(100, buffer));
+
+      stream.setPosition(30);
+      buffer.clear();
+      assertEquals(10, stream.read(buffer));
+      assertEquals(40, stream.getPosition());
+      assertEquals(DATA[39], buffer.get(9));
+      // small reads are read ahead, up to the end of the file
+      assertEquals(6, remote.numReads);
+
+      stream.setPosition(50);
+      buffer.clear();
+      assertEquals(10, stream.read(buffer));
+      assertEquals(DATA[59], buffer.get(9));
+    }
+    assertEquals(6, remote.numReads);
+  }
+}
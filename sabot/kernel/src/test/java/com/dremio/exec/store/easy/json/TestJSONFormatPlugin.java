@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.json;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.dremio.exec.store.file.proto.FileProtobuf.FileSystemCachedEntity;
+import com.dremio.sabot.exec.store.easy.proto.EasyProtobuf.EasyDatasetSplitXAttr;
+
+/**
+ * Tests for the splits read by {@link JSONFormatPlugin}
+ */
+public class TestJSONFormatPlugin {
+  private static final long FILE_SIZE = 100;
+
+  private static EasyDatasetSplitXAttr split(long start, long length) {
+    return EasyDatasetSplitXAttr.newBuilder()
+      .setPath("/tmp/file.json")
+      .setStart(start)
+      .setLength(length)
+      .setUpdateKey(FileSystemCachedEntity.newBuilder()
+        .setPath("/tmp/file.json")
+        .setLastModificationTime(1)
+        .setLength(FILE_SIZE))
+      .build();
+  }
+
+  @Test
+  public void multipleSplitsAreHonoredOnceTheOptionIsOff() {
+    // metadata refreshed while store.json.block_splittable was on
+    for (boolean blockSplittable : new boolean[] {true, false}) {
+      assertFalse(JSONFormatPlugin.coversWholeFile(split(0, 60), blockSplittable));
+      assertFalse(JSONFormatPlugin.coversWholeFile(split(60, 40), blockSplittable));
+    }
+  }
+
+  @Test
+  public void singleSplitReadsTheWholeFile() {
+    for (boolean blockSplittable : new boolean[] {true, false}) {
+      assertTrue(JSONFormatPlugin.coversWholeFile(split(0, FILE_SIZE), blockSplittable));
+    }
+  }
+
+  @Test
+  public void splitsWithoutFileSizeFollowTheOption() {
+    final EasyDatasetSplitXAttr split = split(0, 60).toBuilder().clearUpdateKey().build();
+    assertFalse(JSONFormatPlugin.coversWholeFile(split, true));
+    assertTrue(JSONFormatPlugin.coversWholeFile(split, false));
+    assertFalse(JSONFormatPlugin.coversWholeFile(split(60, 40).toBuilder().clearUpdateKey().build(), false));
+  }
+}
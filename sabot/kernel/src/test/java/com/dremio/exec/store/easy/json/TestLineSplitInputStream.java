@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.dremio.io.FSInputStream;
+
+/**
+ * Tests for {@link LineSplitInputStream}
+ */
+public class TestLineSplitInputStream {
+  private static final String DATA =
+    "{\"a\": 1}\n{\"a\": 22}\n\n{\"a\": 333, \"b\": [1, 2, 3]}\r\n{\"a\": 4444}\n{\"a\": 5}";
+
+  /**
+   * A file held in memory
+   */
+  private static final class BytesInputStream extends FSInputStream {
+    private final byte[] bytes;
+    private int position;
+
+    private BytesInputStream(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return position < bytes.length ? bytes[position++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (position >= bytes.length) {
+        return -1;
+      }
+      // short reads, to cross the end of the splits at various points
+      final int read = Math.min(Math.min(len, 3), bytes.length - position);
+      System.arraycopy(bytes, position, b, off, read);
+      position += read;
+      return read;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) throws IOException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+      return position;
+    }
+
+    @Override
+    public void setPosition(long position) throws IOException {
+      this.position = (int) position;
+    }
+  }
+
+  private static String read(long start, long end) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = new LineSplitInputStream(
+      new BytesInputStream(DATA.getBytes(StandardCharsets.UTF_8)), start, end)) {
+      final byte[] buffer = new byte[16];
+      int read;
+      while ((read = in.read(buffer, 0, buffer.length)) >= 0) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void splitsReadEachLineOnce() throws Exception {
+    for (int splitSize = 1; splitSize <= DATA.length() + 1; splitSize++) {
+      final StringBuilder lines = new StringBuilder();
+      for (int start = 0; start < DATA.length(); start += splitSize) {
+        lines.append(read(start, start + splitSize));
+      }
+      assertEquals("split size " + splitSize, DATA, lines.toString());
+    }
+  }
+
+  @Test
+  public void splitStartingALineSkipsIt() throws Exception {
+    // the line starting at 9 is read by the split ending at 9
+    assertEquals("{\"a\": 1}\n{\"a\": 22}\n", read(0, 9));
+    assertEquals("\n", read(9, 19));
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.text.compliant;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.test.AllocatorRule;
+
+/**
+ * Tests for the scans of {@link TextInput}
+ */
+public class TestTextInput {
+  private static final byte[] STOPS = {',', '\n', '"', (byte) 0xff, 0};
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+
+  @Before
+  public void setUp() {
+    allocator = allocatorRule.newAllocator("test-text-input", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void tearDown() {
+    allocator.close();
+  }
+
+  private static int naiveIndexOfAny(ArrowBuf buf, int offset, int length, byte b1, byte b2, byte b3) {
+    for (int i = 0; i < length; i++) {
+      final byte b = buf.getByte(offset + i);
+      if (b == b1 || b == b2 || b == b3) {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  @Test
+  public void indexOfAnyFindsTheFirstMatch() {
+    final Random random = new Random(42);
+    try (ArrowBuf buf = allocator.buffer(256)) {
+      for (int iteration = 0; iteration < 1000; iteration++) {
+        // mostly letters, with a few bytes to stop at, including the ones with the high bit set
+        for (int i = 0; i < 256; i++) {
+          buf.setByte(i, random.nextInt(32) == 0 ? STOPS[random.nextInt(STOPS.length)] : 'a' + random.nextInt(26));
+        }
+        final byte b1 = STOPS[random.nextInt(STOPS.length)];
+        final byte b2 = STOPS[random.nextInt(STOPS.length)];
+        final byte b3 = STOPS[random.nextInt(STOPS.length)];
+        final int offset = random.nextInt(16);
+        final int length = random.nextInt(256 - offset);
+
+        assertEquals(naiveIndexOfAny(buf, offset, length, b1, b2, b3),
+          TextInput.indexOfAny(buf.memoryAddress() + offset, length, b1, b2, b3));
+      }
+    }
+  }
+
+  @Test
+  public void indexOfAnyStopsAtTheLength() {
+    try (ArrowBuf buf = allocator.buffer(32)) {
+      for (int i = 0; i < 32; i++) {
+        buf.setByte(i, 'a');
+      }
+      buf.setByte(20, ',');
+
+      assertEquals(20, TextInput.indexOfAny(buf.memoryAddress(), 32, (byte) ',', (byte) ',', (byte) ','));
+      assertEquals(19, TextInput.indexOfAny(buf.memoryAddress(), 19, (byte) ',', (byte) ',', (byte) ','));
+      assertEquals(0, TextInput.indexOfAny(buf.memoryAddress() + 20, 12, (byte) ',', (byte) '\n', (byte) '"'));
+      assertEquals(0, TextInput.indexOfAny(buf.memoryAddress(), 0, (byte) ',', (byte) ',', (byte) ','));
+    }
+  }
+}
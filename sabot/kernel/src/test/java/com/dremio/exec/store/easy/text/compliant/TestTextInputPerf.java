@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.easy.text.compliant;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.io.ArrowBufFSInputStream;
+import com.dremio.test.AllocatorRule;
+import com.google.common.base.Stopwatch;
+
+import io.netty.util.internal.PlatformDependent;
+
+/*
+ * Measure the scan of unquoted values by the text reader, appending a byte at a time or in bulk with
+ * TextInput.appendUntil, on narrow and wide values.
+ * Ignoring test by default, since it can take very long to run.
+ */
+@Ignore
+public class TestTextInputPerf {
+  private static final int DATA_SIZE = 128 * 1024 * 1024;
+  private static final int READ_BUFFER = 1024 * 1024;
+  private static final int RUNS = 5;
+  private static final byte DELIMITER = ',';
+  private static final byte NEW_LINE = '\n';
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+
+  @Before
+  public void setUp() {
+    allocator = allocatorRule.newAllocator("test-text-input-perf", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void tearDown() {
+    allocator.close();
+  }
+
+  /**
+   * Fill the buffer with lines of the given number of values, each of minLength to maxLength letters.
+   */
+  private static void fill(ArrowBuf data, int columns, int minLength, int maxLength) {
+    final Random random = new Random(42);
+    int index = 0;
+    int column = 0;
+    while (index < DATA_SIZE - 1) {
+      final int length = Math.min(minLength + random.nextInt(maxLength - minLength + 1), DATA_SIZE - 1 - index);
+      for (int i = 0; i < length; i++) {
+        data.setByte(index++, 'a' + random.nextInt(26));
+      }
+      column = (column + 1) % columns;
+      data.setByte(index++, column == 0 ? NEW_LINE : DELIMITER);
+    }
+    if (index < DATA_SIZE) {
+      data.setByte(index, NEW_LINE);
+    }
+  }
+
+  /**
+   * Read the values the way the text reader reads unquoted ones.
+   */
+  private static void scan(ArrowBuf data, ArrowBuf readBuffer, ValueOutput output, boolean bulk) throws IOException {
+    // the stream isn't closed, as it would release the data
+    final TextInput input = new TextInput(TextParsingSettings.DEFAULT, new ArrowBufFSInputStream(data), readBuffer, 0,
+      DATA_SIZE);
+    input.start();
+    try {
+      while (true) {
+        byte ch = input.nextChar();
+        while (ch != DELIMITER && ch != NEW_LINE) {
+          output.append(ch);
+          if (bulk) {
+            input.appendUntil(output, DELIMITER, NEW_LINE, NEW_LINE);
+          }
+          ch = input.nextChar();
+        }
+        output.endField();
+      }
+    } catch (StreamFinishedPseudoException e) {
+      // end of the data
+    }
+  }
+
+  private void runOne(String name, int columns, int minLength, int maxLength) throws Exception {
+    try (ArrowBuf data = allocator.buffer(DATA_SIZE);
+         ArrowBuf readBuffer = allocator.buffer(READ_BUFFER)) {
+      data.writerIndex(DATA_SIZE);
+      fill(data, columns, minLength, maxLength);
+
+      long expectedBytes = -1;
+      for (int run = 0; run < RUNS; run++) {
+        for (boolean bulk : new boolean[] {false, true}) {
+          final ValueOutput output = new ValueOutput();
+          final Stopwatch watch = Stopwatch.createStarted();
+          scan(data, readBuffer, output, bulk);
+          watch.stop();
+
+          if (expectedBytes < 0) {
+            expectedBytes = output.bytes;
+          }
+          assertEquals(expectedBytes, output.bytes);
+          final long millis = Math.max(1, watch.elapsed(TimeUnit.MILLISECONDS));
+          System.out.println(String.format("%s values, %s: %dms, %d MB/s, %d values", name,
+            bulk ? "bulk" : "byte by byte", millis, (DATA_SIZE / (1024 * 1024)) * 1000L / millis, output.values));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void narrowValues() throws Exception {
+    runOne("narrow", 16, 1, 8);
+  }
+
+  @Test
+  public void wideValues() throws Exception {
+    runOne("wide", 8, 64, 512);
+  }
+
+  /**
+   * Copies the values to a field buffer, as {@link FieldVarCharOutput} does.
+   */
+  private static final class ValueOutput extends TextOutput {
+    private final byte[] field = new byte[64 * 1024];
+    private int position;
+    private long bytes;
+    private long values;
+
+    private ValueOutput() {
+      super(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void append(byte data) {
+      field[position++] = data;
+    }
+
+    @Override
+    public void append(long address, int length) {
+      PlatformDependent.copyMemory(address, field, position, length);
+      position += length;
+    }
+
+    @Override
+    public boolean endField() {
+      bytes += position;
+      values++;
+      position = 0;
+      return true;
+    }
+
+    @Override
+    public void startField(int index) {
+    }
+
+    @Override
+    public boolean endEmptyField() {
+      return endField();
+    }
+
+    @Override
+    public void finishRecord() {
+    }
+
+    @Override
+    public long getRecordCount() {
+      return 0;
+    }
+
+    @Override
+    public void startBatch() {
+    }
+
+    @Override
+    public void finishBatch() {
+    }
+
+    @Override
+    public boolean rowHasData() {
+      return position > 0;
+    }
+  }
+}
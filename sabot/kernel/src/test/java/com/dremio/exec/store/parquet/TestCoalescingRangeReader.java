@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.exec.store.parquet.CoalescingRangeReader.InFlightBytes;
+import com.dremio.exec.store.parquet.CoalescingRangeReader.MergedRange;
+import com.dremio.exec.store.parquet.CoalescingRangeReader.Range;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.test.AllocatorRule;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Tests for {@link CoalescingRangeReader}
+ */
+public class TestCoalescingRangeReader {
+  private static final byte[] DATA = new byte[1000];
+  static {
+    for (int i = 0; i < DATA.length; i++) {
+      DATA[i] = (byte) i;
+    }
+  }
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+
+  /**
+   * A file, recording the requests
+   */
+  private static final class RecordingReader implements AsyncByteReader {
+    private final List<Range> requests = new ArrayList<>();
+
+    @Override
+    public CompletableFuture<Void> readFully(long offset, ByteBuf dst, int dstOffset, int len) {
+      requests.add(new Range(offset, len));
+      dst.setBytes(dstOffset, DATA, (int) offset, len);
+      return completedFuture;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    allocator = allocatorRule.newAllocator("test-coalescing-range-reader", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void tearDown() {
+    allocator.close();
+  }
+
+  @Test
+  public void nearbyRangesAreMerged() {
+    final List<MergedRange> plan = CoalescingRangeReader.plan(
+      Arrays.asList(new Range(300, 50), new Range(0, 100), new Range(110, 40), new Range(140, 20)), 10, 1000);
+
+    assertEquals(2, plan.size());
+    assertEquals(new Range(0, 160), plan.get(0).getRange());
+    assertEquals(Arrays.asList(new Range(0, 100), new Range(110, 40), new Range(140, 20)), plan.get(0).getRanges());
+    assertEquals(Arrays.asList(new Range(0, 160)), plan.get(0).getRequests());
+    assertEquals(new Range(300, 50), plan.get(1).getRange());
+  }
+
+  @Test
+  public void largeRangesAreSplit() {
+    final List<MergedRange> plan = CoalescingRangeReader.plan(
+      Arrays.asList(new Range(0, 250), new Range(250, 0)), 0, 100);
+
+    assertEquals(1, plan.size());
+    assertEquals(Arrays.asList(new Range(0, 84), new Range(84, 83), new Range(167, 83)), plan.get(0).getRequests());
+  }
+
+  @Test
+  public void rangesAreReadWithPlannedRequests() throws Exception {
+    final RecordingReader reader = new RecordingReader();
+    final ParquetReaderStats stats = new ParquetReaderStats();
+    final QueryId queryId = QueryId.newBuilder().setPart1(1).setPart2(2).build();
+    final List<Range> ranges = Arrays.asList(new Range(500, 300), new Range(0, 100), new Range(120, 30));
+
+    final List<ByteBuf> buffers = new CoalescingRangeReader(reader, allocator, 50, 200, queryId, 1000, stats)
+      .read(ranges);
+    try {
+      assertEquals(Arrays.asList(new Range(0, 150), new Range(500, 150), new Range(650, 150)), reader.requests);
+      assertEquals(3, stats.numReadRequests);
+      assertEquals(450, stats.totalReadRequestBytes);
+      assertEquals(1, stats.numMergedRanges);
+      assertEquals(0, InFlightBytes.getNumQueries());
+
+      for (int i = 0; i < ranges.size(); i++) {
+        final Range range = ranges.get(i);
+        final ByteBuf buffer = buffers.get(i);
+        assertEquals(range.getLength(), buffer.capacity());
+        for (int j = 0; j < range.getLength(); j++) {
+          assertEquals(DATA[(int) range.getOffset() + j], buffer.getByte(j));
+        }
+      }
+    } finally {
+      buffers.forEach(ByteBuf::release);
+    }
+  }
+
+  @Test
+  public void inFlightBytesAreSharedByQuery() throws Exception {
+    final QueryId queryId = QueryId.newBuilder().setPart1(3).setPart2(4).build();
+    try (InFlightBytes first = InFlightBytes.acquire(queryId, 100);
+         InFlightBytes second = InFlightBytes.acquire(queryId, 100)) {
+      assertEquals(1, InFlightBytes.getNumQueries());
+      // a request larger than the limit only waits for the others
+      final int permits = first.acquire(150);
+      assertEquals(100, permits);
+      first.release(permits);
+      second.release(second.acquire(100));
+    }
+    assertEquals(0, InFlightBytes.getNumQueries());
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.hadoop.HadoopFileSystem;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.Path;
+import com.google.common.io.Resources;
+
+/**
+ * Tests for {@link ParquetFooterCache}
+ */
+public class TestParquetFooterCache {
+  private static final long MAX_FOOTER_LEN = 16 * 1024 * 1024;
+
+  private FileSystem fs;
+  private Path path;
+  private long length;
+  private final List<BulkInputStream> streams = new ArrayList<>();
+
+  @Before
+  public void setup() throws Exception {
+    fs = HadoopFileSystem.getLocal(new Configuration());
+    path = Path.of(Resources.getResource("metadatarefresh/withHiddenFiles/0.parquet").toURI());
+    length = fs.getFileAttributes(path).size();
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    AutoCloseables.close(streams);
+  }
+
+  private BulkInputStream open() throws IOException {
+    final BulkInputStream stream = BulkInputStream.wrap(Streams.wrap(fs.open(path)));
+    streams.add(stream);
+    return stream;
+  }
+
+  private ParquetMetadata getFooter(ParquetFooterCache cache, long mTime, long maxFooterLen) throws IOException {
+    return cache.getFooter(fs, path, length, mTime, maxFooterLen, this::open);
+  }
+
+  @Test
+  public void footersAreCachedByFileVersion() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+
+    final ParquetMetadata footer = getFooter(cache, 1, MAX_FOOTER_LEN);
+    assertEquals(1, streams.size());
+    assertEquals(1, cache.getFooterMisses());
+    assertEquals(1, cache.getNumEntries());
+    assertTrue(cache.getSize() > 0);
+
+    final ParquetMetadata cached = getFooter(cache, 1, MAX_FOOTER_LEN);
+    assertEquals(1, streams.size());
+    assertEquals(1, cache.getFooterHits());
+    assertEquals(footer.getBlocks().size(), cached.getBlocks().size());
+
+    // each reader gets its own list of row groups to trim
+    cached.getBlocks().set(0, null);
+    assertNotNull(getFooter(cache, 1, MAX_FOOTER_LEN).getBlocks().get(0));
+
+    // the file was rewritten
+    getFooter(cache, 2, MAX_FOOTER_LEN);
+    assertEquals(2, streams.size());
+    assertEquals(2, cache.getFooterMisses());
+    assertEquals(2, cache.getNumEntries());
+
+    // unknown modification time
+    getFooter(cache, -1, MAX_FOOTER_LEN);
+    assertEquals(3, streams.size());
+    assertEquals(2, cache.getFooterMisses());
+    assertEquals(2, cache.getFooterHits());
+  }
+
+  @Test
+  public void footersAreWeighedByTheirColumnChunks() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final ParquetMetadata footer = getFooter(cache, 1, MAX_FOOTER_LEN);
+
+    int columnChunks = 0;
+    for (BlockMetaData block : footer.getBlocks()) {
+      columnChunks += block.getColumns().size();
+    }
+    assertTrue(columnChunks > 0);
+
+    // the serialized length is stored before the trailing magic
+    final byte[] file = Files.readAllBytes(Paths.get(Resources.getResource("metadatarefresh/withHiddenFiles/0.parquet").toURI()));
+    final int footerLength = ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    assertEquals(ParquetFooterCache.estimateSize(footer, footerLength), cache.getSize());
+    assertTrue(cache.getSize() > footerLength + columnChunks * 512L);
+  }
+
+  @Test
+  public void cachedFootersHonorMaxFooterLength() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    getFooter(cache, 1, MAX_FOOTER_LEN);
+
+    try {
+      getFooter(cache, 1, 1);
+      fail("footer is larger than the limit");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("Max supported footer size is 1"));
+    }
+  }
+
+  @Test
+  public void footersLargerThanTheCacheAreEvicted() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1);
+
+    getFooter(cache, 1, MAX_FOOTER_LEN);
+    getFooter(cache, 1, MAX_FOOTER_LEN);
+    assertEquals(2, streams.size());
+    assertEquals(2, cache.getEvictions());
+    assertEquals(0, cache.getNumEntries());
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void disabledCache() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(0);
+
+    getFooter(cache, 1, MAX_FOOTER_LEN);
+    getFooter(cache, 1, MAX_FOOTER_LEN);
+    assertEquals(2, streams.size());
+    assertEquals(0, cache.getFooterMisses());
+    assertEquals(0, cache.getNumEntries());
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.ColumnIndexBuilder;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndexBuilder;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Types;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.exec.util.RuntimeFilterTestUtils;
+import com.dremio.exec.util.ValueListFilter;
+import com.dremio.test.AllocatorRule;
+
+/**
+ * Tests for {@link ParquetRuntimeFilterEvaluator}
+ */
+public class TestParquetRuntimeFilterEvaluator {
+  private static final PrimitiveType INT_TYPE = Types.required(PrimitiveType.PrimitiveTypeName.INT32).named("col1");
+  private static final PrimitiveType BIGINT_TYPE = Types.required(PrimitiveType.PrimitiveTypeName.INT64).named("col1");
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator testAllocator;
+  private RuntimeFilterTestUtils utils;
+
+  @Before
+  public void setupBeforeTest() {
+    testAllocator = allocatorRule.newAllocator("test-parquet-runtime-filter-evaluator", 0, Long.MAX_VALUE);
+    utils = new RuntimeFilterTestUtils(testAllocator);
+  }
+
+  @After
+  public void cleanupAfterTest() {
+    testAllocator.close();
+  }
+
+  private static Statistics<?> stats(PrimitiveType type, long nulls, int... values) {
+    final Statistics<?> stats = Statistics.createStats(type);
+    for (int value : values) {
+      stats.updateStats(value);
+    }
+    for (long i = 0; i < nulls; i++) {
+      stats.incrementNumNulls();
+    }
+    return stats;
+  }
+
+  private static ColumnChunkMetaData column(PrimitiveType type, Statistics<?> stats) {
+    return ColumnChunkMetaData.get(ColumnPath.get(type.getName()), type, CompressionCodecName.UNCOMPRESSED, null,
+      Collections.singleton(Encoding.PLAIN), stats, 4, 0, 100, 1000, 1000);
+  }
+
+  @Test
+  public void unsupportedTypes() throws Exception {
+    try (ValueListFilter filter = utils.prepareNewValueListFilter("col1", false, 1, 2, 3)) {
+      assertNotNull(ParquetRuntimeFilterEvaluator.of(filter, column(INT_TYPE, stats(INT_TYPE, 0, 1))));
+      assertNull(ParquetRuntimeFilterEvaluator.of(filter, column(BIGINT_TYPE, Statistics.createStats(BIGINT_TYPE))));
+    }
+  }
+
+  @Test
+  public void chunkStatistics() throws Exception {
+    try (ValueListFilter filter = utils.prepareNewValueListFilter("col1", false, 10, -5, 30)) {
+      final ParquetRuntimeFilterEvaluator evaluator =
+        ParquetRuntimeFilterEvaluator.of(filter, column(INT_TYPE, stats(INT_TYPE, 0, 1)));
+      assertTrue(evaluator.mightMatch(stats(INT_TYPE, 0, -10, 0)));
+      assertTrue(evaluator.mightMatch(stats(INT_TYPE, 0, 30, 40)));
+      assertFalse(evaluator.mightMatch(stats(INT_TYPE, 0, 11, 29)));
+      assertFalse(evaluator.mightMatch(stats(INT_TYPE, 0, 31, 100)));
+      assertFalse(evaluator.mightMatch(stats(INT_TYPE, 3)));
+      assertTrue(evaluator.mightMatch(Statistics.createStats(INT_TYPE)));
+    }
+  }
+
+  @Test
+  public void nullsMatchFilterWithNull() throws Exception {
+    try (ValueListFilter filter = utils.prepareNewValueListFilter("col1", true, 10)) {
+      final ParquetRuntimeFilterEvaluator evaluator =
+        ParquetRuntimeFilterEvaluator.of(filter, column(INT_TYPE, stats(INT_TYPE, 0, 1)));
+      assertTrue(evaluator.mightMatch(stats(INT_TYPE, 2, 11, 29)));
+      assertFalse(evaluator.mightMatch(stats(INT_TYPE, 0, 11, 29)));
+    }
+  }
+
+  @Test
+  public void columnIndex() throws Exception {
+    try (ValueListFilter filter = utils.prepareNewValueListFilter("col1", false, 15, 42)) {
+      final ParquetRuntimeFilterEvaluator evaluator =
+        ParquetRuntimeFilterEvaluator.of(filter, column(INT_TYPE, stats(INT_TYPE, 0, 1)));
+
+      final ColumnIndexBuilder columnIndexBuilder = ColumnIndexBuilder.getBuilder(INT_TYPE, Integer.MAX_VALUE);
+      columnIndexBuilder.add(stats(INT_TYPE, 0, 0, 9));
+      columnIndexBuilder.add(stats(INT_TYPE, 0, 10, 19));
+      columnIndexBuilder.add(stats(INT_TYPE, 0, 20, 29));
+      columnIndexBuilder.add(stats(INT_TYPE, 5));
+      final ColumnIndex columnIndex = columnIndexBuilder.build();
+      final boolean[] skippable = evaluator.getSkippablePages(columnIndex);
+      assertArrayEquals(new boolean[] {true, false, true, true}, skippable);
+
+      final OffsetIndexBuilder offsetIndexBuilder = OffsetIndexBuilder.getBuilder();
+      for (int page = 0; page < 4; page++) {
+        offsetIndexBuilder.add(100, 10);
+      }
+      final OffsetIndex offsetIndex = offsetIndexBuilder.build();
+      final List<long[]> rows = ParquetRuntimeFilterEvaluator.getSkippableRows(skippable, offsetIndex, 40);
+      assertEquals(3, rows.size());
+      assertArrayEquals(new long[] {0, 9}, rows.get(0));
+      assertArrayEquals(new long[] {20, 29}, rows.get(1));
+      assertArrayEquals(new long[] {30, 39}, rows.get(2));
+      assertFalse(ParquetRuntimeFilterEvaluator.coversAllRows(rows, 40));
+    }
+  }
+
+  @Test
+  public void coversAllRows() {
+    assertTrue(ParquetRuntimeFilterEvaluator.coversAllRows(
+      Arrays.asList(new long[] {10, 39}, new long[] {0, 4}, new long[] {5, 12}), 40));
+    assertFalse(ParquetRuntimeFilterEvaluator.coversAllRows(
+      Arrays.asList(new long[] {10, 39}, new long[] {0, 8}), 40));
+    assertFalse(ParquetRuntimeFilterEvaluator.coversAllRows(
+      Collections.singletonList(new long[] {0, 38}), 40));
+  }
+
+  @Test
+  public void dictionary() throws Exception {
+    final Dictionary dictionary = new Dictionary(Encoding.PLAIN_DICTIONARY) {
+      private final int[] values = {3, 8, 12, 100};
+
+      @Override
+      public int getMaxId() {
+        return values.length - 1;
+      }
+
+      @Override
+      public int decodeToInt(int id) {
+        return values[id];
+      }
+    };
+    try (ValueListFilter matching = utils.prepareNewValueListFilter("col1", false, 5, 12);
+         ValueListFilter notMatching = utils.prepareNewValueListFilter("col1", true, 5, 11, 13)) {
+      final ColumnChunkMetaData column = column(INT_TYPE, stats(INT_TYPE, 0, 3, 100));
+      assertTrue(ParquetRuntimeFilterEvaluator.of(matching, column).mightMatch(dictionary, false));
+      assertFalse(ParquetRuntimeFilterEvaluator.of(notMatching, column).mightMatch(dictionary, false));
+      assertTrue(ParquetRuntimeFilterEvaluator.of(notMatching, column).mightMatch(dictionary, true));
+    }
+  }
+}
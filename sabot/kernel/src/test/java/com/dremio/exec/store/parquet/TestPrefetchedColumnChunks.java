@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.exec.store.parquet.CoalescingRangeReader.Range;
+import com.dremio.exec.store.parquet.PrefetchedColumnChunks.PrefetchedStream;
+import com.dremio.test.AllocatorRule;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.NettyArrowBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Tests for the streams over the chunks of {@link PrefetchedColumnChunks}
+ */
+public class TestPrefetchedColumnChunks {
+  private static final byte[] DATA = new byte[1000];
+  static {
+    for (int i = 0; i < DATA.length; i++) {
+      DATA[i] = (byte) i;
+    }
+  }
+
+  private static final Range CHUNK = new Range(100, 100);
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+  private int numOpens;
+  private FileStream file;
+
+  /**
+   * The file, read when the stream is positioned outside of the chunk
+   */
+  private static final class FileStream implements BulkInputStream {
+    private long position;
+    private boolean closed;
+
+    @Override
+    public void seek(long offset) {
+      position = offset;
+    }
+
+    @Override
+    public void readFully(ByteBuf buf, int length) throws IOException {
+      if (position + length > DATA.length) {
+        throw new EOFException();
+      }
+      buf.writeBytes(DATA, (int) position, length);
+      position += length;
+    }
+
+    @Override
+    public long getPos() {
+      return position;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    allocator = allocatorRule.newAllocator("test-prefetched-column-chunks", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void tearDown() {
+    allocator.close();
+  }
+
+  private PrefetchedStream newStream() {
+    final ByteBuf chunk = NettyArrowBuf.unwrapBuffer(allocator.buffer(CHUNK.getLength()));
+    chunk.setBytes(0, DATA, (int) CHUNK.getOffset(), (int) CHUNK.getLength());
+    return new PrefetchedStream(CHUNK, chunk, () -> {
+      numOpens++;
+      file = new FileStream();
+      return file;
+    });
+  }
+
+  private static void assertRead(BulkInputStream stream, int offset, int length) throws IOException {
+    final byte[] bytes = new byte[length];
+    stream.seek(offset);
+    stream.readFully(bytes, 0, length);
+    assertArrayEquals(Arrays.copyOfRange(DATA, offset, offset + length), bytes);
+    assertEquals(offset + length, stream.getPos());
+  }
+
+  @Test
+  public void readsWithinTheChunk() throws Exception {
+    try (PrefetchedStream stream = newStream()) {
+      assertEquals(CHUNK.getOffset(), stream.getPos());
+      assertRead(stream, 100, 10);
+      assertRead(stream, 150, 20);
+      assertEquals(0, numOpens);
+    }
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void seekOutsideTheChunkOpensTheFile() throws Exception {
+    try (PrefetchedStream stream = newStream()) {
+      assertRead(stream, 50, 10);
+      assertEquals(1, numOpens);
+
+      // back in the chunk, the file stays open
+      assertRead(stream, 120, 10);
+      assertRead(stream, 300, 10);
+      assertEquals(1, numOpens);
+    }
+    assertTrue(file.closed);
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void readAcrossTheChunkEnd() throws Exception {
+    try (PrefetchedStream stream = newStream()) {
+      assertRead(stream, 190, 20);
+      assertEquals(1, numOpens);
+      // the chunk wasn't read to its end
+      assertEquals(CHUNK.getLength(), allocator.getAllocatedMemory());
+
+      final ByteBuf buf = Unpooled.buffer(10);
+      try {
+        stream.seek(180);
+        stream.readFully(buf, 10);
+        assertEquals(10, buf.writerIndex());
+        assertEquals(DATA[189], buf.getByte(9));
+      } finally {
+        buf.release();
+      }
+    }
+    assertTrue(file.closed);
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void chunkIsReleasedAtItsEnd() throws Exception {
+    try (PrefetchedStream stream = newStream()) {
+      final ByteBuf buf = Unpooled.buffer(100);
+      try {
+        stream.readFully(buf, 100);
+        assertEquals(DATA[199], buf.getByte(99));
+      } finally {
+        buf.release();
+      }
+      assertEquals(0, allocator.getAllocatedMemory());
+      assertEquals(0, numOpens);
+
+      // the following reads go to the file
+      assertRead(stream, 200, 10);
+      assertRead(stream, 150, 10);
+      assertEquals(1, numOpens);
+    }
+    assertTrue(file.closed);
+  }
+}
@@ -16,12 +16,14 @@
 package com.dremio.exec.work.batch;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -43,6 +45,7 @@ import com.dremio.common.config.SabotConfig;
 import com.dremio.common.util.TestTools;
 import com.dremio.common.utils.protos.ExternalIdHelper;
 import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.ExecTest;
 import com.dremio.exec.proto.CoordinationProtos;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
@@ -123,6 +126,63 @@ public class TestSpoolingBuffer extends ExecTest {
 
   }
 
+  @Test
+  public void testSpoolOnlyWhenConsumerFallsBehind() throws Exception {
+    SharedResource resource = mock(SharedResource.class);
+    QueryId queryId = ExternalIdHelper.toQueryId(ExternalIdHelper.generateExternalId());
+    FragmentHandle handle = FragmentHandle.newBuilder().setMajorFragmentId(0).setMinorFragmentId(0).setQueryId(queryId).build();
+    FragmentWorkQueue queue = mock(FragmentWorkQueue.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocationOnMock) throws Throwable {
+        invocationOnMock.getArgument(0, Runnable.class).run();
+        return null;
+      }
+    }).when(queue).put(any(Runnable.class));
+
+    // the consumer always drains the queued batches fast enough
+    final Properties properties = new Properties();
+    properties.setProperty(ExecConstants.SPOOLING_BUFFER_MAX_DRAIN_MILLIS, "60000");
+    SabotConfig config = SabotConfig.create(properties);
+    final SpillService spillService = setupSpillService(config);
+
+    try (BufferAllocator spoolingAllocator = allocatorRule.newAllocator("test-spooling-buffer", 0, Long.MAX_VALUE);
+         SpoolingRawBatchBuffer buffer = new SpoolingRawBatchBuffer(resource, config, queue, handle, spillService, spoolingAllocator, 1, 0, 0)) {
+      buffer.init();
+
+      int nBatches = 0;
+      for (int i = 0; i < numBatchesToReadPerIteration; i++) {
+        try (RawFragmentBatch batch = newBatch(nBatches)) {
+          buffer.enqueue(batch);
+        }
+        RawFragmentBatch batch = buffer.getNext();
+        checkBatch(batch, nBatches++);
+        batch.close();
+      }
+      assertEquals(0, buffer.getSpooledBatches());
+
+      // queued batches are only spooled once the queue is full
+      final int maxBatches = config.getInt(ExecConstants.SPOOLING_BUFFER_MAX_SIZE);
+      assertNotEquals(maxBatches, config.getInt(ExecConstants.SPOOLING_BUFFER_SIZE));
+      for (int i = 0; i < numBatchesToReadPerIteration; i++) {
+        try (RawFragmentBatch batch = newBatch(nBatches + i)) {
+          buffer.enqueue(batch);
+        }
+      }
+      assertEquals(numBatchesToReadPerIteration - maxBatches, buffer.getSpooledBatches());
+      assertEquals(maxBatches * batchAllocateSize, allocator.getAllocatedMemory());
+
+      // spooled batches are read back in order
+      RawFragmentBatch nextReadBatch;
+      while ((nextReadBatch = buffer.getNext()) != null) {
+        checkBatch(nextReadBatch, nBatches++);
+        nextReadBatch.close();
+      }
+      assertEquals(2 * numBatchesToReadPerIteration, nBatches);
+      assertEquals(0, allocator.getAllocatedMemory());
+    }
+  }
+
   @Test
   public void testWriteAndReadInterleaved() throws Exception {
     SharedResource resource = mock(SharedResource.class);
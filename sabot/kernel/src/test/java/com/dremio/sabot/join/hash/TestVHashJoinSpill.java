@@ -15,6 +15,13 @@
  */
 package com.dremio.sabot.join.hash;
 
+import static com.dremio.sabot.Fixtures.NULL_BIGINT;
+import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.calcite.rel.core.JoinRelType;
@@ -28,6 +35,8 @@ import com.dremio.exec.physical.config.HashJoinPOP;
 import com.dremio.options.OptionManager;
 import com.dremio.options.OptionValue;
 import com.dremio.options.OptionValue.OptionType;
+import com.dremio.sabot.Fixtures.DataRow;
+import com.dremio.sabot.Fixtures.Table;
 import com.dremio.sabot.join.BaseTestJoin;
 import com.dremio.sabot.op.join.hash.HashJoinOperator;
 import com.dremio.sabot.op.join.vhash.spill.VectorizedSpillingHashJoinOperator;
@@ -45,6 +54,12 @@ public class TestVHashJoinSpill extends BaseTestJoin {
   public void after() {
     options.setOption(HashJoinOperator.ENABLE_SPILL.getDefault());
     options.setOption(ExecConstants.TARGET_BATCH_RECORDS_MAX.getDefault());
+    options.setOption(HashJoinOperator.TEST_SPILL_PARTITION_RECORDS.getDefault());
+  }
+
+  private void spillPartitionsAbove(long records) {
+    options.setOption(OptionValue.createLong(OptionType.SYSTEM,
+      HashJoinOperator.TEST_SPILL_PARTITION_RECORDS.getOptionName(), records));
   }
 
   @Override
@@ -61,4 +76,85 @@ public class TestVHashJoinSpill extends BaseTestJoin {
   public void manyColumnsDecimal() throws Exception {
     baseManyColumnsDecimal();
   }
+
+  @Test
+  public void spillInner() throws Exception {
+    spillPartitionsAbove(100);
+    final List<DataRow> expected = new ArrayList<>();
+    for (long i = 0; i < 2000; i += 2) {
+      expected.add(tr(i, i * 10, i, i * 3));
+    }
+    validateSpill(JoinRelType.INNER, expected);
+  }
+
+  @Test
+  public void spillFull() throws Exception {
+    spillPartitionsAbove(100);
+    final List<DataRow> expected = new ArrayList<>();
+    for (long i = 0; i < 2000; i++) {
+      expected.add(i % 2 == 0 ? tr(i, i * 10, i, i * 3) : tr(i, i * 10, NULL_BIGINT, NULL_BIGINT));
+    }
+    for (long i = 2000; i < 2100; i++) {
+      expected.add(tr(NULL_BIGINT, NULL_BIGINT, i, i * 3));
+    }
+    validateSpill(JoinRelType.FULL, expected);
+  }
+
+  /*
+   * right : keys 0 to 1999, left : even keys 0 to 1998, and keys 2000 to 2099 that have no match.
+   */
+  private void validateSpill(JoinRelType type, List<DataRow> expectedRows) throws Exception {
+    final List<DataRow> rightRows = new ArrayList<>();
+    for (long i = 0; i < 2000; i++) {
+      rightRows.add(tr(i, i * 10));
+    }
+    final List<DataRow> leftRows = new ArrayList<>();
+    for (long i = 0; i < 2100; i++) {
+      if (i % 2 == 0 || i >= 2000) {
+        leftRows.add(tr(i, i * 3));
+      }
+    }
+
+    final JoinInfo info = getJoinInfo(Arrays.asList(new JoinCondition("EQUALS", f("l_key"), f("r_key"))), type);
+    final Table left = t(th("l_key", "l_val"), leftRows.toArray(new DataRow[0]));
+    final Table right = t(th("r_key", "r_val"), rightRows.toArray(new DataRow[0]));
+    final Table expected = t(th("r_key", "r_val", "l_key", "l_val"), expectedRows.toArray(new DataRow[0]))
+      .orderInsensitive();
+    validateDual(info.operator, info.clazz, left.toGenerator(getTestAllocator()),
+      right.toGenerator(getTestAllocator()), 100, expected);
+  }
+
+  @Test
+  public void spillSkewedKey() throws Exception {
+    // all the records of the hot key can't be split by re-partitioning, and are joined in block nested loop mode.
+    spillPartitionsAbove(100);
+    final List<DataRow> rightRows = new ArrayList<>();
+    final List<DataRow> leftRows = new ArrayList<>();
+    final List<DataRow> expectedRows = new ArrayList<>();
+    for (long i = 0; i < 1000; i++) {
+      rightRows.add(tr(7L, i));
+      expectedRows.add(tr(7L, i, 7L, 70L));
+      expectedRows.add(tr(7L, i, 7L, 71L));
+    }
+    leftRows.add(tr(7L, 70L));
+    leftRows.add(tr(7L, 71L));
+    for (long i = 1000; i < 1500; i++) {
+      rightRows.add(tr(i, i));
+      if (i < 1250) {
+        leftRows.add(tr(i, i * 3));
+        expectedRows.add(tr(i, i, i, i * 3));
+      } else {
+        expectedRows.add(tr(i, i, NULL_BIGINT, NULL_BIGINT));
+      }
+    }
+
+    final JoinInfo info = getJoinInfo(Arrays.asList(new JoinCondition("EQUALS", f("l_key"), f("r_key"))),
+      JoinRelType.RIGHT);
+    final Table left = t(th("l_key", "l_val"), leftRows.toArray(new DataRow[0]));
+    final Table right = t(th("r_key", "r_val"), rightRows.toArray(new DataRow[0]));
+    final Table expected = t(th("r_key", "r_val", "l_key", "l_val"), expectedRows.toArray(new DataRow[0]))
+      .orderInsensitive();
+    validateDual(info.operator, info.clazz, left.toGenerator(getTestAllocator()),
+      right.toGenerator(getTestAllocator()), 100, expected);
+  }
 }
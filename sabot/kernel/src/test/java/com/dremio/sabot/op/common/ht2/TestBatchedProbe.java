@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.ht2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SimpleBigIntVector;
+import org.apache.arrow.vector.SimpleIntVector;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+import com.koloboke.collect.hash.HashConfig;
+
+/**
+ * Tests the group prefetching probe of {@link LBlockHashTable} against the one key at a time probe.
+ */
+public class TestBatchedProbe extends DremioTest {
+  private static final int MAX_VALUES_PER_BATCH = 4096;
+  private static final int GROUP_SIZE = 16;
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  /**
+   * Keys pivoted and hashed, ready to be added to or searched in a table.
+   */
+  private static final class Keys implements AutoCloseable {
+    private final IntVector vector;
+    private final PivotDef pivot;
+    private final FixedBlockVector fixed;
+    private final VariableBlockVector variable;
+    private final SimpleBigIntVector hashes;
+    private final int records;
+
+    Keys(BufferAllocator allocator, Integer[] values) {
+      vector = new IntVector("key", allocator);
+      TestIntPivot.populate(vector, values);
+      records = values.length;
+      pivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(vector, vector));
+      fixed = new FixedBlockVector(allocator, pivot.getBlockWidth());
+      variable = new VariableBlockVector(allocator, pivot.getVariableCount());
+      Pivots.pivot(pivot, records, fixed, variable);
+      hashes = new SimpleBigIntVector("hashes", allocator);
+      hashes.allocateNew(records);
+      HashComputation.computeHash(new BlockChunk(fixed.getMemoryAddress(), variable.getMemoryAddress(), true,
+        pivot.getBlockWidth(), records, hashes.getBufferAddress(), 0));
+    }
+
+    int[] add(LBlockHashTable table, SimpleIntVector output) {
+      table.add(records, fixed.getMemoryAddress(), variable.getMemoryAddress(), hashes.getBufferAddress(),
+        output.getBufferAddress());
+      return toArray(output, records);
+    }
+
+    int[] find(LBlockHashTable table, SimpleIntVector output) {
+      table.find(records, fixed.getMemoryAddress(), variable.getMemoryAddress(), hashes.getBufferAddress(),
+        output.getBufferAddress());
+      return toArray(output, records);
+    }
+
+    @Override
+    public void close() {
+      hashes.close();
+      fixed.close();
+      variable.close();
+      vector.close();
+    }
+  }
+
+  private static int[] toArray(SimpleIntVector vector, int records) {
+    final int[] values = new int[records];
+    for (int i = 0; i < records; i++) {
+      values[i] = vector.get(i);
+    }
+    return values;
+  }
+
+  private static Integer[] randomKeys(Random random, int count, int bound) {
+    final Integer[] keys = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      // a few nulls, and duplicates
+      keys[i] = random.nextInt(100) == 0 ? null : random.nextInt(bound);
+    }
+    return keys;
+  }
+
+  private LBlockHashTable newTable(BufferAllocator allocator, PivotDef pivot, int initialSize, int groupSize) {
+    return new LBlockHashTable(HashConfig.getDefault(), pivot, allocator, initialSize, 10, true,
+      MAX_VALUES_PER_BATCH, null, groupSize);
+  }
+
+  @Test
+  public void batchedProbeMatchesSingleKeyProbe() throws Exception {
+    final Random random = new Random(13);
+    final int buildCount = 400_000;
+    final int probeCount = 300_000;
+    try (BufferAllocator allocator = allocatorRule.newAllocator("test-batched-probe", 0, Long.MAX_VALUE);
+         Keys build = new Keys(allocator, randomKeys(random, buildCount, 300_000));
+         Keys probe = new Keys(allocator, randomKeys(random, probeCount, 600_000));
+         LBlockHashTable single = newTable(allocator, build.pivot, buildCount, 0);
+         LBlockHashTable batched = newTable(allocator, build.pivot, buildCount, GROUP_SIZE);
+         SimpleIntVector output = new SimpleIntVector("output", allocator)) {
+      assertTrue(batched.capacity() >= LBlockHashTable.BATCHED_PROBE_MIN_CAPACITY);
+      output.allocateNew(buildCount);
+
+      final int[] expectedOrdinals = build.add(single, output);
+      final int[] actualOrdinals = build.add(batched, output);
+      assertArrayEquals("ordinals mismatch", expectedOrdinals, actualOrdinals);
+      assertEquals(single.size(), batched.size());
+
+      final int[] expectedMatches = probe.find(single, output);
+      final int[] actualMatches = probe.find(batched, output);
+      assertArrayEquals("matches mismatch", expectedMatches, actualMatches);
+
+      // both present and missing keys were probed
+      int found = 0;
+      for (int match : actualMatches) {
+        found += match >= 0 ? 1 : 0;
+      }
+      assertTrue(found > 0 && found < probeCount);
+
+      // adding the same keys again doesn't insert anything
+      assertArrayEquals(expectedOrdinals, build.add(batched, output));
+      assertEquals(single.size(), batched.size());
+    }
+  }
+
+  /**
+   * Compares the time to search keys one at a time, and in groups, for tables larger than the CPU caches.
+   */
+  @Ignore("performance comparison, run manually")
+  @Test
+  public void compareProbeModes() throws Exception {
+    final Random random = new Random(17);
+    final int probeCount = 1 << 20;
+    for (int tableSize = 1 << 18; tableSize <= 1 << 24; tableSize <<= 2) {
+      try (BufferAllocator allocator = allocatorRule.newAllocator("test-batched-probe", 0, Long.MAX_VALUE);
+           Keys build = new Keys(allocator, randomKeys(random, tableSize, Integer.MAX_VALUE));
+           Keys probe = new Keys(allocator, randomKeys(random, probeCount, Integer.MAX_VALUE));
+           SimpleIntVector output = new SimpleIntVector("output", allocator)) {
+        output.allocateNew(Math.max(tableSize, probeCount));
+        for (int groupSize : new int[] {0, GROUP_SIZE}) {
+          try (LBlockHashTable table = newTable(allocator, build.pivot, tableSize, groupSize)) {
+            build.add(table, output);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 10; i++) {
+              final long start = System.nanoTime();
+              probe.find(table, output);
+              best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("table size %d, group size %d: %.1f ns per probe%n", tableSize, groupSize,
+              (double) best / probeCount);
+          }
+        }
+      }
+    }
+  }
+}
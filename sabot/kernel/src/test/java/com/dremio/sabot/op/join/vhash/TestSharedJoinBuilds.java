@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.sabot.BaseTestWithAllocator;
+import com.dremio.sabot.threads.sharedres.SharedResource;
+import com.dremio.sabot.threads.sharedres.SharedResourceGroup;
+import com.dremio.sabot.threads.sharedres.SharedResourceManager;
+import com.dremio.sabot.threads.sharedres.SharedResourceType;
+
+/**
+ * Unit test for {@link SharedJoinBuilds}
+ */
+public class TestSharedJoinBuilds extends BaseTestWithAllocator {
+  private SharedResourceGroup group;
+
+  @Before
+  public void setupGroup() {
+    group = SharedResourceManager.newBuilder().addGroup("test").build().getGroup("test");
+  }
+
+  private SharedResource newResource(String name) {
+    return group.createResource(name, SharedResourceType.SHARED_JOIN_BUILD);
+  }
+
+  @Test
+  public void firstToJoinBuilds() throws Exception {
+    final SharedJoinBuilds builds = new SharedJoinBuilds(allocator);
+    final SharedResource builderResource = newResource("builder");
+    final SharedResource readerResource = newResource("reader");
+    try (SharedJoinBuild.Participant builder = builds.join(1, builderResource);
+         SharedJoinBuild.Participant reader = builds.join(1, readerResource);
+         SharedJoinBuild.Participant other = builds.join(2, newResource("other"))) {
+      assertTrue(builder.isBuilder());
+      assertFalse(reader.isBuilder());
+      // builds are per operator
+      assertTrue(other.isBuilder());
+      assertEquals(2, builds.size());
+
+      // the reader is blocked until the table is built
+      assertFalse(reader.isBuilt());
+      assertFalse(readerResource.isAvailable());
+
+      final ArrowBuf startIndex = builder.getAllocator().buffer(64);
+      builder.built(null, null, Collections.emptyList(), Collections.singletonList(startIndex), 3);
+      assertTrue(readerResource.isAvailable());
+      assertTrue(builderResource.isAvailable());
+      assertTrue(reader.isBuilt());
+      assertSame(startIndex, reader.getStartIndices().get(0));
+      assertEquals(3, reader.getMaxHashTableIndex());
+    }
+    // the last participant closed the builds, and their allocators
+    assertEquals(0, builds.size());
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void buildOutlivesBuilder() throws Exception {
+    final SharedJoinBuilds builds = new SharedJoinBuilds(allocator);
+    final SharedJoinBuild.Participant builder = builds.join(1, newResource("builder"));
+    try (SharedJoinBuild.Participant reader = builds.join(1, newResource("reader"))) {
+      final BufferAllocator buildAllocator = builder.getAllocator();
+      builder.built(null, null, Collections.emptyList(), Collections.singletonList(buildAllocator.buffer(64)), 0);
+      builder.close();
+      // closing twice doesn't release the build again
+      builder.close();
+
+      assertEquals(1, builds.size());
+      assertTrue(reader.isBuilt());
+      assertEquals(64, buildAllocator.getAllocatedMemory());
+    }
+    assertEquals(0, builds.size());
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void builderFailure() throws Exception {
+    final SharedJoinBuilds builds = new SharedJoinBuilds(allocator);
+    final SharedResource readerResource = newResource("reader");
+    final SharedJoinBuild.Participant builder = builds.join(1, newResource("builder"));
+    try (SharedJoinBuild.Participant reader = builds.join(1, readerResource)) {
+      assertFalse(reader.isBuilt());
+      // the builder fails before completing the build, which wakes up the reader
+      builder.close();
+      assertTrue(readerResource.isAvailable());
+      reader.isBuilt();
+    }
+  }
+
+  @Test
+  public void newBuildOnceReleased() throws Exception {
+    final SharedJoinBuilds builds = new SharedJoinBuilds(allocator);
+    final SharedJoinBuild.Participant first;
+    try (SharedJoinBuild.Participant builder = builds.join(1, newResource("first"))) {
+      first = builder;
+      builder.built(null, null, Collections.emptyList(), Collections.emptyList(), -1);
+    }
+    try (SharedJoinBuild.Participant builder = builds.join(1, newResource("second"))) {
+      assertNotSame(first, builder);
+      assertTrue(builder.isBuilder());
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.exec.store.LocalSyncableFileSystem.WritesArrowBuf;
+import com.dremio.test.AllocatorRule;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Tests for {@link AsyncSpillOutputStream} and {@link ReadAheadSpillInputStream}
+ */
+public class TestAsyncSpillStreams {
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private ExecutorService executor;
+  private BufferAllocator allocator;
+
+  @Before
+  public void setup() {
+    executor = Executors.newCachedThreadPool();
+    allocator = allocatorRule.newAllocator("test-async-spill-streams", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    executor.shutdownNow();
+    allocator.close();
+  }
+
+  private static byte[] randomBytes(int size) {
+    final byte[] bytes = new byte[size];
+    new Random(17).nextBytes(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void writeAndReadBack() throws Exception {
+    final byte[] expected = randomBytes(100_003);
+
+    final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (OutputStream out = new AsyncSpillOutputStream(sink, executor, allocator, 1000, 2)) {
+      int offset = 0;
+      int length = 1;
+      while (offset < expected.length) {
+        // mix of small and large writes, single bytes included
+        final int toWrite = Math.min(length, expected.length - offset);
+        if (toWrite == 1) {
+          out.write(expected[offset]);
+        } else {
+          out.write(expected, offset, toWrite);
+        }
+        offset += toWrite;
+        length = (length * 7) % 3001 + 1;
+      }
+    }
+    assertArrayEquals(expected, sink.toByteArray());
+
+    try (InputStream in = new ReadAheadSpillInputStream(new ByteArrayInputStream(sink.toByteArray()), executor, allocator, 777, 3)) {
+      assertEquals(expected[0] & 0xFF, in.read());
+      final byte[] actual = new byte[expected.length];
+      actual[0] = expected[0];
+      ByteStreams.readFully(in, actual, 1, actual.length - 1);
+      assertArrayEquals(expected, actual);
+      assertEquals(-1, in.read());
+      assertEquals(-1, in.read(new byte[10], 0, 10));
+    }
+  }
+
+  @Test
+  public void buffersWrittenDirectly() throws Exception {
+    final byte[] expected = randomBytes(10_000);
+    final DirectSink sink = new DirectSink();
+    try (OutputStream out = new AsyncSpillOutputStream(sink, executor, allocator, 1024, 2)) {
+      out.write(expected);
+    }
+    assertArrayEquals(expected, sink.bytes.toByteArray());
+  }
+
+  /**
+   * Only takes arrow buffers, and at most 300 bytes at a time
+   */
+  private static final class DirectSink extends OutputStream implements WritesArrowBuf {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Override
+    public void write(int b) throws IOException {
+      throw new IOException("expected the buffers to be written directly");
+    }
+
+    @Override
+    public int write(ArrowBuf buf) {
+      final byte[] written = new byte[(int) Math.min(300, buf.readableBytes())];
+      buf.getBytes(buf.readerIndex(), written);
+      bytes.write(written, 0, written.length);
+      return written.length;
+    }
+  }
+
+  @Test
+  public void buffersAreAccountedToTheAllocator() throws Exception {
+    final byte[] expected = randomBytes(10_000);
+    final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (OutputStream out = new AsyncSpillOutputStream(sink, executor, allocator, 1024, 2)) {
+      assertEquals(2048, allocator.getAllocatedMemory());
+      out.write(expected);
+    }
+    assertEquals(0, allocator.getAllocatedMemory());
+
+    try (InputStream in = new ReadAheadSpillInputStream(new ByteArrayInputStream(sink.toByteArray()), executor,
+      allocator, 1024, 4)) {
+      assertEquals(4096, allocator.getAllocatedMemory());
+      final byte[] actual = new byte[expected.length];
+      ByteStreams.readFully(in, actual);
+      assertArrayEquals(expected, actual);
+    }
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void buffersOverTheAllocatorLimitAreNotAllocated() throws Exception {
+    try (BufferAllocator small = allocatorRule.newAllocator("test-async-spill-streams-small", 0, 1500)) {
+      try {
+        new AsyncSpillOutputStream(new ByteArrayOutputStream(), executor, small, 1000, 2);
+        fail("expected the buffers to be over the limit");
+      } catch (OutOfMemoryException e) {
+        // expected, the caller falls back to synchronous writes.
+      }
+      try {
+        new ReadAheadSpillInputStream(new ByteArrayInputStream(new byte[10]), executor, small, 1000, 2);
+        fail("expected the buffers to be over the limit");
+      } catch (OutOfMemoryException e) {
+        // expected, the caller falls back to synchronous reads.
+      }
+      assertEquals(0, small.getAllocatedMemory());
+    }
+  }
+
+  @Test
+  public void emptyStreams() throws Exception {
+    final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    new AsyncSpillOutputStream(sink, executor, allocator, 1000, 2).close();
+    assertEquals(0, sink.size());
+
+    try (InputStream in = new ReadAheadSpillInputStream(new ByteArrayInputStream(new byte[0]), executor, allocator, 1000, 2)) {
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  public void writeFailureIsReported() throws Exception {
+    final OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("disk full");
+      }
+    };
+
+    final OutputStream out = new AsyncSpillOutputStream(failing, executor, allocator, 10, 2);
+    try {
+      for (int i = 0; i < 1000; i++) {
+        out.write(randomBytes(10));
+      }
+      out.flush();
+      fail("expected the background write failure");
+    } catch (IOException e) {
+      assertTrue(e.getCause().getMessage().contains("disk full"));
+    } finally {
+      try {
+        out.close();
+      } catch (IOException e) {
+        // expected, the failure is reported again.
+      }
+    }
+  }
+
+  @Test
+  public void readFailureIsReported() throws Exception {
+    final byte[] data = randomBytes(100);
+    final InputStream failing = new InputStream() {
+      private int position;
+
+      @Override
+      public int read() throws IOException {
+        if (position == data.length) {
+          throw new IOException("bad sector");
+        }
+        return data[position++] & 0xFF;
+      }
+    };
+
+    try (InputStream in = new ReadAheadSpillInputStream(failing, executor, allocator, 10, 2)) {
+      // the data read before the failure is returned first
+      final byte[] actual = new byte[data.length];
+      ByteStreams.readFully(in, actual);
+      assertArrayEquals(data, actual);
+      in.read();
+      fail("expected the background read failure");
+    } catch (IOException e) {
+      assertTrue(e.getCause().getMessage().contains("bad sector"));
+    }
+  }
+}
@@ -71,7 +71,7 @@ public class TestMemoryRun extends BaseTestOperator {
   public void testQuickSorterCloseToCopier() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, false, 8192, mock(ExecutionControls.class))) {
+      2, false, false, 8192, mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToCopier(memoryRun, 100, totalAdded);
     }
@@ -81,7 +81,7 @@ public class TestMemoryRun extends BaseTestOperator {
   public void testQuickSorterCloseToDisk() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, false, 8192, mock(ExecutionControls.class))) {
+      2, false, false, 8192, mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToDisk(memoryRun, totalAdded);
     }
@@ -91,7 +91,7 @@ public class TestMemoryRun extends BaseTestOperator {
   public void testSplayTreeCloseToCopier() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, true, 8192, mock(ExecutionControls.class))) {
+      2, true, false, 8192, mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToCopier(memoryRun, 100, totalAdded);
     }
@@ -101,7 +101,27 @@ public class TestMemoryRun extends BaseTestOperator {
   public void testSplayTreeCloseToDisk() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, true, 8192, mock(ExecutionControls.class))) {
+      2, true, false, 8192, mock(ExecutionControls.class))) {
+      int totalAdded = addBatches(memoryRun);
+      validateCloseToDisk(memoryRun, totalAdded);
+    }
+  }
+
+  @Test
+  public void testRadixSorterCloseToCopier() throws Exception {
+    final ExternalSortTracer tracer = new ExternalSortTracer();
+    try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
+      2, false, true, 8192, mock(ExecutionControls.class))) {
+      int totalAdded = addBatches(memoryRun);
+      validateCloseToCopier(memoryRun, 100, totalAdded);
+    }
+  }
+
+  @Test
+  public void testRadixSorterCloseToDisk() throws Exception {
+    final ExternalSortTracer tracer = new ExternalSortTracer();
+    try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
+      2, false, true, 8192, mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToDisk(memoryRun, totalAdded);
     }
@@ -109,18 +129,23 @@ public class TestMemoryRun extends BaseTestOperator {
 
   @Test
   public void testQuickSortStartMicroSpilling() throws Exception {
-    testStartMicroSpilling(false);
+    testStartMicroSpilling(false, false);
   }
 
   @Test
   public void testSplaySortStartMicroSpilling() throws Exception {
-    testStartMicroSpilling(true);
+    testStartMicroSpilling(true, false);
+  }
+
+  @Test
+  public void testRadixSortStartMicroSpilling() throws Exception {
+    testStartMicroSpilling(false, true);
   }
 
-  private void testStartMicroSpilling(boolean useSplaySort) throws Exception{
+  private void testStartMicroSpilling(boolean useSplaySort, boolean useRadixSort) throws Exception{
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer,
-      2, useSplaySort, 8192, mock(ExecutionControls.class))) {
+      2, useSplaySort, useRadixSort, 8192, mock(ExecutionControls.class))) {
       final int totalAdded = addBatches(memoryRun);
       final DiskRunManager diskRunManager = mock(DiskRunManager.class);
 
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import static com.dremio.sabot.Fixtures.NULL_BIGINT;
+import static com.dremio.sabot.Fixtures.split;
+import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+import static org.apache.calcite.rel.RelFieldCollation.Direction.ASCENDING;
+import static org.apache.calcite.rel.RelFieldCollation.Direction.DESCENDING;
+import static org.apache.calcite.rel.RelFieldCollation.NullDirection.FIRST;
+import static org.apache.calcite.rel.RelFieldCollation.NullDirection.LAST;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.config.ExternalSort;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.CustomGenerator;
+import com.dremio.sabot.Fixtures;
+import com.dremio.sabot.Fixtures.DataRow;
+import com.dremio.sabot.Fixtures.Decimal;
+import com.dremio.sabot.op.spi.Operator.MasterState;
+import com.google.common.base.Stopwatch;
+
+/**
+ * Tests the radix sort of the external sort against the expected orders.
+ */
+public class TestRadixSorter extends BaseTestOperator {
+
+  @Test
+  public void canSort() {
+    final Schema schema = new Schema(Arrays.asList(CompleteType.BIGINT.toField("a"), CompleteType.VARCHAR.toField("b"),
+      CompleteType.DOUBLE.toField("c")));
+    assertTrue(RadixSorter.canSort(Collections.singletonList(ordering("a", ASCENDING, FIRST)), schema));
+    assertTrue(RadixSorter.canSort(Arrays.asList(ordering("A", ASCENDING, FIRST), ordering("b", ASCENDING, FIRST)),
+      schema));
+    assertFalse(RadixSorter.canSort(Collections.singletonList(ordering("b", ASCENDING, FIRST)), schema));
+    assertFalse(RadixSorter.canSort(Collections.singletonList(ordering("c", ASCENDING, FIRST)), schema));
+    assertFalse(RadixSorter.canSort(Collections.emptyList(), schema));
+  }
+
+  @Test
+  public void descendingWithVarcharTies() throws Exception {
+    final Fixtures.Table input = t(
+      th("a", "b"),
+      tr(3L, "x"),
+      tr(NULL_BIGINT, "a"),
+      tr(-5L, "b"),
+      tr(3L, "a"),
+      tr(Long.MIN_VALUE, "z"),
+      tr(Long.MAX_VALUE, "q"),
+      tr(0L, "c"),
+      tr(NULL_BIGINT, "b"),
+      tr(-5L, "a"));
+
+    final Fixtures.Table expected = t(
+      th("a", "b"),
+      tr(Long.MAX_VALUE, "q"),
+      tr(3L, "a"),
+      tr(3L, "x"),
+      tr(0L, "c"),
+      tr(-5L, "a"),
+      tr(-5L, "b"),
+      tr(Long.MIN_VALUE, "z"),
+      tr(NULL_BIGINT, "a"),
+      tr(NULL_BIGINT, "b"));
+
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT, true)) {
+      final ExternalSort sort = new ExternalSort(PROPS, null,
+        Arrays.asList(ordering("a", DESCENDING, LAST), ordering("b", ASCENDING, FIRST)), false);
+      validateSingle(sort, ExternalSortOperator.class, input, expected);
+    }
+  }
+
+  @Test
+  public void decimalAndInt() throws Exception {
+    final Fixtures.Table input = t(
+      th("d", "i"),
+      tr(decimal("1.50"), 7),
+      tr(decimal(null), 2),
+      tr(decimal("-2.25"), 9),
+      tr(decimal("-2.25"), -1),
+      tr(decimal("100.00"), 0),
+      tr(decimal("0.00"), 3),
+      tr(decimal(null), 1));
+
+    final Fixtures.Table expected = t(
+      th("d", "i"),
+      tr(decimal(null), 1),
+      tr(decimal(null), 2),
+      tr(decimal("-2.25"), -1),
+      tr(decimal("-2.25"), 9),
+      tr(decimal("0.00"), 3),
+      tr(decimal("1.50"), 7),
+      tr(decimal("100.00"), 0));
+
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT, true)) {
+      final ExternalSort sort = new ExternalSort(PROPS, null,
+        Arrays.asList(ordering("d", ASCENDING, FIRST), ordering("i", ASCENDING, FIRST)), false);
+      validateSingle(sort, ExternalSortOperator.class, input, expected);
+    }
+  }
+
+  /**
+   * Two radix keys, with many duplicates, and a third variable width key breaking their ties.
+   */
+  @Test
+  public void randomRows() throws Exception {
+    final Random random = new Random(11);
+    final List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      final Long a = random.nextInt(50) == 0 ? null : (long) (random.nextInt(200) - 100) * 1_000_000_007L;
+      rows.add(new Object[] {a, random.nextInt(20) - 10, String.format("%08d", i)});
+    }
+
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT, true)) {
+      final ExternalSort sort = new ExternalSort(PROPS, null,
+        Arrays.asList(ordering("a", DESCENDING, FIRST), ordering("b", ASCENDING, LAST), ordering("c", DESCENDING, LAST)),
+        false);
+      final Fixtures.Table input = split(th("a", "b", "c"), 3000, toRows(rows));
+
+      final Comparator<Long> nullsFirstDescending = Comparator.nullsFirst(Comparator.<Long>reverseOrder());
+      rows.sort(Comparator.<Object[], Long>comparing(r -> (Long) r[0], nullsFirstDescending)
+        .thenComparing(r -> (Integer) r[1])
+        .thenComparing(r -> (String) r[2], Comparator.reverseOrder()));
+      final Fixtures.Table expected = t(th("a", "b", "c"), toRows(rows));
+
+      validateSingle(sort, ExternalSortOperator.class, input, expected, 4000);
+    }
+  }
+
+  private static Decimal decimal(String value) {
+    return new Decimal(value == null ? null : new BigDecimal(value), 38, 2);
+  }
+
+  private static DataRow[] toRows(List<Object[]> rows) {
+    final DataRow[] dataRows = new DataRow[rows.size()];
+    for (int i = 0; i < dataRows.length; i++) {
+      final Object[] row = rows.get(i);
+      dataRows[i] = tr(row[0] == null ? NULL_BIGINT : row[0], row[1], row[2]);
+    }
+    return dataRows;
+  }
+
+  /**
+   * Compares the time to sort with the quick sorter and the radix sorter, run manually with larger row counts.
+   */
+  @Ignore("performance comparison, run manually")
+  @Test
+  public void compareSorters() throws Exception {
+    final int rows = 1_000_000;
+    for (boolean radix : new boolean[] {false, true}) {
+      try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT, radix);
+           CustomGenerator generator = new CustomGenerator(rows, getTestAllocator())) {
+        final ExternalSort sort = new ExternalSort(PROPS, null,
+          Collections.singletonList(ordering(CustomGenerator.ID.getName(), ASCENDING, FIRST)), false);
+        sort.getProps().setMemLimit(Long.MAX_VALUE);
+        final ExternalSortOperator operator = newOperator(ExternalSortOperator.class, sort, 4095);
+        operator.setup(generator.getOutput());
+        int count;
+        while ((count = generator.next(4095)) > 0) {
+          operator.consumeData(count);
+        }
+        final Stopwatch watch = Stopwatch.createStarted();
+        operator.noMoreToConsume();
+        while (operator.getState().getMasterState() != MasterState.DONE) {
+          operator.outputData();
+        }
+        System.out.printf("%s sorter: %d ms to sort %d rows%n", radix ? "radix" : "quick",
+          watch.elapsed(TimeUnit.MILLISECONDS), rows);
+      }
+    }
+  }
+}
@@ -182,6 +182,19 @@ public class TestSortOp extends BaseTestOperator {
     }
   }
 
+  @Test
+  public void testQuickSorterSpillSortWithAsyncSpillIO() throws Exception {
+    // the read-ahead buffers of the merged runs are reserved with the copy allocator
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_SPLAY_SORT, false);
+         AutoCloseable asyncIO = with(ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO, true);
+         AutoCloseable bufferSize = with(ExecConstants.EXTERNAL_SORT_ASYNC_SPILL_IO_BUFFER_SIZE, 16 * 1024)) {
+      ExternalSort sort = new ExternalSort(PROPS.cloneWithNewReserve(1_000_000), null, singletonList(ordering(ID.getName(), ASCENDING, FIRST)), false);
+      sort.getProps().setMemLimit(2_000_000); // this can't go below sort's initialAllocation (20K)
+      Fixtures.Table table = generator.getExpectedSortedTable();
+      validateSingle(sort, ExternalSortOperator.class, generator, table, 1000);
+    }
+  }
+
   @Test
   public void testQuickSorterSpillSortWithLegacyEncoding() throws Exception {
     try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_SPLAY_SORT, false);
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import static com.dremio.sabot.op.sort.external.CompressingSpillOutputStream.BLOCK_SIZE;
+import static com.dremio.sabot.op.sort.external.CompressingSpillOutputStream.HEADER_SIZE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Tests for {@link CompressingSpillOutputStream} and {@link DecompressingSpillInputStream}
+ */
+public class TestSpillCompression {
+
+  private static byte[] compressibleBytes(int size) {
+    final byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) (i % 7);
+    }
+    return bytes;
+  }
+
+  private static byte[] randomBytes(int size) {
+    final byte[] bytes = new byte[size];
+    new Random(11).nextBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] write(SpillCompression compression, byte[]... chunks) throws IOException {
+    final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (CompressingSpillOutputStream out = new CompressingSpillOutputStream(sink, compression.newCompressor(9), 0.9)) {
+      for (byte[] chunk : chunks) {
+        // a small write followed by a large one, so that both the copy and the direct paths are used.
+        out.write(chunk, 0, 10);
+        out.write(chunk, 10, chunk.length - 10);
+      }
+    }
+    return sink.toByteArray();
+  }
+
+  private static byte[] read(byte[] stored, int length) throws IOException {
+    try (InputStream in = new DecompressingSpillInputStream(new ByteArrayInputStream(stored))) {
+      final byte[] bytes = new byte[length];
+      ByteStreams.readFully(in, bytes);
+      assertEquals(-1, in.read());
+      return bytes;
+    }
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    final byte[] compressible = compressibleBytes(3 * BLOCK_SIZE + 17);
+    final byte[] random = randomBytes(2 * BLOCK_SIZE + 5);
+    final byte[] expected = new byte[compressible.length + random.length];
+    System.arraycopy(compressible, 0, expected, 0, compressible.length);
+    System.arraycopy(random, 0, expected, compressible.length, random.length);
+
+    for (SpillCompression compression : SpillCompression.values()) {
+      final byte[] stored = write(compression, compressible, random);
+      assertArrayEquals(compression.toString(), expected, read(stored, expected.length));
+    }
+  }
+
+  @Test
+  public void compressibleDataIsCompressed() throws Exception {
+    final byte[] data = compressibleBytes(10 * BLOCK_SIZE);
+    assertTrue(write(SpillCompression.LZ4, data).length < data.length / 10);
+    assertTrue(write(SpillCompression.LZ4_HC, data).length < data.length / 10);
+    assertTrue(write(SpillCompression.NONE, data).length > data.length);
+  }
+
+  @Test
+  public void incompressibleDataIsStoredRaw() throws Exception {
+    final byte[] data = randomBytes(10 * BLOCK_SIZE);
+    final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    final CompressingSpillOutputStream out = new CompressingSpillOutputStream(sink,
+      SpillCompression.LZ4.newCompressor(0), 0.9);
+    out.write(data);
+    out.close();
+
+    // every block is raw, and only a few were tried thanks to the back off.
+    assertEquals(10, out.getUncompressedBlocks());
+    assertEquals(data.length + 10 * HEADER_SIZE, sink.size());
+    assertArrayEquals(data, read(sink.toByteArray(), data.length));
+  }
+
+  @Test(expected = EOFException.class)
+  public void truncatedStream() throws Exception {
+    final byte[] data = compressibleBytes(BLOCK_SIZE);
+    final byte[] stored = write(SpillCompression.LZ4, data);
+    read(Arrays.copyOf(stored, stored.length - 1), data.length);
+  }
+}
@@ -17,6 +17,7 @@ package com.dremio.sabot.receiver.bridge;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -98,6 +99,30 @@ public class TestBridgeFileReaderReceiver extends BaseTestOperator {
     }
   }
 
+  @Test
+  public void flushedPerBatchInterleaved() throws Exception {
+    try (AutoCloseable ac = with(BridgeFileWriterSenderOperator.BYTES_PER_FLUSH, 0)) {
+      check(GenerationDefinition.TpchTable.CUSTOMER, 0.1, 100, true);
+    }
+  }
+
+  @Test
+  public void flushedOnDelayInterleaved() throws Exception {
+    // the batches never reach the size threshold, they are only made visible once they waited long enough.
+    try (AutoCloseable ac = with(BridgeFileWriterSenderOperator.BYTES_PER_FLUSH, 64 * 1024 * 1024);
+         AutoCloseable ac2 = with(BridgeFileWriterSenderOperator.MAX_FLUSH_DELAY_MILLIS, 1)) {
+      check(GenerationDefinition.TpchTable.CUSTOMER, 0.1, 100, true);
+    }
+  }
+
+  @Test
+  public void uncompressedInterleaved() throws Exception {
+    try (AutoCloseable ac = with(BridgeFileWriterSenderOperator.FILE_COMPRESSION, "none");
+         AutoCloseable ac2 = with(BridgeFileWriterSenderOperator.BYTES_PER_FLUSH, 16 * 1024)) {
+      check(GenerationDefinition.TpchTable.CUSTOMER, 0.1, 100, true);
+    }
+  }
+
   private void check(GenerationDefinition.TpchTable table, double scale, int batchSize, boolean interleaved) throws Exception {
     Fixtures.Table expected = TpchGenerator.singleGenerator(table, scale, getAllocator()).toTable(batchSize);
     try (Generator generator = TpchGenerator.singleGenerator(table, scale, getTestAllocator())) {
@@ -112,13 +137,13 @@ public class TestBridgeFileReaderReceiver extends BaseTestOperator {
     when(sharedResource.isAvailable()).thenReturn(true);
 
     final TunnelProvider provider = mock(TunnelProvider.class);
-    when(provider.getFileTunnel(any(FileStreamManager.class), anyInt())).thenAnswer(
+    when(provider.getFileTunnel(any(FileStreamManager.class), anyInt(), anyLong(), anyLong())).thenAnswer(
       new Answer<Object>() {
         @Override
         public Object answer(InvocationOnMock invocation) throws Throwable {
           Object[] args = invocation.getArguments();
-          return new AccountingFileTunnel(new FileTunnel((FileStreamManager) args[0], (int) args[1]),
-            fileCursorManagerFactory, sharedResource);
+          return new AccountingFileTunnel(new FileTunnel((FileStreamManager) args[0], (int) args[1], (long) args[2],
+            (long) args[3]), fileCursorManagerFactory, sharedResource);
         }
       }
     );
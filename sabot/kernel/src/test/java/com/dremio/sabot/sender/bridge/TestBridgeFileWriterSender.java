@@ -15,17 +15,19 @@
  */
 package com.dremio.sabot.sender.bridge;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.arrow.memory.ArrowBuf;
-import org.apache.hadoop.fs.FSDataInputStream;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -42,6 +44,7 @@ import com.dremio.exec.record.VectorContainer;
 import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.Fixtures;
 import com.dremio.sabot.Generator;
+import com.dremio.sabot.exec.cursors.FileCursorManager;
 import com.dremio.sabot.exec.cursors.FileCursorManagerFactory;
 import com.dremio.sabot.exec.cursors.FileCursorManagerFactoryImpl;
 import com.dremio.sabot.exec.rpc.AccountingFileTunnel;
@@ -76,6 +79,45 @@ public class TestBridgeFileWriterSender extends BaseTestOperator {
     }
   }
 
+  @Test
+  public void uncompressed() throws Exception {
+    try (AutoCloseable ac = with(BridgeFileWriterSenderOperator.FILE_COMPRESSION, "none")) {
+      check(GenerationDefinition.TpchTable.CUSTOMER, 0.1, DEFAULT_BATCH);
+    }
+  }
+
+  @Test
+  public void stalledBatchesFlushedOnDelay() throws Exception {
+    final FileCursorManagerFactory fileCursorManagerFactory = new FileCursorManagerFactoryImpl();
+    final Generator generator = TpchGenerator.singleGenerator(GenerationDefinition.TpchTable.REGION, 0.1, getTestAllocator());
+    final BridgeFileWriterSender sender = new BridgeFileWriterSender(PROPS, generator.getOutput().getSchema(), null, "set1");
+    try (AutoCloseable ac = with(BridgeFileWriterSenderOperator.BYTES_PER_FLUSH, 64 * 1024 * 1024);
+         AutoCloseable ac2 = with(BridgeFileWriterSenderOperator.MAX_FLUSH_DELAY_MILLIS, 10);
+         BridgeFileWriterSenderOperator op = newOperator(BridgeFileWriterSenderOperator.class, sender, DEFAULT_BATCH,
+           new EndpointsIndex(), newTunnelProvider(fileCursorManagerFactory))) {
+      op.setup(generator.getOutput());
+      long numBatches = 0;
+      int numRecords;
+      while ((numRecords = generator.next(DEFAULT_BATCH)) != 0) {
+        op.consumeData(numRecords);
+        numBatches++;
+      }
+
+      // the sender stalls before completing its stream, its batches are made visible by the timer
+      final FileCursorManager cursorManager = fileCursorManagerFactory.getManager(op.getSpillManager().getId());
+      final long deadline = System.currentTimeMillis() + 10_000;
+      while (cursorManager.getWriteCursor() < numBatches - 1 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      assertEquals(numBatches - 1, cursorManager.getWriteCursor());
+
+      op.noMoreToConsume();
+      fileCursorManagerFactory.notifyAllRegistrationsDone();
+    } finally {
+      generator.close();
+    }
+  }
+
   private void check(GenerationDefinition.TpchTable table, double scale, int batchSize) throws Exception {
     Fixtures.Table expected = TpchGenerator.singleGenerator(table, scale, getAllocator()).toTable(batchSize);
     try (Generator generator = TpchGenerator.singleGenerator(table, scale, getTestAllocator())) {
@@ -87,21 +129,7 @@ public class TestBridgeFileWriterSender extends BaseTestOperator {
     BatchSchema schema = generator.getOutput().getSchema();
     BridgeFileWriterSender sender = new BridgeFileWriterSender(PROPS, schema, null, "set1");
     FileCursorManagerFactory fileCursorManagerFactory = new FileCursorManagerFactoryImpl();
-
-    final SharedResource sharedResource = mock(SharedResource.class);
-    when(sharedResource.isAvailable()).thenReturn(true);
-
-    final TunnelProvider provider = mock(TunnelProvider.class);
-    when(provider.getFileTunnel(any(FileStreamManager.class), anyInt())).thenAnswer(
-      new Answer<Object>() {
-        @Override
-        public Object answer(InvocationOnMock invocation) throws Throwable {
-          Object[] args = invocation.getArguments();
-          return new AccountingFileTunnel(new FileTunnel((FileStreamManager)args[0], (int)args[1]),
-            fileCursorManagerFactory, sharedResource);
-        }
-      }
-    );
+    final TunnelProvider provider = newTunnelProvider(fileCursorManagerFactory);
 
     List<RecordBatchData> actual = null;
     try (BridgeFileWriterSenderOperator op = newOperator(BridgeFileWriterSenderOperator.class, sender, batchSize,
@@ -125,6 +153,24 @@ public class TestBridgeFileWriterSender extends BaseTestOperator {
     }
   }
 
+  private static TunnelProvider newTunnelProvider(FileCursorManagerFactory fileCursorManagerFactory) throws IOException {
+    final SharedResource sharedResource = mock(SharedResource.class);
+    when(sharedResource.isAvailable()).thenReturn(true);
+
+    final TunnelProvider provider = mock(TunnelProvider.class);
+    when(provider.getFileTunnel(any(FileStreamManager.class), anyInt(), anyLong(), anyLong())).thenAnswer(
+      new Answer<Object>() {
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+          Object[] args = invocation.getArguments();
+          return new AccountingFileTunnel(new FileTunnel((FileStreamManager)args[0], (int)args[1], (long)args[2], (long)args[3]),
+            fileCursorManagerFactory, sharedResource);
+        }
+      }
+    );
+    return provider;
+  }
+
   List<RecordBatchData> readAllDataFromDir(SpillManager spillManager, BatchSchema schema) throws IOException {
     List<RecordBatchData> allBatches = new ArrayList<>();
 
@@ -132,7 +178,7 @@ public class TestBridgeFileWriterSender extends BaseTestOperator {
     int currentIdx = 0;
     while (true) {
       String fileName = String.format("%08d.arrow", currentIdx);
-      try (FSDataInputStream stream = spillManager.getSpillFile(fileName).open()) {
+      try (InputStream stream = spillManager.getSpillFile(fileName).open(true)) {
         FileReadResult readResult = readAllDataFromFile(stream, schema);
         allBatches.addAll(readResult.records);
         if (readResult.isStreamClosed) {
@@ -155,7 +201,7 @@ public class TestBridgeFileWriterSender extends BaseTestOperator {
     }
   };
 
-  FileReadResult readAllDataFromFile(FSDataInputStream input, BatchSchema schema) throws IOException {
+  FileReadResult readAllDataFromFile(InputStream input, BatchSchema schema) throws IOException {
     List<RecordBatchData> fileBatches = new ArrayList<>();
     boolean isStreamClosed = false;
 
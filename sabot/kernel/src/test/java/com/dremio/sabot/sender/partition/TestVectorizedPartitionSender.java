@@ -19,14 +19,23 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -35,11 +44,15 @@ import com.dremio.exec.physical.config.HashPartitionSender;
 import com.dremio.exec.planner.fragment.EndpointsIndex;
 import com.dremio.exec.proto.CoordExecRPC.MinorFragmentIndexEndpoint;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.FragmentWritableBatch;
+import com.dremio.exec.record.VectorContainer;
 import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.CustomGenerator;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
 import com.dremio.sabot.op.sender.partition.vectorized.VectorizedPartitionSenderOperator;
 
 import io.netty.buffer.ByteBuf;
@@ -103,6 +116,125 @@ public class TestVectorizedPartitionSender extends BaseTestOperator {
     assertEquals(NUM_ROWS, sum);
   }
 
+  @Test
+  public void testPartialFlushesAndMergedCompletions() throws Exception {
+    HashPartitionSender sender = new HashPartitionSender(PROPS, generator.getSchema(), null, 1, getIndexEndpoints(), f(CustomGenerator.ID.getName()));
+
+    final int[] rowCountPerFragment = new int[NUM_FRAGMENTS];
+    final int[] numBatchesPerFragment = new int[NUM_FRAGMENTS];
+
+    final AccountingExecTunnel tunnel = mock(AccountingExecTunnel.class);
+    doAnswer(invocation -> {
+      final FragmentWritableBatch batch = (FragmentWritableBatch) invocation.getArguments()[0];
+      for (int fragId : batch.getHeader().getReceivingMinorFragmentIdList()) {
+        rowCountPerFragment[fragId] += batch.getRecordCount();
+        if (batch.getRecordCount() > 0) {
+          numBatchesPerFragment[fragId]++;
+        }
+      }
+      for (ByteBuf b : batch.getBuffers()) {
+        b.release();
+      }
+      return null;
+    }).when(tunnel).sendRecordBatch(any(FragmentWritableBatch.class));
+
+    final TunnelProvider provider = mock(TunnelProvider.class);
+    when(provider.getExecTunnel(any(NodeEndpoint.class))).thenReturn(tunnel);
+
+    // flush the rows of each destination at the end of every pass
+    try (AutoCloseable flushBytes = with(VectorizedPartitionSenderOperator.FLUSH_BYTES, 1)) {
+      VectorizedPartitionSenderOperator op = newOperator(VectorizedPartitionSenderOperator.class, sender, DEFAULT_BATCH,
+        new EndpointsIndex(getEndpoints()), provider);
+      op.setup(generator.getOutput());
+      op.getOperatorContext().getStats().startProcessing();
+      op.consumeData(generator.next(NUM_ROWS / 2));
+      op.consumeData(generator.next(NUM_ROWS / 2));
+      op.noMoreToConsume();
+
+      int sum = 0;
+      for (int i = 0; i < NUM_FRAGMENTS; i++) {
+        // sent once per incoming batch, before the end of the stream
+        assertEquals(2, numBatchesPerFragment[i]);
+        sum += rowCountPerFragment[i];
+      }
+      assertEquals(NUM_ROWS, sum);
+      assertEquals(2 * NUM_FRAGMENTS, op.getOperatorContext().getStats().getLongStat(Metric.NUM_SIZE_FLUSHES));
+
+      // all the receivers are on the same endpoint, a single completion is sent for all of them
+      final ArgumentCaptor<FragmentStreamComplete> completion = ArgumentCaptor.forClass(FragmentStreamComplete.class);
+      verify(tunnel, times(1)).sendStreamComplete(completion.capture());
+      assertEquals(NUM_FRAGMENTS, completion.getValue().getReceivingMinorFragmentIdCount());
+    }
+  }
+
+  @Test
+  public void testPartialFlushesKeepTheRowOrder() throws Exception {
+    final int batchSize = 4;
+    final BatchSchema schema = BatchSchema.newBuilder()
+      .addField(CustomGenerator.ID)
+      .addField(CustomGenerator.VALUE)
+      .build();
+    // a single receiver, so that all the rows go to the same pair of outgoing batches
+    HashPartitionSender sender = new HashPartitionSender(PROPS.cloneWithNewBatchSize(batchSize), schema, null, 1,
+      Collections.singletonList(MinorFragmentIndexEndpoint.newBuilder().setMinorFragmentId(0).setEndpointIndex(0).build()),
+      f(CustomGenerator.ID.getName()));
+
+    final List<Integer> received = new ArrayList<>();
+    final AccountingExecTunnel tunnel = mock(AccountingExecTunnel.class);
+    doAnswer(invocation -> {
+      final FragmentWritableBatch batch = (FragmentWritableBatch) invocation.getArguments()[0];
+      // the values of the ID column follow its validity buffer
+      final ByteBuf ids = batch.getBuffers()[1];
+      for (int i = 0; i < batch.getRecordCount(); i++) {
+        received.add(ids.getInt(4 * i));
+      }
+      for (ByteBuf b : batch.getBuffers()) {
+        b.release();
+      }
+      return null;
+    }).when(tunnel).sendRecordBatch(any(FragmentWritableBatch.class));
+
+    final TunnelProvider provider = mock(TunnelProvider.class);
+    when(provider.getExecTunnel(any(NodeEndpoint.class))).thenReturn(tunnel);
+
+    // rows with long values reach the flush size before their batch is full
+    try (AutoCloseable flushBytes = with(VectorizedPartitionSenderOperator.FLUSH_BYTES, 100);
+         VectorContainer incoming = VectorContainer.create(getTestAllocator(), schema)) {
+      VectorizedPartitionSenderOperator op = newOperator(VectorizedPartitionSenderOperator.class, sender, batchSize,
+        new EndpointsIndex(Collections.singletonList(NodeEndpoint.newBuilder().setAddress("a_0").setFabricPort(1).build())),
+        provider);
+      op.setup(incoming);
+      op.getOperatorContext().getStats().startProcessing();
+
+      final String small = "";
+      final String large = String.join("", Collections.nCopies(60, "x"));
+      // A holds 0-2
+      consume(op, incoming, 0, small, small, small);
+      // A is full with 3, B gets 4-6 and is flushed as they reach the flush size
+      consume(op, incoming, 3, small, large, large, large);
+      // B holds 7-9
+      consume(op, incoming, 7, small, small, small);
+      // B is full with 10, A gets 11-13 and reaches the flush size: B must be sent first
+      consume(op, incoming, 10, small, large, large, large);
+      op.noMoreToConsume();
+
+      assertEquals(IntStream.range(0, 14).boxed().collect(Collectors.toList()), received);
+    }
+  }
+
+  private static void consume(VectorizedPartitionSenderOperator op, VectorContainer incoming, int firstId,
+                              String... values) throws Exception {
+    incoming.allocateNew();
+    final IntVector ids = incoming.addOrGet(CustomGenerator.ID);
+    final VarCharVector varchars = incoming.addOrGet(CustomGenerator.VALUE);
+    for (int i = 0; i < values.length; i++) {
+      ids.setSafe(i, firstId + i);
+      varchars.setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+    }
+    incoming.setAllCount(values.length);
+    op.consumeData(values.length);
+  }
+
   public List<MinorFragmentIndexEndpoint> getIndexEndpoints() {
     List<MinorFragmentIndexEndpoint> l = new ArrayList<>();
     for (int i = 0; i < NUM_FRAGMENTS; i++) {
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.sender.partition;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.dremio.exec.physical.config.HashPartitionSender;
+import com.dremio.exec.planner.fragment.EndpointsIndex;
+import com.dremio.exec.proto.CoordExecRPC.MinorFragmentIndexEndpoint;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.record.FragmentWritableBatch;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.CustomGenerator;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
+import com.dremio.sabot.op.sender.partition.vectorized.VectorizedPartitionSenderOperator;
+import com.google.common.base.Stopwatch;
+
+import io.netty.buffer.ByteBuf;
+
+/*
+ * Measure the vectorized partition sender for an increasing number of receivers, with and without the adaptive
+ * flushes of the outgoing batches.
+ * Ignoring test by default, since it can take very long to run.
+ */
+@Ignore
+public class TestVectorizedPartitionSenderPerf extends BaseTestOperator {
+  private static final int NUM_ROWS = 4_000_000;
+  private static final int FRAGMENTS_PER_ENDPOINT = 16;
+
+  private void runOne(int numReceivers, long flushBytes, long maxFlushDelayMillis) throws Exception {
+    final int numEndpoints = Math.max(1, numReceivers / FRAGMENTS_PER_ENDPOINT);
+    final List<NodeEndpoint> endpoints = new ArrayList<>();
+    for (int i = 0; i < numEndpoints; i++) {
+      endpoints.add(NodeEndpoint.newBuilder().setAddress(String.format("a_%d", i)).setFabricPort(1).build());
+    }
+    final List<MinorFragmentIndexEndpoint> indexEndpoints = new ArrayList<>();
+    for (int i = 0; i < numReceivers; i++) {
+      indexEndpoints.add(MinorFragmentIndexEndpoint.newBuilder()
+        .setMinorFragmentId(i)
+        .setEndpointIndex(i % numEndpoints)
+        .build());
+    }
+
+    final long[] numMessages = new long[1];
+    final long[] numBytes = new long[1];
+    final AccountingExecTunnel tunnel = mock(AccountingExecTunnel.class);
+    doAnswer(invocation -> {
+      final FragmentWritableBatch batch = (FragmentWritableBatch) invocation.getArguments()[0];
+      numMessages[0]++;
+      for (ByteBuf b : batch.getBuffers()) {
+        numBytes[0] += b.readableBytes();
+        b.release();
+      }
+      return null;
+    }).when(tunnel).sendRecordBatch(any(FragmentWritableBatch.class));
+    doAnswer(invocation -> {
+      numMessages[0]++;
+      return null;
+    }).when(tunnel).sendStreamComplete(any(FragmentStreamComplete.class));
+
+    final TunnelProvider provider = mock(TunnelProvider.class);
+    when(provider.getExecTunnel(any(NodeEndpoint.class))).thenReturn(tunnel);
+
+    try (CustomGenerator generator = new CustomGenerator(NUM_ROWS, getTestAllocator());
+         AutoCloseable flush = with(VectorizedPartitionSenderOperator.FLUSH_BYTES, flushBytes);
+         AutoCloseable delay = with(VectorizedPartitionSenderOperator.MAX_FLUSH_DELAY_MILLIS, maxFlushDelayMillis)) {
+      final HashPartitionSender sender = new HashPartitionSender(PROPS, generator.getSchema(), null, 1, indexEndpoints,
+        f(CustomGenerator.ID.getName()));
+      final VectorizedPartitionSenderOperator op = newOperator(VectorizedPartitionSenderOperator.class, sender,
+        DEFAULT_BATCH, new EndpointsIndex(endpoints), provider);
+      op.setup(generator.getOutput());
+      final OperatorStats stats = op.getOperatorContext().getStats();
+      stats.startProcessing();
+
+      final Stopwatch watch = Stopwatch.createStarted();
+      int records;
+      while ((records = generator.next(DEFAULT_BATCH)) > 0) {
+        op.consumeData(records);
+      }
+      op.noMoreToConsume();
+      watch.stop();
+
+      System.out.println(String.format("receivers %d, flush bytes %d, max flush delay %dms: %dms, %d messages, " +
+          "%d bytes, %d size flushes, %d delayed flushes",
+        numReceivers, flushBytes, maxFlushDelayMillis, watch.elapsed(TimeUnit.MILLISECONDS), numMessages[0],
+        numBytes[0], stats.getLongStat(Metric.NUM_SIZE_FLUSHES), stats.getLongStat(Metric.NUM_DELAYED_FLUSHES)));
+    }
+  }
+
+  private void runAll(int numReceivers) throws Exception {
+    // only full batches are flushed
+    runOne(numReceivers, 0, 0);
+    runOne(numReceivers, VectorizedPartitionSenderOperator.FLUSH_BYTES.getDefault().getNumVal(),
+      VectorizedPartitionSenderOperator.MAX_FLUSH_DELAY_MILLIS.getDefault().getNumVal());
+    runOne(numReceivers, 64 * 1024, 0);
+  }
+
+  @Test
+  public void fanOut16() throws Exception {
+    runAll(16);
+  }
+
+  @Test
+  public void fanOut64() throws Exception {
+    runAll(64);
+  }
+
+  @Test
+  public void fanOut256() throws Exception {
+    runAll(256);
+  }
+
+  @Test
+  public void fanOut1024() throws Exception {
+    runAll(1024);
+  }
+}
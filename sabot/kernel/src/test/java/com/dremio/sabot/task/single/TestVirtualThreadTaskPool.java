@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.single;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.dremio.sabot.task.AsyncTask;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskDescriptor;
+import com.dremio.sabot.threads.AvailabilityCallback;
+import com.dremio.sabot.threads.sharedres.SharedResourceType;
+
+/**
+ * Tests for {@link VirtualThreadTaskPool}
+ */
+public class TestVirtualThreadTaskPool {
+
+  /**
+   * Task blocked on its upstream after its first run, done after its second one.
+   */
+  private static class BlockingTask implements AsyncTask {
+    private final AtomicInteger runs = new AtomicInteger();
+    private volatile Task.State state = Task.State.RUNNABLE;
+    private volatile AvailabilityCallback callback;
+
+    @Override
+    public void run() {
+      state = runs.incrementAndGet() == 1 ? Task.State.BLOCKED_ON_UPSTREAM : Task.State.DONE;
+    }
+
+    @Override
+    public void refreshState() {
+      state = Task.State.RUNNABLE;
+    }
+
+    @Override
+    public Task.State getState() {
+      return state;
+    }
+
+    @Override
+    public SharedResourceType getFirstBlockedResource() {
+      return SharedResourceType.UNKNOWN;
+    }
+
+    @Override
+    public void updateSleepDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedOnDownstreamDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedOnUpstreamDuration(long duration) {
+    }
+
+    @Override
+    public void addBlockedOnSharedResourceDuration(SharedResourceType resource, long duration) {
+    }
+
+    @Override
+    public void setWakeupCallback(AvailabilityCallback callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void setTaskDescriptor(TaskDescriptor descriptor) {
+    }
+  }
+
+  private static void runBlockingTasks(ThreadFactory threadFactory) throws Exception {
+    try (VirtualThreadTaskPool pool = new VirtualThreadTaskPool(threadFactory)) {
+      final int numTasks = 100;
+      final CountDownLatch done = new CountDownLatch(numTasks);
+      final BlockingTask[] tasks = new BlockingTask[numTasks];
+      for (int i = 0; i < numTasks; i++) {
+        tasks[i] = new BlockingTask();
+        pool.execute(new AsyncTaskWrapper(1, pool.getGroupManager().newGroup(1), tasks[i], done::countDown,
+          Integer.MAX_VALUE));
+      }
+      for (BlockingTask task : tasks) {
+        while (task.callback == null) {
+          Thread.sleep(1);
+        }
+        task.callback.nowAvailable();
+      }
+      assertTrue(done.await(1, TimeUnit.MINUTES));
+      for (BlockingTask task : tasks) {
+        assertEquals(2, task.runs.get());
+      }
+      while (pool.getNumThreads() > 0) {
+        Thread.sleep(1);
+      }
+    }
+  }
+
+  @Test
+  public void runsBlockingTasks() throws Exception {
+    runBlockingTasks(Thread::new);
+  }
+
+  @Test
+  public void runsBlockingTasksOnVirtualThreads() throws Exception {
+    final ThreadFactory threadFactory = VirtualThreadTaskPool.newVirtualThreadFactory();
+    Assume.assumeTrue("virtual threads not supported", threadFactory != null);
+    runBlockingTasks(threadFactory);
+  }
+}
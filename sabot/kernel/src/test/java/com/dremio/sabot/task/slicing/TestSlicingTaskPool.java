@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.dremio.sabot.task.AsyncTask;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskDescriptor;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.threads.AvailabilityCallback;
+import com.dremio.sabot.threads.sharedres.SharedResourceType;
+
+/**
+ * Tests for {@link SlicingTaskPool}
+ */
+public class TestSlicingTaskPool {
+
+  /**
+   * Task spinning for a short quantum at each run, blocked on its upstream every few runs.
+   */
+  private static class TestTask implements AsyncTask {
+    private final int numRuns;
+    private final int blockEvery;
+    private final AtomicInteger runs = new AtomicInteger();
+    private volatile boolean stopped;
+    private volatile Task.State state = Task.State.RUNNABLE;
+    private volatile AvailabilityCallback callback;
+
+    TestTask(int numRuns, int blockEvery) {
+      this.numRuns = numRuns;
+      this.blockEvery = blockEvery;
+    }
+
+    @Override
+    public void run() {
+      final long end = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(200);
+      while (System.nanoTime() < end) {
+        // spin
+      }
+      final int run = runs.incrementAndGet();
+      if (stopped || run == numRuns) {
+        state = Task.State.DONE;
+      } else if (blockEvery > 0 && run % blockEvery == 0) {
+        state = Task.State.BLOCKED_ON_UPSTREAM;
+      }
+    }
+
+    void unblock() {
+      final AvailabilityCallback callback = this.callback;
+      this.callback = null;
+      callback.nowAvailable();
+    }
+
+    @Override
+    public void refreshState() {
+      state = Task.State.RUNNABLE;
+    }
+
+    @Override
+    public Task.State getState() {
+      return state;
+    }
+
+    @Override
+    public SharedResourceType getFirstBlockedResource() {
+      return SharedResourceType.UNKNOWN;
+    }
+
+    @Override
+    public void updateSleepDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedOnDownstreamDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedOnUpstreamDuration(long duration) {
+    }
+
+    @Override
+    public void addBlockedOnSharedResourceDuration(SharedResourceType resource, long duration) {
+    }
+
+    @Override
+    public void setWakeupCallback(AvailabilityCallback callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void setTaskDescriptor(TaskDescriptor descriptor) {
+    }
+  }
+
+  private static AsyncTaskWrapper wrap(SchedulingGroup<AsyncTaskWrapper> group, TestTask task, CountDownLatch done) {
+    return new AsyncTaskWrapper(1, group, task, done::countDown, Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void runsTasksToCompletion() throws Exception {
+    try (SlicingTaskPool pool = new SlicingTaskPool(4)) {
+      final SchedulingGroup<AsyncTaskWrapper> group = pool.getGroupManager().newGroup(100);
+      final CountDownLatch done = new CountDownLatch(50);
+      final List<TestTask> tasks = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        final TestTask task = new TestTask(20, 0);
+        tasks.add(task);
+        pool.execute(wrap(group.addGroup(10, true), task, done));
+      }
+      assertTrue(done.await(1, TimeUnit.MINUTES));
+      for (TestTask task : tasks) {
+        assertEquals(20, task.runs.get());
+      }
+      int numThreads = 0;
+      for (TaskPool.ThreadInfo info : pool.getSlicingThreads()) {
+        assertEquals(numThreads++, info.slicingThreadId);
+      }
+      assertEquals(4, numThreads);
+      assertTrue(pool.areAllThreadsAlive());
+    }
+  }
+
+  @Test
+  public void blockedTaskParkedUntilAvailable() throws Exception {
+    try (SlicingTaskPool pool = new SlicingTaskPool(2)) {
+      final CountDownLatch done = new CountDownLatch(1);
+      final TestTask task = new TestTask(2, 1);
+      pool.execute(wrap(pool.getGroupManager().newGroup(1), task, done));
+
+      while (task.callback == null) {
+        Thread.sleep(1);
+      }
+      // stays blocked until its callback is called
+      Thread.sleep(50);
+      assertEquals(1, task.runs.get());
+      assertEquals(Task.State.BLOCKED_ON_UPSTREAM, task.getState());
+
+      task.unblock();
+      assertTrue(done.await(1, TimeUnit.MINUTES));
+      assertEquals(2, task.runs.get());
+    }
+  }
+
+  @Test
+  public void honorsGroupWeights() throws Exception {
+    try (SlicingTaskPool pool = new SlicingTaskPool(1)) {
+      final CountDownLatch done = new CountDownLatch(2);
+      final TestTask light = new TestTask(Integer.MAX_VALUE, 0);
+      final TestTask heavy = new TestTask(Integer.MAX_VALUE, 0);
+      pool.execute(wrap(pool.getGroupManager().newGroup(1), light, done));
+      pool.execute(wrap(pool.getGroupManager().newGroup(4), heavy, done));
+
+      while (light.runs.get() + heavy.runs.get() < 500) {
+        Thread.sleep(10);
+      }
+      final int lightRuns = light.runs.get();
+      final int heavyRuns = heavy.runs.get();
+      light.stopped = true;
+      heavy.stopped = true;
+      assertTrue(done.await(1, TimeUnit.MINUTES));
+      assertTrue(String.format("light %d, heavy %d", lightRuns, heavyRuns), heavyRuns > 2 * lightRuns);
+    }
+  }
+}
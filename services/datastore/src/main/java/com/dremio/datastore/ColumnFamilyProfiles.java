@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.datastore;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.ClockCache;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.Filter;
+import org.rocksdb.LRUCache;
+
+import com.dremio.common.AutoCloseables;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tuning of the RocksDB database and column families of the kvstore, with a profile per store.
+ *
+ * All the stores share a row cache, which serves the point lookups, and have a whole key bloom filter. Each store has
+ * its own options, and so its own block cache. Write heavy stores, the query profiles by default, get larger memtables
+ * and compact level 0 later.
+ */
+final class ColumnFamilyProfiles implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ColumnFamilyProfiles.class);
+
+  static final String ROW_CACHE_SIZE_MB_PROPERTY = "dremio.rocksdb.row_cache_size_mb";
+  static final String ROW_CACHE_TYPE_PROPERTY = "dremio.rocksdb.row_cache_type";
+  static final String BLOCK_CACHE_SIZE_MB_PROPERTY = "dremio.rocksdb.block_cache_size_mb";
+  static final String BLOOM_FILTER_BITS_PER_KEY_PROPERTY = "dremio.rocksdb.bloom_filter_bits_per_key";
+  static final String WRITE_OPTIMIZED_STORES_PROPERTY = "dremio.rocksdb.write_optimized_stores";
+
+  private static final long MB = 1024 * 1024;
+
+  // no compression for the small and short lived upper levels
+  private static final List<CompressionType> COMPRESSION_PER_LEVEL = Arrays.asList(
+    CompressionType.NO_COMPRESSION,
+    CompressionType.NO_COMPRESSION,
+    CompressionType.LZ4_COMPRESSION,
+    CompressionType.LZ4_COMPRESSION,
+    CompressionType.LZ4_COMPRESSION,
+    CompressionType.LZ4_COMPRESSION,
+    CompressionType.LZ4_COMPRESSION);
+
+  /**
+   * Tuning profile of a column family.
+   */
+  enum Profile {
+    /**
+     * Read mostly stores, looked up by key.
+     */
+    POINT_LOOKUP,
+    /**
+     * Write heavy stores.
+     */
+    WRITE_OPTIMIZED
+  }
+
+  private final Cache rowCache;
+  private final Filter bloomFilter;
+  private final long blockCacheSizeMB;
+  private final Set<String> writeOptimizedStores;
+  // the block cache is created with the table config of the options, they can't be shared between the stores.
+  private final Map<String, ColumnFamilyOptions> options = new HashMap<>();
+
+  ColumnFamilyProfiles() {
+    this(Long.getLong(ROW_CACHE_SIZE_MB_PROPERTY, 64),
+      System.getProperty(ROW_CACHE_TYPE_PROPERTY, "lru"),
+      Long.getLong(BLOCK_CACHE_SIZE_MB_PROPERTY, 8),
+      Integer.getInteger(BLOOM_FILTER_BITS_PER_KEY_PROPERTY, 10),
+      ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings()
+        .split(System.getProperty(WRITE_OPTIMIZED_STORES_PROPERTY, "profiles"))));
+  }
+
+  @VisibleForTesting
+  ColumnFamilyProfiles(long rowCacheSizeMB, String rowCacheType, long blockCacheSizeMB, int bloomFilterBitsPerKey,
+                       Set<String> writeOptimizedStores) {
+    if (rowCacheSizeMB <= 0) {
+      rowCache = null;
+    } else if ("clock".equalsIgnoreCase(rowCacheType)) {
+      rowCache = new ClockCache(rowCacheSizeMB * MB);
+    } else {
+      rowCache = new LRUCache(rowCacheSizeMB * MB);
+    }
+    this.bloomFilter = bloomFilterBitsPerKey > 0 ? new BloomFilter(bloomFilterBitsPerKey, false) : null;
+    this.blockCacheSizeMB = blockCacheSizeMB;
+    this.writeOptimizedStores = writeOptimizedStores;
+    logger.debug("RocksDB row cache: {} MB ({}), block cache per store: {} MB, bloom filter bits per key: {}, " +
+      "write optimized stores: {}", rowCacheSizeMB, rowCacheType, blockCacheSizeMB, bloomFilterBitsPerKey,
+      writeOptimizedStores);
+  }
+
+  private ColumnFamilyOptions newOptions(Profile profile) {
+    final BlockBasedTableConfig tableConfig = new BlockBasedTableConfig()
+      .setBlockCacheSize(blockCacheSizeMB * MB);
+    if (bloomFilter != null) {
+      tableConfig.setFilter(bloomFilter);
+    }
+
+    final ColumnFamilyOptions cfOptions = new ColumnFamilyOptions()
+      .setCompressionPerLevel(COMPRESSION_PER_LEVEL);
+    if (profile == Profile.WRITE_OPTIMIZED) {
+      // absorb the bursts of writes in memory, and merge the memtables before flushing them
+      cfOptions.setMaxWriteBufferNumber(4)
+        .setMinWriteBufferNumberToMerge(2)
+        .setLevel0FileNumCompactionTrigger(8);
+      tableConfig.setBlockSize(16 * 1024);
+    }
+    return cfOptions.setTableFormatConfig(tableConfig);
+  }
+
+  /**
+   * Set the options shared by all the column families.
+   */
+  void configure(DBOptions dbOptions) {
+    if (rowCache != null) {
+      dbOptions.setRowCache(rowCache);
+    }
+  }
+
+  Profile getProfile(String storeName) {
+    return writeOptimizedStores.contains(storeName) ? Profile.WRITE_OPTIMIZED : Profile.POINT_LOOKUP;
+  }
+
+  /**
+   * @return the options of the column family of the store, owned by this object
+   */
+  synchronized ColumnFamilyOptions getOptions(String storeName) {
+    return options.computeIfAbsent(storeName, name -> newOptions(getProfile(name)));
+  }
+
+  @Override
+  public synchronized void close() throws Exception {
+    AutoCloseables.close(options.values(), Arrays.<AutoCloseable>asList(bloomFilter, rowCache));
+    options.clear();
+  }
+}
@@ -18,6 +18,7 @@ package com.dremio.datastore;
 import static com.dremio.common.perf.Timer.time;
 
 import java.util.List;
+import java.util.Map;
 
 import com.dremio.common.perf.Timer.TimedBlock;
 import com.dremio.datastore.SearchTypes.SearchQuery;
@@ -78,6 +79,13 @@ abstract class CoreBaseTimedStore<K, V> implements CoreKVStore<K, V> {
     }
   }
 
+  @Override
+  public Iterable<Document<KVStoreTuple<K>, KVStoreTuple<V>>> putAll(Map<KVStoreTuple<K>, KVStoreTuple<V>> entries) {
+    try (TimedBlock b = time(name + ".putAll")) {
+      return kvStore.putAll(entries);
+    }
+  }
+
   @Override
   public boolean contains(KVStoreTuple<K> key, ContainsOption... options) {
     try (TimedBlock b = time(name + ".contains")) {
@@ -16,7 +16,9 @@
 package com.dremio.datastore;
 
 import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.dremio.datastore.api.Document;
 import com.dremio.datastore.api.FindByRange;
@@ -89,6 +91,15 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     return fromDocument(result);
   }
 
+  @Override
+  public Iterable<Document<KVStoreTuple<KEY>, KVStoreTuple<VALUE>>> putAll(Map<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entries) {
+    final Map<byte[], byte[]> convertedEntries = new LinkedHashMap<>();
+    for (Map.Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entry : entries.entrySet()) {
+      convertedEntries.put(entry.getKey().getSerializedBytes(), entry.getValue().getSerializedBytes());
+    }
+    return Iterables.transform(rawStore.putAll(convertedEntries), this::fromDocument);
+  }
+
   @Override
   public boolean contains(KVStoreTuple<KEY> key, ContainsOption... options) {
     return rawStore.contains(key.getSerializedBytes(), options);
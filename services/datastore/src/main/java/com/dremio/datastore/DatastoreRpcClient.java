@@ -34,6 +34,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.GetRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutAllRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutAllResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
@@ -225,6 +227,27 @@ public class DatastoreRpcClient {
       .build());
   }
 
+  /**
+   * Put method to store a batch of entries in one round trip. The master applies the batch atomically if its store
+   * supports it.
+   *
+   * @param storeId the store ID.
+   * @param puts the entries to store, without put options.
+   * @return the new tags of the entries, in the order of the puts.
+   * @throws RpcException when RPC related errors are encountered, or when the master failed to apply the batch.
+   */
+  public List<String> putAll(String storeId, List<PutRequest> puts) throws RpcException {
+    final PutAllRequest.Builder builder = PutAllRequest.newBuilder();
+    builder.setStoreId(storeId);
+    builder.addAllPuts(puts);
+
+    final ReceivedResponseMessage<PutAllResponse> response = rpcService.getPutAllEndpoint().send(builder.build());
+    if (response.getBody().hasErrorMessage()) {
+      throw new RpcException(response.getBody().getErrorMessage());
+    }
+    return response.getBody().getTagsList();
+  }
+
   /**
    * Delete method to removed key-value store entry corresponding to the provided key from the store. Tag can be
    * {@code null} if no validation is required.
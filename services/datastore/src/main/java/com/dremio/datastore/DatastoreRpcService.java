@@ -32,6 +32,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.GetRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutAllRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutAllResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
@@ -57,6 +59,7 @@ public class DatastoreRpcService {
   private static final int TYPE_SEARCH = 5;
   private static final int TYPE_PUT = 6;
   private static final int TYPE_DELETE = 7;
+  private static final int TYPE_PUT_ALL = 8;
   private static final int TYPE_GET_STORE = 10;
 
   private final Provider<NodeEndpoint> master;
@@ -67,6 +70,7 @@ public class DatastoreRpcService {
   private SendEndpointCreator<FindRequest, FindResponse> findEndpointCreator;
   private SendEndpointCreator<SearchRequest, SearchResponse> searchEndpointCreator;
   private SendEndpointCreator<PutRequest, PutResponse> putEndpointCreator;
+  private SendEndpointCreator<PutAllRequest, PutAllResponse> putAllEndpointCreator;
   private SendEndpointCreator<DeleteRequest, DeleteResponse> deleteEndpointCreator;
   private SendEndpointCreator<GetStoreRequest, GetStoreResponse> getStoreEndpointCreator;
 
@@ -126,6 +130,14 @@ public class DatastoreRpcService {
         }
       });
 
+    putAllEndpointCreator = builder.register(TYPE_PUT_ALL,
+      new AbstractReceiveHandler<PutAllRequest, PutAllResponse>(PutAllRequest.getDefaultInstance(), PutAllResponse.getDefaultInstance()) {
+        @Override
+        public SentResponseMessage<PutAllResponse> handle(PutAllRequest request, ArrowBuf dBody) throws RpcException {
+          return new SentResponseMessage<>(handler.putAll(request));
+        }
+      });
+
     deleteEndpointCreator = builder.register(TYPE_DELETE,
       new AbstractReceiveHandler<DeleteRequest, DeleteResponse>(DeleteRequest.getDefaultInstance(), DeleteResponse.getDefaultInstance()) {
         @Override
@@ -178,6 +190,10 @@ public class DatastoreRpcService {
     return newEndpoint(putEndpointCreator);
   }
 
+  public SendEndpoint<PutAllRequest, PutAllResponse> getPutAllEndpoint() throws RpcException {
+    return newEndpoint(putAllEndpointCreator);
+  }
+
   public SendEndpoint<DeleteRequest, DeleteResponse> getDeleteEndpoint() throws RpcException {
     return newEndpoint(deleteEndpointCreator);
   }
@@ -27,6 +27,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.GetRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutAllRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutAllResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
@@ -67,6 +69,10 @@ public class DefaultDataStoreRpcHandler {
     throw new UnsupportedOperationException("Remote datastore operations are not supported on this host " + hostName);
   }
 
+  public PutAllResponse putAll(PutAllRequest request) {
+    throw new UnsupportedOperationException("Remote datastore operations are not supported on this host " + hostName);
+  }
+
   public DeleteResponse delete(DeleteRequest request) {
     throw new UnsupportedOperationException("Remote datastore operations are not supported on this host " + hostName);
   }
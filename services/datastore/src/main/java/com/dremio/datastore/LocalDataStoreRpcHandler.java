@@ -31,6 +31,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.GetRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutAllRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutAllResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
@@ -151,6 +153,11 @@ public class LocalDataStoreRpcHandler extends DefaultDataStoreRpcHandler {
     return putHandler.apply(request, false);
   }
 
+  @Override
+  public PutAllResponse putAll(PutAllRequest request) {
+    return putHandler.applyAll(request);
+  }
+
   @Override
   public DeleteResponse delete(DeleteRequest request) {
     final CoreKVStore store = coreStoreProvider.getStore(request.getStoreId());
@@ -15,7 +15,9 @@
  */
 package com.dremio.datastore;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.dremio.datastore.api.Document;
@@ -78,6 +80,15 @@ public class LocalKVStore<K, V> implements KVStore<K, V> {
     return fromDocument(coreKVStore.put(buildKey(key), buildValue(value), options));
   }
 
+  @Override
+  public Iterable<Document<K, V>> putAll(Map<K, V> entries) {
+    final Map<KVStoreTuple<K>, KVStoreTuple<V>> convertedEntries = new LinkedHashMap<>();
+    for (Map.Entry<K, V> entry : entries.entrySet()) {
+      convertedEntries.put(buildKey(entry.getKey()), buildValue(entry.getValue()));
+    }
+    return Iterables.transform(coreKVStore.putAll(convertedEntries), this::fromDocument);
+  }
+
   @Override
   public boolean contains(K key, ContainsOption... options) {
     return coreKVStore.contains(buildKey(key), options);
@@ -17,7 +17,9 @@ package com.dremio.datastore;
 
 import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.dremio.datastore.api.Document;
 import com.dremio.datastore.api.KVStore;
@@ -84,6 +86,30 @@ public class PutHandler {
     return builder.build();
   }
 
+  /**
+   * Applies all the puts of the request as one batch, atomically if the core store supports it.
+   */
+  public RemoteDataStoreProtobuf.PutAllResponse applyAll(RemoteDataStoreProtobuf.PutAllRequest request) {
+    final CoreKVStore store = coreStoreProvider.getStore(request.getStoreId());
+    final RemoteDataStoreProtobuf.PutAllResponse.Builder builder = RemoteDataStoreProtobuf.PutAllResponse.newBuilder();
+    final Map<KVStoreTuple<?>, KVStoreTuple<?>> entries = new LinkedHashMap<>();
+    for (RemoteDataStoreProtobuf.PutRequest put : request.getPutsList()) {
+      entries.put(store.newKey().setSerializedBytes(put.getKey().toByteArray()),
+        store.newValue().setSerializedBytes(put.getValue().toByteArray()));
+    }
+
+    try {
+      final Iterable<Document<?, ?>> results = store.putAll(entries);
+      for (Document<?, ?> result : results) {
+        builder.addTags(Strings.nullToEmpty(result.getTag()));
+      }
+    } catch (DatastoreException e) {
+      builder.clearTags().setErrorMessage(e.getMessage());
+    }
+
+    return builder.build();
+  }
+
   private static IndexPutOption toIndexPutOption(RemoteDataStoreProtobuf.PutRequest putRequest) {
     Preconditions.checkArgument(putRequest != null);
     return new ImmutableIndexPutOption.Builder().setIndexedFields(putRequest.getIndexFieldsList()).build();
@@ -17,6 +17,8 @@ package com.dremio.datastore;
 
 import static java.lang.String.format;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -51,6 +53,7 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
     GET,
     GET_LIST,
     PUT,
+    PUT_ALL,
     CHECK_AND_PUT,
     CONTAINS,
     DELETE,
@@ -176,6 +179,42 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
     return createDocument(key, value, tag);
   }
 
+  @Override
+  public Iterable<Document<K, V>> putAll(Map<K, V> entries) {
+    if (entries.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final List<RemoteDataStoreProtobuf.PutRequest> puts = new ArrayList<>(entries.size());
+    for (Map.Entry<K, V> entry : entries.entrySet()) {
+      final PutRequestDocumentWriter putRequestDocumentWriter = new PutRequestDocumentWriter();
+      if (helper.hasDocumentConverter()) {
+        helper.getDocumentConverter().convert(putRequestDocumentWriter, entry.getKey(), entry.getValue());
+      }
+      final RemoteDataStoreProtobuf.PutRequest.Builder builder = RemoteDataStoreProtobuf.PutRequest.newBuilder();
+      putRequestDocumentWriter.toPutRequest(builder);
+      puts.add(builder
+        .setStoreId(storeId)
+        .setKey(convertKey(entry.getKey()))
+        .setValue(convertValue(entry.getValue()))
+        .build());
+    }
+
+    final List<String> tags;
+    try (TimerContext timer = time(Stats.PUT_ALL)) {
+      tags = client.putAll(storeId, puts);
+    } catch (RpcException e) {
+      throw new DatastoreException(format("Failed to put multiple values in store id: %s", getStoreId()), e);
+    }
+
+    final List<Document<K, V>> documents = new ArrayList<>(entries.size());
+    int i = 0;
+    for (Map.Entry<K, V> entry : entries.entrySet()) {
+      documents.add(createDocument(entry.getKey(), entry.getValue(), tags.get(i++)));
+    }
+    return documents;
+  }
+
   @Override
   public boolean contains(K key, ContainsOption... options) {
     try (TimerContext timer = time(Stats.CONTAINS)) {
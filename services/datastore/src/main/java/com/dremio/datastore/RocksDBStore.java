@@ -27,9 +27,14 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -45,6 +50,10 @@ import org.rocksdb.FlushOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Statistics;
+import org.rocksdb.TickerType;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.xerial.snappy.SnappyInputStream;
 import org.xerial.snappy.SnappyOutputStream;
 
@@ -172,6 +181,7 @@ class RocksDBStore implements ByteStore {
   private final int parallel;
   private final String name;
   private final MetaManager metaManager;
+  private final Statistics statistics;
 
   private final ReferenceQueue<FindByRangeIterator> iteratorQueue = new ReferenceQueue<>();
   private final Set<IteratorReference> iteratorSet = Sets.newConcurrentHashSet();
@@ -188,6 +198,14 @@ class RocksDBStore implements ByteStore {
 
   public RocksDBStore(String name, ColumnFamilyDescriptor family, ColumnFamilyHandle handle, RocksDB db, int stripes,
                       MetaManager metaManager) {
+    this(name, family, handle, db, stripes, metaManager, null);
+  }
+
+  /**
+   * @param statistics statistics of the database, to report the cache hit rates. Can be {@code null}.
+   */
+  public RocksDBStore(String name, ColumnFamilyDescriptor family, ColumnFamilyHandle handle, RocksDB db, int stripes,
+                      MetaManager metaManager, Statistics statistics) {
     super();
     this.family = family;
     this.name = name;
@@ -197,6 +215,7 @@ class RocksDBStore implements ByteStore {
     this.sharedLocks = new AutoCloseableLock[stripes];
     this.exclusiveLocks = new AutoCloseableLock[stripes];
     this.metaManager = metaManager;
+    this.statistics = statistics;
 
     for (int i = 0; i < stripes; i++) {
       ReadWriteLock core = new ReentrantReadWriteLock();
@@ -250,6 +269,12 @@ class RocksDBStore implements ByteStore {
       append(sb, "rocksdb.estimate-live-data-size", "Estimated Live Data Size");
       append(sb, "rocksdb.total-sst-files-size", "Total SST files size");
       append(sb, "rocksdb.estimate-pending-compaction-bytes", "Pending Compaction Bytes");
+      append(sb, "rocksdb.block-cache-usage", "Block Cache Usage");
+      if (statistics != null) {
+        // the tickers are collected for the whole database
+        appendHitRate(sb, "Block Cache Hit Rate (all stores)", TickerType.BLOCK_CACHE_HIT, TickerType.BLOCK_CACHE_MISS);
+        appendHitRate(sb, "Row Cache Hit Rate (all stores)", TickerType.ROW_CACHE_HIT, TickerType.ROW_CACHE_MISS);
+      }
 
       final BlobStats blobStats = metaManager.getStats();
       if (blobStats != null) {
@@ -269,6 +294,16 @@ class RocksDBStore implements ByteStore {
     sb.append("\n");
   }
 
+  private void appendHitRate(StringBuilder sb, String displayName, TickerType hitTicker, TickerType missTicker) {
+    final long hits = statistics.getTickerCount(hitTicker);
+    final long total = hits + statistics.getTickerCount(missTicker);
+    sb.append("* ");
+    sb.append(displayName);
+    sb.append(": ");
+    sb.append(total == 0 ? "n/a" : String.format("%.2f%% of %d", 100.0 * hits / total, total));
+    sb.append("\n");
+  }
+
   @Override
   public KVAdmin getAdmin() {
     return new RocksKVAdmin();
@@ -311,6 +346,22 @@ class RocksDBStore implements ByteStore {
     return lock;
   }
 
+  /**
+   * Open the shared locks of the stripes of all the keys, in the order of the stripes.
+   */
+  private StripedLocks sharedLocks(Collection<byte[]> keys) {
+    final BitSet stripes = new BitSet(parallel);
+    for (byte[] key : keys) {
+      Preconditions.checkNotNull(key);
+      stripes.set(Math.abs(Arrays.hashCode(key) % parallel));
+    }
+    final StripedLocks locks = new StripedLocks(stripes.cardinality());
+    for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+      locks.add(sharedLocks[i].open());
+    }
+    return locks;
+  }
+
   private AutoCloseableLock exclusiveLock(byte[] key) {
     Preconditions.checkNotNull(key);
     final int hash = Arrays.hashCode(key);
@@ -483,11 +534,78 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public Iterable<Document<byte[], byte[]>> get(List<byte[]> keys, GetOption... options) {
-    final List<Document<byte[], byte[]>> results = new ArrayList<>();
-    for (byte[] key : keys) {
-      results.add(get(key, options));
+    if (keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    // the values are keyed by the key instances, don't let a lazy list create new ones
+    final List<byte[]> keyList = new ArrayList<>(keys);
+
+    try (StripedLocks ac = sharedLocks(keyList)) {
+      throwIfClosed();
+      // one native call for the whole batch, the missing keys aren't in the map
+      final Map<byte[], byte[]> valuesOrPtrs = db.multiGet(Collections.nCopies(keyList.size(), handle), keyList);
+      final List<Document<byte[], byte[]>> results = new ArrayList<>(keyList.size());
+      for (byte[] key : keyList) {
+        final RocksEntry result = resolvePtrOrValue(valuesOrPtrs.get(key));
+        if (result == null) {
+          results.add(null);
+          continue;
+        }
+        final byte[] value = result.getData();
+        results.add(toDocument(key, value, toTag(result.getMeta(), value)));
+      }
+      return results;
+    } catch (RocksDBException | BlobNotFoundException e) {
+      throw new RuntimeException(e);
     }
-    return results;
+  }
+
+  /**
+   * Writes all the entries in one {@link WriteBatch}, so that either all or none of them are stored.
+   */
+  @Override
+  public Iterable<Document<byte[], byte[]>> putAll(Map<byte[], byte[]> entries) {
+    if (entries.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<byte[]> keys = new ArrayList<>(entries.keySet());
+    final Set<byte[]> distinctKeys = new TreeSet<>(UnsignedBytes.lexicographicalComparator());
+    distinctKeys.addAll(keys);
+    Preconditions.checkArgument(distinctKeys.size() == keys.size(), "duplicate keys in kvstore batch");
+
+    final List<BlobHolder> blobs = new ArrayList<>(keys.size());
+    final List<Document<byte[], byte[]>> documents = new ArrayList<>(keys.size());
+    try (StripedLocks ac = sharedLocks(keys);
+         WriteBatch batch = new WriteBatch();
+         WriteOptions writeOptions = new WriteOptions()) {
+      throwIfClosed();
+
+      final Map<byte[], byte[]> oldValuesOrPtrs = db.multiGet(Collections.nCopies(keys.size(), handle), keys);
+      for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+        final byte[] newValue = entry.getValue();
+        if (newValue == null) {
+          throw new NullPointerException("null values are not allowed in kvstore");
+        }
+        final String newTag = ByteStore.generateTagFromBytes(newValue);
+        final BlobHolder blob = metaManager.filterPut(newValue, newTag);
+        blobs.add(blob);
+        batch.put(handle, entry.getKey(), blob.ptrOrValue());
+        documents.add(toDocument(entry.getKey(), newValue, newTag));
+      }
+
+      db.write(writeOptions, batch);
+      for (byte[] oldValueOrPtr : oldValuesOrPtrs.values()) {
+        metaManager.deleteTranslation(meta(oldValueOrPtr));
+      }
+      blobs.forEach(BlobHolder::commit);
+    } catch (RocksDBException | IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      // deletes the blobs of a batch which wasn't written
+      blobs.forEach(BlobHolder::close);
+    }
+
+    return documents;
   }
 
   @Override
@@ -1055,6 +1173,28 @@ class RocksDBStore implements ByteStore {
     }
   }
 
+  /**
+   * Locks of several stripes, closed in the reverse order.
+   */
+  private static final class StripedLocks implements AutoCloseable {
+    private final List<AutoCloseableLock> locks;
+
+    private StripedLocks(int size) {
+      this.locks = new ArrayList<>(size);
+    }
+
+    private void add(AutoCloseableLock lock) {
+      locks.add(lock);
+    }
+
+    @Override
+    public void close() {
+      for (int i = locks.size() - 1; i >= 0; i--) {
+        locks.get(i).close();
+      }
+    }
+  }
+
   private interface BlobHolder extends AutoCloseable {
 
     default void commit() {}
@@ -47,6 +47,7 @@ public class TimedKVStore<K, V> implements KVStore<K, V> {
     get,
     getList,
     put,
+    putAll,
     contains,
     delete,
     findByRange,
@@ -105,6 +106,13 @@ public class TimedKVStore<K, V> implements KVStore<K, V> {
     }
   }
 
+  @Override
+  public Iterable<Document<K, V>> putAll(Map<K, V> entries) {
+    try(final OpTimer ctx = time(Ops.putAll)) {
+      return delegate.putAll(entries);
+    }
+  }
+
   @Override
   public void delete(K key, DeleteOption... options) {
     try(final OpTimer ctx = time(Ops.delete)) {
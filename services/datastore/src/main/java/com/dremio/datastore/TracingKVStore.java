@@ -16,6 +16,7 @@
 package com.dremio.datastore;
 
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import com.dremio.common.tracing.TracingUtils;
@@ -86,6 +87,11 @@ class TracingKVStore<K, V> implements KVStore<K, V> {
     return trace("put", () -> delegate.put(key, value, options));
   }
 
+  @Override
+  public Iterable<Document<K, V>> putAll(Map<K, V> entries) {
+    return trace("putAll", () -> delegate.putAll(entries));
+  }
+
   @Override
   public Iterable<Document<K, V>> find(FindOption... options) {
     return trace("find", () -> delegate.find(options));
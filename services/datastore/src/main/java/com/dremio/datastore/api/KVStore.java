@@ -15,7 +15,9 @@
  */
 package com.dremio.datastore.api;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -117,6 +119,23 @@ public interface KVStore<K, V> {
    */
   Document<K, V> put(K key, V value, PutOption ... options);
 
+  /**
+   * Saves a batch of documents to the KV Store. Existing values associated with the keys are discarded and
+   * replaced by the new values. Stores which support it write the whole batch atomically, the others put the
+   * documents one at a time.
+   *
+   * @param entries the keys and values to save, in the order of the returned documents.
+   * @return the documents that are updated or created, with their latest version tags.
+   * @throws com.dremio.datastore.DatastoreException when one or more runtime failures are encountered.
+   */
+  default Iterable<Document<K, V>> putAll(Map<K, V> entries) {
+    final List<Document<K, V>> documents = new ArrayList<>(entries.size());
+    for (Map.Entry<K, V> entry : entries.entrySet()) {
+      documents.add(put(entry.getKey(), entry.getValue()));
+    }
+    return documents;
+  }
+
   /**
    * Removes a document with the provided key value.
    *
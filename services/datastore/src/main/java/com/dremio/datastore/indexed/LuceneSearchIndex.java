@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.document.Document;
@@ -35,8 +36,10 @@ import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.LiveIndexWriterConfig;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
@@ -51,6 +54,9 @@ import com.dremio.datastore.CoreIndexedStore;
 import com.dremio.datastore.WarningTimer;
 import com.dremio.datastore.indexed.CommitWrapper.CommitCloser;
 import com.dremio.telemetry.api.metrics.Metrics;
+import com.dremio.telemetry.api.metrics.Metrics.ResetType;
+import com.dremio.telemetry.api.metrics.Timer;
+import com.dremio.telemetry.api.metrics.Timer.TimerContext;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
@@ -95,6 +101,37 @@ public class LuceneSearchIndex implements AutoCloseable {
    */
   public static final String COMMIT_FREQUENCY_MILLIS_PROPERTY = "dremio.lucene.commit_frequency";
 
+  /**
+   * Property name for the number of writes after which the writer is committed without waiting for the end of the
+   * commit period
+   *
+   * Default is 10000, 0 to only commit periodically
+   */
+  public static final String COMMIT_AFTER_WRITES_PROPERTY = "dremio.lucene.commit_after_writes";
+
+  /**
+   * Property name to refresh the searchers in a near real time reopen thread, instead of in the searching threads
+   *
+   * Default is true
+   */
+  public static final String NRT_ENABLED_PROPERTY = "dremio.lucene.nrt.enabled";
+
+  /**
+   * Property name for the maximum time (in millis) a write stays invisible to the searches when no search waits for
+   * it. Overridden for an index by appending its name, e.g. dremio.lucene.nrt.max_stale_millis.jobs
+   *
+   * Default is 1s
+   */
+  public static final String NRT_MAX_STALE_MILLIS_PROPERTY = "dremio.lucene.nrt.max_stale_millis";
+
+  /**
+   * Property name for the minimum time (in millis) between two refreshes of the searchers, when searches wait for the
+   * latest writes. Overridden for an index by appending its name, e.g. dremio.lucene.nrt.min_stale_millis.jobs
+   *
+   * Default is 25ms
+   */
+  public static final String NRT_MIN_STALE_MILLIS_PROPERTY = "dremio.lucene.nrt.min_stale_millis";
+
   /**
    * Spinning disks override property
    *
@@ -109,6 +146,12 @@ public class LuceneSearchIndex implements AutoCloseable {
   //delay between end of a commit and next commit
   private static final long COMMIT_FREQUENCY = Integer.getInteger(COMMIT_FREQUENCY_MILLIS_PROPERTY, 60_000);
 
+  // number of writes which triggers a commit before the end of the commit period
+  private static final long COMMIT_AFTER_WRITES = Integer.getInteger(COMMIT_AFTER_WRITES_PROPERTY, 10_000) > 0
+      ? Integer.getInteger(COMMIT_AFTER_WRITES_PROPERTY, 10_000) : Long.MAX_VALUE;
+
+  private static final boolean NRT_ENABLED = Boolean.parseBoolean(System.getProperty(NRT_ENABLED_PROPERTY, "true"));
+
   // Amount of RAM that may be used for buffering added documents and deletions before they are flushed
   // during normal processing
   private static final int RAM_BUFFER_SIZE_MB = Integer.getInteger(RAM_BUFFER_SIZE_MB_PROPERTY, 32);
@@ -126,12 +169,14 @@ public class LuceneSearchIndex implements AutoCloseable {
   private static final int SEARCHER_CACHE_TTL_MILLIS = 3600 * 1000;
 
   /**
-   * Starts a thread that will commit the writer every 60s (by default), if any exception is thrown during commit it will
-   * be recorded and calling throwExceptionIfAny() will throw it back
+   * Starts a thread that will commit the writer every 60s (by default), or as soon as there are enough writes to
+   * commit. If any exception is thrown during commit it will be recorded and calling throwExceptionIfAny() will throw
+   * it back
    */
   private final class CommitterThread implements AutoCloseable {
     private volatile Throwable commitException;
     private final Thread commitThread;
+    private final AtomicLong pendingWrites = new AtomicLong();
     private volatile boolean closed;
 
     CommitterThread() {
@@ -152,12 +197,26 @@ public class LuceneSearchIndex implements AutoCloseable {
       }
     }
 
+    void onWrite() {
+      // reindexing commits once done
+      if (!reindexing && pendingWrites.incrementAndGet() == COMMIT_AFTER_WRITES) {
+        synchronized (this) {
+          this.notify();
+        }
+      }
+    }
+
     private void commitLoop() {
       while (!closed) {
 
         synchronized(this) {
           try {
-            this.wait(COMMIT_FREQUENCY);
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COMMIT_FREQUENCY);
+            long remaining = TimeUnit.MILLISECONDS.toNanos(COMMIT_FREQUENCY);
+            while (!closed && pendingWrites.get() < COMMIT_AFTER_WRITES && remaining > 0) {
+              TimeUnit.NANOSECONDS.timedWait(this, remaining);
+              remaining = deadline - System.nanoTime();
+            }
             if (closed) {
               return;
             }
@@ -167,8 +226,9 @@ public class LuceneSearchIndex implements AutoCloseable {
           }
         }
 
-        // Do not commit while reindexing
-        if (reindexing) {
+        pendingWrites.set(0);
+        // Do not commit while reindexing, nor if there is nothing to commit
+        if (reindexing || !writer.hasUncommittedChanges()) {
           continue;
         }
 
@@ -211,9 +271,17 @@ public class LuceneSearchIndex implements AutoCloseable {
   private final IndexWriter writer;
   private final BaseDirectory directory;
   private final SearcherManager searcherManager;
+  // refreshes the searchers in the background, null if near real time search is disabled
+  private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+  // sequence number of the latest write, which the searches wait for
+  private final AtomicLong lastWriteGeneration = new AtomicLong();
   private final String name;
   private final String liveRecordsMetricName;
   private final String deletedRecordsMetricsName;
+  private final String refreshMetricName;
+  private final String searchMetricName;
+  private final Timer refreshTimer;
+  private final Timer searchTimer;
 
   private volatile boolean reindexing = false;
 
@@ -244,6 +312,10 @@ public class LuceneSearchIndex implements AutoCloseable {
   ) {
     this.name = name;
     this.commitWrapper = commitWrapper;
+    this.refreshMetricName = Metrics.join(METRIC_PREFIX, name, "refresh");
+    this.searchMetricName = Metrics.join(METRIC_PREFIX, name, "search");
+    this.refreshTimer = Metrics.newTimer(refreshMetricName, ResetType.NEVER);
+    this.searchTimer = Metrics.newTimer(searchMetricName, ResetType.NEVER);
 
     final ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
     String overrideSpins = System.getProperty(OVERRIDE_SPINS_PROPERTY);
@@ -278,6 +350,17 @@ public class LuceneSearchIndex implements AutoCloseable {
       writer = new IndexWriter(directory, writerConfig);
       commit();
       searcherManager = new SearcherManager(writer, true, true, null);
+      searcherManager.addListener(new RefreshRecorder());
+      if (NRT_ENABLED) {
+        reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager,
+          getStaleSeconds(NRT_MAX_STALE_MILLIS_PROPERTY, name, 1000),
+          getStaleSeconds(NRT_MIN_STALE_MILLIS_PROPERTY, name, 25));
+        reopenThread.setName(format("LuceneSearchIndex:reopen %s", name));
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+      } else {
+        reopenThread = null;
+      }
 
       committerThread = new CommitterThread();
     } catch(IOException ex){
@@ -295,16 +378,31 @@ public class LuceneSearchIndex implements AutoCloseable {
       .build();
   }
 
+  private static double getStaleSeconds(String property, String indexName, long defaultMillis) {
+    return Long.getLong(property + "." + indexName, Long.getLong(property, defaultMillis)) / 1000.0;
+  }
+
   private void checkIfChanged() {
     try{
-      if (!searcherManager.isSearcherCurrent()) {
+      if (reopenThread != null) {
+        // the searches waiting for their writes share the refreshes of the reopen thread
+        reopenThread.waitForGeneration(lastWriteGeneration.get());
+      } else if (!searcherManager.isSearcherCurrent()) {
         searcherManager.maybeRefreshBlocking();
       }
-    }catch(IOException ex){
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(ex);
+    } catch(IOException ex){
       throw Throwables.propagate(ex);
     }
   }
 
+  private void written(long generation) {
+    lastWriteGeneration.accumulateAndGet(generation, Math::max);
+    committerThread.onWrite();
+  }
+
   private void commit() throws IOException {
     try (CommitCloser committer = commitWrapper.open(name)) {
       writer.commit();
@@ -319,7 +417,7 @@ public class LuceneSearchIndex implements AutoCloseable {
     committerThread.throwExceptionIfAny();
     Preconditions.checkNotNull(document.getField(CoreIndexedStore.ID_FIELD_NAME));
     try{
-      writer.addDocument(document);
+      written(writer.addDocument(document));
     } catch(IOException ex) {
       throw Throwables.propagate(ex);
     }
@@ -329,7 +427,7 @@ public class LuceneSearchIndex implements AutoCloseable {
     committerThread.throwExceptionIfAny();
     try{
       for(Document d : documents){
-        writer.addDocument(d);
+        written(writer.addDocument(d));
       }
     } catch(IOException ex) {
       throw Throwables.propagate(ex);
@@ -339,7 +437,7 @@ public class LuceneSearchIndex implements AutoCloseable {
   public void update(Term term, Document document) {
     committerThread.throwExceptionIfAny();
     try {
-      writer.updateDocument(term, document);
+      written(writer.updateDocument(term, document));
     } catch(IOException ex) {
       throw Throwables.propagate(ex);
     }
@@ -504,8 +602,13 @@ public class LuceneSearchIndex implements AutoCloseable {
   @Override
   public void close() throws IOException {
     committerThread.close();
+    if (reopenThread != null) {
+      reopenThread.close();
+    }
     Metrics.unregister(deletedRecordsMetricsName);
     Metrics.unregister(liveRecordsMetricName);
+    Metrics.unregister(refreshMetricName);
+    Metrics.unregister(searchMetricName);
     // commit will fail if writer is closed
     if (writer.isOpen()) {
       // flush first
@@ -536,7 +639,7 @@ public class LuceneSearchIndex implements AutoCloseable {
   public void deleteDocuments(Term key) {
     committerThread.throwExceptionIfAny();
     try {
-      writer.deleteDocuments(key);
+      written(writer.deleteDocuments(key));
     } catch (IOException ex) {
       throw Throwables.propagate(ex);
     }
@@ -545,7 +648,7 @@ public class LuceneSearchIndex implements AutoCloseable {
   public void delete() {
     committerThread.throwExceptionIfAny();
     try {
-      writer.deleteAll();
+      written(writer.deleteAll());
       commit();
       // Forcing refresh of index so that open files are freed and deleted from disk
       checkIfChanged();
@@ -599,6 +702,26 @@ public class LuceneSearchIndex implements AutoCloseable {
 
   }
 
+  /**
+   * Records the time spent refreshing the searchers.
+   */
+  private final class RefreshRecorder implements ReferenceManager.RefreshListener {
+    // the searcher manager doesn't run two refreshes at once
+    private long start;
+
+    @Override
+    public void beforeRefresh() {
+      start = System.nanoTime();
+    }
+
+    @Override
+    public void afterRefresh(boolean didRefresh) {
+      if (didRefresh) {
+        refreshTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
   /**
    * Facade on top of IndexSearcher that propagates IOExceptions as
    * RuntimeException and is AutoCloseable for managing opening/closing of
@@ -614,7 +737,7 @@ public class LuceneSearchIndex implements AutoCloseable {
     }
 
     public TopDocs searchAfter(final ScoreDoc after, Query query, int numHits, Sort order) {
-      try {
+      try (TimerContext timer = searchTimer.start()) {
         return searcher.searchAfter(after, query, numHits, order);
       } catch(IllegalArgumentException ex) {
         // we got to end of index.
@@ -625,7 +748,7 @@ public class LuceneSearchIndex implements AutoCloseable {
     }
 
     public TopDocs search(Query query, int numHits, Sort order) {
-      try {
+      try (TimerContext timer = searchTimer.start()) {
         return searcher.search(query, numHits, order);
       } catch(IOException ex){
         throw Throwables.propagate(ex);
@@ -641,7 +764,7 @@ public class LuceneSearchIndex implements AutoCloseable {
     }
 
     public int count(Query q) {
-      try {
+      try (TimerContext timer = searchTimer.start()) {
         return searcher.count(q);
       } catch(IOException ex){
         throw Throwables.propagate(ex);
@@ -661,7 +784,7 @@ public class LuceneSearchIndex implements AutoCloseable {
   @VisibleForTesting
   public void deleteEverything() throws IOException{
     committerThread.throwExceptionIfAny();
-    writer.deleteAll();
+    written(writer.deleteAll());
     commit();
   }
 }
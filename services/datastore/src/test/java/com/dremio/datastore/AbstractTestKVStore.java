@@ -28,6 +28,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -289,6 +291,41 @@ public abstract class AbstractTestKVStore<K, V> {
     assertFalse(TAG_ASSERT_FAILURE_MSG, Strings.isNullOrEmpty(doc3.getTag()));
   }
 
+  @Test
+  public void testPutAll() {
+    final K existingKey = gen.newKey();
+    kvStore.put(existingKey, gen.newVal());
+
+    final Map<K, V> entries = new LinkedHashMap<>();
+    entries.put(existingKey, gen.newVal());
+    for (int i = 0; i < SAMPLING_SIZE / 2; i++) {
+      entries.put(gen.newKey(), gen.newVal());
+    }
+    final List<K> keys = new ArrayList<>(entries.keySet());
+
+    final Iterable<Document<K, V>> written = kvStore.putAll(entries);
+    final Iterable<Document<K, V>> read = kvStore.get(keys);
+
+    assertEquals(entries.size(), Iterables.size(written));
+    assertEquals(entries.size(), Iterables.size(read));
+    int i = 0;
+    for (Map.Entry<K, V> entry : entries.entrySet()) {
+      final Document<K, V> writtenDoc = Iterables.get(written, i);
+      final Document<K, V> readDoc = Iterables.get(read, i++);
+      gen.assertKeyEquals(entry.getKey(), writtenDoc.getKey());
+      gen.assertValueEquals(entry.getValue(), writtenDoc.getValue());
+      assertFalse(TAG_ASSERT_FAILURE_MSG, Strings.isNullOrEmpty(writtenDoc.getTag()));
+      gen.assertKeyEquals(entry.getKey(), readDoc.getKey());
+      gen.assertValueEquals(entry.getValue(), readDoc.getValue());
+      assertEquals(writtenDoc.getTag(), readDoc.getTag());
+    }
+  }
+
+  @Test
+  public void testPutAllEmpty() {
+    assertEquals(0, Iterables.size(kvStore.putAll(Collections.emptyMap())));
+  }
+
   @Test(expected = NullPointerException.class)
   public void testPutWithNullValue() {
     kvStore.put(gen.newKey(), null);
@@ -19,12 +19,15 @@ import static com.dremio.datastore.RocksDBStore.BLOB_FILTER_DEFAULT;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -43,6 +46,7 @@ import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.Status;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 /**
@@ -296,6 +300,46 @@ public class TestByteStoreManager {
     }
   }
 
+  @Test
+  public void testStoreProfiles() throws Exception {
+    final String dbPath = temporaryFolder.newFolder().getAbsolutePath();
+    final byte[] key = "key".getBytes(StandardCharsets.UTF_8);
+    final byte[] value = "value".getBytes(StandardCharsets.UTF_8);
+    // a write optimized store and a point lookup one
+    final List<String> names = Arrays.asList("profiles", "test-store");
+
+    try (ByteStoreManager bsm = new ByteStoreManager(dbPath, false)) {
+      bsm.start();
+      for (String name : names) {
+        final ByteStore store = bsm.getStore(name);
+        store.put(key, value);
+        assertArrayEquals(value, store.get(key).getValue());
+        final String stats = store.getAdmin().getStats();
+        assertTrue(stats, stats.contains("Block Cache Usage"));
+        assertTrue(stats, stats.contains("Row Cache Hit Rate (all stores)"));
+      }
+    }
+
+    // existing column families are opened with their profile
+    try (ByteStoreManager bsm = new ByteStoreManager(dbPath, false)) {
+      bsm.start();
+      for (String name : names) {
+        assertArrayEquals(value, bsm.getStore(name).get(key).getValue());
+      }
+    }
+  }
+
+  @Test
+  public void testStoreOptionsNotShared() throws Exception {
+    RocksDB.loadLibrary();
+    try (ColumnFamilyProfiles profiles = new ColumnFamilyProfiles(0, "lru", 1, 10, ImmutableSet.of("profiles"))) {
+      // each store gets its own block cache, through its own options
+      assertNotSame(profiles.getOptions("store1"), profiles.getOptions("store2"));
+      assertNotSame(profiles.getOptions("profiles"), profiles.getOptions("store1"));
+      assertSame(profiles.getOptions("store1"), profiles.getOptions("store1"));
+    }
+  }
+
   @Test
   public void testNoDBMessages() throws Exception {
     String dbPath = temporaryFolder.newFolder().getAbsolutePath();
@@ -31,7 +31,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -60,6 +62,8 @@ import com.dremio.datastore.RocksDBStore.RocksMetaManager;
 import com.dremio.datastore.api.Document;
 import com.dremio.datastore.api.options.ImmutableVersionOption;
 import com.dremio.datastore.api.options.VersionOption;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 
 /**
  * Some robustness tests for {@code RocksDBStore}
@@ -128,6 +132,60 @@ public class TestRocksDBStore {
     store.close();
   }
 
+  @Test
+  public void checkBatchBlobOps() throws IOException {
+    final Random r = new Random(123);
+    final Map<byte[], byte[]> entries = new LinkedHashMap<>();
+    for (int i = 0; i < 4; i++) {
+      final byte[] key = new byte[5];
+      // half of the values are blobs
+      final byte[] value = new byte[i % 2 == 0 ? (int) BLOB_FILTER_SIZE + 1 : 10];
+      r.nextBytes(key);
+      r.nextBytes(value);
+      entries.put(key, value);
+    }
+    final List<byte[]> keys = ImmutableList.copyOf(entries.keySet());
+
+    // overwrite the blobs of a first batch with a second one
+    store.putAll(entries);
+    for (byte[] value : entries.values()) {
+      r.nextBytes(value);
+    }
+    final Iterable<Document<byte[], byte[]>> written = store.putAll(entries);
+
+    final Iterable<Document<byte[], byte[]>> read = store.get(ImmutableList.<byte[]>builder()
+      .addAll(keys)
+      .add(specialKey)
+      .add("missing".getBytes(UTF_8))
+      .build());
+    assertEquals(keys.size() + 2, Iterables.size(read));
+    for (int i = 0; i < keys.size(); i++) {
+      assertArrayEquals(entries.get(keys.get(i)), Iterables.get(read, i).getValue());
+      assertEquals(Iterables.get(written, i).getTag(), Iterables.get(read, i).getTag());
+    }
+    assertArrayEquals(store.get(specialKey).getValue(), Iterables.get(read, keys.size()).getValue());
+    assertEquals(null, Iterables.get(read, keys.size() + 1));
+
+    // a batch with the same key twice is rejected as a whole
+    final Map<byte[], byte[]> duplicates = new LinkedHashMap<>();
+    duplicates.put(Arrays.copyOf(keys.get(0), 5), new byte[1]);
+    duplicates.put(Arrays.copyOf(keys.get(0), 5), new byte[2]);
+    try {
+      store.putAll(duplicates);
+      fail("duplicate keys should be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertArrayEquals(entries.get(keys.get(0)), store.get(keys.get(0)).getValue());
+
+    for (byte[] key : keys) {
+      store.delete(key);
+    }
+    Path blobDir = Paths.get(rocksDBResource.getDbDir(), "blob", "test");
+    List<Path> remainingBlobFiles = Files.list(blobDir).collect(Collectors.toList());
+    assertEquals("Expected zero remaining files.", Collections.EMPTY_LIST, remainingBlobFiles);
+  }
+
   @Test()
   public void testFlush() throws IOException, RocksDBException {
     try {
@@ -403,6 +403,27 @@ public class TestLuceneIndexer {
     }
   }
 
+  @Test
+  public void testSearchSeesOwnWrites() throws Exception {
+    try (LuceneSearchIndex index = new LuceneSearchIndex(null, "own-writes", true, CommitWrapper.NO_OP)) {
+      final Query query = new TermQuery(new Term("user", "u1"));
+      for (int i = 0; i < 100; ++i) {
+        final Term id = new Term(CoreIndexedStore.ID_FIELD_NAME, new BytesRef(Integer.toString(i).getBytes()));
+        final Document doc = new Document();
+        doc.add(new StringField(id.field(), id.bytes(), Store.YES));
+        doc.add(new StringField("user", "u1", Field.Store.YES));
+        index.update(id, doc);
+        // visible right away, without waiting for the reopen thread
+        assertEquals(i + 1, index.count(query));
+      }
+
+      for (int i = 0; i < 100; ++i) {
+        index.deleteDocuments(new Term(CoreIndexedStore.ID_FIELD_NAME, new BytesRef(Integer.toString(i).getBytes())));
+        assertEquals(99 - i, index.count(query));
+      }
+    }
+  }
+
   @Test
   public void commitWrapper() throws Exception {
     final AtomicInteger opens = new AtomicInteger(0);
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+
+import com.dremio.common.AutoCloseables;
+
+/**
+ * Bounded LRU cache of the serialized record batches recently read from the job result files, kept off heap so that
+ * paging through the results of a job doesn't read the same batches from the results store again.<br>
+ * <br>
+ * The cache holds a reference on each of its buffers, and callers get their own reference, so that a buffer evicted
+ * while it is being deserialized is only freed once the caller is done with it.
+ */
+final class JobResultsBatchCache implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JobResultsBatchCache.class);
+
+  private final BufferAllocator allocator;
+  private final long capacity;
+
+  // guarded by this, least recently used first
+  private final LinkedHashMap<Key, ArrowBuf> batches = new LinkedHashMap<>(16, 0.75f, true);
+
+  JobResultsBatchCache(BufferAllocator parent, long capacity) {
+    this.allocator = parent.newChildAllocator("job-results-cache", 0, capacity);
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return the cached batch, which the caller must close, or null if not cached
+   */
+  synchronized ArrowBuf get(String jobOutputDir, String path, long offset) {
+    final ArrowBuf buf = batches.get(new Key(jobOutputDir, path, offset));
+    if (buf != null) {
+      buf.getReferenceManager().retain();
+    }
+    return buf;
+  }
+
+  /**
+   * Allocate a buffer for a batch to cache, evicting the least recently used batches to make room for it.
+   *
+   * @return the buffer, or null if the batch doesn't fit in the cache
+   */
+  synchronized ArrowBuf allocate(long length) {
+    if (length > capacity) {
+      return null;
+    }
+    final Iterator<ArrowBuf> iterator = batches.values().iterator();
+    while (allocator.getAllocatedMemory() + length > capacity && iterator.hasNext()) {
+      iterator.next().close();
+      iterator.remove();
+    }
+    try {
+      return allocator.buffer(length);
+    } catch (OutOfMemoryException e) {
+      // evicted batches still being read
+      logger.debug("No room to cache a batch of {} bytes", length);
+      return null;
+    }
+  }
+
+  /**
+   * Cache a batch read in a buffer from {@link #allocate(long)}. The caller still owns its reference.
+   */
+  synchronized void put(String jobOutputDir, String path, long offset, ArrowBuf buf) {
+    final Key key = new Key(jobOutputDir, path, offset);
+    if (!batches.containsKey(key)) {
+      buf.getReferenceManager().retain();
+      batches.put(key, buf);
+    }
+  }
+
+  /**
+   * Drop the cached batches of the results of a job.
+   */
+  synchronized void invalidate(String jobOutputDir) {
+    final Iterator<Map.Entry<Key, ArrowBuf>> iterator = batches.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<Key, ArrowBuf> entry = iterator.next();
+      if (entry.getKey().jobOutputDir.equals(jobOutputDir)) {
+        entry.getValue().close();
+        iterator.remove();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() throws Exception {
+    AutoCloseables.close(batches.values());
+    batches.clear();
+    allocator.close();
+  }
+
+  private static final class Key {
+    private final String jobOutputDir;
+    private final String path;
+    private final long offset;
+
+    private Key(String jobOutputDir, String path, long offset) {
+      this.jobOutputDir = jobOutputDir;
+      this.path = path;
+      this.offset = offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return offset == key.offset && jobOutputDir.equals(key.jobOutputDir) && path.equals(key.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(jobOutputDir, path, offset);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.dremio.exec.store.easy.arrow.ArrowFileMetadata;
+import com.dremio.exec.store.easy.arrow.ArrowRecordBatchSummary;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Index of the record batches of the result files of a job, in result order, to find the batches holding a range of
+ * records with a binary search instead of walking the files and their batches.
+ */
+final class JobResultsIndex {
+  private final List<ArrowFileMetadata> files;
+  private final long recordCount;
+
+  // for each non empty batch
+  private final long[] firstRecords;
+  private final int[] recordCounts;
+  private final int[] fileIndexes;
+  private final long[] offsets;
+  // end of the batch in its file, -1 until read from the file trailer for the last batch of a file
+  private final AtomicLongArray ends;
+
+  JobResultsIndex(List<ArrowFileMetadata> files) {
+    this.files = ImmutableList.copyOf(files);
+
+    int numBatches = 0;
+    for (ArrowFileMetadata file : files) {
+      numBatches += getBatches(file).size();
+    }
+
+    final long[] firstRecords = new long[numBatches];
+    final int[] recordCounts = new int[numBatches];
+    final int[] fileIndexes = new int[numBatches];
+    final long[] offsets = new long[numBatches];
+    final long[] ends = new long[numBatches];
+    int numNonEmpty = 0;
+    long records = 0;
+    for (int fileIndex = 0; fileIndex < files.size(); fileIndex++) {
+      final List<ArrowRecordBatchSummary> batches = getBatches(files.get(fileIndex));
+      for (int i = 0; i < batches.size(); i++) {
+        final ArrowRecordBatchSummary batch = batches.get(i);
+        if (batch.getRecordCount() == 0) {
+          continue;
+        }
+        firstRecords[numNonEmpty] = records;
+        recordCounts[numNonEmpty] = (int) batch.getRecordCount();
+        fileIndexes[numNonEmpty] = fileIndex;
+        offsets[numNonEmpty] = batch.getOffset();
+        // batches are written one after the other, empty ones included
+        ends[numNonEmpty] = i + 1 < batches.size() ? batches.get(i + 1).getOffset() : -1;
+        records += batch.getRecordCount();
+        numNonEmpty++;
+      }
+    }
+
+    this.recordCount = records;
+    this.firstRecords = Arrays.copyOf(firstRecords, numNonEmpty);
+    this.recordCounts = Arrays.copyOf(recordCounts, numNonEmpty);
+    this.fileIndexes = Arrays.copyOf(fileIndexes, numNonEmpty);
+    this.offsets = Arrays.copyOf(offsets, numNonEmpty);
+    this.ends = new AtomicLongArray(Arrays.copyOf(ends, numNonEmpty));
+  }
+
+  private static List<ArrowRecordBatchSummary> getBatches(ArrowFileMetadata file) {
+    if (file.getFooter() == null || file.getFooter().getBatchList() == null) {
+      return ImmutableList.of();
+    }
+    return file.getFooter().getBatchList();
+  }
+
+  /**
+   * @return whether the index was built from the given result files
+   */
+  boolean isIndexOf(List<ArrowFileMetadata> otherFiles) {
+    if (otherFiles.size() != files.size()) {
+      return false;
+    }
+    for (int i = 0; i < files.size(); i++) {
+      if (!Objects.equals(files.get(i).getPath(), otherFiles.get(i).getPath())
+        || files.get(i).getRecordCount() != otherFiles.get(i).getRecordCount()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long getRecordCount() {
+    return recordCount;
+  }
+
+  int getNumBatches() {
+    return firstRecords.length;
+  }
+
+  /**
+   * @param record index of a record, in [0, getRecordCount())
+   * @return the batch holding the record
+   */
+  int findBatch(long record) {
+    final int index = Arrays.binarySearch(firstRecords, record);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  long getFirstRecord(int batch) {
+    return firstRecords[batch];
+  }
+
+  int getRecordCount(int batch) {
+    return recordCounts[batch];
+  }
+
+  ArrowFileMetadata getFile(int batch) {
+    return files.get(fileIndexes[batch]);
+  }
+
+  long getOffset(int batch) {
+    return offsets[batch];
+  }
+
+  /**
+   * @return the offset of the end of the batch in its file, or -1 if not known yet
+   */
+  long getEnd(int batch) {
+    return ends.get(batch);
+  }
+
+  void setEnd(int batch, long end) {
+    ends.set(batch, end);
+  }
+}
@@ -16,26 +16,38 @@
 package com.dremio.service.jobs;
 
 import static com.dremio.common.perf.Timer.time;
+import static com.dremio.exec.record.RecordBatchHolder.newRecordBatchHolder;
 import static com.dremio.exec.store.easy.arrow.ArrowFileReader.fromBean;
+import static com.dremio.exec.store.easy.arrow.ArrowFormatPlugin.FOOTER_OFFSET_SIZE;
+import static com.dremio.exec.store.easy.arrow.ArrowFormatPlugin.MAGIC_STRING_LENGTH;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.BufferAllocator;
 
+import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.perf.Timer.TimedBlock;
 import com.dremio.common.utils.PathUtils;
 import com.dremio.datastore.api.LegacyIndexedStore;
+import com.dremio.exec.cache.VectorAccessibleSerializable;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.record.RecordBatchData;
 import com.dremio.exec.record.RecordBatchHolder;
+import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.store.JobResultsStoreConfig;
 import com.dremio.exec.store.easy.arrow.ArrowFileMetadata;
 import com.dremio.exec.store.easy.arrow.ArrowFileMetadataValidator;
 import com.dremio.exec.store.easy.arrow.ArrowFileReader;
+import com.dremio.io.FSInputStream;
 import com.dremio.io.file.FileSystem;
 import com.dremio.io.file.Path;
 import com.dremio.service.Service;
@@ -45,9 +57,16 @@ import com.dremio.service.job.proto.JobInfo;
 import com.dremio.service.job.proto.JobResult;
 import com.dremio.service.job.proto.JobState;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Longs;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
 
 /**
  * Stores and manages job results for max 30 days (default).
@@ -56,11 +75,33 @@ import com.google.common.collect.Sets;
 public class JobResultsStore implements Service {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(JobResultsStore.class);
 
+  /**
+   * Property name for the size (in MB) of the off heap cache of the record batches read from the job results
+   *
+   * Default is 64MB, 0 to disable the cache
+   */
+  public static final String BATCH_CACHE_SIZE_MB_PROPERTY = "dremio.jobs.results.batch_cache_size_mb";
+
+  /**
+   * Property name for the number of result files whose index of batches is kept in memory
+   *
+   * Default is 1000
+   */
+  public static final String INDEX_CACHE_SIZE_PROPERTY = "dremio.jobs.results.index_cache_size";
+
+  private static final int READ_CHUNK_SIZE = 64 * 1024;
+
   private final String storageName;
   private final Path jobStoreLocation;
   private final FileSystem dfs;
   private final BufferAllocator allocator;
   private final LegacyIndexedStore<JobId, JobResult> store;
+  // by result file path
+  private final Cache<String, JobResultsIndex> indexes = CacheBuilder.newBuilder()
+    .maximumSize(Long.getLong(INDEX_CACHE_SIZE_PROPERTY, 1000))
+    .expireAfterAccess(1, TimeUnit.HOURS)
+    .build();
+  private final JobResultsBatchCache batchCache;
 
   public JobResultsStore(
       final JobResultsStoreConfig resultsStoreConfig,
@@ -74,6 +115,8 @@ public class JobResultsStore implements Service {
 
     this.store = store;
     this.allocator = allocator;
+    this.batchCache = new JobResultsBatchCache(allocator,
+      Long.getLong(BATCH_CACHE_SIZE_MB_PROPERTY, 64) * 1024 * 1024);
   }
 
   /**
@@ -96,6 +139,9 @@ public class JobResultsStore implements Service {
 
   public boolean cleanup(JobId jobId) {
     final Path jobOutputDir = getJobOutputDir(jobId);
+    final String filePrefix = jobOutputDir.toString() + Path.SEPARATOR;
+    indexes.asMap().keySet().removeIf(filePath -> filePath.startsWith(filePrefix));
+    batchCache.invalidate(jobOutputDir.toString());
     try {
       if (doesQueryResultsDirExists(jobOutputDir, jobId)) {
         deleteQueryResults(jobOutputDir, true, jobId);
@@ -168,68 +214,157 @@ public class JobResultsStore implements Service {
             .build(logger);
       }
 
-      final List<ArrowFileMetadata> resultFilesToRead = Lists.newArrayList();
-      int runningFileRecordCount = 0;
-      int remainingRecords = limit;
-      for(ArrowFileMetadata fileMetadata : resultMetadata) {
-        if (offset < runningFileRecordCount + fileMetadata.getRecordCount()) {
-          resultFilesToRead.add(fileMetadata);
-
-          // offset within current file to read records
-          long fileOffset = 0; // fileOffset will be 0 from second file to be read for records.
-          if (resultFilesToRead.size() == 1) {
-            // update the given offset to start from the current file
-            offset -= runningFileRecordCount;
-            fileOffset = offset; // fileOffset will be "offset" for the first file to be read for records.
-          }
-
-          // Find how many records to read from current file.
-          // Min of remaining records in file or remaining records in total to read.
-          long fileLimit = Math.min(fileMetadata.getRecordCount() - fileOffset, remainingRecords);
-          remainingRecords -= fileLimit;
-
-          // stop including files if there are no remainingRecords to be included.
-          if (remainingRecords <=0) {
+      final List<RecordBatchHolder> batchHolders = Lists.newArrayList();
+      try {
+        long fileFirstRecord = 0;
+        long remaining = limit;
+        for (ArrowFileMetadata file : resultMetadata) {
+          if (remaining <= 0) {
             break;
           }
+          if (offset < fileFirstRecord + file.getRecordCount()) {
+            // offset within the file, 0 for all the files after the first one read
+            final long fileOffset = Math.max(0, offset - fileFirstRecord);
+            final long fileLimit = Math.min(file.getRecordCount() - fileOffset, remaining);
+            batchHolders.addAll(getQueryResults(jobOutputDir, file, allocator, fileOffset, fileLimit));
+            remaining -= fileLimit;
+          }
+          fileFirstRecord += file.getRecordCount();
         }
-
-        runningFileRecordCount += fileMetadata.getRecordCount();
+        if (batchHolders.isEmpty()) {
+          // when the query returns no results at all or the requested range is invalid, return an empty record batch
+          // for metadata purposes.
+          batchHolders.addAll(getQueryResults(jobOutputDir, resultMetadata.get(0), allocator, 0, 0));
+        }
+      } catch (IOException | RuntimeException e) {
+        AutoCloseables.close(e, batchHolders);
+        throw e;
       }
 
-      final List<RecordBatchHolder> batchHolders = Lists.newArrayList();
-      if (resultFilesToRead.isEmpty()) {
-        // when the query returns no results at all or the requested range is invalid, return an empty record batch
-        // for metadata purposes.
-        batchHolders.addAll(getQueryResults(jobOutputDir, resultMetadata.get(0), allocator, 0, 0));
+      return new RecordBatches(batchHolders);
+    } catch(IOException ex){
+      throw UserException.dataReadError(ex)
+          .message("Failed to load results for job %s", jobId.getId())
+          .build(logger);
+    }
+  }
 
-      } else {
-        runningFileRecordCount = 0;
-        int remaining = limit;
-        for(ArrowFileMetadata file : resultFilesToRead) {
+  private JobResultsIndex getIndex(Path filePath, ArrowFileMetadata file) {
+    final List<ArrowFileMetadata> files = Collections.singletonList(file);
+    final JobResultsIndex index = indexes.getIfPresent(filePath.toString());
+    if (index != null && index.isIndexOf(files)) {
+      return index;
+    }
+    final JobResultsIndex newIndex = new JobResultsIndex(files);
+    indexes.put(filePath.toString(), newIndex);
+    return newIndex;
+  }
 
-          // Find the starting record index in file
-          final long fileOffset = Math.max(0, offset - runningFileRecordCount);
+  /**
+   * Read the record batches of a result file holding the given range of records, from the batch cache or from the
+   * file.
+   *
+   * @return the batches, empty if the range holds no records
+   */
+  @VisibleForTesting
+  List<RecordBatchHolder> readBatches(Path jobOutputDir, ArrowFileMetadata file, BufferAllocator allocator,
+                                      long offset, long limit) throws IOException {
+    final List<RecordBatchHolder> batches = Lists.newArrayList();
+    final Path filePath = jobOutputDir.resolve(file.getPath());
+    final JobResultsIndex index = getIndex(filePath, file);
+    if (offset < 0 || offset >= index.getRecordCount() || limit <= 0) {
+      return batches;
+    }
 
-          // Find how many records to read from file.
-          // Min of remaining records in file or remaining records in total to read.
-          final long fileLimit = Math.min(file.getRecordCount() - fileOffset, remaining);
+    FSInputStream input = null;
+    try {
+      long remaining = Math.min(limit, index.getRecordCount() - offset);
+      for (int batch = index.findBatch(offset); remaining > 0; batch++) {
+        ArrowBuf buf = batchCache.get(jobOutputDir.toString(), file.getPath(), index.getOffset(batch));
+        if (buf == null) {
+          if (input == null) {
+            input = dfs.open(filePath);
+          }
+          buf = readBatch(jobOutputDir, filePath, file, index, batch, input, allocator);
+        }
+        final VectorContainer container = deserialize(buf, allocator);
+        final int batchStart = (int) Math.max(0, offset - index.getFirstRecord(batch));
+        final int batchEnd = (int) Math.min(index.getRecordCount(batch), batchStart + remaining);
+        batches.add(newRecordBatchHolder(new RecordBatchData(container, allocator), batchStart, batchEnd));
+        remaining -= batchEnd - batchStart;
+      }
+    } catch (IOException | RuntimeException e) {
+      AutoCloseables.close(e, batches);
+      throw e;
+    } finally {
+      AutoCloseables.close(IOException.class, input);
+    }
+    return batches;
+  }
 
-          batchHolders.addAll(getQueryResults(jobOutputDir, file, allocator, fileOffset, fileLimit));
-          remaining -= fileLimit;
+  /**
+   * Read a serialized batch from the file, and cache it if there is room for it.
+   *
+   * @return the serialized batch, which the caller must close
+   */
+  private ArrowBuf readBatch(Path jobOutputDir, Path filePath, ArrowFileMetadata file, JobResultsIndex index,
+                             int batch, FSInputStream input, BufferAllocator allocator) throws IOException {
+    if (index.getEnd(batch) < 0) {
+      // last batch of the file, which ends at the footer
+      final byte[] footerOffset = new byte[FOOTER_OFFSET_SIZE];
+      input.setPosition(dfs.getFileAttributes(filePath).size() - (MAGIC_STRING_LENGTH + FOOTER_OFFSET_SIZE));
+      ByteStreams.readFully(input, footerOffset);
+      index.setEnd(batch, Longs.fromByteArray(footerOffset));
+    }
 
-          runningFileRecordCount += file.getRecordCount();
-        }
+    final long length = index.getEnd(batch) - index.getOffset(batch);
+    ArrowBuf buf = batchCache.allocate(length);
+    final boolean cached = buf != null;
+    if (!cached) {
+      buf = allocator.buffer(length);
+    }
+    try {
+      // not a positioned read, which Hadoop's FSDataInputStream doesn't support over PDFS and local streams
+      input.setPosition(index.getOffset(batch));
+      final byte[] chunk = new byte[(int) Math.min(length, READ_CHUNK_SIZE)];
+      for (long read = 0; read < length; read += chunk.length) {
+        final int chunkLength = (int) Math.min(chunk.length, length - read);
+        ByteStreams.readFully(input, chunk, 0, chunkLength);
+        buf.setBytes(read, chunk, 0, chunkLength);
       }
+      buf.writerIndex(length);
+      if (cached) {
+        batchCache.put(jobOutputDir.toString(), file.getPath(), index.getOffset(batch), buf);
+      }
+      return buf;
+    } catch (IOException | RuntimeException e) {
+      buf.close();
+      throw e;
+    }
+  }
 
-      return new RecordBatches(batchHolders);
-    } catch(IOException ex){
-      throw UserException.dataReadError(ex)
-          .message("Failed to load results for job %s", jobId.getId())
-          .build(logger);
+  private static VectorContainer deserialize(ArrowBuf buf, BufferAllocator allocator) throws IOException {
+    try (ArrowBuf batchBuf = buf) {
+      final VectorAccessibleSerializable serializable = new VectorAccessibleSerializable(allocator);
+      serializable.readFromStream(
+        new ByteBufInputStream(Unpooled.wrappedBuffer(batchBuf.nioBuffer(0, (int) batchBuf.writerIndex()))));
+      return serializable.get();
     }
   }
 
+  /**
+   * @return the number of records of each result file of the job, in result order
+   */
+  List<Long> getResultFileRecordCounts(JobId jobId) {
+    final JobResult job = store.get(jobId);
+    if (job == null || job.getAttemptsList().isEmpty() || getLastAttempt(job).getResultMetadataList() == null) {
+      return Collections.emptyList();
+    }
+    return getLastAttempt(job).getResultMetadataList().stream()
+      .map(ArrowFileMetadata::getRecordCount)
+      .collect(Collectors.toList());
+  }
+
   public String getErrorMessageQueryResultsDirNotexists() {
     return "Job '%s' output doesn't exist";
   }
@@ -241,11 +376,20 @@ public class JobResultsStore implements Service {
       resultMetadata.stream().anyMatch(ArrowFileMetadataValidator::hasInvalidUnions);
   }
 
+  /**
+   * Read the given range of records of a result file. The batches of non empty ranges are read through the batch
+   * index and cache of the store, an empty range only reads the schema of the file.
+   */
   protected List<RecordBatchHolder> getQueryResults(Path jobOutputDir,
                                                     ArrowFileMetadata arrowFileMetadata,
                                                     BufferAllocator allocator,
                                                     long fileOffset,
                                                     long fileLimit) throws IOException {
+    final List<RecordBatchHolder> batches = readBatches(jobOutputDir, arrowFileMetadata, allocator, fileOffset,
+      fileLimit);
+    if (!batches.isEmpty()) {
+      return batches;
+    }
     try(ArrowFileReader fileReader = new ArrowFileReader(dfs, jobOutputDir, arrowFileMetadata, allocator)) {
       return fileReader.read(fileOffset, fileLimit);
     }
@@ -348,6 +492,8 @@ public class JobResultsStore implements Service {
 
   @Override
   public void close() throws Exception {
+    indexes.invalidateAll();
+    batchCache.close();
   }
 
   protected Set<NodeEndpoint> getNodeEndpoints(JobId jobId) {
@@ -17,12 +17,18 @@ package com.dremio.service.jobs;
 
 import static org.apache.arrow.util.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Provider;
 
 import org.apache.arrow.flight.Action;
 import org.apache.arrow.flight.ActionType;
+import org.apache.arrow.flight.BackpressureStrategy.CallbackBackpressureStrategy;
 import org.apache.arrow.flight.Criteria;
 import org.apache.arrow.flight.FlightDescriptor;
+import org.apache.arrow.flight.FlightEndpoint;
 import org.apache.arrow.flight.FlightInfo;
 import org.apache.arrow.flight.FlightProducer;
 import org.apache.arrow.flight.FlightStream;
@@ -41,7 +47,9 @@ import com.dremio.common.exceptions.UserException;
 import com.dremio.exec.proto.FlightProtos.CoordinatorFlightTicket;
 import com.dremio.exec.proto.FlightProtos.JobsFlightTicket;
 import com.dremio.exec.record.RecordBatchHolder;
+import com.dremio.service.job.proto.JobId;
 import com.dremio.service.job.proto.JobProtobuf;
+import com.google.protobuf.InvalidProtocolBufferException;
 
 import io.grpc.Status;
 
@@ -50,6 +58,12 @@ import io.grpc.Status;
  */
 public class JobsFlightProducer implements FlightProducer, AutoCloseable {
   private static final Logger logger = LoggerFactory.getLogger(JobsFlightProducer.class);
+
+  // number of records loaded from the job results at once while streaming them
+  private static final int PAGE_SIZE = Integer.getInteger("dremio.jobs.flight.page_size", 64 * 1024);
+  private static final long CLIENT_READINESS_TIMEOUT_MILLIS =
+    Long.getLong("dremio.jobs.flight.client_readiness_timeout_millis", TimeUnit.MINUTES.toMillis(5));
+
   private final Provider<LocalJobsService> jobsService;
   private final BufferAllocator allocator;
 
@@ -63,43 +77,54 @@ public class JobsFlightProducer implements FlightProducer, AutoCloseable {
     allocator.close();
   }
 
+  /**
+   * Streams the records of the ticket's range, loading them from the job results a page at a time. The buffers of the
+   * result batches are transferred to the stream instead of copying their values, and each batch waits for the client
+   * to be ready for it.
+   */
   @Override
   public void getStream(CallContext callContext, Ticket ticket, ServerStreamListener serverStreamListener) {
-    /* Note that we do not trim record batches that we receive from the Job Results Store. This may result
-     * in sending record that the client does not care about, or in the case of sequential requests, sending
-     * duplicate records. We may want to trim the record batches if this presents a problem.
-     */
     try {
       final JobsFlightTicket jobsFlightTicket = CoordinatorFlightTicket.parseFrom(ticket.getBytes()).getJobsFlightTicket();
-      final JobProtobuf.JobId jobId = JobProtobuf.JobId.newBuilder().setId(jobsFlightTicket.getJobId()).build();
-      final int offset = jobsFlightTicket.getOffset();
-      final int limit = jobsFlightTicket.getLimit();
-
-      try (final JobDataFragment jobDataFragment = jobsService.get().getJobData(JobsProtoUtil.toStuff(jobId), offset, limit)) {
-        final Schema schema = jobDataFragment.getSchema();
-        try (final VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator)) {
-          serverStreamListener.start(root);
-          for (RecordBatchHolder holder : jobDataFragment.getRecordBatches()) {
-            // iterate over the columns
-            int numRecords = holder.size();
-            for (int i = 0; i < schema.getFields().size(); i++) {
-              ValueVector vector = root.getVector(schema.getFields().get(i).getName());
-              ValueVector dataVector = holder.getData().getVectors().get(i);
-              int k = 0; // index at which value need to written in "vector" from "dataVector"
-              // iterate over values in the column to copy data
-              for (int j = holder.getStart(); j < holder.getEnd(); j++, k++ ) {
-                // Copy value at dataVector[j] into vector[k]
-                vector.copyFromSafe(j, k, dataVector);
+      final JobId jobId = JobsProtoUtil.toStuff(JobProtobuf.JobId.newBuilder().setId(jobsFlightTicket.getJobId()).build());
+      final CallbackBackpressureStrategy backpressure = new CallbackBackpressureStrategy();
+      backpressure.register(serverStreamListener);
+
+      int offset = jobsFlightTicket.getOffset();
+      int remaining = jobsFlightTicket.getLimit();
+      VectorSchemaRoot root = null;
+      try {
+        do {
+          final int pageLimit = Math.min(PAGE_SIZE, remaining);
+          int pageCount = 0;
+          try (final JobDataFragment page = jobsService.get().getJobData(jobId, offset, pageLimit)) {
+            if (root == null) {
+              root = VectorSchemaRoot.create(page.getSchema(), allocator);
+              serverStreamListener.start(root);
+            }
+            for (RecordBatchHolder holder : page.getRecordBatches()) {
+              if (holder.size() == 0) {
+                continue;
               }
-              vector.setValueCount(numRecords);
-              root.setRowCount(numRecords);
+              if (!putNext(serverStreamListener, backpressure, root, holder)) {
+                return;
+              }
+              pageCount += holder.size();
             }
-            serverStreamListener.putNext();
-            root.allocateNew();
           }
+          if (pageCount < pageLimit) {
+            // end of the results
+            break;
+          }
+          offset += pageCount;
+          remaining -= pageCount;
+        } while (remaining > 0);
+      } finally {
+        if (root != null) {
+          root.close();
         }
-        serverStreamListener.completed();
       }
+      serverStreamListener.completed();
     } catch (UserException ue) {
       serverStreamListener.error(GrpcExceptionUtil.toStatusRuntimeException(ue));
     } catch (Exception e) {
@@ -107,15 +132,86 @@ public class JobsFlightProducer implements FlightProducer, AutoCloseable {
     }
   }
 
+  /**
+   * Send the records of a batch once the client is ready.
+   *
+   * @return false if the stream ended, because the client cancelled it or never got ready
+   */
+  private static boolean putNext(ServerStreamListener serverStreamListener, CallbackBackpressureStrategy backpressure,
+                                 VectorSchemaRoot root, RecordBatchHolder holder) {
+    switch (backpressure.waitForListener(CLIENT_READINESS_TIMEOUT_MILLIS)) {
+      case READY:
+        break;
+      case CANCELLED:
+        logger.debug("Client cancelled the stream of job results");
+        return false;
+      case TIMEOUT:
+        serverStreamListener.error(Status.DEADLINE_EXCEEDED
+          .withDescription("Timeout while waiting for client to be in ready state.").asException());
+        return false;
+      default:
+        serverStreamListener.error(Status.UNKNOWN.withDescription("Unknown client status encountered.").asException());
+        return false;
+    }
+
+    final List<ValueVector> vectors = holder.getData().getVectors();
+    for (int i = 0; i < vectors.size(); i++) {
+      // slices the buffers of the batch, only the validity bits of an unaligned start are copied
+      vectors.get(i).makeTransferPair(root.getVector(i)).splitAndTransfer(holder.getStart(), holder.size());
+    }
+    root.setRowCount(holder.size());
+    serverStreamListener.putNext();
+    // the stream keeps its own references on the buffers until they are sent
+    root.clear();
+    return true;
+  }
+
   @Override
   public void listFlights(CallContext callContext, Criteria criteria, StreamListener<FlightInfo> streamListener) {
     throw Status.UNIMPLEMENTED.asRuntimeException();
   }
 
+  /**
+   * Describes the records of a job, for a command descriptor holding a {@link JobsFlightTicket}. The range of the
+   * ticket is split into one endpoint per result file, so that clients can pull large results over parallel
+   * streams. A limit of 0 means all the records after the offset.
+   */
   @Override
-  //TODO (DX-19234): Implement me. Standard Flight procedure requires clients call getFlightInfo before getting stream
   public FlightInfo getFlightInfo(CallContext callContext, FlightDescriptor flightDescriptor) {
-    throw Status.UNIMPLEMENTED.asRuntimeException();
+    try {
+      final JobsFlightTicket request = CoordinatorFlightTicket.parseFrom(flightDescriptor.getCommand()).getJobsFlightTicket();
+      final JobId jobId = JobsProtoUtil.toStuff(JobProtobuf.JobId.newBuilder().setId(request.getJobId()).build());
+      final Schema schema;
+      try (final JobDataFragment jobDataFragment = jobsService.get().getJobData(jobId, 0, 0)) {
+        schema = new Schema(jobDataFragment.getSchema().getFields());
+      }
+
+      final long start = request.getOffset();
+      final long end = request.getLimit() > 0 ? start + request.getLimit() : Long.MAX_VALUE;
+      final List<FlightEndpoint> endpoints = new ArrayList<>();
+      long fileStart = 0;
+      for (long fileRecordCount : jobsService.get().getJobResultFileRecordCounts(jobId)) {
+        final long from = Math.max(start, fileStart);
+        final long to = Math.min(end, fileStart + fileRecordCount);
+        if (from < to) {
+          final CoordinatorFlightTicket ticket = CoordinatorFlightTicket.newBuilder()
+            .setJobsFlightTicket(JobsFlightTicket.newBuilder()
+              .setJobId(request.getJobId())
+              .setOffset((int) from)
+              .setLimit((int) (to - from)))
+            .build();
+          endpoints.add(new FlightEndpoint(new Ticket(ticket.toByteArray())));
+        }
+        fileStart += fileRecordCount;
+      }
+      return new FlightInfo(schema, flightDescriptor, endpoints, -1, Math.max(0, Math.min(end, fileStart) - start));
+    } catch (InvalidProtocolBufferException e) {
+      throw Status.INVALID_ARGUMENT.withCause(e).withDescription("Invalid jobs flight descriptor").asRuntimeException();
+    } catch (JobNotFoundException e) {
+      throw Status.NOT_FOUND.withCause(e).withDescription(e.getMessage()).asRuntimeException();
+    } catch (UserException ue) {
+      throw GrpcExceptionUtil.toStatusRuntimeException(ue);
+    }
   }
 
   @Override
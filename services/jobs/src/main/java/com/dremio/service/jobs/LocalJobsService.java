@@ -1108,6 +1108,13 @@ public class LocalJobsService implements Service, JobResultInfoProvider, SimpleJ
     return getJob(request).getData().range(offset, limit);
   }
 
+  /**
+   * @return the number of records of each result file of the job, in result order
+   */
+  List<Long> getJobResultFileRecordCounts(JobId jobId) {
+    return jobResultsStore.getResultFileRecordCounts(jobId);
+  }
+
   @VisibleForTesting
   JobResultsStore getJobResultsStore() {
     return jobResultsStore;
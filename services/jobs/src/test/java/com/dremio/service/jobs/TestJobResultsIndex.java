@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dremio.exec.store.easy.arrow.ArrowFileFooter;
+import com.dremio.exec.store.easy.arrow.ArrowFileMetadata;
+import com.dremio.exec.store.easy.arrow.ArrowRecordBatchSummary;
+
+/**
+ * Tests for {@link JobResultsIndex}
+ */
+public class TestJobResultsIndex {
+
+  /**
+   * @param batches offset and record count of each batch
+   */
+  private static ArrowFileMetadata file(String path, long[]... batches) {
+    final ArrowFileFooter footer = new ArrowFileFooter();
+    footer.setBatchList(new ArrayList<>());
+    long recordCount = 0;
+    for (long[] batch : batches) {
+      final ArrowRecordBatchSummary summary = new ArrowRecordBatchSummary();
+      summary.setOffset(batch[0]);
+      summary.setRecordCount((int) batch[1]);
+      footer.getBatchList().add(summary);
+      recordCount += batch[1];
+    }
+    final ArrowFileMetadata metadata = new ArrowFileMetadata();
+    metadata.setPath(path);
+    metadata.setRecordCount(recordCount);
+    metadata.setFooter(footer);
+    return metadata;
+  }
+
+  @Test
+  public void findsBatches() {
+    final List<ArrowFileMetadata> files = asList(
+      file("0", new long[]{10, 100}, new long[]{500, 0}, new long[]{600, 50}),
+      file("1"),
+      file("2", new long[]{10, 20}));
+    final JobResultsIndex index = new JobResultsIndex(files);
+
+    assertEquals(170, index.getRecordCount());
+    // empty batches aren't indexed
+    assertEquals(3, index.getNumBatches());
+
+    assertEquals(0, index.findBatch(0));
+    assertEquals(0, index.findBatch(99));
+    assertEquals(1, index.findBatch(100));
+    assertEquals(1, index.findBatch(149));
+    assertEquals(2, index.findBatch(150));
+    assertEquals(2, index.findBatch(169));
+
+    assertEquals(150, index.getFirstRecord(2));
+    assertEquals(20, index.getRecordCount(2));
+    assertEquals("2", index.getFile(2).getPath());
+    assertEquals(600, index.getOffset(1));
+
+    // a batch ends where the next one starts, empty ones included
+    assertEquals(500, index.getEnd(0));
+    // the last batch of a file ends at the footer, only known once read
+    assertEquals(-1, index.getEnd(1));
+    index.setEnd(1, 700);
+    assertEquals(700, index.getEnd(1));
+    assertEquals(-1, index.getEnd(2));
+  }
+
+  @Test
+  public void matchesResultFiles() {
+    final JobResultsIndex index = new JobResultsIndex(asList(file("0", new long[]{10, 100})));
+
+    assertTrue(index.isIndexOf(asList(file("0", new long[]{10, 100}))));
+    assertFalse(index.isIndexOf(asList(file("1", new long[]{10, 100}))));
+    assertFalse(index.isIndexOf(asList(file("0", new long[]{10, 50}))));
+    assertFalse(index.isIndexOf(asList(file("0", new long[]{10, 100}), file("1"))));
+  }
+}
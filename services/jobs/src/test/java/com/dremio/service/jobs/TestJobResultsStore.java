@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.datastore.api.LegacyIndexedStore;
+import com.dremio.exec.hadoop.HadoopFileSystem;
+import com.dremio.exec.proto.beans.NodeEndpoint;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.RecordBatchHolder;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.store.JobResultsStoreConfig;
+import com.dremio.exec.store.RecordWriter.OutputEntryListener;
+import com.dremio.exec.store.RecordWriter.WriteStatsListener;
+import com.dremio.exec.store.easy.arrow.ArrowFileFormat;
+import com.dremio.exec.store.easy.arrow.ArrowFileMetadata;
+import com.dremio.exec.store.easy.arrow.ArrowFileReader;
+import com.dremio.exec.store.easy.arrow.ArrowFormatPluginConfig;
+import com.dremio.exec.store.easy.arrow.ArrowRecordWriter;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.Path;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.service.job.proto.JobAttempt;
+import com.dremio.service.job.proto.JobId;
+import com.dremio.service.job.proto.JobInfo;
+import com.dremio.service.job.proto.JobResult;
+import com.dremio.service.job.proto.JobState;
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+import com.google.common.collect.Lists;
+
+/**
+ * Tests for the reads of the job results through {@link JobResultsStore} and {@link JobResultsBatchCache}
+ */
+public class TestJobResultsStore extends DremioTest {
+  private static final Configuration FS_CONF = new Configuration();
+  private static final int BATCH_SIZE = 4;
+  private static final int BATCHES_PER_FILE = 3;
+
+  static {
+    // to accommodate MapR profile that sets default FS to maprfs, while we use local FS for testing here
+    FS_CONF.set("fs.default.name", "file:///");
+  }
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+  private FileSystem fs;
+  private JobId jobId;
+  private JobResult jobResult;
+  private LegacyIndexedStore<JobId, JobResult> store;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    allocator = allocatorRule.newAllocator("test-job-results-store", 0, Long.MAX_VALUE);
+    fs = HadoopFileSystem.getLocal(FS_CONF);
+
+    // two result files of three batches each, with the ids 0 to 23
+    final Path jobOutputDir = Path.of(folder.getRoot().toURI()).resolve("job1");
+    fs.mkdirs(jobOutputDir);
+    final List<ArrowFileMetadata> files = Arrays.asList(
+      writeArrowFile(jobOutputDir.resolve("0_0_0.dremarrow1"), 0),
+      writeArrowFile(jobOutputDir.resolve("0_1_0.dremarrow1"), BATCH_SIZE * BATCHES_PER_FILE));
+
+    jobId = new JobId().setId("job1");
+    jobResult = new JobResult().setAttemptsList(Lists.newArrayList(new JobAttempt()
+      .setState(JobState.COMPLETED)
+      .setInfo(new JobInfo()
+        .setOutputTableList(Arrays.asList("__jobResultsStore", "job1"))
+        .setResultMetadataList(files))));
+    store = mock(LegacyIndexedStore.class);
+    when(store.get(jobId)).thenReturn(jobResult);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    allocator.close();
+  }
+
+  private JobResultsStore newStore() throws Exception {
+    return new JobResultsStore(
+      new JobResultsStoreConfig("__jobResultsStore", Path.of(folder.getRoot().toURI()), fs), store, allocator);
+  }
+
+  private ArrowFileMetadata writeArrowFile(Path path, int firstId) throws Exception {
+    final OutputEntryListener outputEntryListener = mock(OutputEntryListener.class);
+    try (VectorContainer container = new VectorContainer(allocator)) {
+      final IntVector ids = new IntVector("id", allocator);
+      container.add(ids);
+      container.buildSchema(SelectionVectorMode.NONE);
+
+      final ArrowRecordWriter writer =
+        new ArrowRecordWriter(mock(OperatorContext.class), path.toString(), new ArrowFormatPluginConfig(), fs);
+      writer.setup(container, outputEntryListener, mock(WriteStatsListener.class));
+      for (int batch = 0; batch < BATCHES_PER_FILE; batch++) {
+        ids.allocateNew(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+          ids.set(i, firstId + batch * BATCH_SIZE + i);
+        }
+        container.setAllCount(BATCH_SIZE);
+        writer.writeBatch(0, BATCH_SIZE);
+      }
+      writer.close();
+    }
+
+    final ArgumentCaptor<byte[]> metadataCaptor = ArgumentCaptor.forClass(byte[].class);
+    verify(outputEntryListener).recordsWritten(anyLong(), anyLong(), any(), metadataCaptor.capture(), any(), any(),
+      any(), any());
+    final ArrowFileMetadata metadata =
+      ArrowFileReader.toBean(ArrowFileFormat.ArrowFileMetadata.parseFrom(metadataCaptor.getValue()));
+    // the job results are only read from the nodes they were written to
+    metadata.setScreenNodeEndpoint(new NodeEndpoint().setAddress("localhost"));
+    return metadata;
+  }
+
+  private static List<Integer> getIds(RecordBatches batches) {
+    final List<Integer> ids = Lists.newArrayList();
+    for (RecordBatchHolder holder : batches.getBatches()) {
+      final IntVector vector =
+        holder.getData().getContainer().getValueAccessorById(IntVector.class, 0).getValueVector();
+      for (int i = holder.getStart(); i < holder.getEnd(); i++) {
+        ids.add(vector.get(i));
+      }
+    }
+    return ids;
+  }
+
+  private static List<Integer> range(int start, int end) {
+    final List<Integer> ids = Lists.newArrayList();
+    for (int i = start; i < end; i++) {
+      ids.add(i);
+    }
+    return ids;
+  }
+
+  private static void release(RecordBatches batches) throws Exception {
+    AutoCloseables.close(batches.getBatches());
+  }
+
+  @Test
+  public void loadJobDataAcrossFiles() throws Exception {
+    try (JobResultsStore resultsStore = newStore()) {
+      // a page across the two files, read from the files then from the batch cache
+      for (int i = 0; i < 2; i++) {
+        final RecordBatches batches = resultsStore.loadJobData(jobId, jobResult, 6, 10);
+        assertEquals(range(6, 16), getIds(batches));
+        release(batches);
+      }
+
+      // the last batch of a file, which ends at the footer
+      final RecordBatches lastBatch = resultsStore.loadJobData(jobId, jobResult, 20, 100);
+      assertEquals(range(20, 24), getIds(lastBatch));
+      release(lastBatch);
+
+      // out of range, only the schema
+      final RecordBatches empty = resultsStore.loadJobData(jobId, jobResult, 100, 10);
+      assertEquals(0, empty.getSize());
+      assertEquals(1, empty.getSchema().getFieldCount());
+      release(empty);
+
+      // the cached batches are dropped with the job results
+      assertTrue(allocator.getAllocatedMemory() > 0);
+      resultsStore.cleanup(jobId);
+      assertEquals(0, allocator.getAllocatedMemory());
+      assertFalse(fs.exists(Path.of(folder.getRoot().toURI()).resolve("job1")));
+    }
+  }
+
+  @Test
+  public void loadJobDataReadsEachFileThroughGetQueryResults() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    try (JobResultsStore resultsStore = new JobResultsStore(
+      new JobResultsStoreConfig("__jobResultsStore", Path.of(folder.getRoot().toURI()), fs), store, allocator) {
+      @Override
+      protected List<RecordBatchHolder> getQueryResults(Path jobOutputDir, ArrowFileMetadata arrowFileMetadata,
+                                                        BufferAllocator allocator, long fileOffset,
+                                                        long fileLimit) throws IOException {
+        calls.incrementAndGet();
+        return super.getQueryResults(jobOutputDir, arrowFileMetadata, allocator, fileOffset, fileLimit);
+      }
+    }) {
+      final RecordBatches batches = resultsStore.loadJobData(jobId, jobResult, 10, 4);
+      assertEquals(range(10, 14), getIds(batches));
+      assertEquals(2, calls.get());
+      release(batches);
+    }
+  }
+
+  @Test
+  public void batchCacheEvictsTheLeastRecentlyUsedBatches() throws Exception {
+    try (JobResultsBatchCache cache = new JobResultsBatchCache(allocator, 1024)) {
+      for (long offset = 0; offset < 3; offset++) {
+        final ArrowBuf buf = cache.allocate(400);
+        assertNotNull(buf);
+        cache.put("job1", "file", offset, buf);
+        buf.close();
+      }
+
+      // only room for two of them
+      assertNull(cache.get("job1", "file", 0));
+      try (ArrowBuf buf = cache.get("job1", "file", 1)) {
+        assertNotNull(buf);
+      }
+      assertEquals(800, allocator.getAllocatedMemory());
+
+      // too large to be cached at all
+      assertNull(cache.allocate(2048));
+    }
+    assertEquals(0, allocator.getAllocatedMemory());
+  }
+
+  @Test
+  public void batchCacheKeepsEvictedBatchesUntilReleased() throws Exception {
+    try (JobResultsBatchCache cache = new JobResultsBatchCache(allocator, 1024)) {
+      final ArrowBuf first = cache.allocate(600);
+      first.setInt(0, 42);
+      cache.put("job1", "file", 0, first);
+      first.close();
+
+      // a reader holds the batch while it gets evicted
+      final ArrowBuf held = cache.get("job1", "file", 0);
+      // no room until the evicted batch is released
+      assertNull(cache.allocate(600));
+      assertNull(cache.get("job1", "file", 0));
+      assertEquals(42, held.getInt(0));
+      held.close();
+
+      final ArrowBuf second = cache.allocate(600);
+      assertNotNull(second);
+      second.close();
+
+      // the batches of a job are dropped when it is cleaned up
+      final ArrowBuf third = cache.allocate(100);
+      cache.put("job2", "file", 0, third);
+      third.close();
+      cache.invalidate("job2");
+      assertNull(cache.get("job2", "file", 0));
+      assertEquals(0, allocator.getAllocatedMemory());
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.flight.FlightClient;
+import org.apache.arrow.flight.FlightDescriptor;
+import org.apache.arrow.flight.FlightEndpoint;
+import org.apache.arrow.flight.FlightInfo;
+import org.apache.arrow.flight.FlightServer;
+import org.apache.arrow.flight.FlightStream;
+import org.apache.arrow.flight.Location;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.dremio.exec.proto.FlightProtos.CoordinatorFlightTicket;
+import com.dremio.exec.proto.FlightProtos.JobsFlightTicket;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.RecordBatchHolder;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.service.job.proto.JobId;
+import com.dremio.test.AllocatorRule;
+
+/**
+ * Tests for {@link JobsFlightProducer}
+ */
+public class TestJobsFlightProducer {
+  private static final String JOB_ID = "1234";
+  // the job results: two files, of three and two batches
+  private static final long[] FILE_RECORD_COUNTS = {15, 10};
+  private static final int BATCH_SIZE = 5;
+  private static final int RECORD_COUNT = 25;
+
+  @Rule
+  public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private static FlightDescriptor descriptor(int offset, int limit) {
+    return FlightDescriptor.command(CoordinatorFlightTicket.newBuilder()
+      .setJobsFlightTicket(JobsFlightTicket.newBuilder().setJobId(JOB_ID).setOffset(offset).setLimit(limit))
+      .build()
+      .toByteArray());
+  }
+
+  private static JobsFlightTicket ticket(FlightEndpoint endpoint) throws Exception {
+    return CoordinatorFlightTicket.parseFrom(endpoint.getTicket().getBytes()).getJobsFlightTicket();
+  }
+
+  private static void assertTicket(int offset, int limit, FlightEndpoint endpoint) throws Exception {
+    final JobsFlightTicket ticket = ticket(endpoint);
+    assertEquals(JOB_ID, ticket.getJobId());
+    assertEquals(offset, ticket.getOffset());
+    assertEquals(limit, ticket.getLimit());
+  }
+
+  @Test
+  public void flightInfoHasOneEndpointPerResultFile() throws Exception {
+    final LocalJobsService jobsService = mock(LocalJobsService.class);
+    final JobDataFragment fragment = mock(JobDataFragment.class);
+    when(fragment.getSchema()).thenReturn(BatchSchema.newBuilder()
+      .addField(Field.nullable("a", new ArrowType.Int(32, true)))
+      .build());
+    when(jobsService.getJobData(any(JobId.class), anyInt(), anyInt())).thenReturn(fragment);
+    when(jobsService.getJobResultFileRecordCounts(any(JobId.class))).thenReturn(asList(100L, 0L, 50L, 200L));
+
+    try (BufferAllocator allocator = allocatorRule.newAllocator("test-jobs-flight-producer", 0, Long.MAX_VALUE);
+         JobsFlightProducer producer = new JobsFlightProducer(() -> jobsService, allocator)) {
+      // all the records
+      FlightInfo info = producer.getFlightInfo(null, descriptor(0, 0));
+      List<FlightEndpoint> endpoints = info.getEndpoints();
+      assertEquals(350, info.getRecords());
+      assertEquals(3, endpoints.size());
+      assertTicket(0, 100, endpoints.get(0));
+      assertTicket(100, 50, endpoints.get(1));
+      assertTicket(150, 200, endpoints.get(2));
+      assertEquals(1, info.getSchema().getFields().size());
+
+      // resume from an offset, for a limited number of records
+      info = producer.getFlightInfo(null, descriptor(120, 100));
+      endpoints = info.getEndpoints();
+      assertEquals(100, info.getRecords());
+      assertEquals(2, endpoints.size());
+      assertTicket(120, 30, endpoints.get(0));
+      assertTicket(150, 70, endpoints.get(1));
+    }
+  }
+
+  /**
+   * Loads the records of the range from batches of {@link #BATCH_SIZE} ids, as the job results store does.
+   */
+  private static JobDataFragment getJobData(BufferAllocator allocator, int offset, int limit) {
+    final List<RecordBatchHolder> holders = new ArrayList<>();
+    final int end = Math.min(RECORD_COUNT, offset + limit);
+    for (int batchStart = 0; batchStart < RECORD_COUNT; batchStart += BATCH_SIZE) {
+      final int batchEnd = batchStart + BATCH_SIZE;
+      if (batchStart < end && offset < batchEnd) {
+        holders.add(RecordBatchHolder.newRecordBatchHolder(newBatch(allocator, batchStart),
+          Math.max(offset, batchStart) - batchStart, Math.min(end, batchEnd) - batchStart));
+      }
+    }
+    if (holders.isEmpty()) {
+      // only the schema
+      holders.add(RecordBatchHolder.newRecordBatchHolder(newBatch(allocator, 0), 0, 0));
+    }
+    return new JobDataFragmentImpl(new RecordBatches(holders), offset, new JobId().setId(JOB_ID));
+  }
+
+  private static RecordBatchData newBatch(BufferAllocator allocator, int firstId) {
+    try (VectorContainer container = new VectorContainer(allocator)) {
+      final IntVector ids = container.addOrGet(Field.nullable("id", new ArrowType.Int(32, true)));
+      container.buildSchema(SelectionVectorMode.NONE);
+      ids.allocateNew(BATCH_SIZE);
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        ids.set(i, firstId + i);
+      }
+      container.setAllCount(BATCH_SIZE);
+      return new RecordBatchData(container, allocator);
+    }
+  }
+
+  @Test
+  public void streamEndpointsOfMultiBatchResults() throws Exception {
+    final LocalJobsService jobsService = mock(LocalJobsService.class);
+    try (BufferAllocator allocator = allocatorRule.newAllocator("test-jobs-flight-producer", 0, Long.MAX_VALUE)) {
+      when(jobsService.getJobData(any(JobId.class), anyInt(), anyInt()))
+        .thenAnswer(invocation -> getJobData(allocator, invocation.getArgument(1), invocation.getArgument(2)));
+      when(jobsService.getJobResultFileRecordCounts(any(JobId.class)))
+        .thenReturn(asList(FILE_RECORD_COUNTS[0], FILE_RECORD_COUNTS[1]));
+
+      try (JobsFlightProducer producer = new JobsFlightProducer(() -> jobsService, allocator);
+           FlightServer server = FlightServer.builder(allocator, Location.forGrpcInsecure("localhost", 0), producer)
+             .build()
+             .start();
+           FlightClient client = FlightClient.builder(allocator, Location.forGrpcInsecure("localhost", server.getPort()))
+             .build()) {
+        // starts in the middle of a batch, so that its first batch isn't aligned
+        final FlightInfo info = client.getInfo(descriptor(7, 0));
+        assertEquals(RECORD_COUNT - 7, info.getRecords());
+        assertEquals(2, info.getEndpoints().size());
+
+        final List<Integer> ids = new ArrayList<>();
+        int batches = 0;
+        for (FlightEndpoint endpoint : info.getEndpoints()) {
+          try (FlightStream stream = client.getStream(endpoint.getTicket())) {
+            while (stream.next()) {
+              final IntVector vector = (IntVector) stream.getRoot().getVector(0);
+              for (int i = 0; i < stream.getRoot().getRowCount(); i++) {
+                ids.add(vector.get(i));
+              }
+              batches++;
+            }
+          }
+        }
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 7; i < RECORD_COUNT; i++) {
+          expected.add(i);
+        }
+        assertEquals(expected, ids);
+        // one message per batch of the results: 2 in the first file from the offset, 2 in the second one
+        assertEquals(4, batches);
+      }
+      assertEquals(0, allocator.getAllocatedMemory());
+    }
+  }
+}
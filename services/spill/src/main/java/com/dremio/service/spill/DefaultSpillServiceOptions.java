@@ -29,6 +29,7 @@ public class DefaultSpillServiceOptions implements SpillServiceOptions {
   public static final long HEALTH_CHECK_INTERVAL = 60 * 1000;
   public static final long SPILL_SWEEP_INTERVAL = 60 * 60 * 1000;             // spill sweep once an hour
   public static final long SPILL_SWEEP_THRESHOLD = 7L * 24 * 60 * 60 * 1000;  // remove spills older than one week
+  public static final double SLOW_DIRECTORY_FACTOR = 4.0;
 
   @VisibleForTesting
   public DefaultSpillServiceOptions() {}
@@ -62,4 +63,9 @@ public class DefaultSpillServiceOptions implements SpillServiceOptions {
   public long spillSweepThreshold() {
     return SPILL_SWEEP_THRESHOLD;
   }
+
+  @Override
+  public double slowDirectoryFactor() {
+    return SLOW_DIRECTORY_FACTOR;
+  }
 }
@@ -24,10 +24,16 @@ import org.apache.hadoop.fs.Path;
 public final class SpillDirectory {
   private final Path spillDirPath;
   private final FileSystem fileSystem;
+  private final SpillDirectoryStats stats;
 
   public SpillDirectory(Path spillDir, FileSystem fileSystem) {
+    this(spillDir, fileSystem, null);
+  }
+
+  public SpillDirectory(Path spillDir, FileSystem fileSystem, SpillDirectoryStats stats) {
     this.spillDirPath = spillDir;
     this.fileSystem = fileSystem;
+    this.stats = stats;
   }
 
   public Path getSpillDirPath() {
@@ -38,6 +44,13 @@ public final class SpillDirectory {
     return fileSystem;
   }
 
+  /**
+   * Record the creation of a spill file in this directory, see {@link SpillDirectoryStats#writeStarted()}
+   */
+  public SpillDirectoryStats.Write writeStarted() {
+    return stats != null ? stats.writeStarted() : SpillDirectoryStats.Write.NONE;
+  }
+
   @Override
   public String toString() {
     return spillDirPath.toString();
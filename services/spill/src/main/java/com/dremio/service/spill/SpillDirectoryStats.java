@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.spill;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics of a spill directory, shared by all the spills of the node.
+ *
+ * Writers report the files they write, which gives the write bandwidth of the directory and the number of files being
+ * written to it (its queue depth). The health check reports the free space of the directory, and when it was checked.
+ */
+public final class SpillDirectoryStats {
+  // weight of the latest file in the write bandwidth
+  private static final double BANDWIDTH_WEIGHT = 0.2;
+  // files smaller than this are too short to measure the bandwidth of the disk
+  private static final long MIN_BANDWIDTH_SAMPLE_BYTES = 1024 * 1024;
+
+  private final String path;
+  private final AtomicLong filesCreated = new AtomicLong();
+  private final AtomicInteger activeWriters = new AtomicInteger();
+  private final AtomicLong bytesWritten = new AtomicLong();
+  private final AtomicLong writeNanos = new AtomicLong();
+  private double writeBandwidth;
+
+  private volatile boolean healthy = true;
+  private volatile long freeSpace = -1;
+  private volatile long totalSpace = -1;
+  private volatile long lastHealthCheckMillis;
+
+  public SpillDirectoryStats(String path) {
+    this.path = path;
+  }
+
+  /**
+   * Record the creation of a spill file in this directory.
+   *
+   * @return the write of the file, which must be completed once the file is closed, or abandoned if it fails before
+   */
+  public Write writeStarted() {
+    filesCreated.incrementAndGet();
+    activeWriters.incrementAndGet();
+    return new Write(this);
+  }
+
+  private void writeCompleted(long bytes, long nanos) {
+    bytesWritten.addAndGet(bytes);
+    writeNanos.addAndGet(nanos);
+    if (bytes >= MIN_BANDWIDTH_SAMPLE_BYTES && nanos > 0) {
+      final double bandwidth = bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+      synchronized (this) {
+        writeBandwidth = writeBandwidth == 0 ? bandwidth
+          : BANDWIDTH_WEIGHT * bandwidth + (1 - BANDWIDTH_WEIGHT) * writeBandwidth;
+      }
+    }
+  }
+
+  void setHealthy(boolean healthy) {
+    this.healthy = healthy;
+  }
+
+  void updateSpace(long freeSpace, long totalSpace) {
+    this.freeSpace = freeSpace;
+    this.totalSpace = totalSpace;
+    this.lastHealthCheckMillis = System.currentTimeMillis();
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public long getFilesCreated() {
+    return filesCreated.get();
+  }
+
+  public int getActiveWriters() {
+    return activeWriters.get();
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  public long getWriteNanos() {
+    return writeNanos.get();
+  }
+
+  /**
+   * @return moving average of the write bandwidth of the recent spill files, in bytes per second, or 0 if not known yet
+   */
+  public synchronized double getWriteBandwidth() {
+    return writeBandwidth;
+  }
+
+  public boolean isHealthy() {
+    return healthy;
+  }
+
+  /**
+   * @return time of the last check of the free space, 0 if never checked
+   */
+  public long getLastHealthCheckMillis() {
+    return lastHealthCheckMillis;
+  }
+
+  /**
+   * @return free space of the disk, in bytes, or -1 if not known (the health check is disabled for this directory)
+   */
+  public long getFreeSpace() {
+    return freeSpace;
+  }
+
+  /**
+   * @return total space of the disk, in bytes, or -1 if not known (the health check is disabled for this directory)
+   */
+  public long getTotalSpace() {
+    return totalSpace;
+  }
+
+  /**
+   * Write of a spill file, counted as active in its directory till it is either completed or abandoned, only once.
+   */
+  public static final class Write {
+    // write to a directory without statistics
+    public static final Write NONE = new Write(null);
+
+    private final SpillDirectoryStats stats;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private Write(SpillDirectoryStats stats) {
+      this.stats = stats;
+    }
+
+    /**
+     * Record the completion of the file.
+     *
+     * @param bytes number of bytes written to the file
+     * @param nanos time spent writing them to disk
+     */
+    public void completed(long bytes, long nanos) {
+      if (stats != null && done.compareAndSet(false, true)) {
+        stats.activeWriters.decrementAndGet();
+        stats.writeCompleted(bytes, nanos);
+      }
+    }
+
+    /**
+     * Record that the file won't be written anymore, without a measure of the write bandwidth.
+     */
+    public void abandoned() {
+      if (stats != null && done.compareAndSet(false, true)) {
+        stats.activeWriters.decrementAndGet();
+      }
+    }
+  }
+}
@@ -16,6 +16,7 @@
 package com.dremio.service.spill;
 
 import java.io.IOException;
+import java.util.List;
 
 import com.dremio.common.exceptions.UserException;
 import com.dremio.service.Service;
@@ -45,13 +46,19 @@ public interface SpillService extends Service {
   void deleteSpillSubdirs(String id);
 
   /**
-   * Returns a random (healthy) spill sub-directory
+   * Returns a healthy spill sub-directory. Successive calls for the same id are striped across the directories that
+   * are not much slower, or more loaded, than the best one
    * @param id Parameter that matches the id used in {@link #makeSpillSubdirs(String)}
    * @throws UserException Will throw a UserException.dataWriteError() if unable to find a single healthy sub-directory
    */
   @Deprecated
   SpillDirectory getSpillSubdir(String id) throws UserException;
 
+  /**
+   * @return live statistics of each of the spill directories of this node, in configuration order
+   */
+  List<SpillDirectoryStats> getSpillDirectoryStats();
+
   /**
    * Checks if spill is empty.
    *
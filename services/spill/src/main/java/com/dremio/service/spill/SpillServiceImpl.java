@@ -21,10 +21,14 @@ import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -48,6 +52,7 @@ import com.dremio.exec.store.LocalSyncableFileSystem;
 import com.dremio.service.scheduler.Cancellable;
 import com.dremio.service.scheduler.Schedule;
 import com.dremio.service.scheduler.SchedulerService;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 /**
@@ -71,12 +76,21 @@ public class SpillServiceImpl implements SpillService {
     SPILLING_CONFIG.set(FileSystem.FS_DEFAULT_NAME_KEY, FileSystem.DEFAULT_FS);
   }
   private static final FsPermission PERMISSIONS = new FsPermission(FsAction.ALL, FsAction.NONE, FsAction.NONE);
+  // how long the free space of a spill directory checked when creating a spill file is trusted
+  private static final long HEALTH_CHECK_TTL_MILLIS = 1000;
+  // one in this many spill files that would skip the slow spill directories goes to one of them instead
+  private static final int SLOW_DIRECTORY_PROBE_INTERVAL = 16;
 
   private final ArrayList<String> spillDirs;
   private final SpillServiceOptions options;
   private final Provider<SchedulerService> schedulerService;
   private final TemporaryFolderManager folderManager;
   private final Map<String, Path> monitoredSpillDirectoryMap;
+  private final Map<String, SpillDirectoryStats> directoryStats;
+  // next stripe of each spill id, so that the spill files of an operator are spread across the spill directories
+  private final Map<String, AtomicInteger> stripes = new ConcurrentHashMap<>();
+  private final AtomicInteger sharedStripe = new AtomicInteger();
+  private final AtomicInteger slowDirectorySkips = new AtomicInteger();
 
   private long minDiskSpace;
   private double minDiskSpacePercentage;
@@ -124,6 +138,11 @@ public class SpillServiceImpl implements SpillService {
     // healthySpillDirs set at start()
     this.healthySpillDirs = Lists.newArrayList();
     this.monitoredSpillDirectoryMap = new ConcurrentHashMap<>();
+    final Map<String, SpillDirectoryStats> stats = new LinkedHashMap<>();
+    for (String spillDir : this.spillDirs) {
+      stats.putIfAbsent(spillDir, new SpillDirectoryStats(spillDir));
+    }
+    this.directoryStats = Collections.unmodifiableMap(stats);
     final Supplier<Set<ExecutorId>> nodesConverter =
       (nodesProvider == null) ? null : () -> convertEndpointsToId(nodesProvider);
     final Supplier<ExecutorId> identityConverter =
@@ -159,9 +178,11 @@ public class SpillServiceImpl implements SpillService {
             healthySpillDirs.add(spillDir);
           }
         } else {
+          directoryStats.get(spillDir).setHealthy(false);
           logger.warn("Unable to find or create spill directory {} due to lack of permissions", spillDir);
         }
       } catch (Exception e) {
+        directoryStats.get(spillDir).setHealthy(false);
         logger.info("Sub directory creation in spill directory {} hit a temporary error `{}` " +
             "and is not added to healthy list. Will monitor periodically", spillDir, e.getMessage());
       }
@@ -187,6 +208,10 @@ public class SpillServiceImpl implements SpillService {
   public void makeSpillSubdirs(String id) throws UserException {
     //TODO: use only the healthy spill directories, once health checks implemented (shortly!). Reviewer: if you see this code, ask Vanco to fix it!
     ArrayList<String> healthySpillDirs = this.healthySpillDirs;
+    if (!spillDirs.isEmpty()) {
+      // start at a random directory, so that the first spill files of concurrent operators go to different disks
+      stripes.put(id, new AtomicInteger(ThreadLocalRandom.current().nextInt(spillDirs.size())));
+    }
 
     // Create spill directories for each disk.
     for (String directory : healthySpillDirs) {
@@ -214,6 +239,7 @@ public class SpillServiceImpl implements SpillService {
 
   @Override
   public void deleteSpillSubdirs(String id) {
+    stripes.remove(id);
     // Delete the spill directory for each disk. Intentionally deleting
     for (String directory : spillDirs) {
       try {
@@ -247,26 +273,37 @@ public class SpillServiceImpl implements SpillService {
 
   @Override
   public SpillDirectory getSpillSubdir(String id) throws UserException {
-    ArrayList<String> currentSpillDirs = Lists.newArrayList(spillDirs);
-    while (!currentSpillDirs.isEmpty()) {
-      // pick a random spill directory
-      final int index = ThreadLocalRandom.current().nextInt(currentSpillDirs.size());
-      final String spillDir = currentSpillDirs.get(index);
+    final List<String> candidates = Lists.newArrayList();
+    for (String spillDir : spillDirs) {
+      if (monitoredSpillDirectoryMap.containsKey(spillDir) && isRecentlyHealthy(spillDir)) {
+        candidates.add(spillDir);
+      }
+    }
+
+    final AtomicInteger stripe = stripes.getOrDefault(id, sharedStripe);
+    while (!candidates.isEmpty()) {
+      List<String> eligible = getFastSpillDirs(candidates);
+      if (eligible.size() < candidates.size()
+        && Math.floorMod(slowDirectorySkips.incrementAndGet(), SLOW_DIRECTORY_PROBE_INTERVAL) == 0) {
+        // the bandwidth of a directory is only measured by writing to it: send a file to the skipped directories now
+        // and then, so that they get used again once they are no longer slow
+        final List<String> skipped = Lists.newArrayList(candidates);
+        skipped.removeAll(eligible);
+        eligible = skipped;
+      }
+      final String spillDir = eligible.get(Math.floorMod(stripe.getAndIncrement(), eligible.size()));
 
       final Path spillDirPath = new Path(spillDir);
       final Path monitoredPath = monitoredSpillDirectoryMap.get(spillDir);
-      if (isHealthy(spillDirPath) && monitoredPath != null) {
-        try {
-          //TODO: track number of spills created in 'spillDir'
-          FileSystem fileSystem = spillDirPath.getFileSystem(SPILLING_CONFIG);
-          final Path spillSubdir = new Path(monitoredPath, id);
-          return new SpillDirectory(spillSubdir, fileSystem);
-        } catch (IOException e) {
-          // Ignore this 'spillDir'. Still consider the others
-        }
+      try {
+        FileSystem fileSystem = spillDirPath.getFileSystem(SPILLING_CONFIG);
+        final Path spillSubdir = new Path(monitoredPath, id);
+        return new SpillDirectory(spillSubdir, fileSystem, directoryStats.get(spillDir));
+      } catch (IOException e) {
+        // Ignore this 'spillDir'. Still consider the others
       }
       // Hm... 'spillDir' didn't work out. Let's consider the others
-      currentSpillDirs.remove(index);
+      candidates.remove(spillDir);
     }
     // TODO: withContextParameters()
     throw UserException.dataWriteError()
@@ -276,16 +313,72 @@ public class SpillServiceImpl implements SpillService {
       .build(logger);
   }
 
-  private boolean isHealthy(Path spillDirPath) {
+  @Override
+  public List<SpillDirectoryStats> getSpillDirectoryStats() {
+    return ImmutableList.copyOf(directoryStats.values());
+  }
+
+  /**
+   * Filter out the spill directories that are too slow, or too busy, compared to the best one.
+   *
+   * The expected time to write a file to a directory is the number of files being written to it, plus the new one,
+   * over its recent write bandwidth. Directories with no known bandwidth yet are assumed to be as fast as the fastest
+   * one, so that they get used and measured. The skipped directories still get a probe file now and then, see
+   * {@link #SLOW_DIRECTORY_PROBE_INTERVAL}.
+   */
+  private List<String> getFastSpillDirs(List<String> candidates) {
+    double maxBandwidth = 0;
+    for (String spillDir : candidates) {
+      maxBandwidth = Math.max(maxBandwidth, directoryStats.get(spillDir).getWriteBandwidth());
+    }
+    final double defaultBandwidth = maxBandwidth > 0 ? maxBandwidth : 1;
+
+    final double[] writeTimes = new double[candidates.size()];
+    double minWriteTime = Double.MAX_VALUE;
+    for (int i = 0; i < candidates.size(); i++) {
+      final SpillDirectoryStats stats = directoryStats.get(candidates.get(i));
+      final double bandwidth = stats.getWriteBandwidth() > 0 ? stats.getWriteBandwidth() : defaultBandwidth;
+      writeTimes[i] = (Math.max(0, stats.getActiveWriters()) + 1) / bandwidth;
+      minWriteTime = Math.min(minWriteTime, writeTimes[i]);
+    }
+
+    final double maxWriteTime = minWriteTime * Math.max(1.0, options.slowDirectoryFactor());
+    final List<String> eligible = Lists.newArrayList();
+    for (int i = 0; i < candidates.size(); i++) {
+      if (writeTimes[i] <= maxWriteTime) {
+        eligible.add(candidates.get(i));
+      }
+    }
+    return eligible;
+  }
+
+  /**
+   * @return the result of the last health check of the directory if it is recent enough, so that the free space of
+   * every directory isn't checked each time a spill file is created
+   */
+  private boolean isRecentlyHealthy(String spillDir) {
+    final SpillDirectoryStats stats = directoryStats.get(spillDir);
+    if (healthCheckEnabled
+      && System.currentTimeMillis() - stats.getLastHealthCheckMillis() < HEALTH_CHECK_TTL_MILLIS) {
+      return stats.isHealthy();
+    }
+    return isHealthy(spillDir);
+  }
+
+  private boolean isHealthy(String spillDir) {
     if (healthCheckEnabled) {
+      final Path spillDirPath = new Path(spillDir);
       final File disk = new File(Path.getPathWithoutSchemeAndAuthority(spillDirPath).toString());
-      final double totalSpace = (double) disk.getTotalSpace();
+      final long totalSpace = disk.getTotalSpace();
       minDiskSpace = options.minDiskSpace();
       minDiskSpacePercentage = options.minDiskSpacePercentage();
       logger.debug("Check isHealthy for {} minDiskSpace: {} minDiskSpacePercentage: {}",
         spillDirPath.getName(), minDiskSpace, minDiskSpacePercentage);
       final long threshold = Math.max((long) ((totalSpace / 100.0) * minDiskSpacePercentage), minDiskSpace);
       final long available = disk.getFreeSpace();
+      final SpillDirectoryStats stats = directoryStats.get(spillDir);
+      stats.setHealthy(available >= threshold);
+      stats.updateSpace(available, totalSpace);
       if (available < threshold) {
         return false;
       }
@@ -329,7 +422,7 @@ public class SpillServiceImpl implements SpillService {
       ArrayList<String> newHealthySpillDirs = Lists.newArrayList();
       for (String spillDir : spillDirs) {
         final Path spillDirPath = new Path(spillDir);
-        if (isHealthy(spillDirPath)) {
+        if (isHealthy(spillDir)) {
           boolean healthy = true;
           if (!monitoredSpillDirectoryMap.containsKey(spillDir)) {
             try {
@@ -343,6 +436,8 @@ public class SpillServiceImpl implements SpillService {
           }
           if (healthy) {
             newHealthySpillDirs.add(spillDir);
+          } else {
+            directoryStats.get(spillDir).setHealthy(false);
           }
         }
       }
@@ -372,6 +467,7 @@ public class SpillServiceImpl implements SpillService {
           LocatedFileStatus st = files.next();
           if (st.getModificationTime() <= targetTime) {
             fileSystem.delete(st.getPath(), true);
+            stripes.remove(st.getPath().getName());
           }
         }
       } catch (IOException e) {
@@ -55,4 +55,10 @@ public interface SpillServiceOptions {
    * will be erased. This is useful for limiting the detritus remaining from unresponsive spill drives.
    */
   long spillSweepThreshold();
+
+  /**
+   * A spill directory is not used for new spill files while its expected write time, given its recent write bandwidth
+   * and the number of files being written to it, is more than this factor of the best spill directory's.
+   */
+  double slowDirectoryFactor();
 }
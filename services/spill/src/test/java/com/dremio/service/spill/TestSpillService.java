@@ -17,10 +17,13 @@ package com.dremio.service.spill;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Provider;
 
@@ -89,6 +92,18 @@ public class TestSpillService {
     }
   }
 
+  class NoSpaceLimitSpillServiceOptions extends DefaultSpillServiceOptions {
+    @Override
+    public long minDiskSpace() {
+      return 0;
+    }
+
+    @Override
+    public double minDiskSpacePercentage() {
+      return 0;
+    }
+  }
+
   /**
    * Unit test of the spill service's health check
    */
@@ -127,4 +142,84 @@ public class TestSpillService {
 
     spillService.close();
   }
+
+  /**
+   * Spill files of an id are striped across the spill directories, except the ones that are much slower than the others
+   */
+  @Test
+  public void testSpillPlacement() throws Exception {
+    final DremioConfig config = mock(DremioConfig.class);
+    final File spillDir1 = spillParentDir.newFolder();
+    final File spillDir2 = spillParentDir.newFolder();
+    when(config.getStringList(DremioConfig.SPILLING_PATH_STRING))
+      .thenReturn(ImmutableList.of(spillDir1.getPath(), spillDir2.getPath()));
+    final NoopScheduler schedulerService = new NoopScheduler();
+    final SpillService spillService = new SpillServiceImpl(config, new NoSpaceLimitSpillServiceOptions(),
+      () -> schedulerService);
+    spillService.start();
+    spillService.makeSpillSubdirs("test");
+
+    // no bandwidth known yet: files alternate between the two directories
+    final SpillDirectory first = spillService.getSpillSubdir("test");
+    final SpillDirectory second = spillService.getSpillSubdir("test");
+    assertNotEquals(first.getSpillDirPath().getParent(), second.getSpillDirPath().getParent());
+    assertEquals(first.getSpillDirPath(), spillService.getSpillSubdir("test").getSpillDirPath());
+
+    // the first directory writes at 1GB/s, the second one at 10MB/s
+    final long bytes = 100 * 1024 * 1024;
+    first.writeStarted().completed(bytes, TimeUnit.MILLISECONDS.toNanos(100));
+    second.writeStarted().completed(bytes, TimeUnit.SECONDS.toNanos(10));
+    for (int i = 0; i < 4; i++) {
+      assertEquals(first.getSpillDirPath(), spillService.getSpillSubdir("test").getSpillDirPath());
+    }
+
+    final List<SpillDirectoryStats> stats = spillService.getSpillDirectoryStats();
+    assertEquals(2, stats.size());
+    for (SpillDirectoryStats directoryStats : stats) {
+      assertEquals(1, directoryStats.getFilesCreated());
+      assertEquals(0, directoryStats.getActiveWriters());
+      assertEquals(bytes, directoryStats.getBytesWritten());
+      assertTrue(directoryStats.isHealthy());
+      assertTrue(directoryStats.getFreeSpace() >= 0);
+    }
+
+    // the slow directory still gets one probe file in 16, so that its bandwidth is measured again
+    int probes = 0;
+    for (int i = 0; i < 16; i++) {
+      if (second.getSpillDirPath().equals(spillService.getSpillSubdir("test").getSpillDirPath())) {
+        probes++;
+      }
+    }
+    assertEquals(1, probes);
+
+    spillService.deleteSpillSubdirs("test");
+    spillService.close();
+  }
+
+  /**
+   * A write is only counted as active once, till it is either completed or abandoned
+   */
+  @Test
+  public void testActiveWritersCountedOnce() {
+    final SpillDirectoryStats stats = new SpillDirectoryStats("/tmp/spill");
+    final SpillDirectoryStats.Write completed = stats.writeStarted();
+    final SpillDirectoryStats.Write abandoned = stats.writeStarted();
+    assertEquals(2, stats.getActiveWriters());
+
+    completed.completed(10, 10);
+    completed.completed(10, 10);
+    completed.abandoned();
+    assertEquals(1, stats.getActiveWriters());
+    assertEquals(10, stats.getBytesWritten());
+
+    abandoned.abandoned();
+    abandoned.completed(10, 10);
+    assertEquals(0, stats.getActiveWriters());
+    assertEquals(10, stats.getBytesWritten());
+    assertEquals(2, stats.getFilesCreated());
+
+    // directories without statistics
+    SpillDirectoryStats.Write.NONE.completed(10, 10);
+    SpillDirectoryStats.Write.NONE.abandoned();
+  }
 }